@@ -1,5 +1,7 @@
+import controller.CachedInputParser;
+import controller.IInputParser;
 import controller.IPhotoAlbumController;
-import controller.InputParser;
+import controller.MappedInputParser;
 import controller.PhotoAlbumControllerGUI;
 import controller.PhotoAlbumControllerText;
 import java.io.FileInputStream;
@@ -9,9 +11,12 @@ import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.function.BiFunction;
 import java.util.function.Function;
 import java.io.File;
+import model.ConcurrentPhotoAlbumApp;
 import model.PhotoAlbumApp;
 import view.GUI.PhotoAlbumViewGUI;
 import view.HTML.PhotoAlbumViewHTML;
@@ -41,6 +46,8 @@ public class PhotoAlbumMain {
   private static Map<String, List<String>> optionToValues = new HashMap<>();
 
   private static boolean DEBUG_MODE = false;
+  //Number of snapshots rendered ahead on each side of the displayed one in the graphical view.
+  private static final int PREFETCH_RADIUS = 2;
 
   /**
    * The entry point of MVC (Main).
@@ -73,21 +80,47 @@ public class PhotoAlbumMain {
         } else {
           outputFile = new File(optionToValues.get("-out").get(0));
         }
+        //With a cache directory, each script is only parsed the first time it's run.
+        IInputParser inputParser;
+        if (optionToValues.get("-cache").size() == 0) {
+          inputParser = new MappedInputParser();
+        } else {
+          inputParser = new CachedInputParser(new File(optionToValues.get("-cache").get(0)));
+        }
 
         //Based on view option, launch accordingly.
         if (viewOption.equals("graphical")) {
-          IPhotoAlbumController photoAlbumController = new PhotoAlbumControllerGUI(new PhotoAlbumApp(),
-              new PhotoAlbumViewGUI(viewScreenXDim, viewScreenYDim), new FileInputStream(inputFile), new InputParser());
+          //The album is loaded by a background thread while the GUI displays it,
+          //and snapshots are prefetched by another one.
+          IPhotoAlbumController photoAlbumController = new PhotoAlbumControllerGUI(
+              new ConcurrentPhotoAlbumApp(new PhotoAlbumApp()),
+              new PhotoAlbumViewGUI(viewScreenXDim, viewScreenYDim), new FileInputStream(inputFile), inputParser,
+              backgroundExecutor("album-loader"), backgroundExecutor("snapshot-prefetch"), PREFETCH_RADIUS);
           photoAlbumController.go();
         } else {
           IPhotoAlbumController photoAlbumController = new PhotoAlbumControllerText(new PhotoAlbumApp(),
-              new PhotoAlbumViewHTML(viewScreenXDim, viewScreenYDim), new PrintWriter(outputFile), new FileInputStream(inputFile), new InputParser());
+              new PhotoAlbumViewHTML(viewScreenXDim, viewScreenYDim), new PrintWriter(outputFile), new FileInputStream(inputFile), inputParser);
           photoAlbumController.go();
         }
       }
     }
   }
 
+  /**
+   * Creates an executor that runs tasks one at a time on a daemon thread,
+   * so that it doesn't keep the program running after the window is closed.
+   *
+   * @param threadName name of the thread
+   * @return executor
+   */
+  private static ExecutorService backgroundExecutor(String threadName) {
+    return Executors.newSingleThreadExecutor(runnable -> {
+      Thread thread = new Thread(runnable, threadName);
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
   /**
    * Initiates all data structures used for parsing console arguments.
    */
@@ -95,9 +128,11 @@ public class PhotoAlbumMain {
     namedOptionToValidationFunction.put("-in", PhotoAlbumMain::validInputFile);
     namedOptionToValidationFunction.put("-out", PhotoAlbumMain::validOutputFile);
     namedOptionToValidationFunction.put("-view", PhotoAlbumMain::validView);
+    namedOptionToValidationFunction.put("-cache", PhotoAlbumMain::validCacheDirectory);
     namedOptionNameList.add("-in");
     namedOptionNameList.add("-out");
     namedOptionNameList.add("-view");
+    namedOptionNameList.add("-cache");
     unnamedOptionValidationFunctionList.add(PhotoAlbumMain::validScreenDimension);
     unnamedOptionNameList.add("-dimension");
 
@@ -222,6 +257,18 @@ public class PhotoAlbumMain {
         || viewMode.equalsIgnoreCase("web");
   }
 
+  /**
+   * Validates the value provided to the option "-cache", which should be a directory,
+   * or a path where one can be created.
+   *
+   * @param directoryName directory of the compiled scripts
+   * @return true if valid
+   */
+  private static boolean validCacheDirectory(String directoryName) {
+    File directory = new File(directoryName);
+    return directory.isDirectory() || !directory.exists();
+  }
+
   /**
    * Validates the value provided to the canvas's dimension for drawing shapes.
    * Both values provided must be integers.
@@ -0,0 +1,78 @@
+package controller;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import model.IPhotoAlbumApp;
+
+/**
+ * An input parser for the same commands as InputParser, that tokenizes the UTF-8 bytes of the
+ * input directly instead of going through a Scanner, strings and regular expressions.
+ * Commands are recognized from their bytes, numbers are parsed from their bytes, and shape
+ * names are decoded once and then reused, so a line usually creates no object at all.
+ * It populates the model exactly as InputParser does: lines end with \n, \r, \r\n, U+0085,
+ * U+2028 or U+2029, commands ignore case, unknown commands are skipped, and a missing
+ * parameter or a bad number throws the same exception.
+ * The difference is that the input is always read as UTF-8, while InputParser uses the
+ * default charset (UTF-8 since Java 18).
+ */
+public class ByteInputParser implements IInputParser {
+
+  /**
+   * Parses the commands coming from the input stream and populate model,
+   * reporting the progress to a listener after each line.
+   *
+   * @param in input stream
+   * @param model model
+   * @param listener progress listener
+   * @throws IllegalArgumentException if any parameter is null
+   * @throws UncheckedIOException if the input stream can't be read
+   */
+  @Override
+  public void parse(InputStream in, IPhotoAlbumApp model, IParseProgressListener listener) {
+    if (in == null || model == null || listener == null) {
+      throw new IllegalArgumentException("Parameter can't be null");
+    }
+    this.parse(in, new CommandReader.ModelTarget(model), listener);
+  }
+
+  /**
+   * Parses the commands coming from the input stream into a command target, reporting the
+   * progress to a listener after each line.
+   *
+   * @param in input stream
+   * @param target target of the commands
+   * @param listener progress listener
+   * @throws UncheckedIOException if the input stream can't be read
+   */
+  void parse(InputStream in, ICommandTarget target, IParseProgressListener listener) {
+    try {
+      new StreamCommandReader(in, target).readAll(listener);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * A command reader that reads an input stream.
+   */
+  private static class StreamCommandReader extends CommandReader {
+    private final InputStream in;
+
+    /**
+     * Constructor.
+     *
+     * @param in input stream
+     * @param target target of the commands
+     */
+    private StreamCommandReader(InputStream in, ICommandTarget target) {
+      super(target);
+      this.in = in;
+    }
+
+    @Override
+    protected int read(byte[] bytes, int offset, int length) throws IOException {
+      return in.read(bytes, offset, length);
+    }
+  }
+}
@@ -0,0 +1,502 @@
+package controller;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+import model.IPhotoAlbumApp;
+
+/**
+ * An input parser like ByteInputParser, that keeps the scripts it parses compiled in a cache
+ * directory, so that running the same script again doesn't parse it again.
+ * A compiled script holds the typed commands of the script in batches of about a megabyte of
+ * the script, with each distinct shape name and description of a batch stored once, and the
+ * end of each line to report the progress. It's named after the SHA-256 hash of the script, so
+ * an edited script is compiled again, and identical scripts share it.
+ * When the input is a file, it's hashed from the file before anything is parsed. On a cache
+ * hit, the batches are read back and applied one at a time. On a miss, the file is parsed by a
+ * MappedInputParser, and the commands are recorded into the compiled script as they're
+ * applied. Other inputs can't be read twice, so they're always parsed by a ByteInputParser,
+ * hashed as they're read, and compiled for the next runs of the script from a file.
+ * A compiled script that can't be read, is corrupt or is from another version is ignored and
+ * written again. Scripts that fail to parse aren't cached, and failing to write the cache
+ * doesn't fail the parsing.
+ */
+public class CachedInputParser implements IInputParser {
+  private static final String EXTENSION = ".album";
+  //"ALBM", then the version of the format.
+  private static final int MAGIC = 0x414c424d;
+  private static final int VERSION = 2;
+  //Magic, version, CRC-32 of the batches and length of the script.
+  private static final int HEADER_SIZE = 24;
+  private static final int DEFAULT_BATCH_SIZE = 1 << 20;
+
+  private final Path directory;
+  private final int batchSize;
+
+  /**
+   * Constructor for a parser that compiles batches of about a megabyte of the script.
+   *
+   * @param directory directory of the compiled scripts. It's created if it doesn't exist.
+   * @throws IllegalArgumentException if directory is null
+   */
+  public CachedInputParser(File directory) {
+    this(directory, DEFAULT_BATCH_SIZE);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param directory directory of the compiled scripts. It's created if it doesn't exist.
+   * @param batchSize number of bytes of the script after which a batch ends, at the end of the
+   *                  line
+   * @throws IllegalArgumentException if directory is null, or batchSize isn't positive
+   */
+  public CachedInputParser(File directory, int batchSize) {
+    if (directory == null) {
+      throw new IllegalArgumentException("Parameter can't be null");
+    }
+    if (batchSize <= 0) {
+      throw new IllegalArgumentException("Batch size must be positive");
+    }
+    this.directory = directory.toPath();
+    this.batchSize = batchSize;
+  }
+
+  /**
+   * Returns the file of the compiled script of a script, whether it exists or not.
+   *
+   * @param script bytes of the script
+   * @return file of the compiled script
+   * @throws IllegalArgumentException if script is null
+   */
+  public File getCompiledFile(byte[] script) {
+    if (script == null) {
+      throw new IllegalArgumentException("Parameter can't be null");
+    }
+    return this.compiledPath(newDigest().digest(script)).toFile();
+  }
+
+  /**
+   * Parses the commands coming from the input stream and populate model,
+   * reporting the progress to a listener after each line.
+   * A file is parsed from its current position, and is at its end afterwards.
+   *
+   * @param in input stream
+   * @param model model
+   * @param listener progress listener
+   * @throws IllegalArgumentException if any parameter is null
+   * @throws UncheckedIOException if the input stream can't be read
+   */
+  @Override
+  public void parse(InputStream in, IPhotoAlbumApp model, IParseProgressListener listener) {
+    if (in == null || model == null || listener == null) {
+      throw new IllegalArgumentException("Parameter can't be null");
+    }
+    try {
+      //Subclasses of FileInputStream may change the bytes they read, and pipes and devices
+      //have no size, so they're read as streams like in MappedInputParser.
+      if (in.getClass() == FileInputStream.class
+          && ((FileInputStream) in).getChannel().size() > 0) {
+        this.parseFile((FileInputStream) in, model, listener);
+      } else {
+        this.parseStream(in, model, listener);
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Parses a file from its compiled script if there's a valid one, or else parses the file and
+   * compiles it.
+   *
+   * @param in input stream of the file
+   * @param model model
+   * @param listener progress listener
+   * @throws IOException if the file or the compiled script can't be read
+   */
+  private void parseFile(FileInputStream in, IPhotoAlbumApp model,
+                         IParseProgressListener listener) throws IOException {
+    FileChannel channel = in.getChannel();
+    long start = channel.position();
+    long end = Math.max(start, channel.size());
+    Path compiled = this.compiledPath(hash(channel, start, end));
+    try (FileChannel cache = openCompiled(compiled, end - start)) {
+      if (cache != null) {
+        try {
+          applyCompiled(cache, model, listener);
+        } finally {
+          channel.position(channel.size());
+        }
+        return;
+      }
+    }
+    Recorder recorder = new Recorder(new CommandReader.ModelTarget(model), listener);
+    try {
+      new MappedInputParser().parse(in, recorder, recorder);
+      recorder.store(compiled);
+    } finally {
+      recorder.discard();
+    }
+  }
+
+  /**
+   * Parses a stream, and compiles it once it's all read.
+   *
+   * @param in input stream
+   * @param model model
+   * @param listener progress listener
+   */
+  private void parseStream(InputStream in, IPhotoAlbumApp model,
+                           IParseProgressListener listener) {
+    DigestInputStream digestIn = new DigestInputStream(in, newDigest());
+    Recorder recorder = new Recorder(new CommandReader.ModelTarget(model), listener);
+    try {
+      new ByteInputParser().parse(digestIn, recorder, recorder);
+      recorder.store(this.compiledPath(digestIn.getMessageDigest().digest()));
+    } finally {
+      recorder.discard();
+    }
+  }
+
+  /**
+   * Returns the path of the compiled script of a script.
+   *
+   * @param hash SHA-256 hash of the script
+   * @return path of the compiled script
+   */
+  private Path compiledPath(byte[] hash) {
+    return directory.resolve(HexFormat.of().formatHex(hash) + EXTENSION);
+  }
+
+  /**
+   * Returns a new SHA-256 message digest.
+   *
+   * @return message digest
+   */
+  private static MessageDigest newDigest() {
+    try {
+      return MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      //Never happens, every Java platform has SHA-256.
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * Hashes a part of a file without moving its position.
+   *
+   * @param channel channel of the file
+   * @param start position of the first byte
+   * @param end position after the last byte
+   * @return SHA-256 hash of the bytes
+   * @throws IOException if the file can't be read
+   */
+  private static byte[] hash(FileChannel channel, long start, long end) throws IOException {
+    MessageDigest digest = newDigest();
+    ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+    long position = start;
+    while (position < end) {
+      buffer.clear();
+      int n = channel.read(buffer, position);
+      if (n < 0) {
+        break;
+      }
+      buffer.flip();
+      digest.update(buffer);
+      position += n;
+    }
+    return digest.digest();
+  }
+
+  /**
+   * Opens a compiled script and checks it all before anything is applied from it.
+   *
+   * @param compiled file of the compiled script
+   * @param scriptLength length of the script in bytes
+   * @return channel of the compiled script, or null if the file doesn't exist or isn't valid
+   */
+  private static FileChannel openCompiled(Path compiled, long scriptLength) {
+    if (!Files.isRegularFile(compiled)) {
+      return null;
+    }
+    FileChannel channel = null;
+    try {
+      channel = FileChannel.open(compiled, StandardOpenOption.READ);
+      long size = channel.size();
+      DataInputStream header = new DataInputStream(Channels.newInputStream(channel));
+      if (size < HEADER_SIZE || header.readInt() != MAGIC || header.readInt() != VERSION) {
+        channel.close();
+        return null;
+      }
+      long checksum = header.readLong();
+      long length = header.readLong();
+      CRC32 crc = new CRC32();
+      DataInputStream batches = new DataInputStream(new CheckedInputStream(
+          new BufferedInputStream(Channels.newInputStream(channel)), crc));
+      long batchesLength = 0;
+      byte[] bytes = new byte[0];
+      for (long position = HEADER_SIZE; position < size; ) {
+        int batchSize = batches.readInt();
+        if (batchSize < 4 || batchSize > size - position - 4) {
+          channel.close();
+          return null;
+        }
+        if (bytes.length < batchSize) {
+          bytes = new byte[batchSize];
+        }
+        batches.readFully(bytes, 0, batchSize);
+        //A batch starts with the length of its chunk.
+        batchesLength += ByteBuffer.wrap(bytes).getInt();
+        position += 4 + batchSize;
+      }
+      if (crc.getValue() != checksum || length != scriptLength || batchesLength != length) {
+        channel.close();
+        return null;
+      }
+      return channel;
+    } catch (IOException e) {
+      try {
+        if (channel != null) {
+          channel.close();
+        }
+      } catch (IOException ignored) {
+        //Nothing more can be done.
+      }
+      return null;
+    }
+  }
+
+  /**
+   * Reads the batches of a compiled script checked by openCompiled() one at a time, and
+   * applies them to a model.
+   *
+   * @param channel channel of the compiled script
+   * @param model model
+   * @param listener progress listener
+   * @throws IOException if the compiled script can't be read
+   */
+  private static void applyCompiled(FileChannel channel, IPhotoAlbumApp model,
+                                    IParseProgressListener listener) throws IOException {
+    long size = channel.size();
+    channel.position(HEADER_SIZE);
+    DataInputStream in = new DataInputStream(
+        new BufferedInputStream(Channels.newInputStream(channel)));
+    long lines = 0;
+    long bytes = 0;
+    byte[] batchBytes = new byte[0];
+    for (long position = HEADER_SIZE; position < size; ) {
+      int batchSize = in.readInt();
+      if (batchBytes.length < batchSize) {
+        batchBytes = new byte[batchSize];
+      }
+      in.readFully(batchBytes, 0, batchSize);
+      position += 4 + batchSize;
+      CommandBatch batch;
+      try {
+        batch = CommandBatch.read(ByteBuffer.wrap(batchBytes, 0, batchSize));
+      } catch (IllegalArgumentException e) {
+        //The batches passed the checksum, so they were written by this version.
+        throw new IOException("Corrupt compiled script", e);
+      }
+      batch.apply(model, listener, lines, bytes);
+      lines += batch.getLineCount();
+      bytes += batch.getByteCount();
+    }
+  }
+
+  /**
+   * A command target that applies the commands to another target, and records them into the
+   * batches of a compiled script as the lines are parsed. The compiled script is written to a
+   * temporary file, that is renamed once the whole script is parsed, so that a concurrent run
+   * never reads a partial file. Recording stops if the file can't be written.
+   */
+  private class Recorder implements ICommandTarget, IParseProgressListener {
+    private final ICommandTarget target;
+    private final IParseProgressListener listener;
+    private CommandBatch batch;
+    //Bytes of the script before the current batch.
+    private long batchStart;
+    private Path temporary;
+    private DataOutputStream out;
+    private CRC32 crc;
+    private boolean recording;
+
+    /**
+     * Constructor.
+     *
+     * @param target target of the commands
+     * @param listener progress listener
+     */
+    private Recorder(ICommandTarget target, IParseProgressListener listener) {
+      this.target = target;
+      this.listener = listener;
+      this.batch = new CommandBatch();
+      this.recording = true;
+    }
+
+    /**
+     * Writes the last batch and renames the compiled script to its final name.
+     *
+     * @param compiled file of the compiled script
+     */
+    private void store(Path compiled) {
+      if (!recording) {
+        return;
+      }
+      try {
+        this.writeBatch();
+        out.close();
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC).putInt(VERSION).putLong(crc.getValue()).putLong(batchStart).flip();
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+          while (header.hasRemaining()) {
+            channel.write(header, header.position());
+          }
+        }
+        Files.move(temporary, compiled, StandardCopyOption.REPLACE_EXISTING,
+            StandardCopyOption.ATOMIC_MOVE);
+        temporary = null;
+      } catch (IOException e) {
+        //The cache is only an optimization, the script is parsed again next time.
+        this.discard();
+      }
+    }
+
+    /**
+     * Stops recording, and deletes the temporary file unless it was renamed.
+     */
+    private void discard() {
+      recording = false;
+      try {
+        if (out != null) {
+          out.close();
+        }
+        if (temporary != null) {
+          Files.deleteIfExists(temporary);
+          temporary = null;
+        }
+      } catch (IOException ignored) {
+        //Nothing more can be done.
+      }
+    }
+
+    /**
+     * Writes the current batch to the temporary file, which is created with room for the
+     * header before the first batch, and starts a new batch.
+     *
+     * @throws IOException if the file can't be written
+     */
+    private void writeBatch() throws IOException {
+      if (out == null) {
+        Files.createDirectories(directory);
+        temporary = Files.createTempFile(directory, "compiling", ".tmp");
+        BufferedOutputStream file = new BufferedOutputStream(Files.newOutputStream(temporary));
+        file.write(new byte[HEADER_SIZE]);
+        crc = new CRC32();
+        out = new DataOutputStream(new CheckedOutputStream(file, crc));
+      }
+      if (batch.getLineCount() > 0) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        batch.write(new DataOutputStream(bytes));
+        out.writeInt(bytes.size());
+        bytes.writeTo(out);
+        batchStart += batch.getByteCount();
+        batch = new CommandBatch();
+      }
+    }
+
+    @Override
+    public void progress(long lines, long bytes) {
+      if (recording) {
+        batch.progress(lines, bytes - batchStart);
+        if (bytes - batchStart >= batchSize) {
+          try {
+            this.writeBatch();
+          } catch (IOException e) {
+            this.discard();
+          }
+        }
+      }
+      listener.progress(lines, bytes);
+    }
+
+    @Override
+    public void createBasicShape(String name, String type, double xDim, double yDim, double x,
+                                 double y, double r, double g, double b) {
+      target.createBasicShape(name, type, xDim, yDim, x, y, r, g, b);
+      if (recording) {
+        batch.createBasicShape(name, type, xDim, yDim, x, y, r, g, b);
+      }
+    }
+
+    @Override
+    public void removeShape(String name) {
+      target.removeShape(name);
+      if (recording) {
+        batch.removeShape(name);
+      }
+    }
+
+    @Override
+    public void setShapeColor(String name, double r, double g, double b) {
+      target.setShapeColor(name, r, g, b);
+      if (recording) {
+        batch.setShapeColor(name, r, g, b);
+      }
+    }
+
+    @Override
+    public void setShapePosition(String name, double x, double y) {
+      target.setShapePosition(name, x, y);
+      if (recording) {
+        batch.setShapePosition(name, x, y);
+      }
+    }
+
+    @Override
+    public void setShapeXDim(String name, double xDim) {
+      target.setShapeXDim(name, xDim);
+      if (recording) {
+        batch.setShapeXDim(name, xDim);
+      }
+    }
+
+    @Override
+    public void setShapeYDim(String name, double yDim) {
+      target.setShapeYDim(name, yDim);
+      if (recording) {
+        batch.setShapeYDim(name, yDim);
+      }
+    }
+
+    @Override
+    public void takeSnapshot(String description) {
+      target.takeSnapshot(description);
+      if (recording) {
+        batch.takeSnapshot(description);
+      }
+    }
+  }
+}
@@ -0,0 +1,146 @@
+package controller;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * Splits an input stream into chunks of whole lines, that can be parsed independently.
+ * A chunk ends after its last \n, or after its last \r that isn't its last byte, so a \r\n is
+ * never split between two chunks. A chunk grows beyond the chunk size to fit a longer line.
+ */
+class ChunkReader {
+  private final InputStream in;
+  private final int chunkSize;
+  //Start of the next chunk, already read.
+  private byte[] leftover;
+  private int leftoverLength;
+  private boolean endOfInput;
+
+  /**
+   * Constructor.
+   *
+   * @param in input stream
+   * @param chunkSize size of the chunks in bytes
+   */
+  public ChunkReader(InputStream in, int chunkSize) {
+    this.in = in;
+    this.chunkSize = chunkSize;
+    this.leftover = new byte[0];
+  }
+
+  /**
+   * Reads the next chunk. The last chunk ends at the end of the input, and may be empty.
+   *
+   * @return chunk, or null after the last chunk
+   * @throws IOException if the input stream can't be read
+   */
+  public Chunk next() throws IOException {
+    if (endOfInput) {
+      return null;
+    }
+    byte[] chunk = new byte[Math.max(chunkSize, leftoverLength)];
+    System.arraycopy(leftover, 0, chunk, 0, leftoverLength);
+    int length = leftoverLength;
+    while (true) {
+      length += in.readNBytes(chunk, length, chunk.length - length);
+      endOfInput = length < chunk.length;
+      int end = endOfInput ? length : lastLineEnd(chunk, length);
+      if (end >= 0) {
+        //The start of the next line goes to the next chunk.
+        leftover = Arrays.copyOfRange(chunk, end, length);
+        leftoverLength = length - end;
+        return new Chunk(chunk, end);
+      }
+      //No line ends in the chunk.
+      chunk = Arrays.copyOf(chunk, chunk.length * 2);
+    }
+  }
+
+  /**
+   * Returns the end of the last line of a chunk that surely ends there: after its last \n, or
+   * after its last \r that isn't followed by \n. The next chunk can then start at a line.
+   *
+   * @param chunk chunk
+   * @param length length of the chunk
+   * @return index after the end of the last line, or -1 if there's none
+   */
+  private static int lastLineEnd(byte[] chunk, int length) {
+    for (int i = length - 1; i >= 0; i--) {
+      if (chunk[i] == '\n' || (chunk[i] == '\r' && i + 1 < length)) {
+        return i + 1;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * A chunk of the input, at the start of an array.
+   */
+  static class Chunk {
+    private final byte[] bytes;
+    private final int length;
+
+    /**
+     * Constructor.
+     *
+     * @param bytes array with the chunk at its start
+     * @param length length of the chunk
+     */
+    Chunk(byte[] bytes, int length) {
+      this.bytes = bytes;
+      this.length = length;
+    }
+
+    /**
+     * Tokenizes and parses the chunk into a batch of commands. A RuntimeException thrown by the
+     * parsing is kept in the batch.
+     *
+     * @return batch of commands
+     */
+    public CommandBatch parse() {
+      CommandBatch batch = new CommandBatch(length);
+      CommandReader reader = new ChunkCommandReader(batch, bytes, length);
+      try {
+        reader.readAll(batch);
+      } catch (RuntimeException e) {
+        batch.setFailure(e);
+      } catch (IOException e) {
+        //Never happens, the chunk is in memory.
+        throw new IllegalStateException(e);
+      }
+      return batch;
+    }
+
+    /**
+     * Returns the length of the chunk.
+     *
+     * @return number of bytes
+     */
+    public int getLength() {
+      return length;
+    }
+  }
+
+  /**
+   * A command reader of a chunk that is already in memory.
+   */
+  private static class ChunkCommandReader extends CommandReader {
+
+    /**
+     * Constructor.
+     *
+     * @param batch batch to parse the commands into
+     * @param chunk array with the chunk at its start
+     * @param length length of the chunk
+     */
+    private ChunkCommandReader(CommandBatch batch, byte[] chunk, int length) {
+      super(batch, chunk, length);
+    }
+
+    @Override
+    protected int read(byte[] bytes, int offset, int length) {
+      return -1;
+    }
+  }
+}
@@ -0,0 +1,609 @@
+package controller;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import model.IPhotoAlbumApp;
+
+/**
+ * The commands parsed from a chunk of a script, to be applied to a model later.
+ * The commands are stored by type in flat arrays: their shape names, types and descriptions in
+ * an array of strings, and their numbers in an array of doubles.
+ * It also keeps the end of each line in the chunk to report the progress, and the exception
+ * that stopped the parsing, if any.
+ * A batch can be written in a compact binary form, and read back without parsing the chunk.
+ */
+class CommandBatch implements ICommandTarget, IParseProgressListener {
+  private static final byte SHAPE = 0;
+  private static final byte REMOVE = 1;
+  private static final byte COLOR = 2;
+  private static final byte POSITION = 3;
+  private static final byte X_DIM = 4;
+  private static final byte Y_DIM = 5;
+  private static final byte SNAPSHOT = 6;
+  //Number of strings and numbers of each type of command.
+  private static final int[] STRING_COUNTS = {2, 1, 1, 1, 1, 1, 1};
+  private static final int[] NUMBER_COUNTS = {7, 0, 3, 2, 1, 1, 0};
+  private static final NumberKind[] NUMBER_KINDS = NumberKind.values();
+
+  private byte[] types;
+  //Line of the chunk each command was parsed from.
+  private int[] commandLines;
+  private int commandCount;
+  private String[] strings;
+  private int stringCount;
+  private double[] numbers;
+  private int numberCount;
+  //Offset in the chunk of the end of each line, after its terminator.
+  private int[] lineEnds;
+  private int lineCount;
+  //Length of the chunk, or -1 if the chunk ends with its last line.
+  private final int byteCount;
+  private RuntimeException failure;
+
+  /**
+   * Constructor for an empty batch.
+   *
+   * @param byteCount length of the chunk in bytes
+   */
+  public CommandBatch(int byteCount) {
+    this.byteCount = byteCount;
+    this.types = new byte[256];
+    this.commandLines = new int[256];
+    this.strings = new String[256];
+    this.numbers = new double[1024];
+    this.lineEnds = new int[256];
+  }
+
+  /**
+   * Constructor for an empty batch of a chunk that ends with the last line of the batch, for
+   * commands that are recorded as they're parsed.
+   */
+  public CommandBatch() {
+    this(-1);
+  }
+
+  /**
+   * Constructor for a batch read back from its binary form.
+   *
+   * @param byteCount length of the chunk in bytes
+   * @param types types of the commands
+   * @param commandLines line of each command
+   * @param strings string parameters of the commands
+   * @param numbers number parameters of the commands
+   * @param lineEnds end of each line in the chunk
+   */
+  private CommandBatch(int byteCount, byte[] types, int[] commandLines, String[] strings,
+                       double[] numbers, int[] lineEnds) {
+    this.byteCount = byteCount;
+    this.types = types;
+    this.commandLines = commandLines;
+    this.commandCount = types.length;
+    this.strings = strings;
+    this.stringCount = strings.length;
+    this.numbers = numbers;
+    this.numberCount = numbers.length;
+    this.lineEnds = lineEnds;
+    this.lineCount = lineEnds.length;
+  }
+
+  /**
+   * Returns the number of lines in the chunk that were parsed without an exception.
+   *
+   * @return number of lines
+   */
+  public int getLineCount() {
+    return lineCount;
+  }
+
+  /**
+   * Returns the length of the chunk in bytes.
+   *
+   * @return number of bytes
+   */
+  public int getByteCount() {
+    if (byteCount >= 0) {
+      return byteCount;
+    }
+    return lineCount == 0 ? 0 : lineEnds[lineCount - 1];
+  }
+
+  /**
+   * Returns whether the parsing of the chunk failed.
+   *
+   * @return true if it failed
+   */
+  public boolean hasFailure() {
+    return failure != null;
+  }
+
+  /**
+   * Records the exception that stopped the parsing of the chunk. The commands parsed before it,
+   * including the ones of the failed line, are still applied.
+   *
+   * @param failure exception
+   */
+  public void setFailure(RuntimeException failure) {
+    this.failure = failure;
+  }
+
+  /**
+   * Applies the commands to a model, reporting the progress after each line, then throws the
+   * exception that stopped the parsing, if any.
+   * Applying the batches of an input in order leaves the model exactly as ByteInputParser does,
+   * and a bad command throws the same exception after the same changes to the model, which is
+   * what the parsers built on batches rely on.
+   *
+   * @param model model
+   * @param listener progress listener
+   * @param linesBefore number of lines before the chunk
+   * @param bytesBefore number of bytes before the chunk
+   * @throws RuntimeException if the model throws one, or the parsing of the chunk failed
+   */
+  public void apply(IPhotoAlbumApp model, IParseProgressListener listener, long linesBefore,
+                    long bytesBefore) {
+    int command = 0;
+    int string = 0;
+    int number = 0;
+    //The commands of the failed line, if any, are after the last line.
+    for (int line = 0; line <= lineCount; line++) {
+      for (; command < commandCount && commandLines[command] == line; command++) {
+        switch (types[command]) {
+          case SHAPE -> {
+            model.createBasicShape(strings[string], strings[string + 1], numbers[number],
+                numbers[number + 1], numbers[number + 2], numbers[number + 3],
+                numbers[number + 4], numbers[number + 5], numbers[number + 6]);
+            string += 2;
+            number += 7;
+          }
+          case REMOVE -> model.removeShape(strings[string++]);
+          case COLOR -> {
+            model.setShapeColor(strings[string++], numbers[number], numbers[number + 1],
+                numbers[number + 2]);
+            number += 3;
+          }
+          case POSITION -> {
+            model.setShapePosition(strings[string++], numbers[number], numbers[number + 1]);
+            number += 2;
+          }
+          case X_DIM -> model.setShapeXDim(strings[string++], numbers[number++]);
+          case Y_DIM -> model.setShapeYDim(strings[string++], numbers[number++]);
+          case SNAPSHOT -> model.takeSnapshot(strings[string++]);
+          default -> throw new IllegalStateException("Unknown command type " + types[command]);
+        }
+      }
+      if (line < lineCount) {
+        listener.progress(linesBefore + line + 1, bytesBefore + lineEnds[line]);
+      }
+    }
+    if (failure != null) {
+      throw failure;
+    }
+  }
+
+  /**
+   * Reads a batch written by write().
+   *
+   * @param in buffer, positioned at the start of the batch
+   * @return batch, whose commands are all valid commands
+   * @throws IllegalArgumentException if the buffer doesn't hold a well-formed batch
+   */
+  public static CommandBatch read(ByteBuffer in) {
+    try {
+      int byteCount = in.getInt();
+      int[] lineEnds = readInts(in, checkCount(in.getInt(), in.remaining()));
+      for (int i = 1; i < lineEnds.length; i++) {
+        lineEnds[i] += lineEnds[i - 1];
+      }
+      byte[] types = new byte[checkCount(in.getInt(), in.remaining())];
+      in.get(types);
+      int[] commandLines = readInts(in, types.length);
+      for (int i = 1; i < commandLines.length; i++) {
+        commandLines[i] += commandLines[i - 1];
+      }
+      int[] stringLengths = readInts(in, checkCount(in.getInt(), in.remaining()));
+      String[] table = new String[stringLengths.length];
+      byte[] bytes = new byte[0];
+      for (int i = 0; i < table.length; i++) {
+        if (bytes.length < checkCount(stringLengths[i], in.remaining())) {
+          bytes = new byte[stringLengths[i]];
+        }
+        in.get(bytes, 0, stringLengths[i]);
+        table[i] = new String(bytes, 0, stringLengths[i], StandardCharsets.UTF_8);
+      }
+      String[] strings = new String[checkCount(in.getInt(), in.remaining())];
+      int used = 0;
+      for (int i = 0; i < strings.length; i++) {
+        int reference = readVarInt(in);
+        int index = reference == 0 ? used++ : reference - 1;
+        if (index >= used || used > table.length) {
+          throw new IllegalArgumentException("Malformed command batch");
+        }
+        strings[i] = table[index];
+      }
+      double[] numbers = readNumbers(in, checkCount(in.getInt(), in.remaining()));
+
+      //The commands must be valid, so that the batch can be applied without surprises.
+      int stringsNeeded = 0;
+      int numbersNeeded = 0;
+      for (int i = 0; i < types.length; i++) {
+        if (types[i] < 0 || types[i] >= STRING_COUNTS.length || commandLines[i] < 0
+            || commandLines[i] >= lineEnds.length
+            || (i > 0 && commandLines[i] < commandLines[i - 1])) {
+          throw new IllegalArgumentException("Malformed command batch");
+        }
+        stringsNeeded += STRING_COUNTS[types[i]];
+        numbersNeeded += NUMBER_COUNTS[types[i]];
+      }
+      if (stringsNeeded != strings.length || numbersNeeded != numbers.length) {
+        throw new IllegalArgumentException("Malformed command batch");
+      }
+      for (int i = 0; i < lineEnds.length; i++) {
+        if (lineEnds[i] < (i == 0 ? 0 : lineEnds[i - 1]) || lineEnds[i] > byteCount) {
+          throw new IllegalArgumentException("Malformed command batch");
+        }
+      }
+      return new CommandBatch(byteCount, types, commandLines, strings, numbers, lineEnds);
+    } catch (BufferUnderflowException e) {
+      throw new IllegalArgumentException("Malformed command batch");
+    }
+  }
+
+  /**
+   * Checks a count read from a batch, so that a malformed batch can't allocate a huge array.
+   *
+   * @param count count
+   * @param max largest count that the rest of the buffer can hold
+   * @return count
+   * @throws IllegalArgumentException if the count is negative or larger than max
+   */
+  private static int checkCount(int count, int max) {
+    if (count < 0 || count > max) {
+      throw new IllegalArgumentException("Malformed command batch");
+    }
+    return count;
+  }
+
+  /**
+   * Reads ints written by writeInts().
+   *
+   * @param in buffer
+   * @param count number of ints
+   * @return ints
+   * @throws IllegalArgumentException if the width of the ints isn't valid
+   */
+  private static int[] readInts(ByteBuffer in, int count) {
+    int[] values = new int[count];
+    switch (in.get()) {
+      case 1 -> {
+        for (int i = 0; i < count; i++) {
+          values[i] = in.get() & 0xff;
+        }
+      }
+      case 2 -> {
+        for (int i = 0; i < count; i++) {
+          values[i] = in.getShort() & 0xffff;
+        }
+      }
+      case 4 -> {
+        in.asIntBuffer().get(values);
+        in.position(in.position() + count * 4);
+      }
+      default -> throw new IllegalArgumentException("Malformed command batch");
+    }
+    return values;
+  }
+
+  /**
+   * Reads a non-negative int written by writeVarInt().
+   *
+   * @param in buffer
+   * @return int
+   * @throws IllegalArgumentException if the int is too long
+   */
+  private static int readVarInt(ByteBuffer in) {
+    int value = 0;
+    for (int shift = 0; shift < 32; shift += 7) {
+      byte b = in.get();
+      value |= (b & 0x7f) << shift;
+      if (b >= 0) {
+        return value;
+      }
+    }
+    throw new IllegalArgumentException("Malformed command batch");
+  }
+
+  /**
+   * Reads numbers written by writeNumbers().
+   *
+   * @param in buffer
+   * @param count number of numbers
+   * @return numbers
+   */
+  private static double[] readNumbers(ByteBuffer in, int count) {
+    byte[] kinds = new byte[(count + 3) / 4];
+    in.get(kinds);
+    double[] values = new double[count];
+    for (int i = 0; i < count; i++) {
+      int kind = kinds[i >>> 2] >>> ((i & 3) * 2) & 3;
+      if (kind >= NUMBER_KINDS.length) {
+        throw new IllegalArgumentException("Malformed command batch");
+      }
+      switch (NUMBER_KINDS[kind]) {
+        case FLOAT -> values[i] = in.getFloat();
+        case COLOR_COMPONENT -> values[i] = (in.get() & 0xff) / 255.0;
+        default -> values[i] = in.getDouble();
+      }
+    }
+    return values;
+  }
+
+  /**
+   * Writes the batch in a binary form that read() reads back.
+   * Each distinct string is written once, and referred to by its index, or by 0 where it's
+   * used for the first time. The ends of the lines
+   * and the lines of the commands are written as differences from the previous one, which are
+   * small, and arrays of ints are written with the fewest bytes that fit all of them. Each
+   * number is written with the fewest bytes that keep it exactly.
+   *
+   * @param out output
+   * @throws IOException if the output can't be written
+   * @throws IllegalStateException if the parsing of the chunk failed
+   */
+  public void write(DataOutputStream out) throws IOException {
+    if (failure != null) {
+      throw new IllegalStateException("Can't write a batch that failed to parse");
+    }
+    out.writeInt(this.getByteCount());
+    out.writeInt(lineCount);
+    int[] lineLengths = new int[lineCount];
+    for (int i = 0; i < lineCount; i++) {
+      lineLengths[i] = lineEnds[i] - (i == 0 ? 0 : lineEnds[i - 1]);
+    }
+    writeInts(out, lineLengths);
+    out.writeInt(commandCount);
+    out.write(types, 0, commandCount);
+    int[] lineSteps = new int[commandCount];
+    for (int i = 0; i < commandCount; i++) {
+      lineSteps[i] = commandLines[i] - (i == 0 ? 0 : commandLines[i - 1]);
+    }
+    writeInts(out, lineSteps);
+    Map<String, Integer> indices = new HashMap<>();
+    int[] references = new int[stringCount];
+    for (int i = 0; i < stringCount; i++) {
+      references[i] = indices.computeIfAbsent(strings[i], string -> indices.size());
+    }
+    String[] table = new String[indices.size()];
+    indices.forEach((string, index) -> table[index] = string);
+    byte[][] encoded = new byte[table.length][];
+    int[] stringLengths = new int[table.length];
+    for (int i = 0; i < table.length; i++) {
+      encoded[i] = table[i].getBytes(StandardCharsets.UTF_8);
+      stringLengths[i] = encoded[i].length;
+    }
+    out.writeInt(table.length);
+    writeInts(out, stringLengths);
+    for (byte[] bytes : encoded) {
+      out.write(bytes);
+    }
+    //The first use of a string is 0, and the next ones its index plus one.
+    out.writeInt(stringCount);
+    int used = 0;
+    for (int reference : references) {
+      if (reference == used) {
+        out.writeByte(0);
+        used++;
+      } else {
+        writeVarInt(out, reference + 1);
+      }
+    }
+    out.writeInt(numberCount);
+    this.writeNumbers(out);
+  }
+
+  /**
+   * Writes non-negative ints with 1, 2 or 4 bytes each, the fewest that fit all of them, after
+   * a byte with that width.
+   *
+   * @param out output
+   * @param values ints
+   * @throws IOException if the output can't be written
+   */
+  private static void writeInts(DataOutputStream out, int[] values) throws IOException {
+    int max = 0;
+    for (int value : values) {
+      max = Math.max(max, value);
+    }
+    int width = max < 1 << 8 ? 1 : max < 1 << 16 ? 2 : 4;
+    out.writeByte(width);
+    for (int value : values) {
+      switch (width) {
+        case 1 -> out.writeByte(value);
+        case 2 -> out.writeShort(value);
+        default -> out.writeInt(value);
+      }
+    }
+  }
+
+  /**
+   * Writes a non-negative int in 7-bit groups, the lowest first, with the high bit of each byte
+   * set if more follow.
+   *
+   * @param out output
+   * @param value int
+   * @throws IOException if the output can't be written
+   */
+  private static void writeVarInt(DataOutputStream out, int value) throws IOException {
+    while (value >= 0x80) {
+      out.writeByte(value & 0x7f | 0x80);
+      value >>>= 7;
+    }
+    out.writeByte(value);
+  }
+
+  /**
+   * Writes each number with the fewest bytes that keep it exactly, after the kind of each
+   * number in two bits: a byte for a color component n / 255, a float, or a double.
+   *
+   * @param out output
+   * @throws IOException if the output can't be written
+   */
+  private void writeNumbers(DataOutputStream out) throws IOException {
+    byte[] kinds = new byte[(numberCount + 3) / 4];
+    for (int i = 0; i < numberCount; i++) {
+      kinds[i >>> 2] |= (byte) (kindOf(numbers[i]).ordinal() << ((i & 3) * 2));
+    }
+    out.write(kinds);
+    for (int i = 0; i < numberCount; i++) {
+      switch (kindOf(numbers[i])) {
+        case FLOAT -> out.writeFloat((float) numbers[i]);
+        case COLOR_COMPONENT -> out.writeByte((int) Math.round(numbers[i] * 255));
+        default -> out.writeDouble(numbers[i]);
+      }
+    }
+  }
+
+  /**
+   * Returns the smallest kind of number that keeps a number exactly, comparing the bits to
+   * keep -0.0 and NaN.
+   *
+   * @param number number
+   * @return kind of the number
+   */
+  private static NumberKind kindOf(double number) {
+    long bits = Double.doubleToRawLongBits(number);
+    if (Double.doubleToRawLongBits((float) number) == bits) {
+      return NumberKind.FLOAT;
+    }
+    long component = Math.round(number * 255);
+    if (component >= 0 && component <= 255
+        && Double.doubleToRawLongBits(component / 255.0) == bits) {
+      return NumberKind.COLOR_COMPONENT;
+    }
+    return NumberKind.DOUBLE;
+  }
+
+  /**
+   * Records the end of a line.
+   *
+   * @param lines number of lines parsed in the chunk
+   * @param bytes number of bytes parsed in the chunk
+   */
+  @Override
+  public void progress(long lines, long bytes) {
+    if (lineCount == lineEnds.length) {
+      lineEnds = Arrays.copyOf(lineEnds, lineCount * 2);
+    }
+    lineEnds[lineCount++] = (int) bytes;
+  }
+
+  @Override
+  public void createBasicShape(String name, String type, double xDim, double yDim, double x,
+                               double y, double r, double g, double b) {
+    this.addCommand(SHAPE);
+    this.addString(name);
+    this.addString(type);
+    this.addNumber(xDim);
+    this.addNumber(yDim);
+    this.addNumber(x);
+    this.addNumber(y);
+    this.addNumber(r);
+    this.addNumber(g);
+    this.addNumber(b);
+  }
+
+  @Override
+  public void removeShape(String name) {
+    this.addCommand(REMOVE);
+    this.addString(name);
+  }
+
+  @Override
+  public void setShapeColor(String name, double r, double g, double b) {
+    this.addCommand(COLOR);
+    this.addString(name);
+    this.addNumber(r);
+    this.addNumber(g);
+    this.addNumber(b);
+  }
+
+  @Override
+  public void setShapePosition(String name, double x, double y) {
+    this.addCommand(POSITION);
+    this.addString(name);
+    this.addNumber(x);
+    this.addNumber(y);
+  }
+
+  @Override
+  public void setShapeXDim(String name, double xDim) {
+    this.addCommand(X_DIM);
+    this.addString(name);
+    this.addNumber(xDim);
+  }
+
+  @Override
+  public void setShapeYDim(String name, double yDim) {
+    this.addCommand(Y_DIM);
+    this.addString(name);
+    this.addNumber(yDim);
+  }
+
+  @Override
+  public void takeSnapshot(String description) {
+    this.addCommand(SNAPSHOT);
+    this.addString(description);
+  }
+
+  /**
+   * Adds a command of the current line.
+   *
+   * @param type type of the command
+   */
+  private void addCommand(byte type) {
+    if (commandCount == types.length) {
+      types = Arrays.copyOf(types, commandCount * 2);
+      commandLines = Arrays.copyOf(commandLines, commandCount * 2);
+    }
+    types[commandCount] = type;
+    commandLines[commandCount] = lineCount;
+    commandCount++;
+  }
+
+  /**
+   * Adds a string parameter of the last command.
+   *
+   * @param string string
+   */
+  private void addString(String string) {
+    if (stringCount == strings.length) {
+      strings = Arrays.copyOf(strings, stringCount * 2);
+    }
+    strings[stringCount++] = string;
+  }
+
+  /**
+   * Adds a number parameter of the last command.
+   *
+   * @param number number
+   */
+  private void addNumber(double number) {
+    if (numberCount == numbers.length) {
+      numbers = Arrays.copyOf(numbers, numberCount * 2);
+    }
+    numbers[numberCount++] = number;
+  }
+
+  /**
+   * The ways a number is written in the binary form, stored in two bits by their ordinal, so
+   * the order of the constants is part of the format.
+   */
+  private enum NumberKind {
+    DOUBLE, FLOAT, COLOR_COMPONENT
+  }
+}
@@ -0,0 +1,508 @@
+package controller;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import model.IPhotoAlbumApp;
+
+/**
+ * Reads the lines of commands from an input into a byte buffer and applies them to a model, or
+ * to another command target, the same way as InputParser. Subclasses give the bytes of the
+ * input.
+ * Commands are recognized from their bytes, numbers are parsed from their bytes, and shape
+ * names are decoded once and then reused, so a line usually creates no object at all.
+ * A reader is created for a single parse, so parsers can be shared between threads.
+ */
+abstract class CommandReader {
+  private static final int BUFFER_SIZE = 1 << 16;
+  private static final int NAME_CACHE_SIZE = 4096;
+  //Largest mantissa and powers of ten that are exact doubles, so that dividing one by the
+  //other gives the correctly rounded value, like Double.parseDouble.
+  private static final long MAX_EXACT_MANTISSA = 1L << 53;
+  private static final double[] POWERS_OF_TEN = {
+      1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+      1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+  };
+
+  private final ICommandTarget target;
+  private byte[] buffer;
+  //Bytes read into the buffer are buffer[0, limit).
+  private int limit;
+  private boolean endOfInput;
+  private long bytesBeforeBuffer;
+  //Tokens of the current line are buffer[tokenStarts[i], tokenEnds[i]).
+  private int[] tokenStarts;
+  private int[] tokenEnds;
+  private int tokenCount;
+  //Decoded names by hash of their bytes. A slot keeps the last name that hashed to it.
+  private final byte[][] cachedNameBytes;
+  private final String[] cachedNames;
+
+  /**
+   * Constructor.
+   *
+   * @param target target of the commands
+   */
+  protected CommandReader(ICommandTarget target) {
+    this(target, new byte[BUFFER_SIZE], 0);
+  }
+
+  /**
+   * Constructor for a reader whose input starts with bytes that are already read. The array is
+   * used as the buffer.
+   *
+   * @param target target of the commands
+   * @param bytes array with the bytes already read
+   * @param length number of bytes already read
+   */
+  protected CommandReader(ICommandTarget target, byte[] bytes, int length) {
+    this.target = target;
+    this.buffer = bytes;
+    this.limit = length;
+    this.tokenStarts = new int[16];
+    this.tokenEnds = new int[16];
+    this.cachedNameBytes = new byte[NAME_CACHE_SIZE][];
+    this.cachedNames = new String[NAME_CACHE_SIZE];
+  }
+
+  /**
+   * Reads bytes of the input into an array, like InputStream.read(). It blocks until at least
+   * one byte is read or the end of the input is reached.
+   *
+   * @param bytes array
+   * @param offset index in the array to write the bytes at
+   * @param length maximum number of bytes to read
+   * @return number of bytes read, or -1 at the end of the input
+   * @throws IOException if the input can't be read
+   */
+  protected abstract int read(byte[] bytes, int offset, int length) throws IOException;
+
+  /**
+   * Reads and applies all lines, reporting the progress after each line.
+   * Lines end with \n, \r, \r\n, or the UTF-8 bytes of U+0085, U+2028 or U+2029 like in a
+   * Scanner.
+   *
+   * @param listener progress listener
+   * @throws IOException if the input can't be read
+   */
+  public void readAll(IParseProgressListener listener) throws IOException {
+    long lines = 0;
+    int lineStart = 0;
+    int i = 0;
+    while (true) {
+      if (i == limit) {
+        if (endOfInput) {
+          break;
+        }
+        int offset = this.fill(lineStart);
+        lineStart -= offset;
+        i -= offset;
+        continue;
+      }
+      int b = buffer[i];
+      int terminatorLength;
+      if (b == '\n') {
+        terminatorLength = 1;
+      } else if (b == '\r') {
+        if (i + 1 == limit && !endOfInput) {
+          //Can't tell \r from \r\n yet.
+          int offset = this.fill(lineStart);
+          lineStart -= offset;
+          i -= offset;
+          continue;
+        }
+        terminatorLength = i + 1 < limit && buffer[i + 1] == '\n' ? 2 : 1;
+      } else if (b < 0 && (b == (byte) 0xC2 || b == (byte) 0xE2)) {
+        if (i + 2 >= limit && !endOfInput) {
+          int offset = this.fill(lineStart);
+          lineStart -= offset;
+          i -= offset;
+          continue;
+        }
+        terminatorLength = this.unicodeTerminatorLength(i);
+        if (terminatorLength == 0) {
+          i++;
+          continue;
+        }
+      } else {
+        i++;
+        continue;
+      }
+      this.invokeCommand(lineStart, i);
+      i += terminatorLength;
+      lineStart = i;
+      listener.progress(++lines, bytesBeforeBuffer + i);
+    }
+    if (lineStart < limit) {
+      //Last line without a terminator.
+      this.invokeCommand(lineStart, limit);
+      listener.progress(++lines, bytesBeforeBuffer + limit);
+    }
+  }
+
+  /**
+   * Returns the length of the UTF-8 bytes of U+0085, U+2028 or U+2029 at an index,
+   * or 0 if there's none.
+   *
+   * @param i index in the buffer
+   * @return length of the line terminator
+   */
+  private int unicodeTerminatorLength(int i) {
+    if (buffer[i] == (byte) 0xC2) {
+      return i + 1 < limit && buffer[i + 1] == (byte) 0x85 ? 2 : 0;
+    }
+    return i + 2 < limit && buffer[i + 1] == (byte) 0x80
+        && (buffer[i + 2] == (byte) 0xA8 || buffer[i + 2] == (byte) 0xA9) ? 3 : 0;
+  }
+
+  /**
+   * Reads more bytes into the buffer, keeping the bytes from the start of the current line.
+   * Those bytes are moved to the start of the buffer, which grows if the line fills it.
+   *
+   * @param lineStart index of the start of the current line
+   * @return number of positions the bytes were moved back by
+   * @throws IOException if the input can't be read
+   */
+  private int fill(int lineStart) throws IOException {
+    int kept = limit - lineStart;
+    if (kept == buffer.length) {
+      buffer = Arrays.copyOf(buffer, buffer.length * 2);
+    }
+    System.arraycopy(buffer, lineStart, buffer, 0, kept);
+    bytesBeforeBuffer += lineStart;
+    limit = kept;
+    int n = this.read(buffer, limit, buffer.length - limit);
+    if (n < 0) {
+      endOfInput = true;
+    } else {
+      limit += n;
+    }
+    return lineStart;
+  }
+
+  /**
+   * Parses a line that represents a single model operation and applies it to the target.
+   *
+   * @param start index of the first byte of the line
+   * @param end index after the last byte of the line
+   */
+  private void invokeCommand(int start, int end) {
+    this.tokenize(start, end);
+    if (tokenCount == 0) {
+      return;
+    }
+    //Invoke method according to the command name.
+    if (this.isCommand("color")) {
+      target.setShapeColor(this.name(1), this.number(2) / 255,
+          this.number(3) / 255, this.number(4) / 255);
+    } else if (this.isCommand("shape")) {
+      String name = this.name(1);
+      String type = this.name(2);
+      double xDim = this.number(5);
+      double yDim = this.number(6);
+      double x = this.number(3);
+      double y = this.number(4);
+      target.createBasicShape(name, type, xDim, yDim, x, y, this.number(7) / 255,
+          this.number(8) / 255, this.number(9) / 255);
+    } else if (this.isCommand("move")) {
+      target.setShapePosition(this.name(1), this.number(2), this.number(3));
+    } else if (this.isCommand("resize")) {
+      String name = this.name(1);
+      target.setShapeXDim(name, this.number(2));
+      target.setShapeYDim(name, this.number(3));
+    } else if (this.isCommand("remove")) {
+      target.removeShape(this.name(1));
+    } else if (this.isCommand("snapshot")) {
+      target.takeSnapshot(this.description());
+    }
+  }
+
+  /**
+   * Splits a line into tokens separated by whitespace, after stripping the whitespace at its
+   * ends like String.strip() and splitting it like String.split("\\s+").
+   *
+   * @param start index of the first byte of the line
+   * @param end index after the last byte of the line
+   */
+  private void tokenize(int start, int end) {
+    while (start < end) {
+      if (isStripped(buffer[start])) {
+        start++;
+      } else if (buffer[start] < 0 && this.isStrippedCodePoint(start, end)) {
+        start += 3;
+      } else {
+        break;
+      }
+    }
+    while (end > start) {
+      if (isStripped(buffer[end - 1])) {
+        end--;
+      } else if (buffer[end - 1] < 0 && end - 3 >= start
+          && this.isStrippedCodePoint(end - 3, end)) {
+        end -= 3;
+      } else {
+        break;
+      }
+    }
+    tokenCount = 0;
+    int i = start;
+    while (i < end) {
+      int tokenStart = i;
+      while (i < end && !isSeparator(buffer[i])) {
+        i++;
+      }
+      if (tokenCount == tokenStarts.length) {
+        tokenStarts = Arrays.copyOf(tokenStarts, tokenCount * 2);
+        tokenEnds = Arrays.copyOf(tokenEnds, tokenCount * 2);
+      }
+      tokenStarts[tokenCount] = tokenStart;
+      tokenEnds[tokenCount] = i;
+      tokenCount++;
+      while (i < end && isSeparator(buffer[i])) {
+        i++;
+      }
+    }
+  }
+
+  /**
+   * Returns true if the first token is a command name, ignoring case.
+   *
+   * @param command command name in lower case
+   * @return true if it's the command
+   */
+  private boolean isCommand(String command) {
+    int start = tokenStarts[0];
+    if (tokenEnds[0] - start != command.length()) {
+      return false;
+    }
+    for (int i = 0; i < command.length(); i++) {
+      //Only ASCII letters are in command names, and they're equal ignoring case when they're
+      //equal with the lower case bit set.
+      if ((buffer[start + i] | 0x20) != command.charAt(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Returns a token as a string. Tokens decoded before are reused from the cache.
+   *
+   * @param token index of the token
+   * @return token as a string
+   * @throws ArrayIndexOutOfBoundsException if there's no such token
+   */
+  private String name(int token) {
+    this.checkToken(token);
+    int start = tokenStarts[token];
+    int end = tokenEnds[token];
+    int hash = 0;
+    for (int i = start; i < end; i++) {
+      hash = 31 * hash + buffer[i];
+    }
+    int slot = (hash ^ (hash >>> 16)) & (NAME_CACHE_SIZE - 1);
+    byte[] cached = cachedNameBytes[slot];
+    if (cached != null && Arrays.equals(cached, 0, cached.length, buffer, start, end)) {
+      return cachedNames[slot];
+    }
+    String name = new String(buffer, start, end - start, StandardCharsets.UTF_8);
+    cachedNameBytes[slot] = Arrays.copyOfRange(buffer, start, end);
+    cachedNames[slot] = name;
+    return name;
+  }
+
+  /**
+   * Parses a token as a double. Plain decimal numbers that fit in a double's mantissa are
+   * parsed from the bytes, anything else goes through Double.parseDouble.
+   *
+   * @param token index of the token
+   * @return value of the token
+   * @throws ArrayIndexOutOfBoundsException if there's no such token
+   * @throws NumberFormatException if the token isn't a number
+   */
+  private double number(int token) {
+    this.checkToken(token);
+    int start = tokenStarts[token];
+    int end = tokenEnds[token];
+    int i = start;
+    boolean negative = false;
+    if (i < end && (buffer[i] == '-' || buffer[i] == '+')) {
+      negative = buffer[i] == '-';
+      i++;
+    }
+    long mantissa = 0;
+    int digits = 0;
+    int fractionDigits = 0;
+    boolean point = false;
+    for (; i < end; i++) {
+      int b = buffer[i];
+      if (b >= '0' && b <= '9') {
+        mantissa = mantissa * 10 + (b - '0');
+        if (mantissa > MAX_EXACT_MANTISSA) {
+          return this.parseDouble(start, end);
+        }
+        digits++;
+        if (point) {
+          fractionDigits++;
+        }
+      } else if (b == '.' && !point) {
+        point = true;
+      } else {
+        return this.parseDouble(start, end);
+      }
+    }
+    if (digits == 0 || fractionDigits >= POWERS_OF_TEN.length) {
+      return this.parseDouble(start, end);
+    }
+    double value = mantissa / POWERS_OF_TEN[fractionDigits];
+    return negative ? -value : value;
+  }
+
+  /**
+   * Parses bytes as a double with Double.parseDouble.
+   *
+   * @param start index of the first byte
+   * @param end index after the last byte
+   * @return value
+   * @throws NumberFormatException if the bytes aren't a number
+   */
+  private double parseDouble(int start, int end) {
+    return Double.parseDouble(new String(buffer, start, end - start, StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Returns the tokens after the command joined by single spaces, or an empty string if
+   * there's none.
+   *
+   * @return description
+   */
+  private String description() {
+    if (tokenCount == 1) {
+      return "";
+    }
+    int start = tokenStarts[1];
+    int end = tokenEnds[tokenCount - 1];
+    boolean singleSpaces = true;
+    for (int i = 2; i < tokenCount && singleSpaces; i++) {
+      singleSpaces = tokenStarts[i] - tokenEnds[i - 1] == 1 && buffer[tokenEnds[i - 1]] == ' ';
+    }
+    if (singleSpaces) {
+      return new String(buffer, start, end - start, StandardCharsets.UTF_8);
+    }
+    byte[] joined = new byte[end - start];
+    int length = 0;
+    for (int i = 1; i < tokenCount; i++) {
+      if (i > 1) {
+        joined[length++] = ' ';
+      }
+      int tokenLength = tokenEnds[i] - tokenStarts[i];
+      System.arraycopy(buffer, tokenStarts[i], joined, length, tokenLength);
+      length += tokenLength;
+    }
+    return new String(joined, 0, length, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Throws the exception InputParser throws when a command is missing a parameter.
+   *
+   * @param token index of the token
+   * @throws ArrayIndexOutOfBoundsException if there's no such token
+   */
+  private void checkToken(int token) {
+    if (token >= tokenCount) {
+      throw new ArrayIndexOutOfBoundsException(
+          "Index " + token + " out of bounds for length " + tokenCount);
+    }
+  }
+
+  /**
+   * Returns true if a byte is ASCII whitespace that String.strip() removes. Other whitespace is
+   * recognized by isStrippedCodePoint().
+   *
+   * @param b byte
+   * @return true if it's stripped
+   */
+  private static boolean isStripped(byte b) {
+    return b == ' ' || (b >= '\t' && b <= '\r') || (b >= 0x1C && b <= 0x1F);
+  }
+
+  /**
+   * Returns true if the bytes at an index are the UTF-8 bytes of non-ASCII whitespace that
+   * String.strip() removes, such as U+2003 or U+3000. All of them are encoded in three bytes.
+   *
+   * @param i index in the buffer
+   * @param end index after the last byte of the line
+   * @return true if it's stripped
+   */
+  private boolean isStrippedCodePoint(int i, int end) {
+    if (i + 3 > end || (buffer[i] & 0xF0) != 0xE0 || (buffer[i + 1] & 0xC0) != 0x80
+        || (buffer[i + 2] & 0xC0) != 0x80) {
+      return false;
+    }
+    int codePoint = (buffer[i] & 0x0F) << 12 | (buffer[i + 1] & 0x3F) << 6 | buffer[i + 2] & 0x3F;
+    //Overlong encodings decode to U+FFFD.
+    return codePoint >= 0x800 && Character.isWhitespace(codePoint);
+  }
+
+  /**
+   * Returns true if a byte separates tokens like the \s regular expression.
+   *
+   * @param b byte
+   * @return true if it's a separator
+   */
+  private static boolean isSeparator(byte b) {
+    return b == ' ' || (b >= '\t' && b <= '\r');
+  }
+
+  /**
+   * A command target that applies the commands to a model.
+   */
+  static class ModelTarget implements ICommandTarget {
+    private final IPhotoAlbumApp model;
+
+    /**
+     * Constructor.
+     *
+     * @param model model
+     */
+    ModelTarget(IPhotoAlbumApp model) {
+      this.model = model;
+    }
+
+    @Override
+    public void createBasicShape(String name, String type, double xDim, double yDim, double x,
+                                 double y, double r, double g, double b) {
+      model.createBasicShape(name, type, xDim, yDim, x, y, r, g, b);
+    }
+
+    @Override
+    public void removeShape(String name) {
+      model.removeShape(name);
+    }
+
+    @Override
+    public void setShapeColor(String name, double r, double g, double b) {
+      model.setShapeColor(name, r, g, b);
+    }
+
+    @Override
+    public void setShapePosition(String name, double x, double y) {
+      model.setShapePosition(name, x, y);
+    }
+
+    @Override
+    public void setShapeXDim(String name, double xDim) {
+      model.setShapeXDim(name, xDim);
+    }
+
+    @Override
+    public void setShapeYDim(String name, double yDim) {
+      model.setShapeYDim(name, yDim);
+    }
+
+    @Override
+    public void takeSnapshot(String description) {
+      model.takeSnapshot(description);
+    }
+  }
+}
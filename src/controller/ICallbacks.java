@@ -29,4 +29,10 @@ public interface ICallbacks {
    * triggers the event when the user selects a snapshot from the list of all snapshots.
    */
   void selectSnapshotCallback(String snapshotID);
+
+  /**
+   * Callback function for the GUI component that
+   * triggers the event when the draw panel finished painting a snapshot on the screen.
+   */
+  void snapshotPaintedCallback(String snapshotID);
 }
@@ -0,0 +1,74 @@
+package controller;
+
+/**
+ * Receives the model operations that the commands of a script are parsed into.
+ * Each method takes the same parameters, and may throw the same exceptions, as the method of
+ * IPhotoAlbumApp with the same name.
+ */
+interface ICommandTarget {
+
+  /**
+   * Creates a shape.
+   *
+   * @param name name of the shape
+   * @param type type of the shape
+   * @param xDim horizontal dimension
+   * @param yDim vertical dimension
+   * @param x x-coordinate
+   * @param y y-coordinate
+   * @param r red, between 0 and 1
+   * @param g green, between 0 and 1
+   * @param b blue, between 0 and 1
+   */
+  void createBasicShape(String name, String type, double xDim, double yDim, double x, double y,
+      double r, double g, double b);
+
+  /**
+   * Removes a shape.
+   *
+   * @param name name of the shape
+   */
+  void removeShape(String name);
+
+  /**
+   * Changes the color of a shape.
+   *
+   * @param name name of the shape
+   * @param r red, between 0 and 1
+   * @param g green, between 0 and 1
+   * @param b blue, between 0 and 1
+   */
+  void setShapeColor(String name, double r, double g, double b);
+
+  /**
+   * Moves a shape.
+   *
+   * @param name name of the shape
+   * @param x new x-coordinate
+   * @param y new y-coordinate
+   */
+  void setShapePosition(String name, double x, double y);
+
+  /**
+   * Changes the horizontal dimension of a shape.
+   *
+   * @param name name of the shape
+   * @param xDim new horizontal dimension
+   */
+  void setShapeXDim(String name, double xDim);
+
+  /**
+   * Changes the vertical dimension of a shape.
+   *
+   * @param name name of the shape
+   * @param yDim new vertical dimension
+   */
+  void setShapeYDim(String name, double yDim);
+
+  /**
+   * Takes a snapshot.
+   *
+   * @param description description of the snapshot
+   */
+  void takeSnapshot(String description);
+}
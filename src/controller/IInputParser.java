@@ -14,5 +14,17 @@ public interface IInputParser {
    * @param in input stream
    * @param model model
    */
-  void parse(InputStream in, IPhotoAlbumApp model);
+  default void parse(InputStream in, IPhotoAlbumApp model) {
+    this.parse(in, model, (lines, bytes) -> { });
+  }
+
+  /**
+   * Parses the commands coming from the input stream and populate model,
+   * reporting the progress to a listener after each line.
+   *
+   * @param in input stream
+   * @param model model
+   * @param listener progress listener
+   */
+  void parse(InputStream in, IPhotoAlbumApp model, IParseProgressListener listener);
 }
@@ -0,0 +1,16 @@
+package controller;
+
+/**
+ * A listener of the progress of an input parser.
+ */
+public interface IParseProgressListener {
+
+  /**
+   * Called by the parser after each line it parsed, on the parser's thread.
+   *
+   * @param lines number of lines parsed so far
+   * @param bytes number of bytes read from the input stream so far. The parser may read ahead
+   *              of the lines it parsed.
+   */
+  void progress(long lines, long bytes);
+}
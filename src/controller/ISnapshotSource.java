@@ -0,0 +1,43 @@
+package controller;
+
+import view.IPhotoAlbumView;
+
+/**
+ * An interface for the source of the snapshots that the GUI lists, which the GUI reads on demand
+ * instead of receiving all of them. Snapshots can be added at the end of the source, but
+ * never removed.
+ */
+public interface ISnapshotSource {
+
+  /**
+   * Returns the number of snapshots.
+   *
+   * @return number of snapshots
+   */
+  int getSnapshotCount();
+
+  /**
+   * Returns the ID of a snapshot.
+   *
+   * @param index index of the snapshot
+   * @return snapshot ID
+   */
+  String getSnapshotID(int index);
+
+  /**
+   * Returns the description of a snapshot.
+   *
+   * @param index index of the snapshot
+   * @return snapshot description
+   */
+  String getSnapshotDescription(int index);
+
+  /**
+   * Draws the shapes of a snapshot on a view, e.g. to make a thumbnail of the snapshot.
+   * Unlike the other methods, it can be called from any thread.
+   *
+   * @param index index of the snapshot
+   * @param target view to draw on
+   */
+  void drawSnapshotAt(int index, IPhotoAlbumView target);
+}
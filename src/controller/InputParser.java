@@ -1,5 +1,7 @@
 package controller;
 
+import java.io.FilterInputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.util.Scanner;
 import java.util.StringJoiner;
@@ -13,12 +15,15 @@ import model.IPhotoAlbumApp;
 public class InputParser implements IInputParser {
 
   @Override
-  public void parse(InputStream in, IPhotoAlbumApp model) {
-    Scanner scanner = new Scanner(in);
+  public void parse(InputStream in, IPhotoAlbumApp model, IParseProgressListener listener) {
+    ByteCountingInputStream countingIn = new ByteCountingInputStream(in);
+    Scanner scanner = new Scanner(countingIn);
+    long lines = 0;
     while (scanner.hasNextLine()) {
       String command = scanner.nextLine();
       command = command.strip();
       invokeCommand(command, model);
+      listener.progress(++lines, countingIn.bytes);
     }
   }
 
@@ -62,4 +67,45 @@ public class InputParser implements IInputParser {
       }
     }
   }
+
+  /**
+   * An input stream that counts the bytes read from another input stream.
+   */
+  private static class ByteCountingInputStream extends FilterInputStream {
+    private long bytes;
+
+    /**
+     * Constructor.
+     *
+     * @param in input stream to count
+     */
+    private ByteCountingInputStream(InputStream in) {
+      super(in);
+    }
+
+    @Override
+    public int read() throws IOException {
+      int b = super.read();
+      if (b >= 0) {
+        bytes++;
+      }
+      return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      int n = super.read(b, off, len);
+      if (n > 0) {
+        bytes += n;
+      }
+      return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+      long skipped = super.skip(n);
+      bytes += skipped;
+      return skipped;
+    }
+  }
 }
@@ -0,0 +1,150 @@
+package controller;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import model.IPhotoAlbumApp;
+
+/**
+ * An input parser like ByteInputParser, that memory-maps the input when it's a file instead of
+ * reading it through the input stream. The tokenizer copies blocks of bytes straight from the
+ * mapped pages, so there's no system call per block and repeated runs read the file from the
+ * page cache.
+ * A mapping can't be larger than 2 GB, so larger files are mapped one window at a time.
+ * Inputs that aren't a FileInputStream of a regular file are read by a ByteInputParser.
+ */
+public class MappedInputParser implements IInputParser {
+  private static final int DEFAULT_WINDOW_SIZE = 1 << 30;
+
+  private final int windowSize;
+
+  /**
+   * Constructor for a parser that maps 1 GB windows of the file.
+   */
+  public MappedInputParser() {
+    this(DEFAULT_WINDOW_SIZE);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param windowSize size of the windows of the file to map in bytes
+   * @throws IllegalArgumentException if windowSize isn't positive
+   */
+  public MappedInputParser(int windowSize) {
+    if (windowSize <= 0) {
+      throw new IllegalArgumentException("Window size must be positive");
+    }
+    this.windowSize = windowSize;
+  }
+
+  /**
+   * Parses the commands coming from the input stream and populate model,
+   * reporting the progress to a listener after each line.
+   * The input is parsed from the current position of the file, and the file is at its end
+   * afterwards, even if a command fails.
+   *
+   * @param in input stream
+   * @param model model
+   * @param listener progress listener
+   * @throws IllegalArgumentException if any parameter is null
+   * @throws UncheckedIOException if the input stream can't be read
+   */
+  @Override
+  public void parse(InputStream in, IPhotoAlbumApp model, IParseProgressListener listener) {
+    if (in == null || model == null || listener == null) {
+      throw new IllegalArgumentException("Parameter can't be null");
+    }
+    this.parse(in, new CommandReader.ModelTarget(model), listener);
+  }
+
+  /**
+   * Parses the commands coming from the input stream into a command target, reporting the
+   * progress to a listener after each line, like parse() does for a model.
+   *
+   * @param in input stream
+   * @param target target of the commands
+   * @param listener progress listener
+   * @throws UncheckedIOException if the input stream can't be read
+   */
+  void parse(InputStream in, ICommandTarget target, IParseProgressListener listener) {
+    //Subclasses of FileInputStream may change the bytes they read.
+    if (in.getClass() != FileInputStream.class) {
+      new ByteInputParser().parse(in, target, listener);
+      return;
+    }
+    FileChannel channel = ((FileInputStream) in).getChannel();
+    try {
+      //Pipes and devices have no size, and can't be mapped.
+      if (channel.size() == 0) {
+        new ByteInputParser().parse(in, target, listener);
+        return;
+      }
+      MappedCommandReader reader = new MappedCommandReader(channel, windowSize, target);
+      try {
+        reader.readAll(listener);
+      } finally {
+        channel.position(channel.size());
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * A command reader that maps windows of a file.
+   */
+  private static class MappedCommandReader extends CommandReader {
+    private final FileChannel channel;
+    private final int windowSize;
+    private final long endPosition;
+    //Position in the file of the byte after the current window.
+    private long windowEnd;
+    private MappedByteBuffer window;
+
+    /**
+     * Constructor for a reader from the current position to the end of the file.
+     *
+     * @param channel channel of the file
+     * @param windowSize size of the windows to map
+     * @param target target of the commands
+     * @throws IOException if the file can't be read
+     */
+    private MappedCommandReader(FileChannel channel, int windowSize, ICommandTarget target)
+        throws IOException {
+      super(target);
+      this.channel = channel;
+      this.windowSize = windowSize;
+      this.windowEnd = channel.position();
+      this.endPosition = Math.max(windowEnd, channel.size());
+    }
+
+    /**
+     * Copies bytes from the current window, after mapping the next window if it's all read.
+     * The previous window is unmapped when it's garbage collected.
+     *
+     * @param bytes array
+     * @param offset index in the array to write the bytes at
+     * @param length maximum number of bytes to read
+     * @return number of bytes read, or -1 at the end of the file
+     * @throws IOException if the file can't be mapped
+     */
+    @Override
+    protected int read(byte[] bytes, int offset, int length) throws IOException {
+      if (window == null || !window.hasRemaining()) {
+        if (windowEnd == endPosition) {
+          return -1;
+        }
+        long size = Math.min(windowSize, endPosition - windowEnd);
+        window = channel.map(FileChannel.MapMode.READ_ONLY, windowEnd, size);
+        windowEnd += size;
+      }
+      int n = Math.min(length, window.remaining());
+      window.get(bytes, offset, n);
+      return n;
+    }
+  }
+}
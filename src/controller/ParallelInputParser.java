@@ -0,0 +1,90 @@
+package controller;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import model.IPhotoAlbumApp;
+
+/**
+ * An input parser like ByteInputParser, that parses chunks of the input in parallel.
+ * The input is split into chunks at line boundaries. Each chunk is tokenized and parsed on a
+ * fork-join pool into a batch of commands, while the calling thread reads the next chunks and
+ * applies the parsed batches to the model in order. A limited number of chunks are read ahead,
+ * so the memory stays bounded.
+ */
+public class ParallelInputParser implements IInputParser {
+  private static final int DEFAULT_CHUNK_SIZE = 1 << 20;
+
+  private final ForkJoinPool pool;
+  private final int chunkSize;
+
+  /**
+   * Constructor for a parser that parses 1 MB chunks on the common fork-join pool.
+   */
+  public ParallelInputParser() {
+    this(ForkJoinPool.commonPool(), DEFAULT_CHUNK_SIZE);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param pool pool that parses the chunks
+   * @param chunkSize size of the chunks in bytes. Chunks grow to fit a longer line.
+   * @throws IllegalArgumentException if pool is null or chunkSize isn't positive
+   */
+  public ParallelInputParser(ForkJoinPool pool, int chunkSize) {
+    if (pool == null) {
+      throw new IllegalArgumentException("Parameter can't be null");
+    }
+    if (chunkSize <= 0) {
+      throw new IllegalArgumentException("Chunk size must be positive");
+    }
+    this.pool = pool;
+    this.chunkSize = chunkSize;
+  }
+
+  /**
+   * Parses the commands coming from the input stream and populate model,
+   * reporting the progress to a listener after each line.
+   * The model and the listener are only called from the calling thread.
+   *
+   * @param in input stream
+   * @param model model
+   * @param listener progress listener
+   * @throws IllegalArgumentException if any parameter is null
+   * @throws UncheckedIOException if the input stream can't be read
+   */
+  @Override
+  public void parse(InputStream in, IPhotoAlbumApp model, IParseProgressListener listener) {
+    if (in == null || model == null || listener == null) {
+      throw new IllegalArgumentException("Parameter can't be null");
+    }
+    int maxChunksAhead = 2 * pool.getParallelism() + 1;
+    Deque<ForkJoinTask<CommandBatch>> batches = new ArrayDeque<>();
+    ChunkReader chunks = new ChunkReader(in, chunkSize);
+    long linesBefore = 0;
+    long bytesBefore = 0;
+    try {
+      ChunkReader.Chunk chunk = chunks.next();
+      while (chunk != null || !batches.isEmpty()) {
+        if (chunk != null && batches.size() < maxChunksAhead) {
+          batches.add(pool.submit(chunk::parse));
+          chunk = chunks.next();
+          continue;
+        }
+        CommandBatch batch = batches.remove().join();
+        batch.apply(model, listener, linesBefore, bytesBefore);
+        linesBefore += batch.getLineCount();
+        bytesBefore += batch.getByteCount();
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    } finally {
+      batches.forEach(task -> task.cancel(false));
+    }
+  }
+}
@@ -1,23 +1,54 @@
 package controller;
 
 import java.io.InputStream;
-import java.util.List;
+import java.util.LongSummaryStatistics;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
 import model.IPhoto;
 import model.IPhotoAlbumApp;
 import model.IShape;
 import model.ISnapshot;
 import view.GUI.IPhotoAlbumViewGUI;
+import view.IPhotoAlbumView;
 
 /**
  * Asynchronous controller for a graphical-based view.
  * Implements callback functions that the GUI components will need.
+ *
+ * <p>It can prefetch the snapshots around the displayed one: a background executor gets their
+ * photos from the model and has the view render them, so that going to the next or previous
+ * snapshot only displays an image that is ready. The time from a navigation callback until
+ * the view painted the snapshot is measured.
+ *
+ * <p>It's the source of the snapshots listed by the view, which reads them from the model
+ * only when it displays them.
+ *
+ * <p>It can also load the album in the background: the view is displayed right away, and
+ * the snapshots are added to it as the commands are parsed, along with the loading progress.
  */
-public class PhotoAlbumControllerGUI implements ICallbacks, IPhotoAlbumController{
+public class PhotoAlbumControllerGUI implements ICallbacks, IPhotoAlbumController, ISnapshotSource {
   private final IPhotoAlbumApp model;
   private final IPhotoAlbumViewGUI view;
   private final InputStream in;
   private final IInputParser inputParser;
   private boolean isSnapshotBrowserDisplayed;
+  private final Executor loadExecutor;
+  //True until the album is loaded in the background. Only used on the view's thread.
+  private boolean isLoading;
+  //Number of snapshots of the album added to the view while it's loaded in the background.
+  private int loadedSnapshotCount;
+  //When the loading progress was last sent to the view. Only used by the loading thread.
+  private long lastProgressNanos;
+  private final Executor prefetchExecutor;
+  private final int prefetchRadius;
+  //Incremented when the displayed snapshot changes, so that older prefetches are skipped.
+  private final AtomicInteger prefetchGeneration;
+  //Snapshot that a navigation callback is displaying and when it started, until it's painted.
+  private String navigationSnapshotID;
+  private long navigationStartNanos;
+  private final LongSummaryStatistics paintLatencies;
+  //Minimum time between two updates of the loading progress in the view.
+  private static final long PROGRESS_INTERVAL_NANOS = 100_000_000L;
 
   /**
    * Constructor.
@@ -26,10 +57,7 @@ public class PhotoAlbumControllerGUI implements ICallbacks, IPhotoAlbumControlle
    * @param view photo album graphical-based view
    */
   public PhotoAlbumControllerGUI(IPhotoAlbumApp model, IPhotoAlbumViewGUI view) {
-    this.model = model;
-    this.view = view;
-    this.in = null;
-    this.inputParser = null;
+    this(model, view, null, null);
   }
   
   /**
@@ -41,32 +69,103 @@ public class PhotoAlbumControllerGUI implements ICallbacks, IPhotoAlbumControlle
    * @param inputParser a parser that can parse the commands sequence from the input stream.
    */
   public PhotoAlbumControllerGUI(IPhotoAlbumApp model, IPhotoAlbumViewGUI view, InputStream in, IInputParser inputParser) {
+    this(model, view, in, inputParser, Runnable::run, 0);
+  }
+
+  /**
+   * Overloaded constructor that also prefetches the snapshots around the displayed one.
+   * The model is read from the executor's threads while the view reads it, so it must support
+   * concurrent reads (e.g. a ConcurrentPhotoAlbumApp).
+   *
+   * @param model photo album model
+   * @param view photo album graphical-based view
+   * @param in input stream with the commands sequence, or null
+   * @param inputParser a parser that can parse the commands sequence from the input stream, or null
+   * @param prefetchExecutor executor that prefetches snapshots, usually a single background thread
+   * @param prefetchRadius number of snapshots to prefetch on each side of the displayed one,
+   *                       0 to prefetch none
+   * @throws IllegalArgumentException if prefetchExecutor is null or prefetchRadius is negative
+   */
+  public PhotoAlbumControllerGUI(IPhotoAlbumApp model, IPhotoAlbumViewGUI view, InputStream in,
+                                 IInputParser inputParser, Executor prefetchExecutor,
+                                 int prefetchRadius) {
+    this(model, view, in, inputParser, null, prefetchExecutor, prefetchRadius);
+  }
+
+  /**
+   * Overloaded constructor that also loads the album in the background, so that the view is
+   * displayed before the commands are parsed. The model is then modified while the view reads
+   * it, so it must be thread-safe (e.g. a ConcurrentPhotoAlbumApp).
+   *
+   * @param model photo album model
+   * @param view photo album graphical-based view
+   * @param in input stream with the commands sequence, or null
+   * @param inputParser a parser that can parse the commands sequence from the input stream, or null
+   * @param loadExecutor executor that parses the commands, or null to parse them before
+   *                     displaying the view
+   * @param prefetchExecutor executor that prefetches snapshots, usually a single background thread
+   * @param prefetchRadius number of snapshots to prefetch on each side of the displayed one,
+   *                       0 to prefetch none
+   * @throws IllegalArgumentException if prefetchExecutor is null or prefetchRadius is negative
+   */
+  public PhotoAlbumControllerGUI(IPhotoAlbumApp model, IPhotoAlbumViewGUI view, InputStream in,
+                                 IInputParser inputParser, Executor loadExecutor,
+                                 Executor prefetchExecutor, int prefetchRadius) {
+    if (prefetchExecutor == null || prefetchRadius < 0) {
+      throw new IllegalArgumentException("Invalid prefetch executor or radius");
+    }
     this.model = model;
     this.view = view;
     this.in = in;
     this.inputParser = inputParser;
+    this.loadExecutor = loadExecutor;
+    this.prefetchExecutor = prefetchExecutor;
+    this.prefetchRadius = prefetchRadius;
+    this.prefetchGeneration = new AtomicInteger();
+    this.paintLatencies = new LongSummaryStatistics();
+  }
+
+  /**
+   * Returns statistics of the time in nanoseconds from a callback that changes the displayed
+   * snapshot until the view painted it, over all such callbacks so far.
+   *
+   * @return copy of the latency statistics
+   */
+  public LongSummaryStatistics getPaintLatencies() {
+    LongSummaryStatistics copy = new LongSummaryStatistics();
+    copy.combine(paintLatencies);
+    return copy;
   }
 
   @Override
   public void go() {
-    this.modelSetup();
-    this.viewSetup();
+    if (loadExecutor == null || in == null || inputParser == null) {
+      this.modelSetup();
+      this.viewSetup();
+    } else {
+      this.viewSetupWhileLoading();
+      loadExecutor.execute(this::loadModel);
+    }
   }
 
   @Override
   public void nextSnapshotCallback() {
+    long startNanos = System.nanoTime();
     //Obtain the current snapshot that view is displaying
     String currSnapshotID = view.getSnapshotInfo();
     int currSnapshotIdx = model.getSnapshotIndex(currSnapshotID);
 
-    List<ISnapshot> snapshotList = model.getSnapshots();
-    int numSnapshots = snapshotList.size();
+    int numSnapshots = model.getSnapshotCount();
     //Paint the next snapshot if not end of list, otherwise display an error message.
     if (currSnapshotIdx < numSnapshots - 1) {
-      ISnapshot nextSnapshot = snapshotList.get(currSnapshotIdx + 1);
+      ISnapshot nextSnapshot = model.getSnapshotAt(currSnapshotIdx + 1);
       view.setSnapshotInfo(nextSnapshot.getID(), nextSnapshot.getDescription());
+      this.startNavigation(nextSnapshot.getID(), startNanos);
       this.drawSnapshot(nextSnapshot);
       view.setSnapshotListSelectedValue(currSnapshotIdx + 1);
+    } else if (isLoading) {
+      view.displayErrorDialog(
+          "The photo album is still loading. There is no snapshot after this yet.");
     } else {
       view.displayErrorDialog("End of the photo album. There is no snapshot after this.");
     }
@@ -74,15 +173,16 @@ public class PhotoAlbumControllerGUI implements ICallbacks, IPhotoAlbumControlle
 
   @Override
   public void prevSnapshotCallback() {
+    long startNanos = System.nanoTime();
     //Obtain the current snapshot that view is displaying
     String currSnapshotID = view.getSnapshotInfo();
     int currSnapshotIdx = model.getSnapshotIndex(currSnapshotID);
 
-    List<ISnapshot> snapshotList = model.getSnapshots();
     //Paint the previous snapshot if not beginning of the list, otherwise display an error message.
     if (currSnapshotIdx > 0) {
-      ISnapshot prevSnapshot = snapshotList.get(currSnapshotIdx - 1);
+      ISnapshot prevSnapshot = model.getSnapshotAt(currSnapshotIdx - 1);
       view.setSnapshotInfo(prevSnapshot.getID(), prevSnapshot.getDescription());
+      this.startNavigation(prevSnapshot.getID(), startNanos);
       this.drawSnapshot(prevSnapshot);
       view.setSnapshotListSelectedValue(currSnapshotIdx - 1);
     } else {
@@ -103,11 +203,41 @@ public class PhotoAlbumControllerGUI implements ICallbacks, IPhotoAlbumControlle
 
   @Override
   public void selectSnapshotCallback(String snapshotID) {
+    long startNanos = System.nanoTime();
     ISnapshot selectedSnapshot = model.getSnapshot(snapshotID);
     view.setSnapshotInfo(selectedSnapshot.getID(), selectedSnapshot.getDescription());
+    this.startNavigation(selectedSnapshot.getID(), startNanos);
     this.drawSnapshot(selectedSnapshot);
   }
 
+  @Override
+  public int getSnapshotCount() {
+    return model.getSnapshotCount();
+  }
+
+  @Override
+  public String getSnapshotID(int index) {
+    return model.getSnapshotAt(index).getID();
+  }
+
+  @Override
+  public String getSnapshotDescription(int index) {
+    return model.getSnapshotAt(index).getDescription();
+  }
+
+  @Override
+  public void drawSnapshotAt(int index, IPhotoAlbumView target) {
+    this.drawPhoto(model.getSnapshotAt(index).getPhoto(), target);
+  }
+
+  @Override
+  public void snapshotPaintedCallback(String snapshotID) {
+    if (navigationSnapshotID != null && navigationSnapshotID.equals(snapshotID)) {
+      paintLatencies.accept(System.nanoTime() - navigationStartNanos);
+      navigationSnapshotID = null;
+    }
+  }
+
   /**
    * Setup function for View. Set callback functions and pass snapshots information to View,
    * and make View display the first snapshot by default.
@@ -116,12 +246,76 @@ public class PhotoAlbumControllerGUI implements ICallbacks, IPhotoAlbumControlle
     //Set callbacks, give snapshots information to view, and set other auxiliary variables.
     view.setCallbacks(this);
     this.isSnapshotBrowserDisplayed = false;
-    view.setSnapshotList(model.getSnapshotIDs());
+    view.setSnapshotSource(this);
     //Display the first snapshot
-    if (model.getSnapshots().size() != 0) {
-      ISnapshot firstSnapshot = model.getSnapshots().get(0);
-      this.drawSnapshot(firstSnapshot);
+    if (model.getSnapshotCount() != 0) {
+      ISnapshot firstSnapshot = model.getSnapshotAt(0);
       view.setSnapshotInfo(firstSnapshot.getID(), firstSnapshot.getDescription());
+      this.drawSnapshot(firstSnapshot);
+    }
+  }
+
+  /**
+   * Setup function for View when the album is loaded in the background. Set callback functions
+   * and an empty list of snapshots, which are added as they are loaded.
+   */
+  private void viewSetupWhileLoading() {
+    view.setCallbacks(this);
+    this.isSnapshotBrowserDisplayed = false;
+    this.isLoading = true;
+    this.loadedSnapshotCount = 0;
+    view.setSnapshotSource(this);
+    view.setLoadingProgress(0, 0, false);
+  }
+
+  /**
+   * Parses the commands on the loading thread. The view is updated with the progress
+   * regularly, and once more when it's done. If the commands can't be parsed, the view
+   * displays an error and keeps the snapshots loaded so far.
+   */
+  private void loadModel() {
+    long[] progress = new long[2];
+    lastProgressNanos = System.nanoTime() - PROGRESS_INTERVAL_NANOS;
+    try {
+      inputParser.parse(in, model, (lines, bytes) -> {
+        progress[0] = lines;
+        progress[1] = bytes;
+        long now = System.nanoTime();
+        if (now - lastProgressNanos >= PROGRESS_INTERVAL_NANOS) {
+          lastProgressNanos = now;
+          view.runOnViewThread(() -> this.showLoadingProgress(lines, bytes, false));
+        }
+      });
+    } catch (RuntimeException e) {
+      view.runOnViewThread(() -> view.displayErrorDialog(
+          "The photo album couldn't be fully loaded: " + e.getMessage()));
+    }
+    view.runOnViewThread(() -> this.showLoadingProgress(progress[0], progress[1], true));
+  }
+
+  /**
+   * Adds the snapshots loaded since the last call to the snapshot browser, displays the first snapshot
+   * if it's the first one loaded, and displays the loading progress.
+   *
+   * @param lines number of lines parsed
+   * @param bytes number of bytes parsed
+   * @param done true if the loading is finished
+   */
+  private void showLoadingProgress(long lines, long bytes, boolean done) {
+    int snapshotCount = model.getSnapshotCount();
+    if (snapshotCount > loadedSnapshotCount) {
+      view.refreshSnapshotList();
+      if (loadedSnapshotCount == 0) {
+        ISnapshot firstSnapshot = model.getSnapshotAt(0);
+        view.setSnapshotInfo(firstSnapshot.getID(), firstSnapshot.getDescription());
+        this.drawSnapshot(firstSnapshot);
+        view.setSnapshotListSelectedValue(0);
+      }
+      loadedSnapshotCount = snapshotCount;
+    }
+    view.setLoadingProgress(lines, bytes, done);
+    if (done) {
+      this.isLoading = false;
     }
   }
 
@@ -134,29 +328,84 @@ public class PhotoAlbumControllerGUI implements ICallbacks, IPhotoAlbumControlle
     }
   }
 
+  /**
+   * Helper function that records the start of a navigation to a snapshot, to measure
+   * the time until the view painted it.
+   *
+   * @param snapshotID ID of the snapshot to display
+   * @param startNanos System.nanoTime() when the callback started
+   */
+  private void startNavigation(String snapshotID, long startNanos) {
+    this.navigationSnapshotID = snapshotID;
+    this.navigationStartNanos = startNanos;
+  }
+
   /**
    * Helper function that clears the draw panel and draws the given snapshot in View.
+   * If the view already rendered the snapshot, it displays it without drawing the shapes.
+   * Then the snapshots around it are prefetched.
    *
    * @param snapshot snapshot to be drawn
    */
   private void drawSnapshot(ISnapshot snapshot) {
-    view.clearDrawPanel();
-    IPhoto photo = snapshot.getPhoto();
+    if (!view.displayPrerenderedSnapshot(snapshot.getID())) {
+      view.clearDrawPanel();
+      this.drawPhoto(snapshot.getPhoto(), view);
+    }
+    view.repaintDrawPanel();
+    this.prefetchAround(snapshot.getID());
+  }
+
+  /**
+   * Helper function that has the view render the snapshots around a snapshot, nearest first,
+   * on the prefetch executor. The prefetches still waiting from the previous call are skipped.
+   *
+   * @param snapshotID ID of the displayed snapshot
+   */
+  private void prefetchAround(String snapshotID) {
+    if (prefetchRadius == 0) {
+      return;
+    }
+    int generation = prefetchGeneration.incrementAndGet();
+    for (int distance = 1; distance <= prefetchRadius; distance++) {
+      for (int direction : new int[] {1, -1}) {
+        int offset = distance * direction;
+        prefetchExecutor.execute(() -> {
+          if (prefetchGeneration.get() != generation) {
+            return;
+          }
+          int index = model.getSnapshotIndex(snapshotID) + offset;
+          if (index >= 0 && index < model.getSnapshotCount()) {
+            ISnapshot snapshot = model.getSnapshotAt(index);
+            view.prerenderSnapshot(snapshot.getID(),
+                target -> this.drawPhoto(snapshot.getPhoto(), target));
+          }
+        });
+      }
+    }
+  }
+
+  /**
+   * Helper function that draws the shapes of a photo on a view.
+   *
+   * @param photo photo to be drawn
+   * @param target view to draw on
+   */
+  private void drawPhoto(IPhoto photo, IPhotoAlbumView target) {
     for (IShape shape : photo.getShapes()) {
-      double x = shape.getPosition()[0];
-      double y = shape.getPosition()[1];
+      double x = shape.getX();
+      double y = shape.getY();
       double xDim = shape.getXDim();
       double yDim = shape.getYDim();
-      double r = shape.getColor()[0];
-      double g = shape.getColor()[1];
-      double b = shape.getColor()[2];
+      double r = shape.getR();
+      double g = shape.getG();
+      double b = shape.getB();
       if (shape.getType().equals("rectangle")) {
-        view.drawRectangle(x, y, xDim, yDim, r, g, b);
+        target.drawRectangle(x, y, xDim, yDim, r, g, b);
       } else {
-        view.drawOval(x, y, xDim, yDim, r, g, b);
+        target.drawOval(x, y, xDim, yDim, r, g, b);
       }
     }
-    view.repaintDrawPanel();
   }
 
 
@@ -55,13 +55,13 @@ public class PhotoAlbumControllerText implements IPhotoAlbumController {
     for (ISnapshot snapshot : snapshotList) {
       view.startDrawingSnapshot(snapshot.getID(), snapshot.getDescription());
       for (IShape shape : snapshot.getPhoto().getShapes()) {
-        double x = shape.getPosition()[0];
-        double y = shape.getPosition()[1];
+        double x = shape.getX();
+        double y = shape.getY();
         double xDim = shape.getXDim();
         double yDim = shape.getYDim();
-        double r = shape.getColor()[0];
-        double g = shape.getColor()[1];
-        double b = shape.getColor()[2];
+        double r = shape.getR();
+        double g = shape.getG();
+        double b = shape.getB();
         if (shape.getType().equals("rectangle")) {
           view.drawRectangle(x, y, xDim, yDim, r, g, b);
         } else if (shape.getType().equals("oval")) {
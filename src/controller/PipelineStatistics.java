@@ -0,0 +1,213 @@
+package controller;
+
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Counters of a PipelinedInputParser run, that can be read while it runs.
+ * Each stage counts what it has processed, the time it spent working, and the time it spent
+ * waiting for the previous stage or for room in the next queue. The stage that limits the
+ * pipeline is the one that works most of the time, while the others wait for it.
+ * The queues between the stages report their current depth, and the deepest they have been.
+ */
+public class PipelineStatistics {
+  private final Stage reader;
+  private final Stage tokenizer;
+  private final Stage applier;
+  private final BlockingQueue<?> chunkQueue;
+  private final BlockingQueue<?> batchQueue;
+  private volatile int maxChunkQueueDepth;
+  private volatile int maxBatchQueueDepth;
+
+  /**
+   * Constructor.
+   *
+   * @param chunkQueue queue from the reader to the tokenizer
+   * @param batchQueue queue from the tokenizer to the applier
+   */
+  PipelineStatistics(BlockingQueue<?> chunkQueue, BlockingQueue<?> batchQueue) {
+    this.reader = new Stage("reader");
+    this.tokenizer = new Stage("tokenizer");
+    this.applier = new Stage("applier");
+    this.chunkQueue = chunkQueue;
+    this.batchQueue = batchQueue;
+  }
+
+  /**
+   * Returns the counters of the stage that reads chunks of lines from the input.
+   * Its items are chunks.
+   *
+   * @return reader stage
+   */
+  public Stage getReader() {
+    return reader;
+  }
+
+  /**
+   * Returns the counters of the stage that tokenizes and parses the chunks into commands.
+   * Its items are lines.
+   *
+   * @return tokenizer stage
+   */
+  public Stage getTokenizer() {
+    return tokenizer;
+  }
+
+  /**
+   * Returns the counters of the stage that applies the commands to the model.
+   * Its items are lines.
+   *
+   * @return applier stage
+   */
+  public Stage getApplier() {
+    return applier;
+  }
+
+  /**
+   * Returns the number of chunks waiting for the tokenizer.
+   *
+   * @return queue depth
+   */
+  public int getChunkQueueDepth() {
+    return chunkQueue.size();
+  }
+
+  /**
+   * Returns the largest number of chunks that have waited for the tokenizer.
+   *
+   * @return maximum queue depth
+   */
+  public int getMaxChunkQueueDepth() {
+    return maxChunkQueueDepth;
+  }
+
+  /**
+   * Returns the number of parsed chunks waiting for the applier.
+   *
+   * @return queue depth
+   */
+  public int getBatchQueueDepth() {
+    return batchQueue.size();
+  }
+
+  /**
+   * Returns the largest number of parsed chunks that have waited for the applier.
+   *
+   * @return maximum queue depth
+   */
+  public int getMaxBatchQueueDepth() {
+    return maxBatchQueueDepth;
+  }
+
+  /**
+   * Records the depth of the chunk queue after the reader added a chunk.
+   * Only called by the reader.
+   */
+  void sampleChunkQueue() {
+    maxChunkQueueDepth = Math.max(maxChunkQueueDepth, chunkQueue.size());
+  }
+
+  /**
+   * Records the depth of the batch queue after the tokenizer added a parsed chunk.
+   * Only called by the tokenizer.
+   */
+  void sampleBatchQueue() {
+    maxBatchQueueDepth = Math.max(maxBatchQueueDepth, batchQueue.size());
+  }
+
+  @Override
+  public String toString() {
+    return String.format("%s; %s; %s; chunk queue %d (max %d); batch queue %d (max %d)",
+        reader, tokenizer, applier, this.getChunkQueueDepth(), maxChunkQueueDepth,
+        this.getBatchQueueDepth(), maxBatchQueueDepth);
+  }
+
+  /**
+   * The counters of a stage of the pipeline. They are only updated by the thread of the stage.
+   */
+  public static class Stage {
+    private final String name;
+    private volatile long items;
+    private volatile long bytes;
+    private volatile long busyNanos;
+    private volatile long waitNanos;
+
+    /**
+     * Constructor.
+     *
+     * @param name name of the stage
+     */
+    private Stage(String name) {
+      this.name = name;
+    }
+
+    /**
+     * Returns the number of items the stage has processed.
+     *
+     * @return number of items
+     */
+    public long getItems() {
+      return items;
+    }
+
+    /**
+     * Returns the number of bytes of input the stage has processed.
+     *
+     * @return number of bytes
+     */
+    public long getBytes() {
+      return bytes;
+    }
+
+    /**
+     * Returns the time the stage has spent working.
+     *
+     * @return time in nanoseconds
+     */
+    public long getBusyNanos() {
+      return busyNanos;
+    }
+
+    /**
+     * Returns the time the stage has spent waiting for the previous stage, or for room in the
+     * queue to the next stage.
+     *
+     * @return time in nanoseconds
+     */
+    public long getWaitNanos() {
+      return waitNanos;
+    }
+
+    /**
+     * Returns the throughput of the stage while it works, which is the most the pipeline could
+     * go through if the other stages were infinitely fast.
+     *
+     * @return throughput in MB/s, or 0 if the stage hasn't worked yet
+     */
+    public double getThroughput() {
+      long busy = busyNanos;
+      return busy == 0 ? 0 : bytes / 1e6 / (busy / 1e9);
+    }
+
+    /**
+     * Adds the work of the stage on an item.
+     * Only called by the thread of the stage.
+     *
+     * @param items number of items processed
+     * @param bytes number of bytes of input processed
+     * @param busyNanos time spent working in nanoseconds
+     * @param waitNanos time spent waiting in nanoseconds
+     */
+    void add(long items, long bytes, long busyNanos, long waitNanos) {
+      this.items += items;
+      this.bytes += bytes;
+      this.busyNanos += busyNanos;
+      this.waitNanos += waitNanos;
+    }
+
+    @Override
+    public String toString() {
+      return String.format("%s: %d items, %.1f MB, busy %d ms (%.1f MB/s), waiting %d ms", name,
+          items, bytes / 1e6, busyNanos / 1000000, this.getThroughput(), waitNanos / 1000000);
+    }
+  }
+}
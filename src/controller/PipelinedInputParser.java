@@ -0,0 +1,269 @@
+package controller;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import model.IPhotoAlbumApp;
+
+/**
+ * An input parser like ByteInputParser, that reads, tokenizes and applies the commands in a
+ * pipeline of three stages, so that slow model operations overlap with reading and parsing.
+ * A reader thread splits the input into chunks of lines, a tokenizer thread parses each chunk
+ * into a batch of commands, and the calling thread applies the batches to the model in order.
+ * The stages are connected by bounded queues: a stage that gets ahead blocks until the next
+ * one catches up, so at most a few chunks are in memory at once.
+ * The counters of each stage and queue are available from getStatistics(), during and after
+ * the parsing, to see which stage limits an input.
+ */
+public class PipelinedInputParser implements IInputParser {
+  private static final int DEFAULT_CHUNK_SIZE = 1 << 16;
+  private static final int DEFAULT_QUEUE_CAPACITY = 16;
+  //Sent down the pipeline after the last chunk.
+  private static final ChunkReader.Chunk END_CHUNK = new ChunkReader.Chunk(new byte[0], 0);
+  private static final CommandBatch END_BATCH = new CommandBatch(0);
+
+  private final int chunkSize;
+  private final int queueCapacity;
+  private volatile PipelineStatistics statistics;
+
+  /**
+   * Constructor for a parser of 64 KB chunks, with up to 16 chunks in each queue.
+   */
+  public PipelinedInputParser() {
+    this(DEFAULT_CHUNK_SIZE, DEFAULT_QUEUE_CAPACITY);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param chunkSize size of the chunks in bytes. Chunks grow to fit a longer line.
+   * @param queueCapacity maximum number of chunks waiting between two stages
+   * @throws IllegalArgumentException if chunkSize or queueCapacity isn't positive
+   */
+  public PipelinedInputParser(int chunkSize, int queueCapacity) {
+    if (chunkSize <= 0) {
+      throw new IllegalArgumentException("Chunk size must be positive");
+    }
+    if (queueCapacity <= 0) {
+      throw new IllegalArgumentException("Queue capacity must be positive");
+    }
+    this.chunkSize = chunkSize;
+    this.queueCapacity = queueCapacity;
+  }
+
+  /**
+   * Returns the counters of the running parsing, or of the last one if none is running.
+   *
+   * @return statistics, or null if nothing was parsed yet
+   */
+  public PipelineStatistics getStatistics() {
+    return statistics;
+  }
+
+  /**
+   * Parses the commands coming from the input stream and populate model,
+   * reporting the progress to a listener after each line.
+   * The model and the listener are only called from the calling thread.
+   * If a command fails, the parsing stops, and the reader thread stops at its next chunk.
+   *
+   * @param in input stream
+   * @param model model
+   * @param listener progress listener
+   * @throws IllegalArgumentException if any parameter is null
+   * @throws UncheckedIOException if the input stream can't be read
+   * @throws IllegalStateException if the calling thread is interrupted
+   */
+  @Override
+  public void parse(InputStream in, IPhotoAlbumApp model, IParseProgressListener listener) {
+    if (in == null || model == null || listener == null) {
+      throw new IllegalArgumentException("Parameter can't be null");
+    }
+    BlockingQueue<ChunkReader.Chunk> chunks = new ArrayBlockingQueue<>(queueCapacity);
+    BlockingQueue<CommandBatch> batches = new ArrayBlockingQueue<>(queueCapacity);
+    PipelineStatistics stats = new PipelineStatistics(chunks, batches);
+    this.statistics = stats;
+    //Failures of the reader and the tokenizer, published to the next stage by its end marker.
+    Throwable[] readFailure = new Throwable[1];
+    Throwable[] tokenizeFailure = new Throwable[1];
+    Thread reader = this.startThread("album-reader", () -> {
+      try {
+        readFailure[0] = read(new ChunkReader(in, chunkSize), chunks, stats);
+      } catch (InterruptedException e) {
+        //The parsing failed, the chunks aren't needed anymore.
+        Thread.currentThread().interrupt();
+      } catch (RuntimeException | Error e) {
+        readFailure[0] = e;
+      } finally {
+        end(chunks, END_CHUNK);
+      }
+    });
+    Thread tokenizer = this.startThread("album-tokenizer", () -> {
+      try {
+        tokenize(chunks, batches, stats);
+      } catch (InterruptedException e) {
+        //The parsing failed, the batches aren't needed anymore.
+        Thread.currentThread().interrupt();
+      } catch (RuntimeException | Error e) {
+        tokenizeFailure[0] = e;
+      } finally {
+        end(batches, END_BATCH);
+      }
+    });
+    try {
+      apply(batches, model, listener, stats);
+      //The tokenizer is done. If it failed, the reader may still be running, otherwise the
+      //end of the chunks came after the failure of the reader, if any.
+      if (tokenizeFailure[0] != null) {
+        throw rethrow(tokenizeFailure[0]);
+      }
+      if (readFailure[0] != null) {
+        throw rethrow(readFailure[0]);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Parsing was interrupted");
+    } finally {
+      reader.interrupt();
+      tokenizer.interrupt();
+    }
+  }
+
+  /**
+   * Puts the end marker of a stage into the queue to the next stage. Does nothing if the thread
+   * is interrupted, as the next stage isn't running anymore.
+   *
+   * @param queue queue to the next stage
+   * @param end end marker
+   * @param <T> type of the elements of the queue
+   */
+  private static <T> void end(BlockingQueue<T> queue, T end) {
+    try {
+      queue.put(end);
+    } catch (InterruptedException e) {
+      //The parsing failed, nothing takes from the queue anymore.
+    }
+  }
+
+  /**
+   * Throws the failure of a stage on the calling thread, wrapping the exceptions that can't be
+   * thrown as they are.
+   *
+   * @param failure failure of a stage
+   * @return never returns, so that callers can throw the result
+   * @throws RuntimeException the failure, or an exception wrapping it
+   * @throws Error the failure if it's an error
+   */
+  private static RuntimeException rethrow(Throwable failure) {
+    if (failure instanceof IOException) {
+      throw new UncheckedIOException((IOException) failure);
+    }
+    if (failure instanceof RuntimeException) {
+      throw (RuntimeException) failure;
+    }
+    if (failure instanceof Error) {
+      throw (Error) failure;
+    }
+    throw new IllegalStateException(failure);
+  }
+
+  /**
+   * Starts a daemon thread.
+   *
+   * @param name name of the thread
+   * @param task task of the thread
+   * @return thread
+   */
+  private Thread startThread(String name, Runnable task) {
+    Thread thread = new Thread(task, name);
+    thread.setDaemon(true);
+    thread.start();
+    return thread;
+  }
+
+  /**
+   * Reads the chunks of the input into a queue, until the end of the input or an error.
+   *
+   * @param chunkReader reader of the chunks
+   * @param chunks queue to the tokenizer
+   * @param stats statistics of the parsing
+   * @return exception that stopped the reading, or null at the end of the input
+   * @throws InterruptedException if the thread is interrupted while the queue is full
+   */
+  private static IOException read(ChunkReader chunkReader, BlockingQueue<ChunkReader.Chunk> chunks,
+                                  PipelineStatistics stats) throws InterruptedException {
+    while (true) {
+      long start = System.nanoTime();
+      ChunkReader.Chunk chunk;
+      try {
+        chunk = chunkReader.next();
+      } catch (IOException e) {
+        return e;
+      }
+      if (chunk == null) {
+        return null;
+      }
+      long read = System.nanoTime();
+      chunks.put(chunk);
+      stats.sampleChunkQueue();
+      stats.getReader().add(1, chunk.getLength(), read - start, System.nanoTime() - read);
+    }
+  }
+
+  /**
+   * Parses the chunks from a queue into batches of commands, until the end of the chunks.
+   *
+   * @param chunks queue from the reader
+   * @param batches queue to the applier
+   * @param stats statistics of the parsing
+   * @throws InterruptedException if the thread is interrupted while waiting for a queue
+   */
+  private static void tokenize(BlockingQueue<ChunkReader.Chunk> chunks,
+                               BlockingQueue<CommandBatch> batches, PipelineStatistics stats)
+      throws InterruptedException {
+    while (true) {
+      long start = System.nanoTime();
+      ChunkReader.Chunk chunk = chunks.take();
+      if (chunk == END_CHUNK) {
+        return;
+      }
+      long taken = System.nanoTime();
+      CommandBatch batch = chunk.parse();
+      long parsed = System.nanoTime();
+      batches.put(batch);
+      stats.sampleBatchQueue();
+      stats.getTokenizer().add(batch.getLineCount(), batch.getByteCount(), parsed - taken,
+          (taken - start) + (System.nanoTime() - parsed));
+    }
+  }
+
+  /**
+   * Applies the batches from a queue to the model in order, until the end of the batches.
+   *
+   * @param batches queue from the tokenizer
+   * @param model model
+   * @param listener progress listener
+   * @param stats statistics of the parsing
+   * @throws InterruptedException if the thread is interrupted while waiting for the queue
+   */
+  private static void apply(BlockingQueue<CommandBatch> batches, IPhotoAlbumApp model,
+                            IParseProgressListener listener, PipelineStatistics stats)
+      throws InterruptedException {
+    long linesBefore = 0;
+    long bytesBefore = 0;
+    while (true) {
+      long start = System.nanoTime();
+      CommandBatch batch = batches.take();
+      if (batch == END_BATCH) {
+        return;
+      }
+      long taken = System.nanoTime();
+      batch.apply(model, listener, linesBefore, bytesBefore);
+      linesBefore += batch.getLineCount();
+      bytesBefore += batch.getByteCount();
+      stats.getApplier().add(batch.getLineCount(), batch.getByteCount(),
+          System.nanoTime() - taken, taken - start);
+    }
+  }
+}
@@ -1,6 +1,5 @@
 package model;
 
-import java.util.Arrays;
 import java.util.Objects;
 
 /**
@@ -11,8 +10,11 @@ public abstract class AbstractShape implements IShape {
   private final String type;
   private double xDim;
   private double yDim;
-  private double[] position;
-  private double[] color;
+  private double x;
+  private double y;
+  private double r;
+  private double g;
+  private double b;
 
   /**
    * Constructor.
@@ -42,8 +44,11 @@ public abstract class AbstractShape implements IShape {
     this.type = type;
     this.xDim = xDim;
     this.yDim = yDim;
-    this.color = new double[]{r, g, b};
-    this.position = new double[]{x, y};
+    this.r = r;
+    this.g = g;
+    this.b = b;
+    this.x = x;
+    this.y = y;
   }
 
   @Override
@@ -68,12 +73,37 @@ public abstract class AbstractShape implements IShape {
 
   @Override
   public double[] getPosition() {
-    return position.clone();
+    return new double[]{x, y};
   }
 
   @Override
   public double[] getColor() {
-    return color.clone();
+    return new double[]{r, g, b};
+  }
+
+  @Override
+  public double getX() {
+    return this.x;
+  }
+
+  @Override
+  public double getY() {
+    return this.y;
+  }
+
+  @Override
+  public double getR() {
+    return this.r;
+  }
+
+  @Override
+  public double getG() {
+    return this.g;
+  }
+
+  @Override
+  public double getB() {
+    return this.b;
   }
 
   @Override
@@ -90,16 +120,16 @@ public abstract class AbstractShape implements IShape {
 
   @Override
   public void setPosition(double x, double y) {
-    this.position[0] = x;
-    this.position[1] = y;
+    this.x = x;
+    this.y = y;
   }
 
   @Override
   public void setColor(double r, double g, double b) {
     validateColor(r, g, b);
-    this.color[0] = r;
-    this.color[1] = g;
-    this.color[2] = b;
+    this.r = r;
+    this.g = g;
+    this.b = b;
   }
 
   /**
@@ -131,11 +161,11 @@ public abstract class AbstractShape implements IShape {
     IShape o = (IShape) obj;
     return o.getName().equals(this.name)
         && o.getType().equals(this.type)
-        && Math.abs(o.getColor()[0] - this.color[0]) < 0.01
-        && Math.abs(o.getColor()[1] - this.color[1]) < 0.01
-        && Math.abs(o.getColor()[2] - this.color[2]) < 0.01
-        && Math.abs(o.getPosition()[0] - this.position[0]) < 0.01
-        && Math.abs(o.getPosition()[1] - this.position[1]) < 0.01
+        && Math.abs(o.getR() - this.r) < 0.01
+        && Math.abs(o.getG() - this.g) < 0.01
+        && Math.abs(o.getB() - this.b) < 0.01
+        && Math.abs(o.getX() - this.x) < 0.01
+        && Math.abs(o.getY() - this.y) < 0.01
         && Math.abs(o.getXDim() - this.xDim) < 0.01
         && Math.abs(o.getYDim() - this.yDim) < 0.01;
   }
@@ -147,8 +177,8 @@ public abstract class AbstractShape implements IShape {
    */
   @Override
   public int hashCode() {
-    return Objects.hash(this.name, this.type, this.xDim, this.yDim, Arrays.hashCode(this.color),
-        Arrays.hashCode(this.position));
+    return Objects.hash(this.name, this.type, this.xDim, this.yDim, this.r, this.g, this.b,
+        this.x, this.y);
   }
 
   // --- HELPER VALIDATION METHODS ---
@@ -0,0 +1,110 @@
+package model;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Objects;
+
+/**
+ * Abstract snapshot that implements the common methods for all concrete snapshots.
+ * The ID of the snapshot is automatically generated from the creation time,
+ * given by a snapshot clock that guarantees unique times.
+ * Concrete snapshots only decide how the photo is stored.
+ */
+public abstract class AbstractSnapshot implements ISnapshot {
+  private static final DateTimeFormatter TIME_STAMP_FORMATTER =
+      DateTimeFormatter.ofPattern("dd-MM-uuuu kk:mm:ss");
+
+  private final String id;
+  private final String timeStamp;
+  private final String description;
+
+  /**
+   * Constructor that takes the creation time from a given snapshot clock.
+   * The ID of snapshot is generated from that time.
+   *
+   * @param description description for the snapshot
+   * @param clock clock that gives the creation time of the snapshot
+   * @throws IllegalArgumentException if description is null,
+   *                                  if clock is null
+   */
+  public AbstractSnapshot(String description, ISnapshotClock clock) {
+    if (description == null || clock == null) {
+      throw new IllegalArgumentException("Parameter can't be null.");
+    }
+    LocalDateTime currTime = clock.nextTime();
+    this.id = currTime.toString();
+    this.timeStamp = currTime.format(TIME_STAMP_FORMATTER);
+    this.description = description;
+  }
+
+  /**
+   * Copy constructor for the ID, time stamp and description.
+   *
+   * @param snapshot another snapshot
+   * @throws IllegalArgumentException if snapshot is null.
+   */
+  public AbstractSnapshot(ISnapshot snapshot) {
+    if (snapshot == null) {
+      throw new IllegalArgumentException("Parameter can't be null");
+    }
+    this.id = snapshot.getID();
+    this.description = snapshot.getDescription();
+    this.timeStamp = snapshot.getTimeStamp();
+  }
+
+  @Override
+  public String getID() {
+    return id;
+  }
+
+  @Override
+  public String getTimeStamp() {
+    return timeStamp;
+  }
+
+  @Override
+  public String getDescription() {
+    return description;
+  }
+
+  /**
+   * Concrete classes should override clone() method properly.
+   * This method exists to avoid calling super.clone() inherited from Objects
+   * when calling concrete classes clone method.
+   *
+   * @return null
+   */
+  @Override
+  public ISnapshot clone() {
+    return null;
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder result = new StringBuilder();
+    result.append("Snapshot ID: ").append(this.getID()).append("\n");
+    result.append("Timestamp: ").append(this.getTimeStamp()).append("\n");
+    result.append("Description: ").append(this.getDescription()).append("\n");
+    result.append("Shape Information:").append("\n");
+    result.append(this.getPhoto());
+    return result.toString();
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (!(obj instanceof ISnapshot)) {
+      return false;
+    }
+    ISnapshot o = (ISnapshot) obj;
+    return o.getID().equals(this.id);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(this.id);
+  }
+
+}
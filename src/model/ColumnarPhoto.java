@@ -0,0 +1,639 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.StringJoiner;
+
+/**
+ * Photo that stores its shapes column-wise in primitive arrays instead of one object per shape,
+ * which takes much less memory and is faster to walk through for photos with many shapes.
+ * Each shape is a slot in the columns: name, type id, x, y, xDim, yDim and the packed color.
+ * An open addressing hash table maps names to slots.
+ *
+ * <p>Removing a shape only empties its slot. The columns are compacted once there are more
+ * empty slots than shapes, which keeps removal O(1) amortized and the shapes in insertion order.
+ *
+ * <p>Shapes returned by getShape() and getShapes() are views of their slot: modifying them
+ * modifies the photo. Adding a shape copies its values, so the added object isn't part of the
+ * photo. Colors are stored with 21 bits per channel, so they are rounded to about 5e-7.
+ */
+public class ColumnarPhoto implements IPhoto {
+  private static final int INITIAL_CAPACITY = 16;
+  private static final int EMPTY = -1;
+  private static final int REMOVED = -2;
+  private static final int COLOR_BITS = 21;
+  private static final long COLOR_MAX = (1L << COLOR_BITS) - 1;
+
+  //Columns. names[slot] is null if the shape of the slot was removed.
+  private String[] names;
+  private byte[] typeIds;
+  private double[] xs;
+  private double[] ys;
+  private double[] xDims;
+  private double[] yDims;
+  private long[] colors;
+  //Types of shapes used in the photo, indexed by type id.
+  private final List<String> types;
+  //Hash table from name to slot, with EMPTY and REMOVED entries. Its size is a power of 2.
+  private int[] slotTable;
+  //Number of used slots, including the emptied ones.
+  private int numSlots;
+  private int size;
+  //Changes every time shapes move to another slot, so that shape views look up their slot again.
+  private int layoutVersion;
+
+  /**
+   * Default constructor.
+   */
+  public ColumnarPhoto() {
+    this.types = new ArrayList<>();
+    this.allocate(INITIAL_CAPACITY);
+  }
+
+  /**
+   * Copy constructor.
+   *
+   * @param photo another photo
+   * @throws IllegalArgumentException if photo is null
+   */
+  public ColumnarPhoto(IPhoto photo) {
+    if (photo == null) {
+      throw new IllegalArgumentException("Parameter can't be null");
+    }
+    this.types = new ArrayList<>();
+    if (photo instanceof ColumnarPhoto) {
+      //Copy the columns without the empty slots.
+      ColumnarPhoto other = (ColumnarPhoto) photo;
+      this.types.addAll(other.types);
+      this.allocate(Math.max(INITIAL_CAPACITY, other.size));
+      for (int slot = 0; slot < other.numSlots; slot++) {
+        if (other.names[slot] != null) {
+          this.copySlot(other, slot, this.numSlots);
+          this.insertInTable(this.names[this.numSlots], this.numSlots);
+          this.numSlots++;
+        }
+      }
+      this.size = other.size;
+    } else {
+      this.allocate(Math.max(INITIAL_CAPACITY, photo.size()));
+      photo.getShapes().forEach(this::addShape);
+    }
+  }
+
+  @Override
+  public List<IShape> getShapes() {
+    List<IShape> shapeList = new ArrayList<>(size);
+    for (int slot = 0; slot < numSlots; slot++) {
+      if (names[slot] != null) {
+        shapeList.add(new ColumnShape(names[slot], slot));
+      }
+    }
+    return shapeList;
+  }
+
+  @Override
+  public IShape getShape(String name) {
+    if (name == null) {
+      throw new IllegalArgumentException("Shape's name can't be null");
+    }
+    int slot = findSlot(name);
+    return slot == EMPTY ? null : new ColumnShape(name, slot);
+  }
+
+  @Override
+  public List<IShape> getShapesIn(double x, double y, double width, double height) {
+    if (width < 0 || height < 0) {
+      throw new IllegalArgumentException("Width and height can't be negative");
+    }
+    List<IShape> shapeList = new ArrayList<>();
+    for (int slot = 0; slot < numSlots; slot++) {
+      if (names[slot] != null && SpatialIndex.intersects(types.get(typeIds[slot]), xs[slot],
+          ys[slot], xDims[slot], yDims[slot], x, y, x + width, y + height)) {
+        shapeList.add(new ColumnShape(names[slot], slot));
+      }
+    }
+    return shapeList;
+  }
+
+  @Override
+  public List<IShape> getShapesAt(double x, double y) {
+    List<IShape> shapeList = new ArrayList<>();
+    for (int slot = 0; slot < numSlots; slot++) {
+      if (names[slot] != null && SpatialIndex.contains(types.get(typeIds[slot]), xs[slot],
+          ys[slot], xDims[slot], yDims[slot], x, y)) {
+        shapeList.add(new ColumnShape(names[slot], slot));
+      }
+    }
+    return shapeList;
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public void addShape(IShape shape) {
+    if (shape == null) {
+      throw new IllegalArgumentException("The parameter can't be null");
+    }
+    String name = shape.getName();
+    if (findSlot(name) != EMPTY) {
+      throw new IllegalArgumentException("The name of the given shape is already used.");
+    }
+    if (numSlots == names.length) {
+      this.grow();
+    }
+    int slot = numSlots;
+    int typeId = types.indexOf(shape.getType());
+    if (typeId < 0) {
+      typeId = types.size();
+      types.add(shape.getType());
+    }
+    names[slot] = name;
+    typeIds[slot] = (byte) typeId;
+    xs[slot] = shape.getX();
+    ys[slot] = shape.getY();
+    xDims[slot] = shape.getXDim();
+    yDims[slot] = shape.getYDim();
+    colors[slot] = packColor(shape.getR(), shape.getG(), shape.getB());
+    insertInTable(name, slot);
+    numSlots++;
+    size++;
+  }
+
+  @Override
+  public void removeShape(String name) {
+    if (name == null) {
+      throw new IllegalArgumentException("The parameter can't be null");
+    }
+    int tableIdx = findTableIndex(name);
+    if (tableIdx == EMPTY) {
+      throw new IllegalArgumentException("The shape with this name doesn't exist in the photo");
+    }
+    names[slotTable[tableIdx]] = null;
+    slotTable[tableIdx] = REMOVED;
+    size--;
+    if (numSlots > INITIAL_CAPACITY && numSlots - size > size) {
+      this.compact();
+    }
+  }
+
+  @Override
+  public IPhoto clone() {
+    return new ColumnarPhoto(this);
+  }
+
+  /**
+   * Performs an action for every shape in order, giving the values of the shape directly
+   * from the columns. Unlike getShapes(), it doesn't create any object per shape.
+   *
+   * @param action action
+   * @throws IllegalArgumentException if action is null
+   */
+  public void forEachShape(ShapeAction action) {
+    if (action == null) {
+      throw new IllegalArgumentException("Parameter can't be null");
+    }
+    for (int slot = 0; slot < numSlots; slot++) {
+      if (names[slot] != null) {
+        long color = colors[slot];
+        action.accept(names[slot], types.get(typeIds[slot]), xs[slot], ys[slot],
+            xDims[slot], yDims[slot], unpackColor(color, 2), unpackColor(color, 1),
+            unpackColor(color, 0));
+      }
+    }
+  }
+
+  /**
+   * An action performed on the values of a shape by forEachShape().
+   */
+  public interface ShapeAction {
+    /**
+     * Performs the action on a shape.
+     *
+     * @param name name of the shape
+     * @param type type of the shape
+     * @param x x-coordinate of the shape
+     * @param y y-coordinate of the shape
+     * @param xDim dimension of the shape in horizontal direction
+     * @param yDim dimension of the shape in vertical direction
+     * @param r red value of the color
+     * @param g green value of the color
+     * @param b blue value of the color
+     */
+    void accept(String name, String type, double x, double y, double xDim, double yDim,
+                double r, double g, double b);
+  }
+
+  /**
+   * String representation of photo, which describes the state of every shape in the photo.
+   *
+   * @return string
+   */
+  @Override
+  public String toString() {
+    StringJoiner result = new StringJoiner("\n");
+    this.getShapes().forEach(shape -> result.add(shape.toString()));
+    return result.toString();
+  }
+
+  /**
+   * Returns true if equal.
+   *
+   * @param obj another object
+   * @return true if equal
+   */
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (!(obj instanceof IPhoto)) {
+      return false;
+    }
+    return ((IPhoto) obj).getShapes().equals(this.getShapes());
+  }
+
+  /**
+   * Returns the object hashcode.
+   *
+   * @return hashcode
+   */
+  @Override
+  public int hashCode() {
+    return Objects.hash(this.getShapes());
+  }
+
+  // --- Helper functions for the columns ---
+
+  /**
+   * Creates empty columns and hash table for a number of slots.
+   *
+   * @param capacity number of slots
+   */
+  private void allocate(int capacity) {
+    names = new String[capacity];
+    typeIds = new byte[capacity];
+    xs = new double[capacity];
+    ys = new double[capacity];
+    xDims = new double[capacity];
+    yDims = new double[capacity];
+    colors = new long[capacity];
+    slotTable = newSlotTable(capacity);
+    numSlots = 0;
+    size = 0;
+  }
+
+  /**
+   * Doubles the capacity of the columns and the hash table.
+   */
+  private void grow() {
+    int capacity = names.length * 2;
+    names = Arrays.copyOf(names, capacity);
+    typeIds = Arrays.copyOf(typeIds, capacity);
+    xs = Arrays.copyOf(xs, capacity);
+    ys = Arrays.copyOf(ys, capacity);
+    xDims = Arrays.copyOf(xDims, capacity);
+    yDims = Arrays.copyOf(yDims, capacity);
+    colors = Arrays.copyOf(colors, capacity);
+    rebuildTable(capacity);
+  }
+
+  /**
+   * Moves the shapes to the first slots, keeping their order, and rebuilds the hash table.
+   */
+  private void compact() {
+    int dest = 0;
+    for (int slot = 0; slot < numSlots; slot++) {
+      if (names[slot] != null) {
+        copySlot(this, slot, dest);
+        dest++;
+      }
+    }
+    Arrays.fill(names, dest, numSlots, null);
+    numSlots = dest;
+    rebuildTable(names.length);
+    layoutVersion++;
+  }
+
+  /**
+   * Copies the values of a slot of a photo into a slot of this photo.
+   * Both photos must have the same type ids.
+   *
+   * @param from photo to copy from
+   * @param fromSlot slot to copy from
+   * @param toSlot slot to copy to
+   */
+  private void copySlot(ColumnarPhoto from, int fromSlot, int toSlot) {
+    names[toSlot] = from.names[fromSlot];
+    typeIds[toSlot] = from.typeIds[fromSlot];
+    xs[toSlot] = from.xs[fromSlot];
+    ys[toSlot] = from.ys[fromSlot];
+    xDims[toSlot] = from.xDims[fromSlot];
+    yDims[toSlot] = from.yDims[fromSlot];
+    colors[toSlot] = from.colors[fromSlot];
+  }
+
+  // --- Helper functions for the hash table ---
+
+  /**
+   * Creates an empty hash table with room for a number of slots at a load factor of 1/2.
+   *
+   * @param capacity number of slots
+   * @return hash table
+   */
+  private static int[] newSlotTable(int capacity) {
+    int[] table = new int[Integer.highestOneBit(capacity) * 4];
+    Arrays.fill(table, EMPTY);
+    return table;
+  }
+
+  /**
+   * Creates a new hash table for the used slots.
+   *
+   * @param capacity number of slots
+   */
+  private void rebuildTable(int capacity) {
+    slotTable = newSlotTable(capacity);
+    for (int slot = 0; slot < numSlots; slot++) {
+      if (names[slot] != null) {
+        insertInTable(names[slot], slot);
+      }
+    }
+  }
+
+  /**
+   * Inserts a name that isn't in the hash table yet.
+   *
+   * @param name shape name
+   * @param slot slot of the shape
+   */
+  private void insertInTable(String name, int slot) {
+    int mask = slotTable.length - 1;
+    int idx = hash(name) & mask;
+    while (slotTable[idx] >= 0) {
+      idx = (idx + 1) & mask;
+    }
+    slotTable[idx] = slot;
+  }
+
+  /**
+   * Returns the index in the hash table of a name.
+   *
+   * @param name shape name
+   * @return index in the hash table, or EMPTY if there is no shape with this name
+   */
+  private int findTableIndex(String name) {
+    int mask = slotTable.length - 1;
+    for (int idx = hash(name) & mask; slotTable[idx] != EMPTY; idx = (idx + 1) & mask) {
+      int slot = slotTable[idx];
+      if (slot != REMOVED && names[slot].equals(name)) {
+        return idx;
+      }
+    }
+    return EMPTY;
+  }
+
+  /**
+   * Returns the slot of a name.
+   *
+   * @param name shape name
+   * @return slot, or EMPTY if there is no shape with this name
+   */
+  private int findSlot(String name) {
+    int idx = findTableIndex(name);
+    return idx == EMPTY ? EMPTY : slotTable[idx];
+  }
+
+  /**
+   * Spreads the bits of the hash code of the name, for a better distribution in the table.
+   *
+   * @param name shape name
+   * @return hash
+   */
+  private static int hash(String name) {
+    int h = name.hashCode();
+    return h ^ (h >>> 16);
+  }
+
+  // --- Helper functions for the colors ---
+
+  /**
+   * Packs the red, green and blue values in a long, with COLOR_BITS bits each.
+   *
+   * @param r red
+   * @param g green
+   * @param b blue
+   * @return packed color
+   */
+  private static long packColor(double r, double g, double b) {
+    return (Math.round(r * COLOR_MAX) << (2 * COLOR_BITS))
+        | (Math.round(g * COLOR_MAX) << COLOR_BITS)
+        | Math.round(b * COLOR_MAX);
+  }
+
+  /**
+   * Returns one channel of a packed color.
+   *
+   * @param color packed color
+   * @param channel 2 for red, 1 for green, 0 for blue
+   * @return value of the channel between 0.0 and 1.0
+   */
+  private static double unpackColor(long color, int channel) {
+    return ((color >>> (channel * COLOR_BITS)) & COLOR_MAX) / (double) COLOR_MAX;
+  }
+
+  /**
+   * A view of the shape with a given name in the columns. Getters read the columns and setters
+   * write to them, with the same validation as AbstractShape.
+   */
+  private class ColumnShape implements IShape {
+    private final String name;
+    private int slot;
+    private int version;
+
+    /**
+     * Constructor.
+     *
+     * @param name name of the shape
+     * @param slot current slot of the shape
+     */
+    public ColumnShape(String name, int slot) {
+      this.name = name;
+      this.slot = slot;
+      this.version = layoutVersion;
+    }
+
+    @Override
+    public String getName() {
+      return name;
+    }
+
+    @Override
+    public String getType() {
+      return types.get(typeIds[slot()]);
+    }
+
+    @Override
+    public double getXDim() {
+      return xDims[slot()];
+    }
+
+    @Override
+    public double getYDim() {
+      return yDims[slot()];
+    }
+
+    @Override
+    public double[] getPosition() {
+      int slot = slot();
+      return new double[]{xs[slot], ys[slot]};
+    }
+
+    @Override
+    public double[] getColor() {
+      long color = colors[slot()];
+      return new double[]{unpackColor(color, 2), unpackColor(color, 1), unpackColor(color, 0)};
+    }
+
+    @Override
+    public double getX() {
+      return xs[slot()];
+    }
+
+    @Override
+    public double getY() {
+      return ys[slot()];
+    }
+
+    @Override
+    public double getR() {
+      return unpackColor(colors[slot()], 2);
+    }
+
+    @Override
+    public double getG() {
+      return unpackColor(colors[slot()], 1);
+    }
+
+    @Override
+    public double getB() {
+      return unpackColor(colors[slot()], 0);
+    }
+
+    @Override
+    public void setXDim(double xDim) {
+      validateDimension(xDim);
+      xDims[slot()] = xDim;
+    }
+
+    @Override
+    public void setYDim(double yDim) {
+      validateDimension(yDim);
+      yDims[slot()] = yDim;
+    }
+
+    @Override
+    public void setPosition(double x, double y) {
+      int slot = slot();
+      xs[slot] = x;
+      ys[slot] = y;
+    }
+
+    @Override
+    public void setColor(double r, double g, double b) {
+      if (!(r >= 0.0 && r <= 1.0 && g >= 0.0 && g <= 1.0 && b >= 0.0 && b <= 1.0)) {
+        throw new IllegalArgumentException("Each of the RGB values must be between 0.0 and 1.0");
+      }
+      colors[slot()] = packColor(r, g, b);
+    }
+
+    /**
+     * Returns a copy of the shape as a shape object that doesn't belong to the photo.
+     *
+     * @return copy of shape
+     */
+    @Override
+    public IShape clone() {
+      int slot = slot();
+      long color = colors[slot];
+      return ShapeFactory.createBasicShape(name, types.get(typeIds[slot]), xDims[slot],
+          yDims[slot], xs[slot], ys[slot], unpackColor(color, 2), unpackColor(color, 1),
+          unpackColor(color, 0));
+    }
+
+    @Override
+    public String toString() {
+      return this.clone().toString();
+    }
+
+    /**
+     * Returns true if equal. Equality compares all attributes, like AbstractShape.
+     *
+     * @param obj another object
+     * @return true if equal
+     */
+    @Override
+    public boolean equals(Object obj) {
+      if (this == obj) {
+        return true;
+      }
+      if (!(obj instanceof IShape)) {
+        return false;
+      }
+      IShape o = (IShape) obj;
+      return o.getName().equals(this.name)
+          && o.getType().equals(this.getType())
+          && Math.abs(o.getR() - this.getR()) < 0.01
+          && Math.abs(o.getG() - this.getG()) < 0.01
+          && Math.abs(o.getB() - this.getB()) < 0.01
+          && Math.abs(o.getX() - this.getX()) < 0.01
+          && Math.abs(o.getY() - this.getY()) < 0.01
+          && Math.abs(o.getXDim() - this.getXDim()) < 0.01
+          && Math.abs(o.getYDim() - this.getYDim()) < 0.01;
+    }
+
+    /**
+     * Returns the object hashcode, computed like AbstractShape.
+     *
+     * @return hashcode
+     */
+    @Override
+    public int hashCode() {
+      return Objects.hash(this.name, this.getType(), this.getXDim(), this.getYDim(),
+          this.getR(), this.getG(), this.getB(), this.getX(), this.getY());
+    }
+
+    /**
+     * Returns the current slot of the shape, looking it up again if the shapes have moved.
+     *
+     * @return slot
+     * @throws IllegalStateException if the shape was removed from the photo
+     */
+    private int slot() {
+      if (version != layoutVersion || slot < 0 || names[slot] == null) {
+        slot = findSlot(name);
+        version = layoutVersion;
+        if (slot < 0) {
+          throw new IllegalStateException("The shape was removed from the photo");
+        }
+      }
+      return slot;
+    }
+
+    /**
+     * Verify that dimension of a shape is positive.
+     *
+     * @param dim dimension of a shape
+     * @throws IllegalArgumentException if dim is not positive
+     */
+    private void validateDimension(double dim) {
+      if (dim <= 0) {
+        throw new IllegalArgumentException("Dimension of a shape must be positive");
+      }
+    }
+  }
+}
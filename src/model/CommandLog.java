@@ -0,0 +1,69 @@
+package model;
+
+/**
+ * An append-only list used to store the command list of the photo album.
+ * Elements are stored in fixed-size chunks, so appending never copies the stored elements
+ * (only the small array of chunk references grows), and indexed access is O(1).
+ * To empty it, simply drop the instance and create a new one.
+ *
+ * @param <E> type of the stored elements
+ */
+class CommandLog<E> {
+  private static final int CHUNK_SHIFT = 10;
+  private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+  private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+  private Object[][] chunks;
+  private int size;
+
+  /**
+   * Constructor for an empty log.
+   */
+  public CommandLog() {
+    this.chunks = new Object[4][];
+    this.size = 0;
+  }
+
+  /**
+   * Appends an element at the end of the log.
+   *
+   * @param element element to append
+   */
+  public void add(E element) {
+    int chunkIdx = size >>> CHUNK_SHIFT;
+    if (chunkIdx == chunks.length) {
+      Object[][] newChunks = new Object[chunks.length * 2][];
+      System.arraycopy(chunks, 0, newChunks, 0, chunks.length);
+      chunks = newChunks;
+    }
+    if (chunks[chunkIdx] == null) {
+      chunks[chunkIdx] = new Object[CHUNK_SIZE];
+    }
+    chunks[chunkIdx][size & CHUNK_MASK] = element;
+    size++;
+  }
+
+  /**
+   * Returns the element at the given index.
+   *
+   * @param index index of the element
+   * @return element
+   * @throws IndexOutOfBoundsException if the index is not within bound
+   */
+  @SuppressWarnings("unchecked")
+  public E get(int index) {
+    if (index < 0 || index >= size) {
+      throw new IndexOutOfBoundsException("Index " + index + " out of bound for size " + size);
+    }
+    return (E) chunks[index >>> CHUNK_SHIFT][index & CHUNK_MASK];
+  }
+
+  /**
+   * Returns the number of elements in the log.
+   *
+   * @return number of elements
+   */
+  public int size() {
+    return size;
+  }
+}
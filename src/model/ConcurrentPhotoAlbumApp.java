@@ -0,0 +1,281 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Thread-safe photo album that wraps another photo album with a read-write lock.
+ * Any number of threads can read the album at the same time (e.g. the GUI on the event dispatch
+ * thread), while a single thread at a time modifies it (e.g. a background loader running a script).
+ * Every method is atomic: a reader sees the album either before or after a modification.
+ *
+ * <p>Reading the photo of a returned snapshot, or advancing the stream of photos, also takes
+ * the read lock, as lazy snapshots and the stream replay the album's commands.
+ */
+public class ConcurrentPhotoAlbumApp implements IPhotoAlbumApp {
+  private final IPhotoAlbumApp album;
+  private final Lock readLock;
+  private final Lock writeLock;
+
+  /**
+   * Constructor.
+   *
+   * @param album photo album to wrap. It must not be used directly afterwards.
+   * @throws IllegalArgumentException if album is null
+   */
+  public ConcurrentPhotoAlbumApp(IPhotoAlbumApp album) {
+    if (album == null) {
+      throw new IllegalArgumentException("Parameter can't be null");
+    }
+    this.album = album;
+    ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    this.readLock = lock.readLock();
+    this.writeLock = lock.writeLock();
+  }
+
+  @Override
+  public void takeSnapshot(String description) {
+    this.write(() -> album.takeSnapshot(description));
+  }
+
+  @Override
+  public ISnapshot getSnapshot(String id) {
+    return this.read(() -> {
+      ISnapshot snapshot = album.getSnapshot(id);
+      return snapshot == null ? null : new ReadLockedSnapshot(snapshot, readLock);
+    });
+  }
+
+  @Override
+  public int getSnapshotIndex(String id) {
+    return this.read(() -> album.getSnapshotIndex(id));
+  }
+
+  @Override
+  public ISnapshot getSnapshotAt(int index) {
+    return this.read(() -> new ReadLockedSnapshot(album.getSnapshotAt(index), readLock));
+  }
+
+  @Override
+  public int getSnapshotCount() {
+    return this.read(album::getSnapshotCount);
+  }
+
+  @Override
+  public List<ISnapshot> getSnapshots() {
+    return this.read(() -> {
+      List<ISnapshot> snapshots = new ArrayList<>();
+      album.getSnapshots().forEach(snapshot ->
+          snapshots.add(new ReadLockedSnapshot(snapshot, readLock)));
+      return Collections.unmodifiableList(snapshots);
+    });
+  }
+
+  @Override
+  public List<String> getSnapshotIDs() {
+    return this.read(album::getSnapshotIDs);
+  }
+
+  @Override
+  public void clearPhotos() {
+    this.write(album::clearPhotos);
+  }
+
+  @Override
+  public List<IPhoto> getPhotoAlbum() {
+    return this.read(album::getPhotoAlbum);
+  }
+
+  @Override
+  public Stream<IPhoto> getPhotoAlbumStream() {
+    Iterator<IPhoto> photos = this.read(() -> album.getPhotoAlbumStream().iterator());
+    Iterator<IPhoto> lockedPhotos = new Iterator<>() {
+      @Override
+      public boolean hasNext() {
+        return read(photos::hasNext);
+      }
+
+      @Override
+      public IPhoto next() {
+        return read(photos::next);
+      }
+    };
+    return StreamSupport.stream(Spliterators.spliteratorUnknownSize(lockedPhotos,
+        Spliterator.ORDERED | Spliterator.NONNULL), false);
+  }
+
+  @Override
+  public List<IPhoto> getPhotoAlbumRange(int lower, int upper) {
+    return this.read(() -> album.getPhotoAlbumRange(lower, upper));
+  }
+
+  @Override
+  public IPhoto getCurrentPhoto() {
+    return this.read(album::getCurrentPhoto);
+  }
+
+  @Override
+  public List<IShape> getShapesIn(double x, double y, double width, double height) {
+    return this.read(() -> album.getShapesIn(x, y, width, height));
+  }
+
+  @Override
+  public List<IShape> getShapesAt(double x, double y) {
+    return this.read(() -> album.getShapesAt(x, y));
+  }
+
+  @Override
+  public void createBasicShape(String name, String type, double xDim, double yDim, double x,
+                               double y, double r, double g, double b) {
+    this.write(() -> album.createBasicShape(name, type, xDim, yDim, x, y, r, g, b));
+  }
+
+  @Override
+  public void removeShape(String name) {
+    this.write(() -> album.removeShape(name));
+  }
+
+  @Override
+  public void setShapeColor(String name, double r, double g, double b) {
+    this.write(() -> album.setShapeColor(name, r, g, b));
+  }
+
+  @Override
+  public void setShapePosition(String name, double x, double y) {
+    this.write(() -> album.setShapePosition(name, x, y));
+  }
+
+  @Override
+  public void setShapeXDim(String name, double xDim) {
+    this.write(() -> album.setShapeXDim(name, xDim));
+  }
+
+  @Override
+  public void setShapeYDim(String name, double yDim) {
+    this.write(() -> album.setShapeYDim(name, yDim));
+  }
+
+  /**
+   * Returns a handle to the shape with this name. It takes the write lock, as the album
+   * remembers the shape of the handle.
+   *
+   * @param name name of the shape
+   * @return handle to the shape
+   * @throws IllegalArgumentException if name is null, or no shape with this name.
+   */
+  @Override
+  public ShapeHandle lookup(String name) {
+    writeLock.lock();
+    try {
+      return album.lookup(name);
+    } finally {
+      writeLock.unlock();
+    }
+  }
+
+  @Override
+  public void remove(ShapeHandle handle) {
+    this.write(() -> album.remove(handle));
+  }
+
+  @Override
+  public void setColor(ShapeHandle handle, double r, double g, double b) {
+    this.write(() -> album.setColor(handle, r, g, b));
+  }
+
+  @Override
+  public void setPosition(ShapeHandle handle, double x, double y) {
+    this.write(() -> album.setPosition(handle, x, y));
+  }
+
+  @Override
+  public void setXDim(ShapeHandle handle, double xDim) {
+    this.write(() -> album.setXDim(handle, xDim));
+  }
+
+  @Override
+  public void setYDim(ShapeHandle handle, double yDim) {
+    this.write(() -> album.setYDim(handle, yDim));
+  }
+
+  @Override
+  public String toString() {
+    return this.read(album::toString);
+  }
+
+  // --- Helper functions and class ---
+
+  /**
+   * Runs a read operation while holding the read lock.
+   *
+   * @param operation read operation
+   * @param <T> type of the result
+   * @return result of the operation
+   */
+  private <T> T read(Supplier<T> operation) {
+    readLock.lock();
+    try {
+      return operation.get();
+    } finally {
+      readLock.unlock();
+    }
+  }
+
+  /**
+   * Runs a modification while holding the write lock.
+   *
+   * @param operation modification
+   */
+  private void write(Runnable operation) {
+    writeLock.lock();
+    try {
+      operation.run();
+    } finally {
+      writeLock.unlock();
+    }
+  }
+
+  /**
+   * A snapshot of the wrapped album whose photo is read while holding the read lock.
+   */
+  private static class ReadLockedSnapshot extends AbstractSnapshot {
+    private final ISnapshot snapshot;
+    private final Lock readLock;
+
+    /**
+     * Constructor.
+     *
+     * @param snapshot snapshot of the wrapped album
+     * @param readLock read lock of the album
+     */
+    public ReadLockedSnapshot(ISnapshot snapshot, Lock readLock) {
+      super(snapshot);
+      this.snapshot = snapshot;
+      this.readLock = readLock;
+    }
+
+    @Override
+    public IPhoto getPhoto() {
+      readLock.lock();
+      try {
+        return snapshot.getPhoto();
+      } finally {
+        readLock.unlock();
+      }
+    }
+
+    @Override
+    public ISnapshot clone() {
+      return new ReadLockedSnapshot(snapshot.clone(), readLock);
+    }
+  }
+}
@@ -0,0 +1,155 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A snapshot that stores its photo either in full (a base snapshot), or as the shape-level
+ * differences from the previous snapshot: the shapes removed, changed and added since then.
+ * The photo is rebuilt on demand from the nearest base snapshot, so a long animation where
+ * few shapes change between snapshots only costs the changed shapes per snapshot.
+ */
+public class DeltaSnapshot extends AbstractSnapshot {
+  private final IPhoto basePhoto;
+  private final DeltaSnapshot previous;
+  private final List<String> removedNames;
+  private final List<IShape> changedShapes;
+  private final List<IShape> addedShapes;
+  //Number of deltas between this snapshot and its base snapshot.
+  private final int chainLength;
+
+  /**
+   * Constructor for a base snapshot, which stores the whole photo.
+   *
+   * @param description description for the snapshot
+   * @param photo current photo of the photo album to take a snapshot. It's kept as a read-only
+   *              photo, so later changes to it don't affect the snapshot.
+   * @param clock clock that gives the creation time of the snapshot
+   * @throws IllegalArgumentException if any parameter is null
+   */
+  public DeltaSnapshot(String description, IPhoto photo, ISnapshotClock clock) {
+    super(description, clock);
+    if (photo == null) {
+      throw new IllegalArgumentException("Parameter can't be null.");
+    }
+    this.basePhoto = new ReadOnlyPhoto(photo);
+    this.previous = null;
+    this.removedNames = Collections.emptyList();
+    this.changedShapes = Collections.emptyList();
+    this.addedShapes = Collections.emptyList();
+    this.chainLength = 0;
+  }
+
+  /**
+   * Constructor for a snapshot that stores the differences from the previous snapshot.
+   * The photo is the previous photo after removing the removed shapes, replacing the changed
+   * shapes in place, and appending the added shapes in order. A shape that was removed and
+   * added again is both removed and added. The shapes are copied.
+   *
+   * @param description description for the snapshot
+   * @param previous previous snapshot
+   * @param removedNames names of the shapes removed since the previous snapshot
+   * @param changedShapes shapes of the previous snapshot that changed since then
+   * @param addedShapes shapes added since the previous snapshot
+   * @param clock clock that gives the creation time of the snapshot
+   * @throws IllegalArgumentException if any parameter is null
+   */
+  public DeltaSnapshot(String description, DeltaSnapshot previous, List<String> removedNames,
+                       List<IShape> changedShapes, List<IShape> addedShapes,
+                       ISnapshotClock clock) {
+    super(description, clock);
+    if (previous == null || removedNames == null || changedShapes == null
+        || addedShapes == null) {
+      throw new IllegalArgumentException("Parameter can't be null.");
+    }
+    this.basePhoto = null;
+    this.previous = previous;
+    this.removedNames = List.copyOf(removedNames);
+    this.changedShapes = copyShapes(changedShapes);
+    this.addedShapes = copyShapes(addedShapes);
+    this.chainLength = previous.chainLength + 1;
+  }
+
+  /**
+   * Copy constructor. The copy shares the stored photo and differences, which never change.
+   *
+   * @param snapshot another delta snapshot
+   * @throws IllegalArgumentException if snapshot is null.
+   */
+  public DeltaSnapshot(DeltaSnapshot snapshot) {
+    super(snapshot);
+    this.basePhoto = snapshot.basePhoto;
+    this.previous = snapshot.previous;
+    this.removedNames = snapshot.removedNames;
+    this.changedShapes = snapshot.changedShapes;
+    this.addedShapes = snapshot.addedShapes;
+    this.chainLength = snapshot.chainLength;
+  }
+
+  /**
+   * Returns the number of snapshots between this snapshot and the base snapshot its photo
+   * is rebuilt from. It's 0 for a base snapshot.
+   *
+   * @return number of deltas
+   */
+  public int getChainLength() {
+    return chainLength;
+  }
+
+  @Override
+  public ISnapshot clone() {
+    return new DeltaSnapshot(this);
+  }
+
+  /**
+   * Returns the photo when the snapshot was taken as a read-only photo. A base snapshot returns
+   * its stored photo, other snapshots rebuild it from the base snapshot.
+   *
+   * @return snapshot's photo
+   */
+  @Override
+  public IPhoto getPhoto() {
+    if (basePhoto != null) {
+      return basePhoto;
+    }
+    //Collect the deltas back to the base snapshot, then apply them from the oldest one.
+    List<DeltaSnapshot> chain = new ArrayList<>(chainLength);
+    DeltaSnapshot snapshot = this;
+    while (snapshot.basePhoto == null) {
+      chain.add(snapshot);
+      snapshot = snapshot.previous;
+    }
+    Photo photo = (Photo) snapshot.basePhoto.clone();
+    for (int i = chain.size() - 1; i >= 0; i--) {
+      chain.get(i).applyDelta(photo);
+    }
+    return new ReadOnlyPhoto(photo);
+  }
+
+  /**
+   * Applies the differences of this snapshot on the photo of the previous snapshot.
+   *
+   * @param photo photo of the previous snapshot
+   */
+  private void applyDelta(Photo photo) {
+    removedNames.forEach(photo::removeShape);
+    changedShapes.forEach(photo::putSharedShape);
+    addedShapes.forEach(photo::putSharedShape);
+  }
+
+  /**
+   * Returns an unmodifiable list with copies of the shapes.
+   *
+   * @param shapes shapes
+   * @return copies of the shapes
+   */
+  private static List<IShape> copyShapes(List<IShape> shapes) {
+    if (shapes.isEmpty()) {
+      return Collections.emptyList();
+    }
+    List<IShape> copies = new ArrayList<>(shapes.size());
+    shapes.forEach(shape -> copies.add(shape.clone()));
+    return Collections.unmodifiableList(copies);
+  }
+}
@@ -24,6 +24,29 @@ public interface IPhoto {
    */
   IShape getShape(String name);
 
+  /**
+   * Returns the shapes whose bounding box intersects a rectangle, in the order of getShapes().
+   * The bounding box of a rectangle is the rectangle itself, and the one of an oval is
+   * [x - xDim, x + xDim] x [y - yDim, y + yDim], as its position is its center.
+   *
+   * @param x x-coordinate of the top left corner of the rectangle
+   * @param y y-coordinate of the top left corner of the rectangle
+   * @param width width of the rectangle
+   * @param height height of the rectangle
+   * @return list of shapes
+   * @throws IllegalArgumentException if width or height is negative
+   */
+  List<IShape> getShapesIn(double x, double y, double width, double height);
+
+  /**
+   * Returns the shapes that contain a point, in the order of getShapes().
+   *
+   * @param x x-coordinate of the point
+   * @param y y-coordinate of the point
+   * @return list of shapes
+   */
+  List<IShape> getShapesAt(double x, double y);
+
   /**
    * Returns the number of shapes in the photo.
    *
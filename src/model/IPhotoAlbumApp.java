@@ -1,6 +1,7 @@
 package model;
 
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * Model of the photo album app.
@@ -16,7 +17,8 @@ public interface IPhotoAlbumApp {
   void takeSnapshot(String description);
 
   /**
-   * Returns a copy of a specific snapshot by ID. If it fails to find it, returns null.
+   * Returns a specific snapshot by ID. If it fails to find it, returns null.
+   * The photo of the snapshot is read-only.
    *
    * @param id snapshot id
    * @return snapshot or null if it's not found.
@@ -35,7 +37,24 @@ public interface IPhotoAlbumApp {
   int getSnapshotIndex(String id);
 
   /**
-   * Returns an unmodifiable list of snapshots.
+   * Returns the snapshot at a given index / position, in the order the snapshots were taken.
+   * The photo of the snapshot is read-only.
+   *
+   * @param index snapshot index, starting from 0
+   * @return snapshot
+   * @throws IllegalArgumentException if index is not within bound
+   */
+  ISnapshot getSnapshotAt(int index);
+
+  /**
+   * Returns the number of snapshots.
+   *
+   * @return number of snapshots
+   */
+  int getSnapshotCount();
+
+  /**
+   * Returns an unmodifiable list of snapshots. The photos of the snapshots are read-only.
    *
    * @return list of snapshots
    */
@@ -62,6 +81,16 @@ public interface IPhotoAlbumApp {
    */
   List<IPhoto> getPhotoAlbum();
 
+  /**
+   * Returns a lazily evaluated stream of all photos on the photo album, in order.
+   * Each photo is computed from the previous one only when the stream reaches it,
+   * so walking the album takes constant memory and can stop early (e.g. with limit()).
+   * The stream covers the photos on the album when this method is called.
+   *
+   * @return stream of the photos on the album
+   */
+  Stream<IPhoto> getPhotoAlbumStream();
+
   /**
    * Returns an unmodifiable list of photos of the photo album, selected by the range of index.
    *
@@ -75,12 +104,37 @@ public interface IPhotoAlbumApp {
 
 
   /**
-   * Returns a copy of the current photo on the album.
+   * Returns the current photo on the album as a read-only photo. It doesn't change when the
+   * album changes afterwards. Use clone() on it to get a modifiable copy.
    *
-   * @return copy of the current photo on the album
+   * @return read-only current photo on the album
    */
   IPhoto getCurrentPhoto();
 
+  /**
+   * Returns the shapes of the current photo whose bounding box intersects a rectangle,
+   * in the order of the photo, as read-only shapes. See IPhoto.getShapesIn().
+   * The album keeps a spatial index of the current photo, so it doesn't go through all shapes.
+   *
+   * @param x x-coordinate of the top left corner of the rectangle
+   * @param y y-coordinate of the top left corner of the rectangle
+   * @param width width of the rectangle
+   * @param height height of the rectangle
+   * @return list of read-only shapes
+   * @throws IllegalArgumentException if width or height is negative
+   */
+  List<IShape> getShapesIn(double x, double y, double width, double height);
+
+  /**
+   * Returns the shapes of the current photo that contain a point, in the order of the photo,
+   * as read-only shapes.
+   *
+   * @param x x-coordinate of the point
+   * @param y y-coordinate of the point
+   * @return list of read-only shapes
+   */
+  List<IShape> getShapesAt(double x, double y);
+
 
   // --- Photo creation methods ---
 
@@ -159,4 +213,69 @@ public interface IPhotoAlbumApp {
    */
   void setShapeYDim(String name, double yDim);
 
+  /**
+   * Returns a handle to the shape with this name, to modify it with the methods that take
+   * a handle. They do the same as the methods that take a name, without looking the name up.
+   *
+   * @param name name of the shape
+   * @return handle to the shape
+   * @throws IllegalArgumentException if name is null, or no shape with this name.
+   */
+  ShapeHandle lookup(String name);
+
+  /**
+   * Creates and adds a new photo after removing a shape.
+   *
+   * @param handle handle to the shape
+   * @throws IllegalArgumentException if handle is null or from another album,
+   *                                  if the shape doesn't exist anymore.
+   */
+  void remove(ShapeHandle handle);
+
+  /**
+   * Creates and adds a new photo after changing a shape's color.
+   *
+   * @param handle handle to the shape to change
+   * @param r red value of the color
+   * @param g blue value of the color
+   * @param b green value of the color
+   * @throws IllegalArgumentException if handle is null or from another album,
+   *                                  if the shape doesn't exist anymore,
+   *                                  if r, g, or b is not between 0.0 and 1.0
+   */
+  void setColor(ShapeHandle handle, double r, double g, double b);
+
+  /**
+   * Creates and adds a new photo after changing a shape's position.
+   *
+   * @param handle handle to the shape to change
+   * @param x new x-coordinate of the shape
+   * @param y new y-coordinate of the shape
+   * @throws IllegalArgumentException if handle is null or from another album,
+   *                                  if the shape doesn't exist anymore.
+   */
+  void setPosition(ShapeHandle handle, double x, double y);
+
+  /**
+   * Creates and adds a new photo after changing a shape's horizontal dimension.
+   *
+   * @param handle handle to the shape to change
+   * @param xDim new horizontal dimension of the shape
+   * @throws IllegalArgumentException if handle is null or from another album,
+   *                                  if the shape doesn't exist anymore,
+   *                                  if xDim is not positive
+   */
+  void setXDim(ShapeHandle handle, double xDim);
+
+  /**
+   * Creates and adds a new photo after changing a shape's vertical dimension.
+   *
+   * @param handle handle to the shape to change
+   * @param yDim new vertical dimension of the shape
+   * @throws IllegalArgumentException if handle is null or from another album,
+   *                                  if the shape doesn't exist anymore,
+   *                                  if yDim is not positive
+   */
+  void setYDim(ShapeHandle handle, double yDim);
+
 }
@@ -47,6 +47,41 @@ public interface IShape {
    */
   double[] getColor();
 
+  /**
+   * Returns the x-coordinate of the shape. Unlike getPosition(), it doesn't allocate an array.
+   *
+   * @return x-coordinate
+   */
+  double getX();
+
+  /**
+   * Returns the y-coordinate of the shape. Unlike getPosition(), it doesn't allocate an array.
+   *
+   * @return y-coordinate
+   */
+  double getY();
+
+  /**
+   * Returns the red value of the color. Unlike getColor(), it doesn't allocate an array.
+   *
+   * @return red
+   */
+  double getR();
+
+  /**
+   * Returns the green value of the color. Unlike getColor(), it doesn't allocate an array.
+   *
+   * @return green
+   */
+  double getG();
+
+  /**
+   * Returns the blue value of the color. Unlike getColor(), it doesn't allocate an array.
+   *
+   * @return blue
+   */
+  double getB();
+
 
   /**
    * Sets a new value for the horizontal dimension of the shape.
@@ -0,0 +1,18 @@
+package model;
+
+import java.time.LocalDateTime;
+
+/**
+ * A source of creation times for snapshots. Snapshot IDs are generated from these times,
+ * so every call must return a time strictly later than any time returned before.
+ * Implementations must be thread-safe.
+ */
+public interface ISnapshotClock {
+
+  /**
+   * Returns a new, unique creation time for a snapshot.
+   *
+   * @return time strictly later than the previously returned times
+   */
+  LocalDateTime nextTime();
+}
@@ -0,0 +1,56 @@
+package model;
+
+import java.util.function.Supplier;
+
+/**
+ * A snapshot that doesn't store its photo. Instead, it asks a photo source for the photo every
+ * time it's needed, e.g. by replaying the command list of the album up to the point where the
+ * snapshot was taken. This keeps the memory of the snapshots independent of the number of shapes.
+ */
+public class LazySnapshot extends AbstractSnapshot {
+  private final Supplier<IPhoto> photoSource;
+
+  /**
+   * Constructor.
+   *
+   * @param description description for the snapshot
+   * @param photoSource gives the snapshot's photo on every call, which the snapshot
+   *                    doesn't copy
+   * @param clock clock that gives the creation time of the snapshot
+   * @throws IllegalArgumentException if any parameter is null
+   */
+  public LazySnapshot(String description, Supplier<IPhoto> photoSource, ISnapshotClock clock) {
+    super(description, clock);
+    if (photoSource == null) {
+      throw new IllegalArgumentException("Parameter can't be null.");
+    }
+    this.photoSource = photoSource;
+  }
+
+  /**
+   * Copy constructor. The copy shares the photo source.
+   *
+   * @param snapshot another lazy snapshot
+   * @throws IllegalArgumentException if snapshot is null.
+   */
+  public LazySnapshot(LazySnapshot snapshot) {
+    super(snapshot);
+    this.photoSource = snapshot.photoSource;
+  }
+
+  @Override
+  public ISnapshot clone() {
+    return new LazySnapshot(this);
+  }
+
+  /**
+   * Returns the photo when the snapshot was taken, materializing it from the photo source.
+   *
+   * @return snapshot's photo
+   */
+  @Override
+  public IPhoto getPhoto() {
+    return photoSource.get();
+  }
+
+}
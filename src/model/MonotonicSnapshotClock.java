@@ -0,0 +1,52 @@
+package model;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Snapshot clock that reads the time from a java.time.Clock truncated to microseconds.
+ * If the clock hasn't advanced by at least a microsecond since the last call (or went backwards),
+ * it returns the last time plus one microsecond instead, so times are unique and increasing
+ * without having to wait for the clock.
+ */
+public class MonotonicSnapshotClock implements ISnapshotClock {
+  private static final MonotonicSnapshotClock SYSTEM_CLOCK =
+      new MonotonicSnapshotClock(Clock.systemDefaultZone());
+
+  private final Clock clock;
+  private final AtomicLong lastMicros;
+
+  /**
+   * Constructor.
+   *
+   * @param clock clock to read the time from. A fixed clock gives deterministic times.
+   * @throws IllegalArgumentException if clock is null
+   */
+  public MonotonicSnapshotClock(Clock clock) {
+    if (clock == null) {
+      throw new IllegalArgumentException("Parameter can't be null.");
+    }
+    this.clock = clock;
+    this.lastMicros = new AtomicLong(Long.MIN_VALUE);
+  }
+
+  /**
+   * Returns the clock shared by default by all snapshots, which uses the system time.
+   *
+   * @return system snapshot clock
+   */
+  public static MonotonicSnapshotClock systemClock() {
+    return SYSTEM_CLOCK;
+  }
+
+  @Override
+  public LocalDateTime nextTime() {
+    Instant now = clock.instant();
+    long nowMicros = ChronoUnit.MICROS.between(Instant.EPOCH, now);
+    long micros = lastMicros.updateAndGet(last -> Math.max(nowMicros, last + 1));
+    return LocalDateTime.ofInstant(Instant.EPOCH.plus(micros, ChronoUnit.MICROS), clock.getZone());
+  }
+}
@@ -30,15 +30,13 @@ public class Oval extends AbstractShape {
    */
   private Oval(IShape shape) {
     super(shape.getName(), shape.getType(), shape.getXDim(),
-          shape.getYDim(), shape.getPosition()[0],
-          shape.getPosition()[1], shape.getColor()[0], shape.getColor()[1], shape.getColor()[2]);
+          shape.getYDim(), shape.getX(), shape.getY(), shape.getR(), shape.getG(), shape.getB());
   }
 
   @Override
   public String toString() {
-    String position = String.format("(%.2f, %.2f)", this.getPosition()[0], this.getPosition()[1]);
-    String color = String.format("(%.2f, %.2f, %.2f)", this.getColor()[0], this.getColor()[1],
-        this.getColor()[2]);
+    String position = String.format("(%.2f, %.2f)", this.getX(), this.getY());
+    String color = String.format("(%.2f, %.2f, %.2f)", this.getR(), this.getG(), this.getB());
     DecimalFormat dim = new DecimalFormat("0.00");
     StringBuilder result = new StringBuilder();
     result.append("Name: ").append(this.getName()).append("\n");
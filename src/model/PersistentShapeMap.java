@@ -0,0 +1,369 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * An immutable map from shape names to shapes that remembers the insertion order of the shapes.
+ * Every "modifying" operation returns a new map that shares all unchanged parts with the old one,
+ * so keeping many versions of a photo only costs the paths that differ between them.
+ *
+ * <p>It is made of two persistent tries that point to the same entries:
+ * - a hash array mapped trie (HAMT) from the shape name to its entry, for lookups.
+ * - a vector trie from an insertion sequence number to the entry, for ordered iteration.
+ * Removed shapes leave an empty slot in the vector, which is compacted once there are more
+ * empty slots than shapes.
+ *
+ * <p>Each entry also stores an owner object. Photo uses it to know which shapes it may modify in
+ * place, and which ones are shared with other photos and must be copied first, and a key that
+ * stays the same while a shape is replaced by its modified copies, so that Photo can tell the
+ * same shape apart from a new shape added later under the same name.
+ */
+class PersistentShapeMap {
+  private static final int BITS = 5;
+  private static final int WIDTH = 1 << BITS;
+  private static final int MASK = WIDTH - 1;
+  private static final HamtNode EMPTY_NODE = new HamtNode(0, new Object[0]);
+
+  static final PersistentShapeMap EMPTY = new PersistentShapeMap(EMPTY_NODE, new Object[WIDTH],
+      0, 0, 0);
+
+  private final HamtNode hamtRoot;
+  private final Object[] orderRoot;
+  private final int orderShift;
+  private final int nextSeq;
+  private final int size;
+
+  /**
+   * Constructor. Only used internally, use EMPTY to start a new map.
+   *
+   * @param hamtRoot root of the name to entry trie
+   * @param orderRoot root of the insertion order trie
+   * @param orderShift shift of the root level of the insertion order trie
+   * @param nextSeq sequence number for the next inserted shape
+   * @param size number of shapes
+   */
+  private PersistentShapeMap(HamtNode hamtRoot, Object[] orderRoot, int orderShift, int nextSeq,
+                             int size) {
+    this.hamtRoot = hamtRoot;
+    this.orderRoot = orderRoot;
+    this.orderShift = orderShift;
+    this.nextSeq = nextSeq;
+    this.size = size;
+  }
+
+  /**
+   * An entry of the map.
+   */
+  static final class Entry {
+    final String name;
+    final IShape shape;
+    final Object owner;
+    final Object key;
+    private final int hash;
+    private final int seq;
+
+    private Entry(String name, int hash, int seq, IShape shape, Object owner, Object key) {
+      this.name = name;
+      this.hash = hash;
+      this.seq = seq;
+      this.shape = shape;
+      this.owner = owner;
+      this.key = key;
+    }
+  }
+
+  /**
+   * A node of the HAMT. Each slot is either an Entry, a HamtNode, or an Entry[] of entries whose
+   * names have the same hash.
+   */
+  private static final class HamtNode {
+    private final int bitmap;
+    private final Object[] slots;
+
+    private HamtNode(int bitmap, Object[] slots) {
+      this.bitmap = bitmap;
+      this.slots = slots;
+    }
+  }
+
+  /**
+   * Returns the number of shapes.
+   *
+   * @return number of shapes
+   */
+  int size() {
+    return size;
+  }
+
+  /**
+   * Returns the entry for a shape name.
+   *
+   * @param name shape name
+   * @return entry or null if there is no shape with this name
+   */
+  Entry getEntry(String name) {
+    int hash = name.hashCode();
+    HamtNode node = hamtRoot;
+    int shift = 0;
+    while (true) {
+      int bit = 1 << ((hash >>> shift) & MASK);
+      if ((node.bitmap & bit) == 0) {
+        return null;
+      }
+      Object slot = node.slots[Integer.bitCount(node.bitmap & (bit - 1))];
+      if (slot instanceof HamtNode) {
+        node = (HamtNode) slot;
+        shift += BITS;
+      } else if (slot instanceof Entry) {
+        Entry entry = (Entry) slot;
+        return entry.name.equals(name) ? entry : null;
+      } else {
+        for (Entry entry : (Entry[]) slot) {
+          if (entry.name.equals(name)) {
+            return entry;
+          }
+        }
+        return null;
+      }
+    }
+  }
+
+  /**
+   * Returns a map with the given shape under its name. If a shape with the same name exists,
+   * it's replaced and keeps its position and key, otherwise the shape is added at the end with
+   * a new key.
+   *
+   * @param shape shape
+   * @param owner owner of the shape
+   * @return new map
+   */
+  PersistentShapeMap put(IShape shape, Object owner) {
+    return put(shape, owner, null);
+  }
+
+  /**
+   * Returns a map with the given shape under its name, like put(shape, owner), with the given
+   * key instead.
+   *
+   * @param shape shape
+   * @param owner owner of the shape
+   * @param key key of the shape, or null to keep the replaced key or create a new one
+   * @return new map
+   */
+  private PersistentShapeMap put(IShape shape, Object owner, Object key) {
+    String name = shape.getName();
+    Entry old = getEntry(name);
+    int seq = old == null ? nextSeq : old.seq;
+    if (key == null) {
+      key = old == null ? new Object() : old.key;
+    }
+    Entry entry = new Entry(name, name.hashCode(), seq, shape, owner, key);
+    HamtNode newHamtRoot = hamtPut(hamtRoot, 0, entry);
+
+    //Grow the order trie by one level if it's full.
+    Object[] newOrderRoot = orderRoot;
+    int newOrderShift = orderShift;
+    if (old == null && seq == 1 << (orderShift + BITS)) {
+      newOrderRoot = new Object[WIDTH];
+      newOrderRoot[0] = orderRoot;
+      newOrderShift += BITS;
+    }
+    newOrderRoot = vectorSet(newOrderRoot, newOrderShift, seq, entry);
+    return new PersistentShapeMap(newHamtRoot, newOrderRoot, newOrderShift,
+        old == null ? nextSeq + 1 : nextSeq, old == null ? size + 1 : size);
+  }
+
+  /**
+   * Returns a map without the shape with this name.
+   *
+   * @param name shape name
+   * @return new map, or this map if there is no shape with this name
+   */
+  PersistentShapeMap remove(String name) {
+    Entry old = getEntry(name);
+    if (old == null) {
+      return this;
+    }
+    PersistentShapeMap result = new PersistentShapeMap(hamtRemove(hamtRoot, 0, old),
+        vectorSet(orderRoot, orderShift, old.seq, null), orderShift, nextSeq, size - 1);
+    //Compact the order trie when most of its slots are empty.
+    if (nextSeq > WIDTH && nextSeq > 2 * result.size) {
+      PersistentShapeMap compacted = EMPTY;
+      for (Entry entry : result.entries()) {
+        compacted = compacted.put(entry.shape, entry.owner, entry.key);
+      }
+      return compacted;
+    }
+    return result;
+  }
+
+  /**
+   * Performs an action for every entry, in insertion order.
+   *
+   * @param action action
+   */
+  void forEachEntry(Consumer<Entry> action) {
+    forEachInVector(orderRoot, orderShift, action);
+  }
+
+  /**
+   * Returns all entries in insertion order.
+   *
+   * @return entries
+   */
+  List<Entry> entries() {
+    List<Entry> result = new ArrayList<>(size);
+    forEachEntry(result::add);
+    return result;
+  }
+
+  // --- Helper functions for the tries ---
+
+  /**
+   * Returns a copy of the HAMT node with the entry inserted or replaced.
+   *
+   * @param node node
+   * @param shift number of hash bits consumed by the levels above this node
+   * @param entry entry to put
+   * @return new node
+   */
+  private static HamtNode hamtPut(HamtNode node, int shift, Entry entry) {
+    int bit = 1 << ((entry.hash >>> shift) & MASK);
+    int idx = Integer.bitCount(node.bitmap & (bit - 1));
+    if ((node.bitmap & bit) == 0) {
+      Object[] slots = new Object[node.slots.length + 1];
+      System.arraycopy(node.slots, 0, slots, 0, idx);
+      slots[idx] = entry;
+      System.arraycopy(node.slots, idx, slots, idx + 1, node.slots.length - idx);
+      return new HamtNode(node.bitmap | bit, slots);
+    }
+    Object slot = node.slots[idx];
+    Object newSlot;
+    if (slot instanceof HamtNode) {
+      newSlot = hamtPut((HamtNode) slot, shift + BITS, entry);
+    } else if (slot instanceof Entry) {
+      Entry old = (Entry) slot;
+      newSlot = old.name.equals(entry.name)
+          ? entry : merge(old, old.hash, entry, shift + BITS);
+    } else {
+      Entry[] collisions = (Entry[]) slot;
+      if (collisions[0].hash != entry.hash) {
+        newSlot = merge(collisions, collisions[0].hash, entry, shift + BITS);
+      } else {
+        newSlot = collisionPut(collisions, entry);
+      }
+    }
+    Object[] slots = node.slots.clone();
+    slots[idx] = newSlot;
+    return new HamtNode(node.bitmap, slots);
+  }
+
+  /**
+   * Returns a copy of the HAMT node without the entry. The entry must exist in the node.
+   *
+   * @param node node
+   * @param shift number of hash bits consumed by the levels above this node
+   * @param entry entry to remove
+   * @return new node, which is empty if the entry was its only content
+   */
+  private static HamtNode hamtRemove(HamtNode node, int shift, Entry entry) {
+    int bit = 1 << ((entry.hash >>> shift) & MASK);
+    int idx = Integer.bitCount(node.bitmap & (bit - 1));
+    Object slot = node.slots[idx];
+    Object newSlot = null;
+    if (slot instanceof HamtNode) {
+      HamtNode child = hamtRemove((HamtNode) slot, shift + BITS, entry);
+      newSlot = child.bitmap == 0 ? null : child;
+    } else if (slot instanceof Entry[]) {
+      Entry[] collisions = (Entry[]) slot;
+      Entry[] remaining = new Entry[collisions.length - 1];
+      int i = 0;
+      for (Entry e : collisions) {
+        if (!e.name.equals(entry.name)) {
+          remaining[i++] = e;
+        }
+      }
+      newSlot = remaining.length == 1 ? remaining[0] : remaining;
+    }
+    if (newSlot == null) {
+      Object[] slots = new Object[node.slots.length - 1];
+      System.arraycopy(node.slots, 0, slots, 0, idx);
+      System.arraycopy(node.slots, idx + 1, slots, idx, node.slots.length - idx - 1);
+      return new HamtNode(node.bitmap & ~bit, slots);
+    }
+    Object[] slots = node.slots.clone();
+    slots[idx] = newSlot;
+    return new HamtNode(node.bitmap, slots);
+  }
+
+  /**
+   * Creates the subtree that holds an existing slot (an entry or a collision array) and a new
+   * entry with a different name.
+   */
+  private static Object merge(Object existing, int existingHash, Entry entry, int shift) {
+    if (existingHash == entry.hash) {
+      return collisionPut(existing instanceof Entry
+          ? new Entry[]{(Entry) existing} : (Entry[]) existing, entry);
+    }
+    int existingIdx = (existingHash >>> shift) & MASK;
+    int entryIdx = (entry.hash >>> shift) & MASK;
+    if (existingIdx == entryIdx) {
+      return new HamtNode(1 << entryIdx,
+          new Object[]{merge(existing, existingHash, entry, shift + BITS)});
+    }
+    int bitmap = (1 << existingIdx) | (1 << entryIdx);
+    return existingIdx < entryIdx
+        ? new HamtNode(bitmap, new Object[]{existing, entry})
+        : new HamtNode(bitmap, new Object[]{entry, existing});
+  }
+
+  /**
+   * Returns a copy of the collision array with the entry inserted or replaced.
+   */
+  private static Entry[] collisionPut(Entry[] collisions, Entry entry) {
+    for (int i = 0; i < collisions.length; i++) {
+      if (collisions[i].name.equals(entry.name)) {
+        Entry[] copy = collisions.clone();
+        copy[i] = entry;
+        return copy;
+      }
+    }
+    Entry[] copy = new Entry[collisions.length + 1];
+    System.arraycopy(collisions, 0, copy, 0, collisions.length);
+    copy[collisions.length] = entry;
+    return copy;
+  }
+
+  /**
+   * Returns a copy of the vector trie node with the value stored at the index.
+   * Missing nodes along the path are created.
+   */
+  private static Object[] vectorSet(Object[] node, int shift, int index, Object value) {
+    Object[] copy = node == null ? new Object[WIDTH] : node.clone();
+    int idx = (index >>> shift) & MASK;
+    if (shift == 0) {
+      copy[idx] = value;
+    } else {
+      copy[idx] = vectorSet((Object[]) copy[idx], shift - BITS, index, value);
+    }
+    return copy;
+  }
+
+  /**
+   * Performs an action on every non-empty slot of the vector trie, in index order.
+   */
+  private static void forEachInVector(Object[] node, int shift, Consumer<Entry> action) {
+    for (Object slot : node) {
+      if (slot == null) {
+        continue;
+      }
+      if (shift == 0) {
+        action.accept((Entry) slot);
+      } else {
+        forEachInVector((Object[]) slot, shift - BITS, action);
+      }
+    }
+  }
+}
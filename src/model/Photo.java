@@ -1,24 +1,28 @@
 package model;
 
-import java.util.Arrays;
-import java.util.LinkedHashMap;
-import java.util.LinkedList;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
 import java.util.Objects;
 import java.util.StringJoiner;
 
 /**
  * Concrete photo class for PhotoAlbumApp.
+ * Shapes are stored in a persistent map, so copying a photo is O(1): the copy shares all shapes
+ * with the original. The stored shapes are never handed out: addShape() stores a copy of the
+ * given shape, and the getters return views (PhotoShape) of the stored shapes. A shared shape is
+ * only copied when it's modified through a view, and from then on it belongs to that photo.
  */
 public class Photo implements IPhoto {
-  private Map<String, IShape> shapeMap;
+  private PersistentShapeMap shapeMap;
+  //Identifies the shapes in shapeMap that belong to this photo only and can be modified in place.
+  private Object owner;
 
   /**
    * Default constructor.
    */
   public Photo() {
-    this.shapeMap = new LinkedHashMap<>();
+    this.shapeMap = PersistentShapeMap.EMPTY;
+    this.owner = new Object();
   }
 
   /**
@@ -27,14 +31,77 @@ public class Photo implements IPhoto {
    * @param photo another photo
    */
   public Photo(IPhoto photo) {
-    this.shapeMap = new LinkedHashMap<>();
-    List<IShape> shapeList = photo.getShapes();
-    shapeList.forEach(shape -> this.shapeMap.put(shape.getName(), shape.clone()));
+    this.owner = new Object();
+    if (photo instanceof Photo) {
+      this.shapeMap = ((Photo) photo).share();
+    } else if (photo instanceof ReadOnlyPhoto) {
+      this.shapeMap = ((ReadOnlyPhoto) photo).getShapeMap();
+    } else {
+      this.shapeMap = PersistentShapeMap.EMPTY;
+      List<IShape> shapeList = photo.getShapes();
+      shapeList.forEach(shape -> this.shapeMap = this.shapeMap.put(shape.clone(), this.owner));
+    }
+  }
+
+  /**
+   * Constructor for a photo that starts with the shapes of a shape map it doesn't own.
+   *
+   * @param shapeMap shapes, which are copied before they are modified or handed out
+   */
+  Photo(PersistentShapeMap shapeMap) {
+    this.shapeMap = shapeMap;
+    this.owner = new Object();
+  }
+
+  /**
+   * Returns the shapes of this photo so that they can be shared with another photo.
+   * From now on, this photo doesn't own them, so it copies a shape before handing it out
+   * or modifying it.
+   *
+   * @return shape map
+   */
+  PersistentShapeMap share() {
+    this.owner = new Object();
+    return this.shapeMap;
+  }
+
+  /**
+   * Returns the object that identifies the shapes owned by this photo. It changes every time
+   * the photo shares its shapes, so while it stays the same, the shapes it owns are modified in
+   * place.
+   *
+   * @return owner token
+   */
+  Object ownerToken() {
+    return this.owner;
+  }
+
+  /**
+   * Returns the current shape map of this photo. Its entries owned by this photo may still be
+   * modified in place.
+   *
+   * @return shape map
+   */
+  PersistentShapeMap getShapeMap() {
+    return this.shapeMap;
+  }
+
+  /**
+   * Makes this photo own the shape of an entry of its shape map, copying the shape.
+   *
+   * @param entry entry of the current shape map, which this photo doesn't own
+   * @return new entry of the shape, which belongs to this photo
+   */
+  PersistentShapeMap.Entry ownEntry(PersistentShapeMap.Entry entry) {
+    shapeMap = shapeMap.put(entry.shape.clone(), this.owner);
+    return shapeMap.getEntry(entry.name);
   }
 
   @Override
   public List<IShape> getShapes() {
-    return new LinkedList<>(this.shapeMap.values());
+    List<IShape> shapeList = new ArrayList<>(shapeMap.size());
+    this.shapeMap.forEachEntry(entry -> shapeList.add(this.viewOf(entry)));
+    return shapeList;
   }
 
   @Override
@@ -42,7 +109,37 @@ public class Photo implements IPhoto {
     if (name == null) {
       throw new IllegalArgumentException("Shape's name can't be null");
     }
-    return shapeMap.get(name);
+    PersistentShapeMap.Entry entry = shapeMap.getEntry(name);
+    return entry == null ? null : this.viewOf(entry);
+  }
+
+  @Override
+  public List<IShape> getShapesIn(double x, double y, double width, double height) {
+    if (width < 0 || height < 0) {
+      throw new IllegalArgumentException("Width and height can't be negative");
+    }
+    List<IShape> shapeList = new ArrayList<>();
+    this.shapeMap.forEachEntry(entry -> {
+      IShape shape = entry.shape;
+      if (SpatialIndex.intersects(shape.getType(), shape.getX(), shape.getY(), shape.getXDim(),
+          shape.getYDim(), x, y, x + width, y + height)) {
+        shapeList.add(this.viewOf(entry));
+      }
+    });
+    return shapeList;
+  }
+
+  @Override
+  public List<IShape> getShapesAt(double x, double y) {
+    List<IShape> shapeList = new ArrayList<>();
+    this.shapeMap.forEachEntry(entry -> {
+      IShape shape = entry.shape;
+      if (SpatialIndex.contains(shape.getType(), shape.getX(), shape.getY(), shape.getXDim(),
+          shape.getYDim(), x, y)) {
+        shapeList.add(this.viewOf(entry));
+      }
+    });
+    return shapeList;
   }
 
   @Override
@@ -55,10 +152,20 @@ public class Photo implements IPhoto {
     if (shape == null) {
       throw new IllegalArgumentException("The parameter can't be null");
     }
-    if (shapeMap.containsKey(shape.getName())) {
+    if (shapeMap.getEntry(shape.getName()) != null) {
       throw new IllegalArgumentException("The name of the given shape is already used.");
     }
-    shapeMap.put(shape.getName(), shape);
+    shapeMap = shapeMap.put(shape.clone(), this.owner);
+  }
+
+  /**
+   * Adds a shape that this photo doesn't own, so it's copied before it's modified.
+   * If there is a shape with the same name, it's replaced and keeps its position.
+   *
+   * @param shape shape
+   */
+  void putSharedShape(IShape shape) {
+    shapeMap = shapeMap.put(shape, null);
   }
 
   @Override
@@ -66,10 +173,10 @@ public class Photo implements IPhoto {
     if (name == null) {
       throw new IllegalArgumentException("The parameter can't be null");
     }
-    if (!shapeMap.containsKey(name)) {
+    if (shapeMap.getEntry(name) == null) {
       throw new IllegalArgumentException("The shape with this name doesn't exist in the photo");
     }
-    shapeMap.remove(name);
+    shapeMap = shapeMap.remove(name);
   }
 
   @Override
@@ -85,7 +192,7 @@ public class Photo implements IPhoto {
   @Override
   public String toString() {
     StringJoiner result = new StringJoiner("\n");
-    this.getShapes().forEach(shape -> result.add(shape.toString()));
+    this.shapeMap.forEachEntry(entry -> result.add(entry.shape.toString()));
     return result.toString();
   }
 
@@ -103,8 +210,9 @@ public class Photo implements IPhoto {
     if (!(obj instanceof IPhoto)) {
       return false;
     }
-    IPhoto o = (IPhoto) obj;
-    return o.getShapes().equals(this.getShapes());
+    List<IShape> otherShapes = obj instanceof Photo
+        ? ((Photo) obj).readShapes() : ((IPhoto) obj).getShapes();
+    return otherShapes.equals(this.readShapes());
   }
 
   /**
@@ -114,7 +222,28 @@ public class Photo implements IPhoto {
    */
   @Override
   public int hashCode() {
-    return Objects.hash(this.getShapes());
+    return Objects.hash(this.readShapes());
+  }
+
+  /**
+   * Returns the shapes stored in the photo, without views. The shapes must not be modified.
+   *
+   * @return list of shapes
+   */
+  private List<IShape> readShapes() {
+    List<IShape> shapeList = new ArrayList<>(shapeMap.size());
+    this.shapeMap.forEachEntry(entry -> shapeList.add(entry.shape));
+    return shapeList;
+  }
+
+  /**
+   * Returns the view of the shape of an entry.
+   *
+   * @param entry entry of the current shape map
+   * @return view of the shape
+   */
+  private IShape viewOf(PersistentShapeMap.Entry entry) {
+    return new PhotoShape(this, this.shapeMap, entry);
   }
 
 }
@@ -1,33 +1,159 @@
 package model;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * PhotoAlbumApp is the main class in Model that will provide all functionalities to the controller.
+ * It isn't thread-safe: wrap it in a ConcurrentPhotoAlbumApp to use it from several threads.
  */
 public class PhotoAlbumApp implements IPhotoAlbumApp {
-
-  private IPhoto currPhoto;
-  private List<PhotoCommand> photoCmdList;
-  private Map<String, ISnapshot> snapshotMap;
+  private static final int DEFAULT_KEYFRAME_INTERVAL = 256;
+  private static final int DEFAULT_MAX_KEYFRAMES = 64;
+  private static final int SNAPSHOT_PHOTO_CACHE_SIZE = 16;
+  private static final int DELTA_BASE_INTERVAL = 32;
+
+  private Photo currPhoto;
+  private PhotoHistory history;
+  private SnapshotStore snapshots;
+  private final int keyframeInterval;
+  private final int maxKeyframes;
+  private final ISnapshotClock snapshotClock;
+  private final SnapshotMode snapshotMode;
+  //Photos of lazy snapshots that were recently materialized, from least to most recently used.
+  //It's synchronized since reading a lazy snapshot updates it, even when the album isn't modified.
+  private final Map<Object, IPhoto> snapshotPhotoCache;
+  //Last delta snapshot, or null if the next one must store the whole photo.
+  private DeltaSnapshot lastDeltaSnapshot;
+  //Shapes changed since the last delta snapshot.
+  private final ShapeChanges shapeChanges;
+  //Shape names of the album, which commands and shape handles refer to.
+  private final SymbolTable symbols;
+  //Bounding boxes of the shapes of the current photo.
+  private final SpatialIndex spatialIndex;
 
   /**
    * Default constructor.
    */
   public PhotoAlbumApp() {
+    this(DEFAULT_KEYFRAME_INTERVAL, DEFAULT_MAX_KEYFRAMES);
+  }
+
+  /**
+   * Constructor that sets the clock used to generate the snapshots' IDs and time stamps.
+   * For example, a clock based on a fixed time gives deterministic snapshot IDs.
+   *
+   * @param snapshotClock snapshot clock
+   * @throws IllegalArgumentException if snapshotClock is null
+   */
+  public PhotoAlbumApp(ISnapshotClock snapshotClock) {
+    this(DEFAULT_KEYFRAME_INTERVAL, DEFAULT_MAX_KEYFRAMES, snapshotClock);
+  }
+
+  /**
+   * Constructor that sets how the photos of the snapshots are stored.
+   *
+   * @param snapshotMode snapshot mode
+   * @throws IllegalArgumentException if snapshotMode is null
+   */
+  public PhotoAlbumApp(SnapshotMode snapshotMode) {
+    this(DEFAULT_KEYFRAME_INTERVAL, DEFAULT_MAX_KEYFRAMES, MonotonicSnapshotClock.systemClock(),
+        snapshotMode);
+  }
+
+  /**
+   * Constructor that configures the keyframes used to speed up reading ranges of photos.
+   * A keyframe is stored every keyframeInterval commands. When there would be more than
+   * maxKeyframes keyframes, the interval doubles and every other keyframe is dropped,
+   * so the memory used by keyframes stays bounded.
+   *
+   * @param keyframeInterval initial number of commands between two keyframes
+   * @param maxKeyframes maximum number of keyframes kept
+   * @throws IllegalArgumentException if keyframeInterval is not positive,
+   *                                  if maxKeyframes is less than 2
+   */
+  public PhotoAlbumApp(int keyframeInterval, int maxKeyframes) {
+    this(keyframeInterval, maxKeyframes, MonotonicSnapshotClock.systemClock());
+  }
+
+  /**
+   * Constructor that configures both the keyframes and the snapshot clock.
+   *
+   * @param keyframeInterval initial number of commands between two keyframes
+   * @param maxKeyframes maximum number of keyframes kept
+   * @param snapshotClock clock used to generate the snapshots' IDs and time stamps
+   * @throws IllegalArgumentException if keyframeInterval is not positive,
+   *                                  if maxKeyframes is less than 2,
+   *                                  if snapshotClock is null
+   */
+  public PhotoAlbumApp(int keyframeInterval, int maxKeyframes, ISnapshotClock snapshotClock) {
+    this(keyframeInterval, maxKeyframes, snapshotClock, SnapshotMode.EAGER);
+  }
+
+  /**
+   * Constructor that configures the keyframes, the snapshot clock and the snapshot mode.
+   *
+   * @param keyframeInterval initial number of commands between two keyframes
+   * @param maxKeyframes maximum number of keyframes kept
+   * @param snapshotClock clock used to generate the snapshots' IDs and time stamps
+   * @param snapshotMode how the photos of the snapshots are stored
+   * @throws IllegalArgumentException if keyframeInterval is not positive,
+   *                                  if maxKeyframes is less than 2,
+   *                                  if snapshotClock or snapshotMode is null
+   */
+  public PhotoAlbumApp(int keyframeInterval, int maxKeyframes, ISnapshotClock snapshotClock,
+                       SnapshotMode snapshotMode) {
+    if (snapshotClock == null || snapshotMode == null) {
+      throw new IllegalArgumentException("Parameter can't be null");
+    }
+    if (keyframeInterval <= 0) {
+      throw new IllegalArgumentException("Keyframe interval must be positive");
+    }
+    if (maxKeyframes < 2) {
+      throw new IllegalArgumentException("There must be at least 2 keyframes");
+    }
+    this.keyframeInterval = keyframeInterval;
+    this.maxKeyframes = maxKeyframes;
+    this.snapshotClock = snapshotClock;
+    this.snapshotMode = snapshotMode;
+    this.snapshotPhotoCache = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Object, IPhoto> eldest) {
+        return size() > SNAPSHOT_PHOTO_CACHE_SIZE;
+      }
+    });
+    this.shapeChanges = new ShapeChanges();
+    this.symbols = new SymbolTable();
+    this.spatialIndex = new SpatialIndex();
     currPhoto = new Photo();
-    photoCmdList = new LinkedList<>();
-    snapshotMap = new LinkedHashMap<>();
+    history = new PhotoHistory(keyframeInterval, maxKeyframes);
+    snapshots = new SnapshotStore();
   }
 
   @Override
   public void takeSnapshot(String description) {
-    ISnapshot snapshot = new Snapshot(description, currPhoto.clone());
-    snapshotMap.put(snapshot.getID(), snapshot);
+    ISnapshot snapshot = switch (snapshotMode) {
+      case LAZY -> new LazySnapshot(description, this.createLazyPhotoSource(), snapshotClock);
+      case DELTA -> this.createDeltaSnapshot(description);
+      default -> new Snapshot(description, new ReadOnlyPhoto(currPhoto), snapshotClock);
+    };
+    snapshots.add(snapshot);
   }
 
   @Override
@@ -36,10 +162,8 @@ public class PhotoAlbumApp implements IPhotoAlbumApp {
       throw new IllegalArgumentException("Parameter can't be null");
     }
 
-    if (snapshotMap.containsKey(id)) {
-      return snapshotMap.get(id).clone();
-    }
-    return null;
+    //Snapshots only hold read-only photos, so they can be returned without copying.
+    return snapshots.get(id);
   }
 
   @Override
@@ -47,42 +171,86 @@ public class PhotoAlbumApp implements IPhotoAlbumApp {
     if (id == null) {
       throw new IllegalArgumentException("Parameter can't be null");
     }
-    int idx = 0;
-    for (String snapshotID : snapshotMap.keySet()) {
-      if (snapshotID.equals(id)) {
-        break;
-      }
-      idx ++;
+    return snapshots.indexOf(id);
+  }
+
+  @Override
+  public ISnapshot getSnapshotAt(int index) {
+    if (index < 0 || index >= snapshots.size()) {
+      throw new IllegalArgumentException("There is no snapshot at this index");
     }
-    return idx == snapshotMap.size() ? -1 : idx;
+    return snapshots.get(index);
+  }
+
+  @Override
+  public int getSnapshotCount() {
+    return snapshots.size();
   }
 
   @Override
   public List<ISnapshot> getSnapshots() {
-    List<ISnapshot> copySnapshots = new LinkedList<>();
-    snapshotMap.forEach((id,snapshot) -> copySnapshots.add(snapshot.clone()));
-    return copySnapshots;
+    List<ISnapshot> snapshotList = new ArrayList<>(snapshots.size());
+    for (int i = 0; i < snapshots.size(); i++) {
+      snapshotList.add(snapshots.get(i));
+    }
+    return Collections.unmodifiableList(snapshotList);
   }
 
   @Override
   public List<String> getSnapshotIDs() {
-    List<String> snapshotIDs = new LinkedList<>();
-    this.snapshotMap.forEach((id, snapshot) -> snapshotIDs.add(id));
+    List<String> snapshotIDs = new ArrayList<>(snapshots.size());
+    for (int i = 0; i < snapshots.size(); i++) {
+      snapshotIDs.add(snapshots.get(i).getID());
+    }
     return snapshotIDs;
   }
 
   @Override
   public void clearPhotos() {
     currPhoto = new Photo();
-    photoCmdList = new LinkedList<>();
+    //The next delta snapshot can't be based on the photos before clearing.
+    lastDeltaSnapshot = null;
+    shapeChanges.clear();
+    spatialIndex.clear();
+    //Lazy snapshots taken before still reference the old history.
+    history = new PhotoHistory(keyframeInterval, maxKeyframes);
   }
 
   @Override
   public List<IPhoto> getPhotoAlbum() {
-    if (photoCmdList.size() == 0) {
+    if (history.size() == 0) {
       return Collections.unmodifiableList(new LinkedList<IPhoto>());
     }
-    return Collections.unmodifiableList(getPhotoAlbumRange(0, photoCmdList.size() - 1));
+    return Collections.unmodifiableList(getPhotoAlbumRange(0, history.size() - 1));
+  }
+
+  @Override
+  public Stream<IPhoto> getPhotoAlbumStream() {
+    PhotoHistory streamHistory = this.history;
+    int numCommands = streamHistory.size();
+    //Modifies the same instance of photo by running through the stored commands,
+    //and returns a copy of it at each step.
+    Iterator<IPhoto> iterator = new Iterator<>() {
+      private final IPhoto photo = new Photo();
+      private int nextCmdIdx = 0;
+
+      @Override
+      public boolean hasNext() {
+        return nextCmdIdx < numCommands;
+      }
+
+      @Override
+      public IPhoto next() {
+        if (!hasNext()) {
+          throw new NoSuchElementException("There are no more photos on the album");
+        }
+        streamHistory.get(nextCmdIdx).invoke(photo);
+        nextCmdIdx++;
+        return photo.clone();
+      }
+    };
+    return StreamSupport.stream(Spliterators.spliterator(iterator, numCommands,
+        Spliterator.ORDERED | Spliterator.NONNULL), false);
   }
 
   @Override
@@ -90,20 +258,17 @@ public class PhotoAlbumApp implements IPhotoAlbumApp {
     if (upper < lower) {
       throw new IllegalArgumentException("Upper index can't be less than lower index");
     }
-    if (lower < 0 || upper >= photoCmdList.size()) {
+    if (lower < 0 || upper >= history.size()) {
       throw new IllegalArgumentException("Lower and upper indices must be within valid bound");
     }
 
-    //Create a new photo instance, and process on it the stored commands from start up to the lower index.
-    IPhoto photo = new Photo();
-    for (int i = 0; i < lower; i++) {
-      photoCmdList.get(i).invoke(photo);
-    }
+    //Rebuild the photo right before the lower index.
+    IPhoto photo = history.replay(lower);
 
     //Once we reach the desired range of index, start storing each photo inside a list.
-    List<IPhoto> photoList = new LinkedList<>();
+    List<IPhoto> photoList = new ArrayList<>(upper - lower + 1);
     for (int i = lower; i < upper + 1; i++) {
-      photoCmdList.get(i).invoke(photo);
+      history.get(i).invoke(photo);
       photoList.add(photo.clone());
     }
     return Collections.unmodifiableList(photoList);
@@ -111,7 +276,20 @@ public class PhotoAlbumApp implements IPhotoAlbumApp {
 
   @Override
   public IPhoto getCurrentPhoto() {
-    return this.currPhoto.clone();
+    return new ReadOnlyPhoto(this.currPhoto);
+  }
+
+  @Override
+  public List<IShape> getShapesIn(double x, double y, double width, double height) {
+    if (width < 0 || height < 0) {
+      throw new IllegalArgumentException("Width and height can't be negative");
+    }
+    return this.getCurrentShapes(spatialIndex.namesIn(x, y, width, height));
+  }
+
+  @Override
+  public List<IShape> getShapesAt(double x, double y) {
+    return this.getCurrentShapes(spatialIndex.namesAt(x, y));
   }
 
   @Override
@@ -119,107 +297,115 @@ public class PhotoAlbumApp implements IPhotoAlbumApp {
                                double y, double r, double g, double b) {
     validateNoShapeWithThisName(name);
     //Update the current photo.
-    createBasicShapeOnPhoto(this.currPhoto, name, type, xDim, yDim, x, y, r, g, b);
-    //Condense the command into one string.
-    String methodName = "CREATE_BASIC_SHAPE";
-    String[] args = {methodName, name, type, Double.toString(xDim), Double.toString(yDim),
-                     Double.toString(x), Double.toString(y), Double.toString(r),
-                     Double.toString(g), Double.toString(b)};
-    String cmdString = String.join(" ", args);
-    //Add this command into the command list.
-    PhotoCommand cmd = new PhotoCommand(cmdString);
-    this.photoCmdList.add(cmd);
+    IShape newShape = createBasicShapeOnPhoto(this.currPhoto, name, type, xDim, yDim, x, y,
+        r, g, b);
+    ShapeHandle handle = symbols.intern(name);
+    symbols.cacheShape(handle, newShape, this.currPhoto);
+    spatialIndex.put(newShape);
+    //Record the command with its arguments already typed, so replaying it needs no parsing.
+    PhotoCommand cmd = new PhotoCommand(Opcode.CREATE_BASIC_SHAPE, handle, type,
+        xDim, yDim, x, y, r, g, b);
+    this.addCommand(cmd);
   }
 
   @Override
   public void removeShape(String name) {
-    validateExistingShapeWithThisName(name);
+    this.remove(findHandle(name));
+  }
+
+  @Override
+  public void setShapeColor(String name, double r, double g, double b) {
+    this.setColor(findHandle(name), r, g, b);
+  }
+
+  @Override
+  public void setShapePosition(String name, double x, double y) {
+    this.setPosition(findHandle(name), x, y);
+  }
+
+  @Override
+  public void setShapeXDim(String name, double xDim) {
+    this.setXDim(findHandle(name), xDim);
+  }
+
+  @Override
+  public void setShapeYDim(String name, double yDim) {
+    this.setYDim(findHandle(name), yDim);
+  }
+
+  @Override
+  public ShapeHandle lookup(String name) {
+    ShapeHandle handle = findHandle(name);
+    getExistingShape(handle);
+    return handle;
+  }
+
+  @Override
+  public void remove(ShapeHandle handle) {
+    getExistingShape(handle);
     //Update the current photo.
-    removeShapeOnPhoto(this.currPhoto, name);
-    //Condense the command into one string.
-    String methodName = "REMOVE_SHAPE";
-    String[] args = {methodName, name};
-    String cmdString = String.join(" ", args);
+    removeShapeOnPhoto(this.currPhoto, handle.getName());
+    symbols.cacheShape(handle, null, this.currPhoto);
+    spatialIndex.remove(handle.getName());
     //Add this command into the command list.
-    PhotoCommand cmd = new PhotoCommand(cmdString);
-    this.photoCmdList.add(cmd);
-
+    PhotoCommand cmd = new PhotoCommand(Opcode.REMOVE_SHAPE, handle, null);
+    this.addCommand(cmd);
   }
 
   @Override
-  public void setShapeColor(String name, double r, double g, double b) {
-    validateExistingShapeWithThisName(name);
+  public void setColor(ShapeHandle handle, double r, double g, double b) {
     //Update the current photo
-    setShapeColorOnPhoto(this.currPhoto, name, r, g, b);
-    //Condense the command into one string
-    String methodName = "SET_COLOR";
-    String[] args = {methodName, name, Double.toString(r), Double.toString(g), Double.toString(b)};
-    String cmdString = String.join(" ", args);
+    getExistingShape(handle).setColor(r, g, b);
     //Add this command into the command list.
-    PhotoCommand cmd = new PhotoCommand(cmdString);
-    this.photoCmdList.add(cmd);
+    PhotoCommand cmd = new PhotoCommand(Opcode.SET_COLOR, handle, null, r, g, b);
+    this.addCommand(cmd);
   }
 
   @Override
-  public void setShapePosition(String name, double x, double y) {
-    validateExistingShapeWithThisName(name);
+  public void setPosition(ShapeHandle handle, double x, double y) {
     //Update the current photo
-    setShapePositionOnPhoto(this.currPhoto, name, x, y);
-    //Condense the command into one string
-    String methodName = "SET_POSITION";
-    String[] args = {methodName, name, Double.toString(x), Double.toString(y)};
-    String cmdString = String.join(" ", args);
+    IShape shape = getExistingShape(handle);
+    shape.setPosition(x, y);
+    spatialIndex.put(shape);
     //Add this command into the command list.
-    PhotoCommand cmd = new PhotoCommand(cmdString);
-    this.photoCmdList.add(cmd);
+    PhotoCommand cmd = new PhotoCommand(Opcode.SET_POSITION, handle, null, x, y);
+    this.addCommand(cmd);
   }
 
   @Override
-  public void setShapeXDim(String name, double xDim) {
-    validateExistingShapeWithThisName(name);
+  public void setXDim(ShapeHandle handle, double xDim) {
     //Update the current photo
-    setShapeXDimOnPhoto(this.currPhoto, name, xDim);
-    //Condense the command into one string
-    String methodName = "SET_XDIM";
-    String[] args = {methodName, name, Double.toString(xDim)};
-    String cmdString = String.join(" ", args);
+    IShape shape = getExistingShape(handle);
+    shape.setXDim(xDim);
+    spatialIndex.put(shape);
     //Add this command into the command list.
-    PhotoCommand cmd = new PhotoCommand(cmdString);
-    this.photoCmdList.add(cmd);
+    PhotoCommand cmd = new PhotoCommand(Opcode.SET_XDIM, handle, null, xDim);
+    this.addCommand(cmd);
   }
 
   @Override
-  public void setShapeYDim(String name, double yDim) {
-    validateExistingShapeWithThisName(name);
+  public void setYDim(ShapeHandle handle, double yDim) {
     //Update the current photo
-    setShapeYDimOnPhoto(this.currPhoto, name, yDim);
-    //Condense the command into one string
-    String methodName = "SET_YDIM";
-    String[] args = {methodName, name, Double.toString(yDim)};
-    String cmdString = String.join(" ", args);
+    IShape shape = getExistingShape(handle);
+    shape.setYDim(yDim);
+    spatialIndex.put(shape);
     //Add this command into the command list.
-    PhotoCommand cmd = new PhotoCommand(cmdString);
-    this.photoCmdList.add(cmd);
+    PhotoCommand cmd = new PhotoCommand(Opcode.SET_YDIM, handle, null, yDim);
+    this.addCommand(cmd);
   }
 
   @Override
   public String toString() {
     StringBuilder result = new StringBuilder();
 
-    //Print every photo on the album:
-    //Modifies the same instance of photo by running through the stored commands,
-    //and prints it at each step.
-    IPhoto photo = new Photo();
-    for (int i = 0; i < this.photoCmdList.size(); i++) {
-      photoCmdList.get(i).invoke(photo);
-      result.append(photo).append("\n==========\n");
-    }
+    //Print every photo on the album, one at a time.
+    this.getPhotoAlbumStream().forEach(photo -> result.append(photo).append("\n==========\n"));
     result.append("\n");
 
     //Print ID of snapshots:
     result.append("List of snapshots taken before reset: ").append("[");
-    if (this.snapshotMap.size() != 0) {
-      snapshotMap.forEach((id, snapshot) -> result.append(id).append(", "));
+    if (this.snapshots.size() != 0) {
+      this.getSnapshotIDs().forEach(id -> result.append(id).append(", "));
       result.deleteCharAt(result.length() - 1);
       result.deleteCharAt(result.length() - 1);
     }
@@ -227,8 +413,8 @@ public class PhotoAlbumApp implements IPhotoAlbumApp {
 
     //Print snapshots:
     result.append("Printing Snapshots").append("\n\n");
-    if (this.snapshotMap.size() != 0) {
-      snapshotMap.forEach((id, snapshot) -> result.append(snapshot).append("\n\n"));
+    if (this.snapshots.size() != 0) {
+      this.getSnapshots().forEach(snapshot -> result.append(snapshot).append("\n\n"));
       result.deleteCharAt(result.length() - 1);
       result.deleteCharAt(result.length() - 1);
     }
@@ -238,18 +424,412 @@ public class PhotoAlbumApp implements IPhotoAlbumApp {
 
   // --- Helper functions and class ---
 
+  /**
+   * Adds a command that was just applied on the current photo to the command list,
+   * and records which shape it changed for delta snapshots.
+   *
+   * @param cmd command
+   */
+  private void addCommand(PhotoCommand cmd) {
+    this.history.add(cmd, this.currPhoto);
+    if (this.snapshotMode == SnapshotMode.DELTA) {
+      this.shapeChanges.record(cmd.opcode, cmd.shape.getName());
+    }
+  }
+
+  /**
+   * Returns shapes of the current photo as read-only shapes.
+   *
+   * @param names names of the shapes
+   * @return unmodifiable list of read-only shapes
+   */
+  private List<IShape> getCurrentShapes(List<String> names) {
+    IPhoto photo = this.getCurrentPhoto();
+    List<IShape> shapeList = new ArrayList<>(names.size());
+    names.forEach(name -> shapeList.add(photo.getShape(name)));
+    return Collections.unmodifiableList(shapeList);
+  }
+
+  /**
+   * Creates a delta snapshot of the current photo. It stores the whole photo if it's the first
+   * one, if there have been too many deltas since the last whole photo, or if too many shapes
+   * changed, and otherwise stores the shapes that changed since the last snapshot.
+   *
+   * @param description description for the snapshot
+   * @return snapshot
+   */
+  private DeltaSnapshot createDeltaSnapshot(String description) {
+    DeltaSnapshot snapshot;
+    if (lastDeltaSnapshot == null || lastDeltaSnapshot.getChainLength() + 1 >= DELTA_BASE_INTERVAL
+        || shapeChanges.size() > currPhoto.size() / 4) {
+      snapshot = new DeltaSnapshot(description, currPhoto, snapshotClock);
+    } else {
+      List<IShape> changedShapes = new ArrayList<>(shapeChanges.changed.size());
+      shapeChanges.changed.forEach(name -> changedShapes.add(currPhoto.getShape(name)));
+      List<IShape> addedShapes = new ArrayList<>(shapeChanges.added.size());
+      shapeChanges.added.forEach(name -> addedShapes.add(currPhoto.getShape(name)));
+      snapshot = new DeltaSnapshot(description, lastDeltaSnapshot,
+          new ArrayList<>(shapeChanges.removed), changedShapes, addedShapes, snapshotClock);
+    }
+    lastDeltaSnapshot = snapshot;
+    shapeChanges.clear();
+    return snapshot;
+  }
+
+  /**
+   * Creates the photo source of a lazy snapshot taken now. It remembers the current history and
+   * its number of commands, and rebuilds the photo from them. Rebuilt photos are kept in a
+   * size-bounded LRU cache shared by all snapshots of the album.
+   *
+   * @return photo source that returns the current photo as a read-only photo
+   */
+  private Supplier<IPhoto> createLazyPhotoSource() {
+    PhotoHistory snapshotHistory = this.history;
+    int numCommands = snapshotHistory.size();
+    Object cacheKey = new Object();
+    return () -> new ReadOnlyPhoto(snapshotPhotoCache.computeIfAbsent(cacheKey,
+        key -> snapshotHistory.replay(numCommands)));
+  }
+
+  /**
+   * The shape names used by the album. Each name gets a handle the first time a shape with this
+   * name is created, and keeps it for the lifetime of the album.
+   * The table also remembers, for each handle, the shape with this name in the current photo,
+   * so modifying a shape by its handle doesn't look it up in the photo again.
+   */
+  private static class SymbolTable {
+    private final Map<String, ShapeHandle> handlesByName;
+    //shapes[id] is the shape of handle id in the photo whose owner token is owners[id].
+    private IShape[] shapes;
+    private Object[] owners;
+
+    /**
+     * Constructor for an empty table.
+     */
+    public SymbolTable() {
+      this.handlesByName = new HashMap<>();
+      this.shapes = new IShape[16];
+      this.owners = new Object[16];
+    }
+
+    /**
+     * Returns the handle of a name, or null if no shape with this name was ever created.
+     *
+     * @param name shape name
+     * @return handle or null
+     */
+    public ShapeHandle get(String name) {
+      return handlesByName.get(name);
+    }
+
+    /**
+     * Returns the handle of a name, adding the name to the table if it's not there yet.
+     *
+     * @param name shape name
+     * @return handle
+     */
+    public ShapeHandle intern(String name) {
+      ShapeHandle handle = handlesByName.get(name);
+      if (handle == null) {
+        int id = handlesByName.size();
+        if (id == shapes.length) {
+          shapes = Arrays.copyOf(shapes, id * 2);
+          owners = Arrays.copyOf(owners, id * 2);
+        }
+        handle = new ShapeHandle(this, id, name);
+        handlesByName.put(name, handle);
+      }
+      return handle;
+    }
+
+    /**
+     * Returns the shape of a handle in a photo, looking it up only if the photo shared its
+     * shapes since the last time.
+     *
+     * @param handle handle of this table
+     * @param photo photo
+     * @return shape, or null if there is no shape with this name in the photo
+     */
+    public IShape getShape(ShapeHandle handle, Photo photo) {
+      Object owner = photo.ownerToken();
+      if (owners[handle.id] != owner) {
+        shapes[handle.id] = photo.getShape(handle.getName());
+        owners[handle.id] = owner;
+      }
+      return shapes[handle.id];
+    }
+
+    /**
+     * Remembers the shape of a handle in a photo, after it was added to or removed from it.
+     *
+     * @param handle handle of this table
+     * @param shape shape that belongs to the photo, or null if it was removed
+     * @param photo photo
+     */
+    public void cacheShape(ShapeHandle handle, IShape shape, Photo photo) {
+      shapes[handle.id] = shape;
+      owners[handle.id] = photo.ownerToken();
+    }
+  }
+
+  /**
+   * The names of the shapes removed, changed and added since the last snapshot, which are the
+   * differences stored by a delta snapshot.
+   * A shape that was added since the last snapshot is only in added, whatever happens to it next.
+   * A shape that was removed and added again is both in removed and in added.
+   */
+  private static class ShapeChanges {
+    private final Set<String> removed;
+    private final Set<String> changed;
+    //Kept in the order the shapes were added, which is their order in the photo.
+    private final Set<String> added;
+
+    /**
+     * Constructor with no changes.
+     */
+    public ShapeChanges() {
+      this.removed = new HashSet<>();
+      this.changed = new HashSet<>();
+      this.added = new LinkedHashSet<>();
+    }
+
+    /**
+     * Records the change done by a command.
+     *
+     * @param opcode operation of the command
+     * @param name name of the shape
+     */
+    public void record(Opcode opcode, String name) {
+      switch (opcode) {
+        case CREATE_BASIC_SHAPE -> added.add(name);
+        case REMOVE_SHAPE -> {
+          //A shape added since the last snapshot was never in it, so there's nothing to remove.
+          if (!added.remove(name)) {
+            removed.add(name);
+          }
+          changed.remove(name);
+        }
+        default -> {
+          if (!added.contains(name)) {
+            changed.add(name);
+          }
+        }
+      }
+    }
+
+    /**
+     * Returns the number of changed shapes.
+     *
+     * @return number of changed shapes
+     */
+    public int size() {
+      return removed.size() + changed.size() + added.size();
+    }
+
+    /**
+     * Forgets all changes.
+     */
+    public void clear() {
+      removed.clear();
+      changed.clear();
+      added.clear();
+    }
+  }
+
+  /**
+   * The snapshots of the photo album in the order they were taken, with an index from the
+   * snapshot ID to its position, so snapshots can be found by ID or by position in O(1).
+   */
+  private static class SnapshotStore {
+    private final List<ISnapshot> snapshotList;
+    private final Map<String, Integer> indexByID;
+
+    /**
+     * Constructor for an empty store.
+     */
+    public SnapshotStore() {
+      this.snapshotList = new ArrayList<>();
+      this.indexByID = new HashMap<>();
+    }
+
+    /**
+     * Returns the number of snapshots.
+     *
+     * @return number of snapshots
+     */
+    public int size() {
+      return snapshotList.size();
+    }
+
+    /**
+     * Adds a snapshot at the end. If there is already a snapshot with the same ID,
+     * it's replaced and keeps its position.
+     *
+     * @param snapshot snapshot
+     */
+    public void add(ISnapshot snapshot) {
+      Integer index = indexByID.get(snapshot.getID());
+      if (index != null) {
+        snapshotList.set(index, snapshot);
+      } else {
+        indexByID.put(snapshot.getID(), snapshotList.size());
+        snapshotList.add(snapshot);
+      }
+    }
+
+    /**
+     * Returns the snapshot at the given position.
+     *
+     * @param index position of the snapshot
+     * @return snapshot
+     */
+    public ISnapshot get(int index) {
+      return snapshotList.get(index);
+    }
+
+    /**
+     * Returns the snapshot with the given ID.
+     *
+     * @param id snapshot ID
+     * @return snapshot or null if it's not found
+     */
+    public ISnapshot get(String id) {
+      Integer index = indexByID.get(id);
+      return index == null ? null : snapshotList.get(index);
+    }
+
+    /**
+     * Returns the position of the snapshot with the given ID.
+     *
+     * @param id snapshot ID
+     * @return position or -1 if it's not found
+     */
+    public int indexOf(String id) {
+      Integer index = indexByID.get(id);
+      return index == null ? -1 : index;
+    }
+  }
+
+  /**
+   * The command list of the photo album together with its keyframes.
+   * Keyframes are copies of the photo taken periodically while commands are added, so that
+   * any photo can be replayed from the nearest keyframe instead of from the first command.
+   * When there would be too many keyframes, the interval between them doubles and every other
+   * keyframe is dropped, so the memory used by keyframes stays bounded.
+   */
+  private static class PhotoHistory {
+    private final CommandLog<PhotoCommand> commands;
+    //keyframes.get(k) is the photo after the first k * keyframeInterval commands.
+    private List<IPhoto> keyframes;
+    private int keyframeInterval;
+    private final int maxKeyframes;
+
+    /**
+     * Constructor for an empty history. The first keyframe is always the empty photo.
+     *
+     * @param keyframeInterval initial number of commands between two keyframes
+     * @param maxKeyframes maximum number of keyframes kept
+     */
+    public PhotoHistory(int keyframeInterval, int maxKeyframes) {
+      this.commands = new CommandLog<>();
+      this.keyframes = new ArrayList<>();
+      this.keyframes.add(new Photo());
+      this.keyframeInterval = keyframeInterval;
+      this.maxKeyframes = maxKeyframes;
+    }
+
+    /**
+     * Returns the number of commands.
+     *
+     * @return number of commands
+     */
+    public int size() {
+      return commands.size();
+    }
+
+    /**
+     * Returns the command at the given index.
+     *
+     * @param index index of the command
+     * @return command
+     */
+    public PhotoCommand get(int index) {
+      return commands.get(index);
+    }
+
+    /**
+     * Appends a command, storing a keyframe if the command completes another keyframe interval.
+     *
+     * @param cmd command that was just applied on the current photo
+     * @param currPhoto the current photo, after applying the command
+     */
+    public void add(PhotoCommand cmd, IPhoto currPhoto) {
+      this.commands.add(cmd);
+      if (this.commands.size() % this.keyframeInterval == 0) {
+        this.keyframes.add(currPhoto.clone());
+        if (this.keyframes.size() > this.maxKeyframes) {
+          //Too many keyframes: double the interval and keep the keyframes that are still aligned.
+          List<IPhoto> thinnedKeyframes = new ArrayList<>();
+          for (int k = 0; k < this.keyframes.size(); k += 2) {
+            thinnedKeyframes.add(this.keyframes.get(k));
+          }
+          this.keyframes = thinnedKeyframes;
+          this.keyframeInterval *= 2;
+        }
+      }
+    }
+
+    /**
+     * Returns a new photo after processing the first numCommands commands. It starts from a
+     * copy of the nearest keyframe and processes the commands from that keyframe on.
+     *
+     * @param numCommands number of commands to process
+     * @return new photo
+     */
+    public IPhoto replay(int numCommands) {
+      int keyframeIdx = numCommands / keyframeInterval;
+      IPhoto photo = keyframes.get(keyframeIdx).clone();
+      for (int i = keyframeIdx * keyframeInterval; i < numCommands; i++) {
+        commands.get(i).invoke(photo);
+      }
+      return photo;
+    }
+  }
+
+  /**
+   * The transformation operations that can be stored in the command list.
+   */
+  private enum Opcode {
+    CREATE_BASIC_SHAPE, REMOVE_SHAPE, SET_COLOR, SET_POSITION, SET_XDIM, SET_YDIM
+  }
+
   /**
    * A helper data structure that can store a transformation command related to photos and
    * invoke the command on a given photo and modify it in place.
-   * The required format for the command string is a string of arguments delimited by space:
-   * methodName param1 param2 ...
-   *
+   * The command is stored already typed: an opcode, the handle of the shape name (and the
+   * interned type), and the numeric arguments in the same order as the corresponding
+   * PhotoAlbumApp method, so replaying it doesn't need to allocate or parse anything.
    */
-  private class PhotoCommand {
+  private static class PhotoCommand {
 
-    private final String command;
-    public PhotoCommand(String command) {
-      this.command = command;
+    private final Opcode opcode;
+    private final ShapeHandle shape;
+    private final String type;
+    private final double[] args;
+
+    /**
+     * Constructor.
+     *
+     * @param opcode operation to perform
+     * @param shape handle of the shape name
+     * @param type type of the shape, only used by CREATE_BASIC_SHAPE
+     * @param args numeric arguments of the operation
+     */
+    public PhotoCommand(Opcode opcode, ShapeHandle shape, String type, double... args) {
+      this.opcode = opcode;
+      this.shape = shape;
+      this.type = type == null ? null : type.intern();
+      this.args = args;
     }
 
     /**
@@ -259,41 +839,58 @@ public class PhotoAlbumApp implements IPhotoAlbumApp {
      * @param photo photo
      */
     public void invoke(IPhoto photo) {
-      String[] args = this.command.split("\\s+");
-      String methodName = args[0];
-      //Invoke method according methodName.
-      switch (methodName) {
-        case "SET_COLOR" -> PhotoAlbumApp.setShapeColorOnPhoto(photo, args[1],
-            Double.parseDouble(args[2]),
-            Double.parseDouble(args[3]), Double.parseDouble(args[4]));
-        case "CREATE_BASIC_SHAPE" ->
-            PhotoAlbumApp.createBasicShapeOnPhoto(photo, args[1], args[2],
-                Double.parseDouble(args[3]), Double.parseDouble(args[4]),
-                Double.parseDouble(args[5]),
-                Double.parseDouble(args[6]), Double.parseDouble(args[7]),
-                Double.parseDouble(args[8]),
-                Double.parseDouble(args[9]));
-        case "SET_POSITION" -> PhotoAlbumApp.setShapePositionOnPhoto(photo, args[1],
-            Double.parseDouble(args[2]), Double.parseDouble(args[3]));
-        case "SET_XDIM" -> PhotoAlbumApp.setShapeXDimOnPhoto(photo, args[1],
-            Double.parseDouble(args[2]));
-        case "SET_YDIM" -> PhotoAlbumApp.setShapeYDimOnPhoto(photo, args[1],
-            Double.parseDouble(args[2]));
-        case "REMOVE_SHAPE" -> PhotoAlbumApp.removeShapeOnPhoto(photo, args[1]);
+      String name = shape.getName();
+      //Invoke method according to the opcode.
+      switch (opcode) {
+        case SET_COLOR -> PhotoAlbumApp.setShapeColorOnPhoto(photo, name, args[0], args[1], args[2]);
+        case CREATE_BASIC_SHAPE -> PhotoAlbumApp.createBasicShapeOnPhoto(photo, name, type,
+            args[0], args[1], args[2], args[3], args[4], args[5], args[6]);
+        case SET_POSITION -> PhotoAlbumApp.setShapePositionOnPhoto(photo, name, args[0], args[1]);
+        case SET_XDIM -> PhotoAlbumApp.setShapeXDimOnPhoto(photo, name, args[0]);
+        case SET_YDIM -> PhotoAlbumApp.setShapeYDimOnPhoto(photo, name, args[0]);
+        case REMOVE_SHAPE -> PhotoAlbumApp.removeShapeOnPhoto(photo, name);
       }
     }
   }
 
   /**
-   * Checks if a shape with this name exists in the photo. Throws exception if not.
+   * Returns the handle of a shape name. Throws exception if no shape ever had this name.
    *
    * @param name name of the shape
-   * @throws IllegalArgumentException if shape with this name doesn't exist
+   * @return handle
+   * @throws IllegalArgumentException if name is null, or no shape ever had this name
    */
-  private void validateExistingShapeWithThisName(String name) {
-    if (this.currPhoto.getShape(name) == null) {
+  private ShapeHandle findHandle(String name) {
+    if (name == null) {
+      throw new IllegalArgumentException("Shape's name can't be null");
+    }
+    ShapeHandle handle = symbols.get(name);
+    if (handle == null) {
+      throw new IllegalArgumentException("There isn't any shape with this name");
+    }
+    return handle;
+  }
+
+  /**
+   * Returns the shape of a handle in the current photo. Throws exception if it doesn't exist.
+   *
+   * @param handle handle of the shape
+   * @return shape of the current photo
+   * @throws IllegalArgumentException if handle is null or from another album,
+   *                                  if the shape doesn't exist
+   */
+  private IShape getExistingShape(ShapeHandle handle) {
+    if (handle == null) {
+      throw new IllegalArgumentException("Parameter can't be null");
+    }
+    if (handle.album != this.symbols) {
+      throw new IllegalArgumentException("The handle belongs to another photo album");
+    }
+    IShape shape = symbols.getShape(handle, this.currPhoto);
+    if (shape == null) {
       throw new IllegalArgumentException("There isn't any shape with this name");
     }
+    return shape;
   }
 
   /**
@@ -337,12 +934,13 @@ public class PhotoAlbumApp implements IPhotoAlbumApp {
    * @param r red value of the color
    * @param g blue value of the color
    * @param b green value of the color
+   * @return the new shape of the photo
    */
-  private static void createBasicShapeOnPhoto(IPhoto photo, String name, String type, double xDim,
-                                                double yDim, double x, double y,
+  private static IShape createBasicShapeOnPhoto(IPhoto photo, String name, String type,
+                                                double xDim, double yDim, double x, double y,
                                                 double r, double g, double b) {
-    IShape newShape = ShapeFactory.createBasicShape(name, type, xDim, yDim, x, y, r, g, b);
-    photo.addShape(newShape);
+    photo.addShape(ShapeFactory.createBasicShape(name, type, xDim, yDim, x, y, r, g, b));
+    return photo.getShape(name);
   }
 
   /**
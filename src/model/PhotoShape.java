@@ -0,0 +1,182 @@
+package model;
+
+/**
+ * A shape of a Photo, as handed out by the photo. The photo never hands out the shapes it
+ * stores, since they may be shared with copies of the photo. Instead, this view reads the shape
+ * the photo stores now, and a setter first makes the photo copy the shape if it's shared, then
+ * modifies the photo's own copy. So a copy of the photo taken before never sees the change.
+ *
+ * <p>Once the shape is no longer in the photo (it was removed, or replaced by another shape with
+ * the same name), the view keeps a copy of the last state it saw and works on that copy alone.
+ */
+final class PhotoShape implements IShape {
+  private final Photo photo;
+  private final Object key;
+  //Map of the photo where the shape was last looked up, and the shape's entry in it.
+  private PersistentShapeMap map;
+  private PersistentShapeMap.Entry entry;
+  //Copy of the shape once it's no longer in the photo.
+  private IShape detached;
+
+  /**
+   * Constructor.
+   *
+   * @param photo photo of the shape
+   * @param map current shape map of the photo
+   * @param entry entry of the shape in the map
+   */
+  PhotoShape(Photo photo, PersistentShapeMap map, PersistentShapeMap.Entry entry) {
+    this.photo = photo;
+    this.key = entry.key;
+    this.map = map;
+    this.entry = entry;
+  }
+
+  /**
+   * Returns the shape to read: the one the photo stores now, or the detached copy.
+   * The returned shape must not be modified.
+   *
+   * @return shape
+   */
+  private IShape read() {
+    if (detached != null) {
+      return detached;
+    }
+    PersistentShapeMap current = photo.getShapeMap();
+    if (current != map) {
+      PersistentShapeMap.Entry found = current.getEntry(entry.name);
+      if (found == null || found.key != key) {
+        detached = entry.shape.clone();
+        return detached;
+      }
+      map = current;
+      entry = found;
+    }
+    return entry.shape;
+  }
+
+  /**
+   * Returns the shape to modify: the photo's own copy of the shape, or the detached copy.
+   *
+   * @return shape
+   */
+  private IShape write() {
+    IShape shape = read();
+    if (shape != detached && entry.owner != photo.ownerToken()) {
+      entry = photo.ownEntry(entry);
+      map = photo.getShapeMap();
+    }
+    return detached != null ? detached : entry.shape;
+  }
+
+  @Override
+  public String getName() {
+    return entry.name;
+  }
+
+  @Override
+  public String getType() {
+    return read().getType();
+  }
+
+  @Override
+  public double getXDim() {
+    return read().getXDim();
+  }
+
+  @Override
+  public double getYDim() {
+    return read().getYDim();
+  }
+
+  @Override
+  public double[] getPosition() {
+    return read().getPosition();
+  }
+
+  @Override
+  public double[] getColor() {
+    return read().getColor();
+  }
+
+  @Override
+  public double getX() {
+    return read().getX();
+  }
+
+  @Override
+  public double getY() {
+    return read().getY();
+  }
+
+  @Override
+  public double getR() {
+    return read().getR();
+  }
+
+  @Override
+  public double getG() {
+    return read().getG();
+  }
+
+  @Override
+  public double getB() {
+    return read().getB();
+  }
+
+  @Override
+  public void setXDim(double xDim) {
+    write().setXDim(xDim);
+  }
+
+  @Override
+  public void setYDim(double yDim) {
+    write().setYDim(yDim);
+  }
+
+  @Override
+  public void setPosition(double x, double y) {
+    write().setPosition(x, y);
+  }
+
+  @Override
+  public void setColor(double r, double g, double b) {
+    write().setColor(r, g, b);
+  }
+
+  /**
+   * Returns a deep copy of the shape, which doesn't belong to the photo.
+   *
+   * @return copy of shape
+   */
+  @Override
+  public IShape clone() {
+    return read().clone();
+  }
+
+  @Override
+  public String toString() {
+    return read().toString();
+  }
+
+  /**
+   * Returns true if equal. Equality compares all attributes.
+   *
+   * @param obj another object
+   * @return true if equal
+   */
+  @Override
+  public boolean equals(Object obj) {
+    return this == obj || read().equals(obj);
+  }
+
+  /**
+   * Returns the object hashcode.
+   *
+   * @return hashcode
+   */
+  @Override
+  public int hashCode() {
+    return read().hashCode();
+  }
+}
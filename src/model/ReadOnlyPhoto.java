@@ -0,0 +1,177 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.StringJoiner;
+
+/**
+ * Read-only photo. It keeps the shapes of a photo at the time it was created, without copying
+ * them: later changes to that photo copy the shapes they modify instead.
+ * Shapes are returned as read-only views, and adding or removing shapes throws an
+ * UnsupportedOperationException. Use clone() to get a modifiable copy of the photo.
+ */
+public class ReadOnlyPhoto implements IPhoto {
+  private final PersistentShapeMap shapeMap;
+
+  /**
+   * Constructor. Creating it from a Photo is O(1), other photos are copied.
+   *
+   * @param photo photo to freeze
+   * @throws IllegalArgumentException if photo is null
+   */
+  public ReadOnlyPhoto(IPhoto photo) {
+    if (photo == null) {
+      throw new IllegalArgumentException("Parameter can't be null");
+    }
+    if (photo instanceof ReadOnlyPhoto) {
+      this.shapeMap = ((ReadOnlyPhoto) photo).getShapeMap();
+    } else if (photo instanceof Photo) {
+      this.shapeMap = ((Photo) photo).share();
+    } else {
+      this.shapeMap = new Photo(photo).share();
+    }
+  }
+
+  /**
+   * Returns the shapes of this photo, for photos that want to share them.
+   *
+   * @return shape map
+   */
+  PersistentShapeMap getShapeMap() {
+    return this.shapeMap;
+  }
+
+  @Override
+  public List<IShape> getShapes() {
+    List<IShape> shapeList = new ArrayList<>(shapeMap.size());
+    this.shapeMap.forEachEntry(entry -> shapeList.add(new ReadOnlyShape(entry.shape)));
+    return Collections.unmodifiableList(shapeList);
+  }
+
+  @Override
+  public IShape getShape(String name) {
+    if (name == null) {
+      throw new IllegalArgumentException("Shape's name can't be null");
+    }
+    PersistentShapeMap.Entry entry = shapeMap.getEntry(name);
+    return entry == null ? null : new ReadOnlyShape(entry.shape);
+  }
+
+  @Override
+  public List<IShape> getShapesIn(double x, double y, double width, double height) {
+    if (width < 0 || height < 0) {
+      throw new IllegalArgumentException("Width and height can't be negative");
+    }
+    List<IShape> shapeList = new ArrayList<>();
+    this.shapeMap.forEachEntry(entry -> {
+      IShape shape = entry.shape;
+      if (SpatialIndex.intersects(shape.getType(), shape.getX(), shape.getY(), shape.getXDim(),
+          shape.getYDim(), x, y, x + width, y + height)) {
+        shapeList.add(new ReadOnlyShape(shape));
+      }
+    });
+    return Collections.unmodifiableList(shapeList);
+  }
+
+  @Override
+  public List<IShape> getShapesAt(double x, double y) {
+    List<IShape> shapeList = new ArrayList<>();
+    this.shapeMap.forEachEntry(entry -> {
+      IShape shape = entry.shape;
+      if (SpatialIndex.contains(shape.getType(), shape.getX(), shape.getY(), shape.getXDim(),
+          shape.getYDim(), x, y)) {
+        shapeList.add(new ReadOnlyShape(shape));
+      }
+    });
+    return Collections.unmodifiableList(shapeList);
+  }
+
+  @Override
+  public int size() {
+    return shapeMap.size();
+  }
+
+  /**
+   * Not supported.
+   *
+   * @param shape .
+   * @throws UnsupportedOperationException always
+   */
+  @Override
+  public void addShape(IShape shape) {
+    throw new UnsupportedOperationException("This photo is read-only");
+  }
+
+  /**
+   * Not supported.
+   *
+   * @param name name of shape to remove
+   * @throws UnsupportedOperationException always
+   */
+  @Override
+  public void removeShape(String name) {
+    throw new UnsupportedOperationException("This photo is read-only");
+  }
+
+  /**
+   * Returns a modifiable copy of the photo. This is O(1), as the copy shares the shapes.
+   *
+   * @return photo
+   */
+  @Override
+  public IPhoto clone() {
+    return new Photo(shapeMap);
+  }
+
+  /**
+   * String representation of photo, which describes the state of every shape in the photo.
+   *
+   * @return string
+   */
+  @Override
+  public String toString() {
+    StringJoiner result = new StringJoiner("\n");
+    this.shapeMap.forEachEntry(entry -> result.add(entry.shape.toString()));
+    return result.toString();
+  }
+
+  /**
+   * Returns true if equal.
+   *
+   * @param obj another object
+   * @return true if equal
+   */
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (!(obj instanceof IPhoto)) {
+      return false;
+    }
+    return ((IPhoto) obj).getShapes().equals(this.readShapes());
+  }
+
+  /**
+   * Returns the object hashcode.
+   *
+   * @return hashcode
+   */
+  @Override
+  public int hashCode() {
+    return Objects.hash(this.readShapes());
+  }
+
+  /**
+   * Returns the shapes in the photo without wrapping them.
+   *
+   * @return list of shapes
+   */
+  private List<IShape> readShapes() {
+    List<IShape> shapeList = new ArrayList<>(shapeMap.size());
+    this.shapeMap.forEachEntry(entry -> shapeList.add(entry.shape));
+    return shapeList;
+  }
+}
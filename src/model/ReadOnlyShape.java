@@ -0,0 +1,161 @@
+package model;
+
+/**
+ * Read-only view of a shape. All getters are forwarded to the wrapped shape,
+ * and every setter throws an UnsupportedOperationException.
+ * Use clone() to get a modifiable copy of the shape.
+ */
+public class ReadOnlyShape implements IShape {
+  private final IShape shape;
+
+  /**
+   * Constructor.
+   *
+   * @param shape shape to view
+   * @throws IllegalArgumentException if shape is null
+   */
+  public ReadOnlyShape(IShape shape) {
+    if (shape == null) {
+      throw new IllegalArgumentException("Parameter can't be null");
+    }
+    this.shape = shape;
+  }
+
+  @Override
+  public String getName() {
+    return shape.getName();
+  }
+
+  @Override
+  public String getType() {
+    return shape.getType();
+  }
+
+  @Override
+  public double getXDim() {
+    return shape.getXDim();
+  }
+
+  @Override
+  public double getYDim() {
+    return shape.getYDim();
+  }
+
+  @Override
+  public double[] getPosition() {
+    return shape.getPosition();
+  }
+
+  @Override
+  public double[] getColor() {
+    return shape.getColor();
+  }
+
+  @Override
+  public double getX() {
+    return shape.getX();
+  }
+
+  @Override
+  public double getY() {
+    return shape.getY();
+  }
+
+  @Override
+  public double getR() {
+    return shape.getR();
+  }
+
+  @Override
+  public double getG() {
+    return shape.getG();
+  }
+
+  @Override
+  public double getB() {
+    return shape.getB();
+  }
+
+  /**
+   * Not supported.
+   *
+   * @param xDim new horizontal dimension value
+   * @throws UnsupportedOperationException always
+   */
+  @Override
+  public void setXDim(double xDim) {
+    throw new UnsupportedOperationException("This shape is read-only");
+  }
+
+  /**
+   * Not supported.
+   *
+   * @param yDim new vertical dimension value
+   * @throws UnsupportedOperationException always
+   */
+  @Override
+  public void setYDim(double yDim) {
+    throw new UnsupportedOperationException("This shape is read-only");
+  }
+
+  /**
+   * Not supported.
+   *
+   * @param x new x-coordinate
+   * @param y new y-coordinate
+   * @throws UnsupportedOperationException always
+   */
+  @Override
+  public void setPosition(double x, double y) {
+    throw new UnsupportedOperationException("This shape is read-only");
+  }
+
+  /**
+   * Not supported.
+   *
+   * @param r red
+   * @param g green
+   * @param b blue
+   * @throws UnsupportedOperationException always
+   */
+  @Override
+  public void setColor(double r, double g, double b) {
+    throw new UnsupportedOperationException("This shape is read-only");
+  }
+
+  /**
+   * Returns a modifiable deep copy of the shape.
+   *
+   * @return copy of shape
+   */
+  @Override
+  public IShape clone() {
+    return shape.clone();
+  }
+
+  @Override
+  public String toString() {
+    return shape.toString();
+  }
+
+  /**
+   * Returns true if equal. Equality compares all attributes.
+   *
+   * @param obj another object
+   * @return true if equal
+   */
+  @Override
+  public boolean equals(Object obj) {
+    return this == obj || shape.equals(obj);
+  }
+
+  /**
+   * Returns the object hashcode.
+   *
+   * @return hashcode
+   */
+  @Override
+  public int hashCode() {
+    return shape.hashCode();
+  }
+}
@@ -0,0 +1,43 @@
+package model;
+
+/**
+ * Handle to a shape name of a photo album, returned by IPhotoAlbumApp.lookup().
+ * Modifying a shape through its handle skips looking up the name again, which makes long
+ * command streams on the same shapes faster.
+ * A handle refers to a name rather than to a shape object: it stays valid when the shape is
+ * removed and a shape with the same name is created again.
+ */
+public final class ShapeHandle {
+  //Object that identifies the album the handle belongs to.
+  final Object album;
+  //Position of the name in the symbol table of the album.
+  final int id;
+  private final String name;
+
+  /**
+   * Constructor.
+   *
+   * @param album object that identifies the album the handle belongs to
+   * @param id position of the name in the symbol table of the album
+   * @param name name of the shape
+   */
+  ShapeHandle(Object album, int id, String name) {
+    this.album = album;
+    this.id = id;
+    this.name = name;
+  }
+
+  /**
+   * Returns the name of the shape.
+   *
+   * @return name
+   */
+  public String getName() {
+    return name;
+  }
+
+  @Override
+  public String toString() {
+    return "ShapeHandle(" + name + ")";
+  }
+}
@@ -0,0 +1,22 @@
+package model;
+
+/**
+ * How PhotoAlbumApp stores the photos of its snapshots.
+ */
+public enum SnapshotMode {
+  /**
+   * Each snapshot stores a copy of the current photo when it's taken.
+   */
+  EAGER,
+  /**
+   * Each snapshot only stores its position in the command list, and its photo is rebuilt
+   * by replaying the commands when someone asks for it.
+   */
+  LAZY,
+  /**
+   * Snapshots periodically store the whole photo, and in between only store the shapes removed,
+   * changed and added since the previous snapshot. The photo is rebuilt from the last whole photo
+   * when someone asks for it.
+   */
+  DELTA
+}
@@ -0,0 +1,373 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A uniform grid over the bounding boxes of the shapes of a photo, used to find the shapes in
+ * a region or at a point without going through all shapes.
+ * Each shape is stored in every cell its bounding box overlaps. Shapes that would overlap too
+ * many cells are kept in a separate list that every query goes through.
+ * It must be updated every time a shape is added, removed, moved or resized.
+ *
+ * <p>A rectangle covers [x, x + xDim] x [y, y + yDim]. An oval is centered on (x, y) with radii
+ * xDim and yDim.
+ */
+class SpatialIndex {
+  private static final double CELL_SIZE = 32;
+  private static final int MAX_CELLS_PER_SHAPE = 64;
+
+  private final Map<String, Entry> entries;
+  //Non-empty cells by their packed coordinates.
+  private final Map<Long, List<Entry>> cells;
+  private final List<Entry> largeEntries;
+  //Sequence number of the next added shape, to return shapes in the order they were added.
+  private long nextSeq;
+
+  /**
+   * Constructor for an empty index.
+   */
+  public SpatialIndex() {
+    this.entries = new HashMap<>();
+    this.cells = new HashMap<>();
+    this.largeEntries = new ArrayList<>();
+  }
+
+  /**
+   * Returns the number of shapes in the index.
+   *
+   * @return number of shapes
+   */
+  public int size() {
+    return entries.size();
+  }
+
+  /**
+   * Adds a shape, or updates it with its current position and dimensions if it's already in
+   * the index. An updated shape keeps its position in the order.
+   *
+   * @param shape shape
+   */
+  public void put(IShape shape) {
+    Entry entry = entries.get(shape.getName());
+    if (entry == null) {
+      entry = new Entry(shape.getName(), nextSeq++);
+      entries.put(entry.name, entry);
+    } else {
+      this.unlink(entry);
+    }
+    entry.setBounds(shape.getType().equals("oval"), shape.getX(), shape.getY(),
+        shape.getXDim(), shape.getYDim());
+    this.link(entry);
+  }
+
+  /**
+   * Removes a shape. Does nothing if it's not in the index.
+   *
+   * @param name name of the shape
+   */
+  public void remove(String name) {
+    Entry entry = entries.remove(name);
+    if (entry != null) {
+      this.unlink(entry);
+    }
+  }
+
+  /**
+   * Removes all shapes.
+   */
+  public void clear() {
+    entries.clear();
+    cells.clear();
+    largeEntries.clear();
+  }
+
+  /**
+   * Returns the names of the shapes whose bounding box intersects a rectangle,
+   * in the order they were added.
+   *
+   * @param x x-coordinate of the top left corner of the rectangle
+   * @param y y-coordinate of the top left corner of the rectangle
+   * @param width width of the rectangle
+   * @param height height of the rectangle
+   * @return names of the shapes
+   */
+  public List<String> namesIn(double x, double y, double width, double height) {
+    double maxX = x + width;
+    double maxY = y + height;
+    List<Entry> found = new ArrayList<>();
+    int minCellX = cell(x);
+    int minCellY = cell(y);
+    int maxCellX = cell(maxX);
+    int maxCellY = cell(maxY);
+    if ((long) (maxCellX - minCellX + 1) * (maxCellY - minCellY + 1) > cells.size()) {
+      //The region covers more cells than there are non-empty ones.
+      entries.values().forEach(entry -> {
+        if (entry.cellCount() <= MAX_CELLS_PER_SHAPE && entry.intersects(x, y, maxX, maxY)) {
+          found.add(entry);
+        }
+      });
+    } else {
+      for (int cx = minCellX; cx <= maxCellX; cx++) {
+        for (int cy = minCellY; cy <= maxCellY; cy++) {
+          List<Entry> cell = cells.get(key(cx, cy));
+          if (cell == null) {
+            continue;
+          }
+          for (Entry entry : cell) {
+            //A shape in several cells is only reported from the first of them in the region.
+            if (Math.max(entry.minCellX, minCellX) == cx
+                && Math.max(entry.minCellY, minCellY) == cy
+                && entry.intersects(x, y, maxX, maxY)) {
+              found.add(entry);
+            }
+          }
+        }
+      }
+    }
+    largeEntries.forEach(entry -> {
+      if (entry.intersects(x, y, maxX, maxY)) {
+        found.add(entry);
+      }
+    });
+    return names(found);
+  }
+
+  /**
+   * Returns the names of the shapes that contain a point, in the order they were added.
+   *
+   * @param x x-coordinate of the point
+   * @param y y-coordinate of the point
+   * @return names of the shapes
+   */
+  public List<String> namesAt(double x, double y) {
+    List<Entry> found = new ArrayList<>();
+    List<Entry> cell = cells.get(key(cell(x), cell(y)));
+    if (cell != null) {
+      cell.forEach(entry -> {
+        if (entry.contains(x, y)) {
+          found.add(entry);
+        }
+      });
+    }
+    largeEntries.forEach(entry -> {
+      if (entry.contains(x, y)) {
+        found.add(entry);
+      }
+    });
+    return names(found);
+  }
+
+  /**
+   * Returns true if the bounding box of a shape intersects a rectangle.
+   *
+   * @param type type of the shape
+   * @param x x-coordinate of the shape
+   * @param y y-coordinate of the shape
+   * @param xDim horizontal dimension of the shape
+   * @param yDim vertical dimension of the shape
+   * @param minX x-coordinate of the top left corner of the rectangle
+   * @param minY y-coordinate of the top left corner of the rectangle
+   * @param maxX x-coordinate of the bottom right corner of the rectangle
+   * @param maxY y-coordinate of the bottom right corner of the rectangle
+   * @return true if they intersect
+   */
+  static boolean intersects(String type, double x, double y, double xDim, double yDim,
+                            double minX, double minY, double maxX, double maxY) {
+    boolean oval = type.equals("oval");
+    return (oval ? x - xDim : x) <= maxX && minX <= x + xDim
+        && (oval ? y - yDim : y) <= maxY && minY <= y + yDim;
+  }
+
+  /**
+   * Returns true if a shape contains a point.
+   *
+   * @param type type of the shape
+   * @param x x-coordinate of the shape
+   * @param y y-coordinate of the shape
+   * @param xDim horizontal dimension of the shape
+   * @param yDim vertical dimension of the shape
+   * @param px x-coordinate of the point
+   * @param py y-coordinate of the point
+   * @return true if the shape contains the point
+   */
+  static boolean contains(String type, double x, double y, double xDim, double yDim,
+                          double px, double py) {
+    if (!type.equals("oval")) {
+      return x <= px && px <= x + xDim && y <= py && py <= y + yDim;
+    }
+    double dx = (px - x) / xDim;
+    double dy = (py - y) / yDim;
+    return dx * dx + dy * dy <= 1;
+  }
+
+  // --- Helper functions and class ---
+
+  /**
+   * Adds an entry to the cells its bounding box overlaps, or to the large entries.
+   *
+   * @param entry entry
+   */
+  private void link(Entry entry) {
+    if (entry.cellCount() > MAX_CELLS_PER_SHAPE) {
+      largeEntries.add(entry);
+      return;
+    }
+    for (int cx = entry.minCellX; cx <= entry.maxCellX; cx++) {
+      for (int cy = entry.minCellY; cy <= entry.maxCellY; cy++) {
+        cells.computeIfAbsent(key(cx, cy), key -> new ArrayList<>(4)).add(entry);
+      }
+    }
+  }
+
+  /**
+   * Removes an entry from the cells it was added to.
+   *
+   * @param entry entry
+   */
+  private void unlink(Entry entry) {
+    if (entry.cellCount() > MAX_CELLS_PER_SHAPE) {
+      largeEntries.remove(entry);
+      return;
+    }
+    for (int cx = entry.minCellX; cx <= entry.maxCellX; cx++) {
+      for (int cy = entry.minCellY; cy <= entry.maxCellY; cy++) {
+        Long key = key(cx, cy);
+        List<Entry> cell = cells.get(key);
+        cell.remove(entry);
+        if (cell.isEmpty()) {
+          cells.remove(key);
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns the names of entries sorted in the order they were added.
+   *
+   * @param found entries
+   * @return names
+   */
+  private static List<String> names(List<Entry> found) {
+    found.sort(Comparator.comparingLong(entry -> entry.seq));
+    List<String> names = new ArrayList<>(found.size());
+    found.forEach(entry -> names.add(entry.name));
+    return names;
+  }
+
+  /**
+   * Returns the cell coordinate of a coordinate. Coordinates far out of the grid are clamped,
+   * so that the number of cells between two cell coordinates fits in an int.
+   *
+   * @param coordinate coordinate
+   * @return cell coordinate
+   */
+  private static int cell(double coordinate) {
+    return (int) Math.max(Integer.MIN_VALUE / 4, Math.min(Integer.MAX_VALUE / 4,
+        Math.floor(coordinate / CELL_SIZE)));
+  }
+
+  /**
+   * Packs cell coordinates in a key of the cell map.
+   *
+   * @param cx horizontal cell coordinate
+   * @param cy vertical cell coordinate
+   * @return key
+   */
+  private static long key(int cx, int cy) {
+    return ((long) cx << 32) | (cy & 0xFFFFFFFFL);
+  }
+
+  /**
+   * A shape in the index: its name, its order, and its geometry.
+   */
+  private static class Entry {
+    private final String name;
+    private final long seq;
+    private boolean oval;
+    private double minX;
+    private double minY;
+    private double maxX;
+    private double maxY;
+    private int minCellX;
+    private int minCellY;
+    private int maxCellX;
+    private int maxCellY;
+
+    /**
+     * Constructor.
+     *
+     * @param name name of the shape
+     * @param seq sequence number of the shape
+     */
+    public Entry(String name, long seq) {
+      this.name = name;
+      this.seq = seq;
+    }
+
+    /**
+     * Sets the geometry of the shape.
+     *
+     * @param oval true if the shape is an oval
+     * @param x x-coordinate of the shape
+     * @param y y-coordinate of the shape
+     * @param xDim horizontal dimension of the shape
+     * @param yDim vertical dimension of the shape
+     */
+    public void setBounds(boolean oval, double x, double y, double xDim, double yDim) {
+      this.oval = oval;
+      this.minX = oval ? x - xDim : x;
+      this.minY = oval ? y - yDim : y;
+      this.maxX = x + xDim;
+      this.maxY = y + yDim;
+      this.minCellX = cell(minX);
+      this.minCellY = cell(minY);
+      this.maxCellX = cell(maxX);
+      this.maxCellY = cell(maxY);
+    }
+
+    /**
+     * Returns the number of cells the bounding box overlaps.
+     *
+     * @return number of cells
+     */
+    public long cellCount() {
+      return (long) (maxCellX - minCellX + 1) * (maxCellY - minCellY + 1);
+    }
+
+    /**
+     * Returns true if the bounding box intersects a rectangle.
+     *
+     * @param x1 x-coordinate of the top left corner of the rectangle
+     * @param y1 y-coordinate of the top left corner of the rectangle
+     * @param x2 x-coordinate of the bottom right corner of the rectangle
+     * @param y2 y-coordinate of the bottom right corner of the rectangle
+     * @return true if they intersect
+     */
+    public boolean intersects(double x1, double y1, double x2, double y2) {
+      return minX <= x2 && x1 <= maxX && minY <= y2 && y1 <= maxY;
+    }
+
+    /**
+     * Returns true if the shape contains a point.
+     *
+     * @param x x-coordinate of the point
+     * @param y y-coordinate of the point
+     * @return true if the shape contains the point
+     */
+    public boolean contains(double x, double y) {
+      if (x < minX || x > maxX || y < minY || y > maxY) {
+        return false;
+      }
+      if (!oval) {
+        return true;
+      }
+      double dx = (x - (minX + maxX) / 2) / ((maxX - minX) / 2);
+      double dy = (y - (minY + maxY) / 2) / ((maxY - minY) / 2);
+      return dx * dx + dy * dy <= 1;
+    }
+  }
+}
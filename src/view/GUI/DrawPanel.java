@@ -4,41 +4,208 @@ import java.awt.Color;
 import java.awt.Dimension;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.event.ComponentAdapter;
+import java.awt.event.ComponentEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.event.MouseWheelEvent;
 import java.awt.geom.RectangularShape;
-import java.util.LinkedList;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 import javax.swing.JPanel;
 import java.util.List;
 
 /**
  * Draw panel is the panel where shapes will be drawn on top of.
+ * The user can zoom with the mouse wheel, pan by dragging, and go back to the original view by
+ * double-clicking. Only the shapes in the visible region are drawn, and shapes smaller than
+ * a pixel are merged into single pixels, with the average color of the shapes in each pixel.
+ * Shapes are still painted in order, so a later shape covers the merged pixels under it.
+ *
+ * <p>Each snapshot is rendered once into an image that later repaints copy, until the size of the
+ * panel or the view changes. The images of the most recently displayed snapshots are kept within
+ * a memory budget, so going back to one of them doesn't render it again. Snapshots can also be
+ * rendered ahead of time by a background thread, so that displaying them only copies the image.
  */
 class DrawPanel extends JPanel {
-  private final List<ShapeColorPair> shapes;
+  private static final int OUTLINE_THICKNESS = 2;
+  private static final double ZOOM_STEP = 1.1;
+  private static final double MIN_SCALE = 0.001;
+  private static final double MAX_SCALE = 1000;
+  //Approximate memory used by a shape kept with a rendered snapshot.
+  private static final long SHAPE_BYTES = 100;
+
+  //Shapes drawn on the panel. Clearing the panel starts a new scene, as rendered snapshots may
+  //keep the previous one.
+  private Scene scene;
+  //Read by background threads rendering snapshots.
+  private volatile Viewport viewport;
+  //Size and background of the panel, read on the event dispatch thread for the background
+  //threads rendering snapshots, which can't read the panel.
+  private volatile RenderTarget renderTarget;
+  //Image that sub-pixel shapes are merged into, reused between repaints.
+  private BufferedImage mergedPixels;
+  //ID of the displayed snapshot, or null if the shapes aren't from a snapshot.
+  private String snapshotID;
+  //Rendered snapshots by ID, from least to most recently displayed.
+  //Guarded by itself, as background threads add snapshots to it.
+  private final Map<String, RenderedSnapshot> rasters;
+  private final long rasterCacheBytes;
+  private long rasterBytes;
+  //Called with the snapshot ID every time a snapshot is painted, or null.
+  private Consumer<String> paintListener;
 
   /**
    * Constructor.
    * @param viewScreenXDim draw panel X size in px.
    * @param viewScreenYDim draw panel Y size in px.
+   * @param rasterCacheBytes memory budget in bytes of the rendered snapshots
    */
-  public DrawPanel(int viewScreenXDim, int viewScreenYDim) {
+  public DrawPanel(int viewScreenXDim, int viewScreenYDim, long rasterCacheBytes) {
     setBackground(Color.decode(CustomColor.GRAY));
     setPreferredSize(new Dimension(viewScreenXDim, viewScreenYDim));
-    shapes = new LinkedList<>();
+    setToolTipText("Scroll to zoom, drag to move, double-click to reset the view");
+    scene = new Scene();
+    viewport = new Viewport(1, 0, 0);
+    renderTarget = new RenderTarget(getWidth(), getHeight(), getBackground().getRGB());
+    rasters = new LinkedHashMap<>(16, 0.75f, true);
+    this.rasterCacheBytes = rasterCacheBytes;
+    ViewportMouseListener mouseListener = new ViewportMouseListener();
+    addMouseListener(mouseListener);
+    addMouseMotionListener(mouseListener);
+    addMouseWheelListener(mouseListener);
+    addComponentListener(new ComponentAdapter() {
+      @Override
+      public void componentResized(ComponentEvent e) {
+        updateRenderTarget();
+      }
+    });
   }
 
   @Override
   public void paintComponent(Graphics g) {
-    super.paintComponent(g);
-    Graphics2D g2D = (Graphics2D) g;
+    RenderTarget target = this.updateRenderTarget();
+    int width = target.width;
+    int height = target.height;
+    Viewport viewport = this.viewport;
+    if (snapshotID == null || width <= 0 || height <= 0
+        || 4L * width * height > rasterCacheBytes) {
+      super.paintComponent(g);
+      this.drawShapes(g, scene, viewport, width, height, null);
+    } else {
+      //The rendered snapshot covers the whole panel, including the background.
+      RenderedSnapshot raster;
+      synchronized (rasters) {
+        raster = rasters.get(snapshotID);
+      }
+      if (raster == null || !raster.isRenderedAt(width, height, viewport)) {
+        raster = this.render(scene, raster, target, viewport);
+        this.cache(snapshotID, raster);
+      }
+      g.drawImage(raster.image, 0, 0, null);
+    }
+    if (snapshotID != null && paintListener != null) {
+      paintListener.accept(snapshotID);
+    }
+  }
+
+  /**
+   * Draws the shapes of a scene that are in the clip region of a graphics.
+   *
+   * @param g graphics
+   * @param scene shapes to draw
+   * @param viewport view to draw the shapes at
+   * @param width width of the drawn region
+   * @param height height of the drawn region
+   * @param pixels pixels of the opaque image g draws on, row by row, to write sub-pixel shapes
+   *               into, or null to draw them through mergedPixels
+   */
+  private void drawShapes(Graphics g, Scene scene, Viewport viewport, int width, int height,
+                          int[] pixels) {
+    double scale = viewport.scale;
+    double offsetX = viewport.offsetX;
+    double offsetY = viewport.offsetY;
+    Graphics2D g2D = (Graphics2D) g.create();
     //Stroke setup (Outline of shapes)
-    final int OUTLINE_THICKNESS = 2;
     g2D.setStroke(new BasicStroke(OUTLINE_THICKNESS));
-    //Drawing shapes
-    for (ShapeColorPair s : shapes) {
+    g2D.translate(offsetX, offsetY);
+    g2D.scale(scale, scale);
+
+    //Region of the photo that is visible.
+    Rectangle clip = g.getClipBounds();
+    if (clip == null) {
+      clip = new Rectangle(0, 0, width, height);
+    }
+    BitSet visibleShapes = scene.grid().find((clip.x - offsetX) / scale,
+        (clip.y - offsetY) / scale, (clip.x + clip.width - offsetX) / scale,
+        (clip.y + clip.height - offsetY) / scale);
+
+    //Drawing shapes in order. Sub-pixel shapes are merged into the pixel they fall in, and the
+    //merged pixels are written before the next shape that may cover them.
+    SubPixelSamples subPixels = new SubPixelSamples();
+    int[] target = pixels;
+    for (int i = visibleShapes.nextSetBit(0); i >= 0; i = visibleShapes.nextSetBit(i + 1)) {
+      ShapeColorPair s = scene.shapes.get(i);
+      if ((s.shape.getWidth() + OUTLINE_THICKNESS) * scale < 1
+          && (s.shape.getHeight() + OUTLINE_THICKNESS) * scale < 1) {
+        int px = (int) Math.floor(s.shape.getCenterX() * scale + offsetX);
+        int py = (int) Math.floor(s.shape.getCenterY() * scale + offsetY);
+        if (px >= 0 && px < width && py >= 0 && py < height) {
+          if (target == null) {
+            target = this.clearMergedPixels(width, height);
+          }
+          subPixels.add(px, py, width, s.color.getRGB());
+        }
+        continue;
+      }
+      if (!subPixels.isEmpty() && subPixels.overlaps(
+          (s.shape.getMinX() - OUTLINE_THICKNESS) * scale + offsetX,
+          (s.shape.getMinY() - OUTLINE_THICKNESS) * scale + offsetY,
+          (s.shape.getMaxX() + OUTLINE_THICKNESS) * scale + offsetX,
+          (s.shape.getMaxY() + OUTLINE_THICKNESS) * scale + offsetY)) {
+        this.flushSubPixels(g, subPixels, target, pixels == null);
+      }
       g2D.setColor(s.color);
       g2D.fill(s.shape);
       g2D.draw(s.shape);
     }
+    g2D.dispose();
+    if (!subPixels.isEmpty()) {
+      this.flushSubPixels(g, subPixels, target, pixels == null);
+    }
+  }
+
+  /**
+   * Writes the merged sub-pixel shapes over what is drawn so far, and empties them.
+   *
+   * @param g graphics the shapes are drawn with
+   * @param subPixels merged sub-pixel shapes
+   * @param target pixels of the image g draws on, or of mergedPixels
+   * @param throughMergedPixels true if target is mergedPixels, which is then drawn with g
+   */
+  private void flushSubPixels(Graphics g, SubPixelSamples subPixels, int[] target,
+                              boolean throughMergedPixels) {
+    subPixels.writeTo(target);
+    if (throughMergedPixels) {
+      int x1 = subPixels.minX;
+      int y1 = subPixels.minY;
+      int x2 = subPixels.maxX + 1;
+      int y2 = subPixels.maxY + 1;
+      g.drawImage(mergedPixels, x1, y1, x2, y2, x1, y1, x2, y2, null);
+      //mergedPixels stays transparent outside the merged pixels being drawn.
+      subPixels.eraseFrom(target);
+    }
+    subPixels.clear();
   }
 
   /**
@@ -49,20 +216,286 @@ class DrawPanel extends JPanel {
    * @param color color
    */
   public void drawBasicShape(RectangularShape shape, Color color) {
-    this.shapes.add(new ShapeColorPair(shape, color));
+    this.scene.add(shape, color);
+  }
+
+  /**
+   * Sets the ID of the snapshot the shapes are drawn from. The shapes drawn while it's set
+   * must be the ones of this snapshot, since a rendered snapshot may be displayed again
+   * without drawing its shapes.
+   *
+   * @param id snapshot ID, or null if the shapes aren't from a snapshot
+   */
+  public void setSnapshotID(String id) {
+    this.snapshotID = id;
   }
 
   /**
-   * Clear all shapes from the draw panel.
+   * Replaces the shapes of the panel with the ones of a rendered snapshot, and sets its ID.
+   * Nothing changes if the snapshot isn't rendered.
+   *
+   * @param id snapshot ID
+   * @return true if the snapshot was rendered
+   */
+  public boolean showRenderedSnapshot(String id) {
+    RenderedSnapshot raster;
+    synchronized (rasters) {
+      raster = rasters.get(id);
+    }
+    if (raster == null) {
+      return false;
+    }
+    this.scene = raster.scene;
+    this.snapshotID = id;
+    return true;
+  }
+
+  /**
+   * Renders a snapshot on the calling thread, which doesn't have to be the event dispatch
+   * thread, and caches it for showRenderedSnapshot(). Does nothing if the snapshot is already
+   * rendered at the current size and view, or if it doesn't fit in the cache.
+   * The size is the one of the last paint or resize of the panel.
+   *
+   * @param id snapshot ID
+   * @param drawing draws the shapes of the snapshot with the function it's given,
+   *                which takes the same parameters as drawBasicShape()
+   */
+  public void prerender(String id, Consumer<BiConsumer<RectangularShape, Color>> drawing) {
+    RenderTarget target = this.renderTarget;
+    int width = target.width;
+    int height = target.height;
+    Viewport viewport = this.viewport;
+    if (width <= 0 || height <= 0 || 4L * width * height > rasterCacheBytes) {
+      return;
+    }
+    synchronized (rasters) {
+      RenderedSnapshot raster = rasters.get(id);
+      if (raster != null && raster.isRenderedAt(width, height, viewport)) {
+        return;
+      }
+    }
+    Scene scene = new Scene();
+    drawing.accept(scene::add);
+    this.cache(id, this.render(scene, null, target, viewport));
+  }
+
+  /**
+   * Sets the function called with the snapshot ID every time a snapshot is painted.
+   *
+   * @param paintListener function called on the event dispatch thread, or null for none
+   */
+  public void setPaintListener(Consumer<String> paintListener) {
+    this.paintListener = paintListener;
+  }
+
+  /**
+   * Clear all shapes from the draw panel. The zoom and position of the view don't change.
    */
   public void clear() {
-    this.shapes.clear();
+    this.scene = new Scene();
+  }
+
+  /**
+   * Renders shapes into an image of the size of the panel.
+   *
+   * @param scene shapes to render
+   * @param oldRaster previous image of the snapshot to reuse, or null. Only the event dispatch
+   *                  thread can reuse images, as it's the one that displays them.
+   * @param target size and background of the panel
+   * @param viewport view to render the shapes at
+   * @return rendered snapshot
+   */
+  private RenderedSnapshot render(Scene scene, RenderedSnapshot oldRaster, RenderTarget target,
+                                  Viewport viewport) {
+    int width = target.width;
+    int height = target.height;
+    //The image is opaque, with the background, so that copying it to the screen is fast.
+    BufferedImage image;
+    if (oldRaster != null && oldRaster.image.getWidth() == width
+        && oldRaster.image.getHeight() == height) {
+      image = oldRaster.image;
+    } else {
+      image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+    }
+    int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+    Arrays.fill(pixels, target.background);
+    Graphics2D imageGraphics = image.createGraphics();
+    imageGraphics.setClip(0, 0, width, height);
+    this.drawShapes(imageGraphics, scene, viewport, width, height, pixels);
+    imageGraphics.dispose();
+    return new RenderedSnapshot(image, scene, viewport);
+  }
+
+  /**
+   * Reads the size and background of the panel for the threads rendering snapshots.
+   * Only called on the event dispatch thread.
+   *
+   * @return size and background of the panel
+   */
+  private RenderTarget updateRenderTarget() {
+    RenderTarget target = renderTarget;
+    int background = getBackground().getRGB();
+    if (target.width != getWidth() || target.height != getHeight()
+        || target.background != background) {
+      target = new RenderTarget(getWidth(), getHeight(), background);
+      renderTarget = target;
+    }
+    return target;
+  }
+
+  /**
+   * Caches a rendered snapshot. Least recently displayed snapshots are dropped from the cache
+   * if it's over its budget.
+   *
+   * @param id snapshot ID
+   * @param raster rendered snapshot
+   */
+  private void cache(String id, RenderedSnapshot raster) {
+    synchronized (rasters) {
+      RenderedSnapshot oldRaster = rasters.put(id, raster);
+      if (oldRaster != null) {
+        rasterBytes -= oldRaster.bytes();
+      }
+      rasterBytes += raster.bytes();
+      Iterator<RenderedSnapshot> leastRecent = rasters.values().iterator();
+      while (rasterBytes > rasterCacheBytes && leastRecent.hasNext()) {
+        RenderedSnapshot dropped = leastRecent.next();
+        if (dropped != raster) {
+          rasterBytes -= dropped.bytes();
+          leastRecent.remove();
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns the pixels of a transparent image to merge sub-pixel shapes into.
+   *
+   * @param width width of the image
+   * @param height height of the image
+   * @return pixels of mergedPixels, as ARGB values row by row
+   */
+  private int[] clearMergedPixels(int width, int height) {
+    if (mergedPixels == null || mergedPixels.getWidth() != width
+        || mergedPixels.getHeight() != height) {
+      mergedPixels = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+    }
+    int[] pixels = ((DataBufferInt) mergedPixels.getRaster().getDataBuffer()).getData();
+    Arrays.fill(pixels, 0);
+    return pixels;
+  }
+
+  /**
+   * Colors of the sub-pixel shapes drawn since the last flush, by pixel, to write each pixel
+   * once with the average color of its shapes. Also keeps the bounds of those pixels.
+   */
+  private static class SubPixelSamples {
+    //Pixel index in the high 32 bits and RGB color in the low 32 bits of each sample.
+    private long[] samples = new long[64];
+    private int count;
+    private int minX;
+    private int minY;
+    private int maxX;
+    private int maxY;
+
+    /**
+     * Returns true if there are no samples.
+     *
+     * @return true if empty
+     */
+    private boolean isEmpty() {
+      return count == 0;
+    }
+
+    /**
+     * Adds the color of a sub-pixel shape in a pixel.
+     *
+     * @param px x-coordinate of the pixel
+     * @param py y-coordinate of the pixel
+     * @param width number of pixels in a row
+     * @param rgb color of the shape
+     */
+    private void add(int px, int py, int width, int rgb) {
+      if (count == samples.length) {
+        samples = Arrays.copyOf(samples, count * 2);
+      }
+      if (count == 0) {
+        minX = maxX = px;
+        minY = maxY = py;
+      } else {
+        minX = Math.min(minX, px);
+        maxX = Math.max(maxX, px);
+        minY = Math.min(minY, py);
+        maxY = Math.max(maxY, py);
+      }
+      samples[count++] = ((long) (py * width + px) << 32) | (rgb & 0xffffffffL);
+    }
+
+    /**
+     * Returns true if a region of the panel may cover one of the sampled pixels.
+     *
+     * @param x1 left of the region
+     * @param y1 top of the region
+     * @param x2 right of the region
+     * @param y2 bottom of the region
+     * @return true if the region intersects the bounds of the sampled pixels
+     */
+    private boolean overlaps(double x1, double y1, double x2, double y2) {
+      return x1 < maxX + 1 && minX <= x2 && y1 < maxY + 1 && minY <= y2;
+    }
+
+    /**
+     * Writes each sampled pixel with the average color of its samples.
+     *
+     * @param target pixels row by row, as ARGB values
+     */
+    private void writeTo(int[] target) {
+      //Sorting groups the samples of each pixel.
+      Arrays.sort(samples, 0, count);
+      int start = 0;
+      while (start < count) {
+        long pixel = samples[start] >>> 32;
+        long red = 0;
+        long green = 0;
+        long blue = 0;
+        int end = start;
+        for (; end < count && samples[end] >>> 32 == pixel; end++) {
+          red += samples[end] >> 16 & 0xff;
+          green += samples[end] >> 8 & 0xff;
+          blue += samples[end] & 0xff;
+        }
+        int n = end - start;
+        target[(int) pixel] = 0xff000000
+            | (int) Math.round((double) red / n) << 16
+            | (int) Math.round((double) green / n) << 8
+            | (int) Math.round((double) blue / n);
+        start = end;
+      }
+    }
+
+    /**
+     * Makes the sampled pixels transparent again.
+     *
+     * @param target pixels row by row, as ARGB values
+     */
+    private void eraseFrom(int[] target) {
+      for (int i = 0; i < count; i++) {
+        target[(int) (samples[i] >>> 32)] = 0;
+      }
+    }
+
+    /**
+     * Removes all samples.
+     */
+    private void clear() {
+      count = 0;
+    }
   }
 
   /**
    * A helper data class for storing a shape and its color.
    */
-  private class ShapeColorPair {
+  private static class ShapeColorPair {
     public RectangularShape shape;
     public Color color;
 
@@ -71,4 +504,381 @@ class DrawPanel extends JPanel {
       this.color = color;
     }
   }
-}
\ No newline at end of file
+
+  /**
+   * Shapes to draw, with their index by region, built the first time it's needed after
+   * the shapes changed.
+   */
+  private static class Scene {
+    private final List<ShapeColorPair> shapes = new ArrayList<>();
+    private ShapeGrid grid;
+
+    /**
+     * Adds a shape on top of the others.
+     *
+     * @param shape basic shape
+     * @param color color
+     */
+    private synchronized void add(RectangularShape shape, Color color) {
+      shapes.add(new ShapeColorPair(shape, color));
+      grid = null;
+    }
+
+    /**
+     * Returns the index of the shapes by region.
+     *
+     * @return index of the shapes
+     */
+    private synchronized ShapeGrid grid() {
+      if (grid == null) {
+        grid = new ShapeGrid(shapes);
+      }
+      return grid;
+    }
+  }
+
+  /**
+   * Which region of the photo is displayed: a point (x, y) of the photo is drawn at
+   * (x * scale + offsetX, y * scale + offsetY) in the panel. It never changes, a new viewport
+   * is created instead.
+   */
+  private static class Viewport {
+    private final double scale;
+    private final double offsetX;
+    private final double offsetY;
+
+    /**
+     * Constructor.
+     *
+     * @param scale scale of the view
+     * @param offsetX horizontal offset of the view
+     * @param offsetY vertical offset of the view
+     */
+    private Viewport(double scale, double offsetX, double offsetY) {
+      this.scale = scale;
+      this.offsetX = offsetX;
+      this.offsetY = offsetY;
+    }
+
+    /**
+     * Returns the viewport zoomed in or out while keeping the same point of the photo under
+     * a point of the panel.
+     *
+     * @param x x-coordinate of the point in the panel
+     * @param y y-coordinate of the point in the panel
+     * @param factor zoom factor, more than 1 to zoom in
+     * @return zoomed viewport
+     */
+    private Viewport zoom(double x, double y, double factor) {
+      double newScale = Math.max(MIN_SCALE, Math.min(MAX_SCALE, scale * factor));
+      return new Viewport(newScale, x - (x - offsetX) * newScale / scale,
+          y - (y - offsetY) * newScale / scale);
+    }
+
+    /**
+     * Returns the viewport moved by a distance in the panel.
+     *
+     * @param dx horizontal distance in px
+     * @param dy vertical distance in px
+     * @return moved viewport
+     */
+    private Viewport pan(double dx, double dy) {
+      return new Viewport(scale, offsetX + dx, offsetY + dy);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (!(obj instanceof Viewport)) {
+        return false;
+      }
+      Viewport other = (Viewport) obj;
+      return scale == other.scale && offsetX == other.offsetX && offsetY == other.offsetY;
+    }
+
+    @Override
+    public int hashCode() {
+      return Double.hashCode(scale) * 31 * 31 + Double.hashCode(offsetX) * 31
+          + Double.hashCode(offsetY);
+    }
+  }
+
+  /**
+   * The size and background of the panel that snapshots are rendered with. It never changes,
+   * a new render target is created instead.
+   */
+  private static class RenderTarget {
+    private final int width;
+    private final int height;
+    private final int background;
+
+    /**
+     * Constructor.
+     *
+     * @param width width of the panel
+     * @param height height of the panel
+     * @param background background color as an RGB value
+     */
+    private RenderTarget(int width, int height, int background) {
+      this.width = width;
+      this.height = height;
+      this.background = background;
+    }
+  }
+
+  /**
+   * A snapshot rendered into an image, with its shapes and the view it was rendered at.
+   */
+  private static class RenderedSnapshot {
+    private final BufferedImage image;
+    private final Scene scene;
+    private final Viewport viewport;
+    //Counted once, as the shapes of the displayed snapshot can still be added to.
+    private final long bytes;
+
+    /**
+     * Constructor.
+     *
+     * @param image rendered snapshot
+     * @param scene shapes of the snapshot, to render it again when the view changes
+     * @param viewport view the snapshot was rendered at
+     */
+    private RenderedSnapshot(BufferedImage image, Scene scene, Viewport viewport) {
+      this.image = image;
+      this.scene = scene;
+      this.viewport = viewport;
+      this.bytes = 4L * image.getWidth() * image.getHeight() + SHAPE_BYTES * scene.shapes.size();
+    }
+
+    /**
+     * Returns true if the image was rendered at this size and view.
+     *
+     * @param width width of the panel
+     * @param height height of the panel
+     * @param viewport view of the panel
+     * @return true if the image can be displayed as it is
+     */
+    private boolean isRenderedAt(int width, int height, Viewport viewport) {
+      return image.getWidth() == width && image.getHeight() == height
+          && this.viewport.equals(viewport);
+    }
+
+    /**
+     * Returns the memory used by the image and the shapes.
+     *
+     * @return bytes
+     */
+    private long bytes() {
+      return bytes;
+    }
+  }
+
+  /**
+   * Mouse listener that zooms with the wheel, pans by dragging and resets the view on
+   * double-click.
+   */
+  private class ViewportMouseListener extends MouseAdapter {
+    private Point lastDragPoint;
+
+    @Override
+    public void mousePressed(MouseEvent e) {
+      lastDragPoint = e.getPoint();
+    }
+
+    @Override
+    public void mouseDragged(MouseEvent e) {
+      if (lastDragPoint != null) {
+        viewport = viewport.pan(e.getX() - lastDragPoint.x, e.getY() - lastDragPoint.y);
+        lastDragPoint = e.getPoint();
+        repaint();
+      }
+    }
+
+    @Override
+    public void mouseReleased(MouseEvent e) {
+      lastDragPoint = null;
+    }
+
+    @Override
+    public void mouseClicked(MouseEvent e) {
+      if (e.getClickCount() == 2) {
+        viewport = new Viewport(1, 0, 0);
+        repaint();
+      }
+    }
+
+    @Override
+    public void mouseWheelMoved(MouseWheelEvent e) {
+      viewport = viewport.zoom(e.getX(), e.getY(),
+          Math.pow(ZOOM_STEP, -e.getPreciseWheelRotation()));
+      repaint();
+    }
+  }
+
+  /**
+   * A uniform grid over the bounding boxes of the shapes, including their outline, to find
+   * the shapes in a region. Each shape is listed in every cell it overlaps, except shapes that
+   * overlap too many cells, which are kept apart and checked on every search.
+   */
+  private static class ShapeGrid {
+    private static final int MAX_CELLS_PER_SHAPE = 64;
+    private static final int MAX_CELLS_PER_SIDE = 1024;
+
+    private final List<ShapeColorPair> shapes;
+    private final double minX;
+    private final double minY;
+    private final double cellSize;
+    private final int columns;
+    private final int rows;
+    //The shapes of cell c are cellShapes[cellStart[c]] to cellShapes[cellStart[c + 1] - 1].
+    private final int[] cellStart;
+    private final int[] cellShapes;
+    private final int[] largeShapes;
+
+    /**
+     * Constructor.
+     *
+     * @param shapes shapes to index, which must not change afterwards
+     */
+    public ShapeGrid(List<ShapeColorPair> shapes) {
+      this.shapes = shapes;
+      double minX = Double.POSITIVE_INFINITY;
+      double minY = Double.POSITIVE_INFINITY;
+      double maxX = Double.NEGATIVE_INFINITY;
+      double maxY = Double.NEGATIVE_INFINITY;
+      for (ShapeColorPair s : shapes) {
+        minX = Math.min(minX, s.shape.getMinX() - OUTLINE_THICKNESS);
+        minY = Math.min(minY, s.shape.getMinY() - OUTLINE_THICKNESS);
+        maxX = Math.max(maxX, s.shape.getMaxX() + OUTLINE_THICKNESS);
+        maxY = Math.max(maxY, s.shape.getMaxY() + OUTLINE_THICKNESS);
+      }
+      if (shapes.isEmpty()) {
+        minX = 0;
+        minY = 0;
+        maxX = 1;
+        maxY = 1;
+      }
+      int cellsPerSide = (int) Math.min(MAX_CELLS_PER_SIDE, Math.ceil(Math.sqrt(shapes.size())));
+      this.minX = minX;
+      this.minY = minY;
+      this.cellSize = Math.max(Math.max(maxX - minX, maxY - minY) / Math.max(1, cellsPerSide),
+          Double.MIN_NORMAL);
+      this.columns = Math.max(1, (int) Math.ceil((maxX - minX) / cellSize));
+      this.rows = Math.max(1, (int) Math.ceil((maxY - minY) / cellSize));
+
+      //Count the shapes of each cell, then fill the cells.
+      int[] counts = new int[columns * rows + 1];
+      List<Integer> large = new ArrayList<>();
+      for (int i = 0; i < shapes.size(); i++) {
+        RectangularShape shape = shapes.get(i).shape;
+        int c1 = column(shape.getMinX() - OUTLINE_THICKNESS);
+        int c2 = column(shape.getMaxX() + OUTLINE_THICKNESS);
+        int r1 = row(shape.getMinY() - OUTLINE_THICKNESS);
+        int r2 = row(shape.getMaxY() + OUTLINE_THICKNESS);
+        if ((long) (c2 - c1 + 1) * (r2 - r1 + 1) > MAX_CELLS_PER_SHAPE) {
+          large.add(i);
+          continue;
+        }
+        for (int r = r1; r <= r2; r++) {
+          for (int c = c1; c <= c2; c++) {
+            counts[r * columns + c + 1]++;
+          }
+        }
+      }
+      this.cellStart = new int[columns * rows + 1];
+      for (int c = 0; c < columns * rows; c++) {
+        cellStart[c + 1] = cellStart[c] + counts[c + 1];
+      }
+      this.cellShapes = new int[cellStart[columns * rows]];
+      int[] next = Arrays.copyOf(cellStart, columns * rows);
+      this.largeShapes = large.stream().mapToInt(Integer::intValue).toArray();
+      int largeIdx = 0;
+      for (int i = 0; i < shapes.size(); i++) {
+        if (largeIdx < largeShapes.length && largeShapes[largeIdx] == i) {
+          largeIdx++;
+          continue;
+        }
+        RectangularShape shape = shapes.get(i).shape;
+        int c1 = column(shape.getMinX() - OUTLINE_THICKNESS);
+        int c2 = column(shape.getMaxX() + OUTLINE_THICKNESS);
+        int r1 = row(shape.getMinY() - OUTLINE_THICKNESS);
+        int r2 = row(shape.getMaxY() + OUTLINE_THICKNESS);
+        for (int r = r1; r <= r2; r++) {
+          for (int c = c1; c <= c2; c++) {
+            cellShapes[next[r * columns + c]++] = i;
+          }
+        }
+      }
+    }
+
+    /**
+     * Returns the positions of the shapes whose bounding box intersects a region.
+     *
+     * @param x1 left of the region
+     * @param y1 top of the region
+     * @param x2 right of the region
+     * @param y2 bottom of the region
+     * @return positions of the shapes in the list of shapes
+     */
+    public BitSet find(double x1, double y1, double x2, double y2) {
+      BitSet found = new BitSet(shapes.size());
+      int c1 = column(x1);
+      int c2 = column(x2);
+      int r1 = row(y1);
+      int r2 = row(y2);
+      for (int r = r1; r <= r2; r++) {
+        for (int c = c1; c <= c2; c++) {
+          int cell = r * columns + c;
+          for (int k = cellStart[cell]; k < cellStart[cell + 1]; k++) {
+            if (intersects(cellShapes[k], x1, y1, x2, y2)) {
+              found.set(cellShapes[k]);
+            }
+          }
+        }
+      }
+      for (int i : largeShapes) {
+        if (intersects(i, x1, y1, x2, y2)) {
+          found.set(i);
+        }
+      }
+      return found;
+    }
+
+    /**
+     * Returns true if the bounding box of a shape, including its outline, intersects a region.
+     *
+     * @param i position of the shape
+     * @param x1 left of the region
+     * @param y1 top of the region
+     * @param x2 right of the region
+     * @param y2 bottom of the region
+     * @return true if they intersect
+     */
+    private boolean intersects(int i, double x1, double y1, double x2, double y2) {
+      RectangularShape shape = shapes.get(i).shape;
+      return shape.getMinX() - OUTLINE_THICKNESS <= x2
+          && x1 <= shape.getMaxX() + OUTLINE_THICKNESS
+          && shape.getMinY() - OUTLINE_THICKNESS <= y2
+          && y1 <= shape.getMaxY() + OUTLINE_THICKNESS;
+    }
+
+    /**
+     * Returns the column of an x-coordinate, clamped to the grid.
+     *
+     * @param x x-coordinate
+     * @return column
+     */
+    private int column(double x) {
+      return (int) Math.max(0, Math.min(columns - 1, Math.floor((x - minX) / cellSize)));
+    }
+
+    /**
+     * Returns the row of a y-coordinate, clamped to the grid.
+     *
+     * @param y y-coordinate
+     * @return row
+     */
+    private int row(double y) {
+      return (int) Math.max(0, Math.min(rows - 1, Math.floor((y - minY) / cellSize)));
+    }
+  }
+}
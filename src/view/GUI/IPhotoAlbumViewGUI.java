@@ -1,7 +1,8 @@
 package view.GUI;
 
 import controller.ICallbacks;
-import java.util.List;
+import controller.ISnapshotSource;
+import java.util.function.Consumer;
 import view.IPhotoAlbumView;
 
 /**
@@ -11,6 +12,8 @@ public interface IPhotoAlbumViewGUI extends IPhotoAlbumView {
 
   /**
    * Set the text labels about the currently displayed snapshot.
+   * It must be called before drawing the shapes of the snapshot, as the view may keep the
+   * rendered snapshot by its ID.
    *
    * @param id snapshot ID
    * @param description snapshot description
@@ -42,16 +45,40 @@ public interface IPhotoAlbumViewGUI extends IPhotoAlbumView {
   void closeSnapshotBrowser();
 
   /**
-   * Set the snapshot ID list displayed in the snapshot browser.
+   * Set the source of the snapshots listed in the snapshot browser. The browser reads the
+   * snapshots it displays from the source when it displays them.
    *
-   * @param snapshotIDs snapshot ID list
+   * @param source snapshot source
    */
-  void setSnapshotList(List<String> snapshotIDs);
+  void setSnapshotSource(ISnapshotSource source);
+
+  /**
+   * Add the snapshots added at the end of the snapshot source to the snapshot browser.
+   */
+  void refreshSnapshotList();
+
+  /**
+   * Display how much of the album was loaded.
+   *
+   * @param lines number of lines of the input loaded
+   * @param bytes number of bytes of the input loaded
+   * @param done true if the whole input was loaded
+   */
+  void setLoadingProgress(long lines, long bytes, boolean done);
+
+  /**
+   * Runs a task on the thread that handles the GUI, after the events waiting to be handled.
+   * Unlike the other methods, it can be called from any thread. The other methods must be
+   * called from the GUI thread once the view is displayed.
+   *
+   * @param task task to run
+   */
+  void runOnViewThread(Runnable task);
 
   /**
    * Set which value is highlighted in the snapshot ID list.
    *
-   * @param index
+   * @param index index of the snapshot in the snapshot source
    */
   void setSnapshotListSelectedValue(int index);
 
@@ -65,6 +92,29 @@ public interface IPhotoAlbumViewGUI extends IPhotoAlbumView {
    */
   void clearDrawPanel();
 
+  /**
+   * Renders a snapshot ahead of time, so that it can be displayed later with
+   * displayPrerenderedSnapshot() without drawing its shapes. Unlike the other methods,
+   * it can be called from any thread, and the rendering happens on the calling thread.
+   * Does nothing if the snapshot is already rendered.
+   *
+   * @param id snapshot ID
+   * @param drawing draws the shapes of the snapshot by calling drawRectangle() and drawOval()
+   *                on the view it's given, on the calling thread
+   * @throws IllegalArgumentException if any parameter is null
+   */
+  void prerenderSnapshot(String id, Consumer<IPhotoAlbumView> drawing);
+
+  /**
+   * Replaces the shapes of the draw panel with the ones of a snapshot rendered before.
+   * It must be called after setSnapshotInfo() for this snapshot. To see the effect,
+   * call repaintDrawPanel(). If it returns false, the shapes must be drawn as usual.
+   *
+   * @param id snapshot ID
+   * @return true if the snapshot was rendered, false if nothing changed
+   */
+  boolean displayPrerenderedSnapshot(String id);
+
   /**
    * Set callback functions for the GUI components in view.
    */
@@ -14,6 +14,7 @@ import javax.swing.JPanel;
 public class InfoPanel extends JPanel {
   private JLabel snapshotIDLabel;
   private JLabel snapshotDescriptionLabel;
+  private JLabel loadingLabel;
 
   /**
    * Constructor.
@@ -30,6 +31,8 @@ public class InfoPanel extends JPanel {
     add(Box.createRigidArea(new Dimension(10, 0)));
     add(snapshotDescriptionLabel);
     add(Box.createHorizontalGlue());
+    loadingLabel = new JLabel();
+    add(loadingLabel);
   }
 
   /**
@@ -68,4 +71,13 @@ public class InfoPanel extends JPanel {
     this.snapshotDescriptionLabel.setText(description);
   }
 
+  /**
+   * Sets the text about the loading of the album.
+   *
+   * @param status loading status, or an empty string to show nothing
+   */
+  public void setLoadingStatus(String status) {
+    this.loadingLabel.setText(status);
+  }
+
 }
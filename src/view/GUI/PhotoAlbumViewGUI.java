@@ -1,16 +1,20 @@
 package view.GUI;
 
 import controller.ICallbacks;
+import controller.ISnapshotSource;
 import java.awt.Color;
 import java.awt.geom.Ellipse2D;
 import java.awt.geom.Rectangle2D;
 import java.awt.geom.RectangularShape;
-import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 import javax.swing.BoxLayout;
 import javax.swing.JFrame;
 import javax.swing.JOptionPane;
 import javax.swing.JPanel;
 import javax.swing.JScrollPane;
+import javax.swing.SwingUtilities;
+import view.IPhotoAlbumView;
 
 /**
  * The main window that represents the GUI View.
@@ -24,8 +28,11 @@ import javax.swing.JScrollPane;
  *    - drawPanel: displays the state of shapes of the selected snapshot.
  */
 public class PhotoAlbumViewGUI extends JFrame implements IPhotoAlbumViewGUI {
+  private static final long DEFAULT_RASTER_CACHE_BYTES = 64L * 1024 * 1024;
+
   private InfoPanel infoPanel;
   private DrawPanel drawPanel;
+  private IPhotoAlbumView drawPanelDrawer;
   private ControlPanel controlPanel;
   private SnapshotBrowserPanel snapshotBrowserPanel;
 
@@ -36,6 +43,18 @@ public class PhotoAlbumViewGUI extends JFrame implements IPhotoAlbumViewGUI {
    * @param viewScreenYDim draw panel Y dimension
    */
   public PhotoAlbumViewGUI(int viewScreenXDim, int viewScreenYDim) {
+    this(viewScreenXDim, viewScreenYDim, DEFAULT_RASTER_CACHE_BYTES);
+  }
+
+  /**
+   * Constructor that sets how much memory the draw panel can use to keep rendered snapshots,
+   * so that displaying them again doesn't draw all their shapes.
+   *
+   * @param viewScreenXDim draw panel X dimension
+   * @param viewScreenYDim draw panel Y dimension
+   * @param rasterCacheBytes memory budget in bytes of the rendered snapshots
+   */
+  public PhotoAlbumViewGUI(int viewScreenXDim, int viewScreenYDim, long rasterCacheBytes) {
     //Set the window frame.
     setTitle("Photo Album");
     setDefaultCloseOperation(DISPOSE_ON_CLOSE);
@@ -51,7 +70,8 @@ public class PhotoAlbumViewGUI extends JFrame implements IPhotoAlbumViewGUI {
     mainPanel.setLayout(new BoxLayout(mainPanel, BoxLayout.Y_AXIS));
     mainPanel.setBackground(Color.decode(CustomColor.DARK_GRAY));
     infoPanel = new InfoPanel();
-    drawPanel = new DrawPanel(viewScreenXDim, viewScreenYDim);
+    drawPanel = new DrawPanel(viewScreenXDim, viewScreenYDim, rasterCacheBytes);
+    drawPanelDrawer = new BasicShapeDrawer(drawPanel::drawBasicShape);
     controlPanel = new ControlPanel();
     mainPanel.add(infoPanel);
     mainPanel.add(new JScrollPane(drawPanel));
@@ -66,6 +86,7 @@ public class PhotoAlbumViewGUI extends JFrame implements IPhotoAlbumViewGUI {
   public void setSnapshotInfo(String id, String description) {
     this.infoPanel.setSnapshotID(id);
     this.infoPanel.setSnapshotDescription(description);
+    this.drawPanel.setSnapshotID(id);
   }
 
   @Override
@@ -79,27 +100,52 @@ public class PhotoAlbumViewGUI extends JFrame implements IPhotoAlbumViewGUI {
   }
 
   @Override
-  public void setSnapshotList(List<String> snapshotIDs) {
-    this.snapshotBrowserPanel.setListData(snapshotIDs);
+  public void setSnapshotSource(ISnapshotSource source) {
+    this.snapshotBrowserPanel.setSource(source);
+  }
+
+  @Override
+  public void refreshSnapshotList() {
+    this.snapshotBrowserPanel.refreshList();
+  }
+
+  @Override
+  public void setLoadingProgress(long lines, long bytes, boolean done) {
+    String size = String.format("%,d lines, %.1f MB", lines, bytes / (1024.0 * 1024.0));
+    this.infoPanel.setLoadingStatus(done ? "Loaded " + size : "Loading... " + size);
+  }
+
+  @Override
+  public void runOnViewThread(Runnable task) {
+    SwingUtilities.invokeLater(task);
   }
 
   @Override
   public void setSnapshotListSelectedValue(int index) {
-    this.snapshotBrowserPanel.getList().setSelectedIndex(index);
+    this.snapshotBrowserPanel.setSelectedSnapshot(index);
   }
 
   @Override
   public void drawRectangle(double x, double y, double xDim, double yDim, double r, double g, double b) {
-    RectangularShape shape = new Rectangle2D.Double(x, y, xDim, yDim);
-    Color color = new Color((float) r, (float) g, (float) b);
-    drawPanel.drawBasicShape(shape, color);
+    drawPanelDrawer.drawRectangle(x, y, xDim, yDim, r, g, b);
   }
 
   @Override
   public void drawOval(double x, double y, double xDim, double yDim, double r, double g, double b) {
-    RectangularShape shape = new Ellipse2D.Double(x, y, xDim, yDim);
-    Color color = new Color((float) r, (float) g, (float) b);
-    drawPanel.drawBasicShape(shape, color);
+    drawPanelDrawer.drawOval(x, y, xDim, yDim, r, g, b);
+  }
+
+  @Override
+  public void prerenderSnapshot(String id, Consumer<IPhotoAlbumView> drawing) {
+    if (id == null || drawing == null) {
+      throw new IllegalArgumentException("Parameter can't be null");
+    }
+    drawPanel.prerender(id, basicShapeSink -> drawing.accept(new BasicShapeDrawer(basicShapeSink)));
+  }
+
+  @Override
+  public boolean displayPrerenderedSnapshot(String id) {
+    return drawPanel.showRenderedSnapshot(id);
   }
 
   @Override
@@ -133,6 +179,7 @@ public class PhotoAlbumViewGUI extends JFrame implements IPhotoAlbumViewGUI {
     this.controlPanel.getPrevButton().addActionListener(event -> cbContainer.prevSnapshotCallback());
     this.snapshotBrowserPanel.getList().addListSelectionListener(
         event -> this.snapshotBrowserPanel.listValueChangedCallback(event, cbContainer));
+    this.drawPanel.setPaintListener(cbContainer::snapshotPaintedCallback);
   }
 
   /**
@@ -142,6 +189,38 @@ public class PhotoAlbumViewGUI extends JFrame implements IPhotoAlbumViewGUI {
     this.revalidate();
     this.repaint();
   }
+
+  /**
+   * Turns rectangles and ovals into the basic shapes of the draw panel.
+   */
+  private static class BasicShapeDrawer implements IPhotoAlbumView {
+    private final BiConsumer<RectangularShape, Color> basicShapeSink;
+
+    /**
+     * Constructor.
+     *
+     * @param basicShapeSink function that draws a basic shape with its color
+     */
+    private BasicShapeDrawer(BiConsumer<RectangularShape, Color> basicShapeSink) {
+      this.basicShapeSink = basicShapeSink;
+    }
+
+    @Override
+    public void drawRectangle(double x, double y, double xDim, double yDim, double r, double g,
+                              double b) {
+      RectangularShape shape = new Rectangle2D.Double(x, y, xDim, yDim);
+      Color color = new Color((float) r, (float) g, (float) b);
+      basicShapeSink.accept(shape, color);
+    }
+
+    @Override
+    public void drawOval(double x, double y, double xDim, double yDim, double r, double g,
+                         double b) {
+      RectangularShape shape = new Ellipse2D.Double(x, y, xDim, yDim);
+      Color color = new Color((float) r, (float) g, (float) b);
+      basicShapeSink.accept(shape, color);
+    }
+  }
 }
 
 
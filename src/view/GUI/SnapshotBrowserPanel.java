@@ -1,27 +1,45 @@
 package view.GUI;
 
 import controller.ICallbacks;
+import controller.ISnapshotSource;
 import java.awt.Color;
+import java.awt.Component;
 import java.awt.Dimension;
-import java.util.List;
+import java.awt.Graphics;
+import java.awt.image.BufferedImage;
 import javax.swing.BorderFactory;
 import javax.swing.Box;
 import javax.swing.BoxLayout;
-import javax.swing.DefaultListModel;
+import javax.swing.DefaultListCellRenderer;
+import javax.swing.ImageIcon;
 import javax.swing.JLabel;
 import javax.swing.JList;
 import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JTextField;
 import javax.swing.ListSelectionModel;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
 import javax.swing.event.ListSelectionEvent;
 
 /**
  * A panel that displays the list of all snapshots by their IDs, and allows the user to select a snapshot
  * to display.
+ * The list reads the snapshots from a snapshot source only when it displays them, and all cells have
+ * the same size, so it doesn't go through all snapshots to be displayed. The user can filter
+ * the list by typing a text contained in the ID or description of the snapshots. The thumbnails
+ * of the snapshots are made in the background when they are first displayed.
  */
 public class SnapshotBrowserPanel extends JPanel {
   private JList<String> snapshotList;
-  private DefaultListModel<String> snapshotsListModel;
+  private SnapshotListModel snapshotsListModel;
+  private SnapshotThumbnails thumbnails;
+  private JTextField filterField;
+  //True while the list is changed by the program, so that it doesn't select a snapshot.
+  private boolean isUpdatingList;
   private final static int LIST_MAX_WIDTH = 1000;
+  private final static int THUMBNAIL_SIZE = 48;
+  private final static int CELL_WIDTH = 300;
 
   /**
    * Constructor.
@@ -43,17 +61,47 @@ public class SnapshotBrowserPanel extends JPanel {
 
     this.add(Box.createRigidArea(new Dimension(0,10)));
 
-    snapshotsListModel = new DefaultListModel<>();
+    filterField = new JTextField();
+    filterField.setToolTipText("Type to filter the snapshots by ID or description");
+    filterField.setAlignmentX(LEFT_ALIGNMENT);
+    filterField.setMaximumSize(new Dimension(LIST_MAX_WIDTH, filterField.getPreferredSize().height));
+    filterField.getDocument().addDocumentListener(new DocumentListener() {
+      @Override
+      public void insertUpdate(DocumentEvent e) {
+        applyFilter();
+      }
+
+      @Override
+      public void removeUpdate(DocumentEvent e) {
+        applyFilter();
+      }
+
+      @Override
+      public void changedUpdate(DocumentEvent e) {
+        applyFilter();
+      }
+    });
+    this.add(filterField);
+
+    this.add(Box.createRigidArea(new Dimension(0,10)));
+
+    snapshotsListModel = new SnapshotListModel();
     snapshotList = new JList<>(snapshotsListModel);
+    thumbnails = new SnapshotThumbnails(THUMBNAIL_SIZE, Color.decode(CustomColor.GRAY),
+        snapshotList::repaint);
     snapshotList.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
-    snapshotList.setSelectedIndex(0);
     snapshotList.setBackground(Color.decode(CustomColor.GRAY));
     snapshotList.setSelectionBackground(Color.decode(CustomColor.PINK));
     snapshotList.setLayoutOrientation(JList.VERTICAL);
-    snapshotList.setBorder(BorderFactory.createLineBorder(Color.black));
-    snapshotList.setAlignmentX(LEFT_ALIGNMENT);
-    snapshotList.setMaximumSize(new Dimension(LIST_MAX_WIDTH, Integer.MAX_VALUE));
-    this.add(snapshotList);
+    //Fixed cell sizes, so that the list doesn't measure every cell.
+    snapshotList.setFixedCellHeight(THUMBNAIL_SIZE + 4);
+    snapshotList.setFixedCellWidth(CELL_WIDTH);
+    snapshotList.setCellRenderer(new SnapshotCellRenderer());
+    JScrollPane scrollPane = new JScrollPane(snapshotList);
+    scrollPane.setBorder(BorderFactory.createLineBorder(Color.black));
+    scrollPane.setAlignmentX(LEFT_ALIGNMENT);
+    scrollPane.setMaximumSize(new Dimension(LIST_MAX_WIDTH, Integer.MAX_VALUE));
+    this.add(scrollPane);
   }
 
   /**
@@ -62,28 +110,105 @@ public class SnapshotBrowserPanel extends JPanel {
   public JList<String> getList() {
     return snapshotList;
   }
-  
+
   /**
-   * Set new values to display on the JList component.
+   * Set the snapshot source to list, and select its first snapshot.
    *
-   * @param data values
+   * @param source snapshot source
    */
-  public void setListData(List<String> data) {
-    snapshotsListModel.clear();
-    snapshotsListModel.addAll(data);
+  public void setSource(ISnapshotSource source) {
+    isUpdatingList = true;
+    thumbnails.setSource(source);
+    snapshotsListModel.setSource(source);
+    isUpdatingList = false;
     snapshotList.setSelectedIndex(0);
   }
 
+  /**
+   * Add the snapshots added to the snapshot source to the list. The selected value doesn't change.
+   */
+  public void refreshList() {
+    isUpdatingList = true;
+    snapshotsListModel.refresh();
+    isUpdatingList = false;
+  }
+
+  /**
+   * Select the snapshot at an index of the snapshot source, or nothing if it's filtered out.
+   *
+   * @param snapshotIndex index of the snapshot
+   */
+  public void setSelectedSnapshot(int snapshotIndex) {
+    int listIndex = snapshotsListModel.getListIndex(snapshotIndex);
+    if (listIndex >= 0) {
+      snapshotList.setSelectedIndex(listIndex);
+      snapshotList.ensureIndexIsVisible(listIndex);
+    } else {
+      snapshotList.clearSelection();
+    }
+  }
+
   /**
    * Callback function for selecting different value in JList.
    * @param e event
    * @param cbContainer callback function container
    */
   public void listValueChangedCallback(ListSelectionEvent e, ICallbacks cbContainer) {
-    if (!e.getValueIsAdjusting()) {
+    if (!e.getValueIsAdjusting() && !isUpdatingList && snapshotList.getSelectedIndex() >= 0) {
       String selectedSnapshot = snapshotList.getModel().getElementAt(snapshotList.getSelectedIndex());
       cbContainer.selectSnapshotCallback(selectedSnapshot);
     }
   }
 
+  /**
+   * Filters the list with the text of the filter field. The selected snapshot stays selected
+   * if it's still listed.
+   */
+  private void applyFilter() {
+    int selectedIndex = snapshotList.getSelectedIndex();
+    int selectedSnapshot = selectedIndex >= 0
+        ? snapshotsListModel.getSnapshotIndex(selectedIndex) : -1;
+    isUpdatingList = true;
+    snapshotsListModel.setFilter(filterField.getText());
+    int listIndex = snapshotsListModel.getListIndex(selectedSnapshot);
+    if (listIndex >= 0) {
+      snapshotList.setSelectedIndex(listIndex);
+      snapshotList.ensureIndexIsVisible(listIndex);
+    } else {
+      snapshotList.clearSelection();
+    }
+    isUpdatingList = false;
+  }
+
+  /**
+   * Renders a snapshot with its thumbnail, ID and description.
+   */
+  private class SnapshotCellRenderer extends DefaultListCellRenderer {
+    private final BufferedImage placeholder;
+    private final ImageIcon thumbnailIcon;
+
+    /**
+     * Constructor.
+     */
+    private SnapshotCellRenderer() {
+      placeholder = new BufferedImage(THUMBNAIL_SIZE, THUMBNAIL_SIZE, BufferedImage.TYPE_INT_RGB);
+      Graphics placeholderGraphics = placeholder.getGraphics();
+      placeholderGraphics.setColor(Color.decode(CustomColor.DARK_GRAY));
+      placeholderGraphics.fillRect(0, 0, THUMBNAIL_SIZE, THUMBNAIL_SIZE);
+      placeholderGraphics.dispose();
+      thumbnailIcon = new ImageIcon(placeholder);
+    }
+
+    @Override
+    public Component getListCellRendererComponent(JList<?> list, Object value, int index,
+                                                  boolean isSelected, boolean cellHasFocus) {
+      super.getListCellRendererComponent(list, value, index, isSelected, cellHasFocus);
+      BufferedImage thumbnail = thumbnails.get(snapshotsListModel.getSnapshotIndex(index));
+      thumbnailIcon.setImage(thumbnail == null ? placeholder : thumbnail);
+      setIcon(thumbnailIcon);
+      setText(value + "  " + snapshotsListModel.getDescriptionAt(index));
+      return this;
+    }
+  }
+
 }
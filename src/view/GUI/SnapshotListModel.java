@@ -0,0 +1,184 @@
+package view.GUI;
+
+import controller.ISnapshotSource;
+import java.util.Arrays;
+import javax.swing.AbstractListModel;
+
+/**
+ * List of the IDs of the snapshots of a snapshot source, read from the source only when the list
+ * displays them. The list can be filtered to the snapshots whose ID or description contains
+ * a text. It must only be used on the event dispatch thread.
+ */
+public class SnapshotListModel extends AbstractListModel<String> {
+  private ISnapshotSource source;
+  //Number of snapshots of the source when the list was last refreshed.
+  private int snapshotCount;
+  //Filter in lower case, or an empty string to list all snapshots.
+  private String filter;
+  //Indexes of the snapshots that match the filter, in increasing order, if there is a filter.
+  private int[] matches;
+  private int matchCount;
+
+  /**
+   * Constructor for an empty list.
+   */
+  public SnapshotListModel() {
+    this.filter = "";
+    this.matches = new int[0];
+  }
+
+  /**
+   * Lists the snapshots of another source. The filter is kept.
+   *
+   * @param source snapshot source, or null for an empty list
+   */
+  public void setSource(ISnapshotSource source) {
+    int oldSize = this.getSize();
+    this.source = source;
+    this.snapshotCount = 0;
+    this.matchCount = 0;
+    if (oldSize > 0) {
+      this.fireIntervalRemoved(this, 0, oldSize - 1);
+    }
+    this.refresh();
+  }
+
+  /**
+   * Adds the snapshots added to the source since the last refresh.
+   */
+  public void refresh() {
+    int newCount = source == null ? 0 : source.getSnapshotCount();
+    if (newCount <= snapshotCount) {
+      return;
+    }
+    int oldSize = this.getSize();
+    if (!filter.isEmpty()) {
+      for (int i = snapshotCount; i < newCount; i++) {
+        this.addMatchIfMatching(i);
+      }
+    }
+    snapshotCount = newCount;
+    if (this.getSize() > oldSize) {
+      this.fireIntervalAdded(this, oldSize, this.getSize() - 1);
+    }
+  }
+
+  /**
+   * Lists only the snapshots whose ID or description contains a text, ignoring case. When the
+   * new filter contains the previous one, only the snapshots that matched it are checked again.
+   *
+   * @param filter text to look for, or an empty string to list all snapshots
+   * @throws IllegalArgumentException if filter is null
+   */
+  public void setFilter(String filter) {
+    if (filter == null) {
+      throw new IllegalArgumentException("Parameter can't be null");
+    }
+    String newFilter = filter.toLowerCase();
+    if (newFilter.equals(this.filter)) {
+      return;
+    }
+    int oldSize = this.getSize();
+    boolean narrowing = !this.filter.isEmpty() && newFilter.contains(this.filter);
+    this.filter = newFilter;
+    if (narrowing) {
+      int oldMatchCount = matchCount;
+      matchCount = 0;
+      for (int k = 0; k < oldMatchCount; k++) {
+        this.addMatchIfMatching(matches[k]);
+      }
+    } else if (!newFilter.isEmpty()) {
+      matchCount = 0;
+      for (int i = 0; i < snapshotCount; i++) {
+        this.addMatchIfMatching(i);
+      }
+    }
+    if (oldSize > 0) {
+      this.fireIntervalRemoved(this, 0, oldSize - 1);
+    }
+    if (this.getSize() > 0) {
+      this.fireIntervalAdded(this, 0, this.getSize() - 1);
+    }
+  }
+
+  @Override
+  public int getSize() {
+    return filter.isEmpty() ? snapshotCount : matchCount;
+  }
+
+  @Override
+  public String getElementAt(int index) {
+    return source.getSnapshotID(this.getSnapshotIndex(index));
+  }
+
+  /**
+   * Returns the description of the snapshot at a position of the list.
+   *
+   * @param index position in the list
+   * @return snapshot description
+   */
+  public String getDescriptionAt(int index) {
+    return source.getSnapshotDescription(this.getSnapshotIndex(index));
+  }
+
+  /**
+   * Returns the index in the source of the snapshot at a position of the list.
+   *
+   * @param index position in the list
+   * @return index of the snapshot
+   * @throws IndexOutOfBoundsException if the position isn't in the list
+   */
+  public int getSnapshotIndex(int index) {
+    if (index < 0 || index >= this.getSize()) {
+      throw new IndexOutOfBoundsException("No snapshot at position " + index);
+    }
+    return filter.isEmpty() ? index : matches[index];
+  }
+
+  /**
+   * Returns the position in the list of the snapshot at an index of the source.
+   *
+   * @param snapshotIndex index of the snapshot
+   * @return position in the list, or -1 if the snapshot isn't listed
+   */
+  public int getListIndex(int snapshotIndex) {
+    if (filter.isEmpty()) {
+      return snapshotIndex >= 0 && snapshotIndex < snapshotCount ? snapshotIndex : -1;
+    }
+    int position = Arrays.binarySearch(matches, 0, matchCount, snapshotIndex);
+    return position >= 0 ? position : -1;
+  }
+
+  /**
+   * Adds a snapshot at the end of the matches if it matches the filter.
+   *
+   * @param snapshotIndex index of the snapshot
+   */
+  private void addMatchIfMatching(int snapshotIndex) {
+    if (containsIgnoreCase(source.getSnapshotDescription(snapshotIndex), filter)
+        || containsIgnoreCase(source.getSnapshotID(snapshotIndex), filter)) {
+      if (matchCount == matches.length) {
+        matches = Arrays.copyOf(matches, Math.max(16, matches.length * 2));
+      }
+      matches[matchCount++] = snapshotIndex;
+    }
+  }
+
+  /**
+   * Returns true if a text contains a lower case string, ignoring the case of the text.
+   * It doesn't create a lower case copy of the text.
+   *
+   * @param text text
+   * @param lowerCaseString lower case string to look for
+   * @return true if the text contains the string
+   */
+  private static boolean containsIgnoreCase(String text, String lowerCaseString) {
+    int last = text.length() - lowerCaseString.length();
+    for (int i = 0; i <= last; i++) {
+      if (text.regionMatches(true, i, lowerCaseString, 0, lowerCaseString.length())) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
@@ -0,0 +1,193 @@
+package view.GUI;
+
+import controller.ISnapshotSource;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.Rectangle2D;
+import java.awt.geom.RectangularShape;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.LinkedBlockingDeque;
+import javax.swing.SwingUtilities;
+import view.IPhotoAlbumView;
+
+/**
+ * Thumbnails of the snapshots of a snapshot source, made by a background thread the first time
+ * they are asked for. The most recently asked snapshots are made first, and the oldest requests
+ * are dropped, so that scrolling quickly through a long list only makes the thumbnails that
+ * end up visible. The thumbnails of the most recently used snapshots are kept.
+ * It must only be used on the event dispatch thread.
+ */
+class SnapshotThumbnails {
+  private static final int MAX_THUMBNAILS = 512;
+  private static final int MAX_PENDING = 64;
+
+  private final int size;
+  private final Color background;
+  private final Runnable onThumbnailMade;
+  private ISnapshotSource source;
+  //Thumbnails by snapshot index, from least to most recently used.
+  private final Map<Integer, BufferedImage> thumbnails;
+  //Snapshots waiting for their thumbnail, most recently asked first. Shared with the thread.
+  private final BlockingDeque<Request> requests;
+  private final Set<Integer> pending;
+  private Thread thread;
+
+  /**
+   * Constructor.
+   *
+   * @param size width and height of the thumbnails in px
+   * @param background background color of the thumbnails
+   * @param onThumbnailMade called on the event dispatch thread every time a thumbnail is made
+   */
+  public SnapshotThumbnails(int size, Color background, Runnable onThumbnailMade) {
+    this.size = size;
+    this.background = background;
+    this.onThumbnailMade = onThumbnailMade;
+    this.thumbnails = new LinkedHashMap<>(16, 0.75f, true);
+    this.requests = new LinkedBlockingDeque<>();
+    this.pending = new HashSet<>();
+  }
+
+  /**
+   * Makes the thumbnails of another source. The thumbnails made so far are dropped.
+   *
+   * @param source snapshot source, or null for none
+   */
+  public void setSource(ISnapshotSource source) {
+    this.source = source;
+    this.thumbnails.clear();
+    this.requests.clear();
+    this.pending.clear();
+  }
+
+  /**
+   * Returns the thumbnail of a snapshot if it's made, or asks for it to be made.
+   *
+   * @param snapshotIndex index of the snapshot
+   * @return thumbnail, or null if it isn't made yet
+   */
+  public BufferedImage get(int snapshotIndex) {
+    BufferedImage thumbnail = thumbnails.get(snapshotIndex);
+    if (thumbnail != null || source == null || !pending.add(snapshotIndex)) {
+      return thumbnail;
+    }
+    requests.offerFirst(new Request(source, snapshotIndex));
+    while (requests.size() > MAX_PENDING) {
+      Request dropped = requests.pollLast();
+      if (dropped != null) {
+        pending.remove(dropped.snapshotIndex);
+      }
+    }
+    if (thread == null) {
+      thread = new Thread(this::makeThumbnails, "snapshot-thumbnails");
+      thread.setDaemon(true);
+      thread.start();
+    }
+    return null;
+  }
+
+  /**
+   * Makes the thumbnails that are asked for, forever. Runs on the background thread.
+   */
+  private void makeThumbnails() {
+    while (true) {
+      Request request;
+      try {
+        request = requests.takeFirst();
+      } catch (InterruptedException e) {
+        return;
+      }
+      BufferedImage thumbnail = this.makeThumbnail(request);
+      SwingUtilities.invokeLater(() -> {
+        //The source may have changed while the thumbnail was made.
+        if (request.source == source && pending.remove(request.snapshotIndex)) {
+          thumbnails.put(request.snapshotIndex, thumbnail);
+          Iterator<BufferedImage> leastRecent = thumbnails.values().iterator();
+          while (thumbnails.size() > MAX_THUMBNAILS) {
+            leastRecent.next();
+            leastRecent.remove();
+          }
+          onThumbnailMade.run();
+        }
+      });
+    }
+  }
+
+  /**
+   * Draws the shapes of a snapshot in a thumbnail, scaled so that the region from the origin to
+   * the bottom right corner of the shapes fits.
+   *
+   * @param request snapshot to draw
+   * @return thumbnail
+   */
+  private BufferedImage makeThumbnail(Request request) {
+    List<RectangularShape> shapes = new ArrayList<>();
+    List<Color> colors = new ArrayList<>();
+    IPhotoAlbumView collector = new IPhotoAlbumView() {
+      @Override
+      public void drawRectangle(double x, double y, double xDim, double yDim, double r, double g,
+                                double b) {
+        shapes.add(new Rectangle2D.Double(x, y, xDim, yDim));
+        colors.add(new Color((float) r, (float) g, (float) b));
+      }
+
+      @Override
+      public void drawOval(double x, double y, double xDim, double yDim, double r, double g,
+                           double b) {
+        shapes.add(new Ellipse2D.Double(x, y, xDim, yDim));
+        colors.add(new Color((float) r, (float) g, (float) b));
+      }
+    };
+    try {
+      request.source.drawSnapshotAt(request.snapshotIndex, collector);
+    } catch (RuntimeException e) {
+      //The thumbnail shows the shapes drawn before the error, so that it isn't asked again.
+    }
+    double maxX = 1;
+    double maxY = 1;
+    for (RectangularShape shape : shapes) {
+      maxX = Math.max(maxX, shape.getMaxX());
+      maxY = Math.max(maxY, shape.getMaxY());
+    }
+    BufferedImage thumbnail = new BufferedImage(size, size, BufferedImage.TYPE_INT_RGB);
+    Graphics2D g = thumbnail.createGraphics();
+    g.setColor(background);
+    g.fillRect(0, 0, size, size);
+    double scale = size / Math.max(maxX, maxY);
+    g.scale(scale, scale);
+    for (int i = 0; i < shapes.size(); i++) {
+      g.setColor(colors.get(i));
+      g.fill(shapes.get(i));
+    }
+    g.dispose();
+    return thumbnail;
+  }
+
+  /**
+   * A snapshot whose thumbnail is asked for.
+   */
+  private static class Request {
+    private final ISnapshotSource source;
+    private final int snapshotIndex;
+
+    /**
+     * Constructor.
+     *
+     * @param source snapshot source
+     * @param snapshotIndex index of the snapshot
+     */
+    private Request(ISnapshotSource source, int snapshotIndex) {
+      this.source = source;
+      this.snapshotIndex = snapshotIndex;
+    }
+  }
+}
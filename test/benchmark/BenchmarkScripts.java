@@ -0,0 +1,49 @@
+package benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.StringJoiner;
+
+/**
+ * Helper that generates large command scripts for the benchmarks from the sample scripts
+ * in the resources folder.
+ */
+public class BenchmarkScripts {
+
+  /**
+   * Repeats the given script a number of times. Every copy renames its shapes with a suffix,
+   * so that the copies don't collide with each other.
+   * Snapshot lines are kept only if keepSnapshots is true.
+   *
+   * @param fileName script in the resources folder
+   * @param copies number of copies
+   * @param keepSnapshots whether to keep the snapshot commands
+   * @return scaled up script
+   * @throws IOException if the script can't be read
+   */
+  public static String scale(String fileName, int copies, boolean keepSnapshots)
+      throws IOException {
+    List<String> lines = Files.readAllLines(Path.of("resources", fileName));
+    StringJoiner script = new StringJoiner("\n");
+    for (int copy = 0; copy < copies; copy++) {
+      for (String line : lines) {
+        String[] args = line.strip().split("\\s+");
+        String op = args[0].toLowerCase();
+        if (op.isEmpty() || op.startsWith("#")) {
+          continue;
+        }
+        if (op.equals("snapshot")) {
+          if (keepSnapshots) {
+            script.add(line.strip());
+          }
+          continue;
+        }
+        args[1] = args[1] + "_" + copy;
+        script.add(String.join(" ", args));
+      }
+    }
+    return script.toString();
+  }
+}
@@ -0,0 +1,76 @@
+package benchmark;
+
+import model.ColumnarPhoto;
+import model.IPhoto;
+import model.IShape;
+import model.Photo;
+import model.ShapeFactory;
+
+/**
+ * Compares Photo and ColumnarPhoto on a large photo: the heap used by the shapes,
+ * and the time to read every shape the way the draw loop does.
+ * Usage: ColumnarPhotoBenchmark [shapes]
+ */
+public class ColumnarPhotoBenchmark {
+  private static final int NUM_PASSES = 20;
+
+  public static void main(String[] args) {
+    int numShapes = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+
+    long heapBefore = SnapshotMemoryBenchmark.usedHeap();
+    Photo photo = new Photo();
+    fill(photo, numShapes);
+    long photoHeap = SnapshotMemoryBenchmark.usedHeap() - heapBefore;
+
+    heapBefore = SnapshotMemoryBenchmark.usedHeap();
+    ColumnarPhoto columnarPhoto = new ColumnarPhoto();
+    fill(columnarPhoto, numShapes);
+    long columnarHeap = SnapshotMemoryBenchmark.usedHeap() - heapBefore;
+
+    double photoMs = 0;
+    double columnarMs = 0;
+    double checksum = 0;
+    //The first passes warm up the JIT, only the second half is measured.
+    for (int pass = 0; pass < NUM_PASSES; pass++) {
+      long start = System.nanoTime();
+      double sum = 0;
+      for (IShape shape : photo.getShapes()) {
+        sum += shape.getX() + shape.getY() + shape.getXDim() + shape.getYDim()
+            + shape.getR() + shape.getG() + shape.getB();
+      }
+      long middle = System.nanoTime();
+      double[] columnarSum = new double[1];
+      columnarPhoto.forEachShape((name, type, x, y, xDim, yDim, r, g, b) ->
+          columnarSum[0] += x + y + xDim + yDim + r + g + b);
+      long end = System.nanoTime();
+      if (pass >= NUM_PASSES / 2) {
+        photoMs += (middle - start) / 1e6;
+        columnarMs += (end - middle) / 1e6;
+      }
+      checksum += sum - columnarSum[0];
+    }
+    int measured = NUM_PASSES - NUM_PASSES / 2;
+    System.out.printf("shapes: %d%n", numShapes);
+    System.out.printf("Photo:         heap %d bytes/shape, read all shapes %.1f ms%n",
+        photoHeap / numShapes, photoMs / measured);
+    System.out.printf("ColumnarPhoto: heap %d bytes/shape, read all shapes %.1f ms%n",
+        columnarHeap / numShapes, columnarMs / measured);
+    //Keep both photos reachable until the end, and use the sums. They differ slightly as
+    //ColumnarPhoto rounds the colors.
+    System.out.println(photo.size() == columnarPhoto.size()
+        && Math.abs(checksum) < 1e-5 * numShapes * NUM_PASSES ? "" : "?");
+  }
+
+  /**
+   * Adds shapes to a photo.
+   *
+   * @param photo photo
+   * @param numShapes number of shapes
+   */
+  private static void fill(IPhoto photo, int numShapes) {
+    for (int i = 0; i < numShapes; i++) {
+      photo.addShape(ShapeFactory.createBasicShape("s" + i, i % 2 == 0 ? "rectangle" : "oval",
+          10, 10, i % 1000, i / 1000, 0.5, 0.5, 0.5));
+    }
+  }
+}
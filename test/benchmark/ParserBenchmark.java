@@ -0,0 +1,172 @@
+package benchmark;
+
+import controller.ByteInputParser;
+import controller.CachedInputParser;
+import controller.IInputParser;
+import controller.InputParser;
+import controller.MappedInputParser;
+import controller.ParallelInputParser;
+import controller.PipelinedInputParser;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+import model.IPhotoAlbumApp;
+import model.PhotoAlbumApp;
+
+/**
+ * Measures the throughput of the input parsers in MB/s, using resources/tetris_wallpaper.txt
+ * scaled up. Each parser is timed into a model that only sums up the parameters of the
+ * commands, to measure the parsing alone, and into a PhotoAlbumApp.
+ * Then the parsers that read bytes are timed from a file, with the same model, to compare
+ * reading the file into a buffer with memory-mapping it.
+ * Last, ParallelInputParser is timed on pools of 1 to 8 threads, to measure how the parsing
+ * scales with the cores, and PipelinedInputParser is timed into a PhotoAlbumApp, printing the
+ * counters of its stages to show which one limits the pipeline.
+ * Finally, CachedInputParser is timed from a file whose compiled script is cached.
+ * Usage: ParserBenchmark [copies]
+ */
+public class ParserBenchmark {
+  public static void main(String[] args) throws IOException {
+    int copies = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+    byte[] script = BenchmarkScripts.scale("tetris_wallpaper.txt", copies, true)
+        .getBytes(StandardCharsets.UTF_8);
+    System.out.printf("script: %.1f MB%n", script.length / 1e6);
+
+    Supplier<InputStream> inMemory = () -> new ByteArrayInputStream(script);
+    IInputParser[] parsers = {new InputParser(), new ByteInputParser()};
+    for (IInputParser parser : parsers) {
+      String name = parser.getClass().getSimpleName();
+      System.out.printf("%s, parsing only: %.1f MB/s%n", name,
+          throughput(parser, inMemory, script.length, ChecksumModel::new));
+      System.out.printf("%s, into PhotoAlbumApp: %.1f MB/s%n", name,
+          throughput(parser, inMemory, script.length, PhotoAlbumApp::new));
+    }
+
+    File file = File.createTempFile("script", ".txt");
+    file.deleteOnExit();
+    Files.write(file.toPath(), script);
+    Supplier<InputStream> fromFile = () -> {
+      try {
+        return new FileInputStream(file);
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    };
+    System.out.printf("ByteInputParser, from a file: %.1f MB/s%n",
+        throughput(new ByteInputParser(), fromFile, script.length, ChecksumModel::new));
+    System.out.printf("MappedInputParser, from a file: %.1f MB/s%n",
+        throughput(new MappedInputParser(), fromFile, script.length, ChecksumModel::new));
+    System.out.printf("MappedInputParser, from a file in 1 MB windows: %.1f MB/s%n",
+        throughput(new MappedInputParser(1 << 20), fromFile, script.length,
+            ChecksumModel::new));
+
+    System.out.printf("available processors: %d%n", Runtime.getRuntime().availableProcessors());
+    for (int threads = 1; threads <= 8; threads *= 2) {
+      ForkJoinPool pool = new ForkJoinPool(threads);
+      IInputParser parser = new ParallelInputParser(pool, 1 << 20);
+      System.out.printf("ParallelInputParser, %d threads, parsing only: %.1f MB/s%n", threads,
+          throughput(parser, inMemory, script.length, ChecksumModel::new));
+      System.out.printf("ParallelInputParser, %d threads, into PhotoAlbumApp: %.1f MB/s%n",
+          threads, throughput(parser, inMemory, script.length, PhotoAlbumApp::new));
+      pool.shutdown();
+    }
+
+    PipelinedInputParser pipelined = new PipelinedInputParser();
+    System.out.printf("PipelinedInputParser, into PhotoAlbumApp: %.1f MB/s%n",
+        throughput(pipelined, inMemory, script.length, PhotoAlbumApp::new));
+    System.out.println(pipelined.getStatistics());
+
+    File cacheDirectory = Files.createTempDirectory("album-cache").toFile();
+    CachedInputParser cached = new CachedInputParser(cacheDirectory);
+    System.out.printf("CachedInputParser, compiled script, parsing only: %.1f MB/s%n",
+        throughput(cached, fromFile, script.length, ChecksumModel::new));
+    System.out.printf("CachedInputParser, compiled script, into PhotoAlbumApp: %.1f MB/s%n",
+        throughput(cached, fromFile, script.length, PhotoAlbumApp::new));
+    File compiled = cached.getCompiledFile(script);
+    System.out.printf("compiled script: %.1f MB%n", compiled.length() / 1e6);
+    compiled.delete();
+    cacheDirectory.delete();
+  }
+
+  /**
+   * Warms up, then returns the best throughput of parsing a script into new models.
+   *
+   * @param parser parser
+   * @param inputs supplier of new input streams of the script
+   * @param length length of the script in bytes
+   * @param models supplier of the models to populate
+   * @return throughput in MB/s
+   * @throws IOException if an input stream can't be closed
+   */
+  private static double throughput(IInputParser parser, Supplier<InputStream> inputs,
+                                   long length, Supplier<IPhotoAlbumApp> models)
+      throws IOException {
+    for (int i = 0; i < 3; i++) {
+      try (InputStream in = inputs.get()) {
+        parser.parse(in, models.get());
+      }
+    }
+    final int RUNS = 5;
+    long best = Long.MAX_VALUE;
+    for (int i = 0; i < RUNS; i++) {
+      IPhotoAlbumApp model = models.get();
+      try (InputStream in = inputs.get()) {
+        long start = System.nanoTime();
+        parser.parse(in, model);
+        best = Math.min(best, System.nanoTime() - start);
+      }
+    }
+    return length / 1e6 / (best / 1e9);
+  }
+
+  /**
+   * A model that ignores the commands, except for summing up their parameters so that the
+   * parsing can't be optimized away.
+   */
+  private static class ChecksumModel extends PhotoAlbumApp {
+    private double checksum;
+
+    @Override
+    public void takeSnapshot(String description) {
+      checksum += description.length();
+    }
+
+    @Override
+    public void createBasicShape(String name, String type, double xDim, double yDim, double x,
+                                 double y, double r, double g, double b) {
+      checksum += name.length() + type.length() + xDim + yDim + x + y + r + g + b;
+    }
+
+    @Override
+    public void removeShape(String name) {
+      checksum += name.length();
+    }
+
+    @Override
+    public void setShapeColor(String name, double r, double g, double b) {
+      checksum += name.length() + r + g + b;
+    }
+
+    @Override
+    public void setShapePosition(String name, double x, double y) {
+      checksum += name.length() + x + y;
+    }
+
+    @Override
+    public void setShapeXDim(String name, double xDim) {
+      checksum += name.length() + xDim;
+    }
+
+    @Override
+    public void setShapeYDim(String name, double yDim) {
+      checksum += name.length() + yDim;
+    }
+  }
+}
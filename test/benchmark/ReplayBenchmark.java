@@ -0,0 +1,53 @@
+package benchmark;
+
+import controller.InputParser;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import model.IPhotoAlbumApp;
+import model.PhotoAlbumApp;
+
+/**
+ * Measures how long it takes the model to replay its command list,
+ * using resources/tetris_wallpaper.txt scaled up.
+ * It times a full replay (keyframes disabled) and a read of the last 10 photos
+ * with the default keyframes.
+ * Usage: ReplayBenchmark [copies]
+ */
+public class ReplayBenchmark {
+  public static void main(String[] args) throws IOException {
+    int copies = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+    String script = BenchmarkScripts.scale("tetris_wallpaper.txt", copies, false);
+    int numCommands = script.split("\n").length;
+
+    IPhotoAlbumApp model = new PhotoAlbumApp(Integer.MAX_VALUE, 2);
+    new InputParser().parse(new ByteArrayInputStream(script.getBytes()), model);
+    double ms = timeRange(model, numCommands - 1, numCommands - 1);
+    System.out.printf("commands: %d, full replay: %.2f ms, %.0f commands/ms%n",
+        numCommands, ms, numCommands / ms);
+
+    model = new PhotoAlbumApp();
+    new InputParser().parse(new ByteArrayInputStream(script.getBytes()), model);
+    ms = timeRange(model, numCommands - 10, numCommands - 1);
+    System.out.printf("commands: %d, last 10 photos with keyframes: %.2f ms%n", numCommands, ms);
+  }
+
+  /**
+   * Warms up, then returns the average time of reading a range of photos.
+   *
+   * @param model model
+   * @param lower lower index
+   * @param upper upper index
+   * @return average time in ms
+   */
+  private static double timeRange(IPhotoAlbumApp model, int lower, int upper) {
+    for (int i = 0; i < 3; i++) {
+      model.getPhotoAlbumRange(lower, upper);
+    }
+    final int RUNS = 10;
+    long start = System.nanoTime();
+    for (int i = 0; i < RUNS; i++) {
+      model.getPhotoAlbumRange(lower, upper);
+    }
+    return (System.nanoTime() - start) / 1e6 / RUNS;
+  }
+}
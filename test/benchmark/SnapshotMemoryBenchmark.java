@@ -0,0 +1,48 @@
+package benchmark;
+
+import model.IPhotoAlbumApp;
+import model.PhotoAlbumApp;
+import model.SnapshotMode;
+
+/**
+ * Measures the time and heap used to keep many snapshots of a large photo,
+ * where only one shape changes between two snapshots.
+ * Usage: SnapshotMemoryBenchmark [shapes] [snapshots] [EAGER|LAZY|DELTA]
+ */
+public class SnapshotMemoryBenchmark {
+  public static void main(String[] args) {
+    int numShapes = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+    int numSnapshots = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+    SnapshotMode mode = args.length > 2 ? SnapshotMode.valueOf(args[2]) : SnapshotMode.EAGER;
+
+    IPhotoAlbumApp model = new PhotoAlbumApp(mode);
+    for (int i = 0; i < numShapes; i++) {
+      model.createBasicShape("s" + i, "rectangle", 10, 10, i % 1000, i / 1000, 0.5, 0.5, 0.5);
+    }
+    long heapBefore = usedHeap();
+    long start = System.nanoTime();
+    for (int i = 0; i < numSnapshots; i++) {
+      model.setShapePosition("s" + (i % numShapes), i, i);
+      model.takeSnapshot("snapshot " + i);
+    }
+    double ms = (System.nanoTime() - start) / 1e6;
+    long heapAfter = usedHeap();
+    System.out.printf("%s shapes: %d, snapshots: %d, time: %.0f ms, heap per snapshot: %d bytes%n",
+        mode, numShapes, numSnapshots, ms, (heapAfter - heapBefore) / numSnapshots);
+    //Keep the model reachable until the heap is measured.
+    System.out.println(model.getSnapshotIDs().size() == numSnapshots ? "" : "?");
+  }
+
+  /**
+   * Returns the used heap after asking for garbage collection.
+   *
+   * @return used heap in bytes
+   */
+  static long usedHeap() {
+    Runtime runtime = Runtime.getRuntime();
+    for (int i = 0; i < 3; i++) {
+      System.gc();
+    }
+    return runtime.totalMemory() - runtime.freeMemory();
+  }
+}
@@ -0,0 +1,48 @@
+package benchmark;
+
+import java.util.Random;
+import model.IPhoto;
+import model.IPhotoAlbumApp;
+import model.PhotoAlbumApp;
+
+/**
+ * Measures region and point queries on the current photo of a large album, using the spatial
+ * index of the album and going through all shapes of the photo.
+ * Shapes are spread over a square whose area grows with the number of shapes, so there are
+ * about as many shapes around a point whatever the number of shapes.
+ * Usage: SpatialQueryBenchmark [shapes] [queries]
+ */
+public class SpatialQueryBenchmark {
+  public static void main(String[] args) {
+    int numShapes = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+    int numQueries = args.length > 1 ? Integer.parseInt(args[1]) : 10000;
+    int side = (int) Math.sqrt(numShapes) * 10;
+    Random random = new Random(1);
+
+    IPhotoAlbumApp model = new PhotoAlbumApp();
+    for (int i = 0; i < numShapes; i++) {
+      model.createBasicShape("s" + i, i % 2 == 0 ? "rectangle" : "oval", 1 + random.nextInt(20),
+          1 + random.nextInt(20), random.nextInt(side), random.nextInt(side), 0.5, 0.5, 0.5);
+    }
+
+    long found = 0;
+    long start = System.nanoTime();
+    for (int i = 0; i < numQueries; i++) {
+      found += model.getShapesIn(random.nextInt(side), random.nextInt(side), 100, 100).size();
+      found += model.getShapesAt(random.nextInt(side), random.nextInt(side)).size();
+    }
+    double indexUs = (System.nanoTime() - start) / 1e3 / numQueries;
+
+    IPhoto photo = model.getCurrentPhoto();
+    int scanQueries = Math.max(1, numQueries / 1000);
+    start = System.nanoTime();
+    for (int i = 0; i < scanQueries; i++) {
+      found += photo.getShapesIn(random.nextInt(side), random.nextInt(side), 100, 100).size();
+      found += photo.getShapesAt(random.nextInt(side), random.nextInt(side)).size();
+    }
+    double scanUs = (System.nanoTime() - start) / 1e3 / scanQueries;
+
+    System.out.printf("shapes: %d, region + point query with index: %.1f us, "
+        + "going through all shapes: %.1f us (%d found)%n", numShapes, indexUs, scanUs, found);
+  }
+}
@@ -5,8 +5,11 @@ import java.util.HashMap;
 import java.util.List;
 import model.IPhoto;
 import model.IPhotoAlbumApp;
+import model.IShape;
 import model.ISnapshot;
+import model.ShapeHandle;
 import java.util.Map;
+import java.util.stream.Stream;
 
 /**
  * Model mock created to test controllers in isolation.
@@ -33,6 +36,7 @@ public class MockPhotoAlbumApp implements IPhotoAlbumApp {
     log.put("takeSnapshot", new ArrayList<>());
     log.put("getSnapshot", new ArrayList<>());
     log.put("getSnapshotIndex", new ArrayList<>());
+    log.put("getSnapshotAt", new ArrayList<>());
     log.put("createBasicShape", new ArrayList<>());
     log.put("removeShape", new ArrayList<>());
     log.put("setShapeColor", new ArrayList<>());
@@ -63,6 +67,17 @@ public class MockPhotoAlbumApp implements IPhotoAlbumApp {
     return uniqueSnapshotIndex;
   }
 
+  @Override
+  public ISnapshot getSnapshotAt(int index) {
+    log.get("getSnapshotAt").add("[MockPhotoAlbumApp]: getSnapshotAt(index:" + index + ")");
+    return uniqueSnapshots.get(index);
+  }
+
+  @Override
+  public int getSnapshotCount() {
+    return uniqueSnapshots.size();
+  }
+
   @Override
   public List<ISnapshot> getSnapshots() {
     return uniqueSnapshots;
@@ -90,6 +105,15 @@ public class MockPhotoAlbumApp implements IPhotoAlbumApp {
     return null;
   }
 
+  /**
+   * Does nothing or returns null because this model method isn't used
+   * by the two concrete controllers and views.
+   */
+  @Override
+  public Stream<IPhoto> getPhotoAlbumStream() {
+    return null;
+  }
+
   /**
    * Does nothing or returns null because this model method isn't used
    * by the two concrete controllers and views.
@@ -108,6 +132,24 @@ public class MockPhotoAlbumApp implements IPhotoAlbumApp {
     return null;
   }
 
+  /**
+   * Does nothing or returns null because this model method isn't used
+   * by the two concrete controllers and views.
+   */
+  @Override
+  public List<IShape> getShapesIn(double x, double y, double width, double height) {
+    return null;
+  }
+
+  /**
+   * Does nothing or returns null because this model method isn't used
+   * by the two concrete controllers and views.
+   */
+  @Override
+  public List<IShape> getShapesAt(double x, double y) {
+    return null;
+  }
+
   @Override
   public void createBasicShape(String name, String type, double xDim, double yDim, double x,
       double y, double r, double g, double b) {
@@ -161,4 +203,53 @@ public class MockPhotoAlbumApp implements IPhotoAlbumApp {
   public void setShapeYDim(String name, double yDim) {
     log.get("setShapeYDim").add("[MockPhotoAlbumApp]: setShapeYDim(name:" + name + "," + "yDim:" + yDim + ")");
   }
+
+  /**
+   * Does nothing or returns null because this model method isn't used
+   * by the two concrete controllers and views.
+   */
+  @Override
+  public ShapeHandle lookup(String name) {
+    return null;
+  }
+
+  /**
+   * Does nothing or returns null because this model method isn't used
+   * by the two concrete controllers and views.
+   */
+  @Override
+  public void remove(ShapeHandle handle) {
+  }
+
+  /**
+   * Does nothing or returns null because this model method isn't used
+   * by the two concrete controllers and views.
+   */
+  @Override
+  public void setColor(ShapeHandle handle, double r, double g, double b) {
+  }
+
+  /**
+   * Does nothing or returns null because this model method isn't used
+   * by the two concrete controllers and views.
+   */
+  @Override
+  public void setPosition(ShapeHandle handle, double x, double y) {
+  }
+
+  /**
+   * Does nothing or returns null because this model method isn't used
+   * by the two concrete controllers and views.
+   */
+  @Override
+  public void setXDim(ShapeHandle handle, double xDim) {
+  }
+
+  /**
+   * Does nothing or returns null because this model method isn't used
+   * by the two concrete controllers and views.
+   */
+  @Override
+  public void setYDim(ShapeHandle handle, double yDim) {
+  }
 }
@@ -2,9 +2,13 @@ package controller;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
 import view.GUI.IPhotoAlbumViewGUI;
+import view.IPhotoAlbumView;
 
 /**
  * Mock for PhotoAlbumViewGUI to test the PhotoAlbumControllerGUI in isolation.
@@ -15,12 +19,13 @@ public class MockPhotoAlbumViewGUI implements IPhotoAlbumViewGUI {
   //and tracking the parameters passed for each of these calls.
   private Map<String, List<String>> log;
   private String uniqueSnapshotInfo;
+  private Set<String> prerenderedSnapshotIDs;
 
   public MockPhotoAlbumViewGUI(String uniqueSnapshotInfo) {
     log = new HashMap<>();
     log.put("setSnapshotInfo", new ArrayList<>());
     log.put("displayErrorDialog", new ArrayList<>());
-    log.put("setSnapshotList", new ArrayList<>());
+    log.put("setSnapshotSource", new ArrayList<>());
     log.put("setSnapshotListSelectedValue", new ArrayList<>());
     log.put("drawRectangle", new ArrayList<>());
     log.put("drawOval", new ArrayList<>());
@@ -29,7 +34,12 @@ public class MockPhotoAlbumViewGUI implements IPhotoAlbumViewGUI {
     log.put("repaintDrawPanel", new ArrayList<>());
     log.put("clearDrawPanel", new ArrayList<>());
     log.put("setCallbacks", new ArrayList<>());
+    log.put("prerenderSnapshot", new ArrayList<>());
+    log.put("displayPrerenderedSnapshot", new ArrayList<>());
+    log.put("refreshSnapshotList", new ArrayList<>());
+    log.put("setLoadingProgress", new ArrayList<>());
     this.uniqueSnapshotInfo = uniqueSnapshotInfo;
+    this.prerenderedSnapshotIDs = new HashSet<>();
   }
 
   public Map<String, List<String>> getLog() {
@@ -70,11 +80,29 @@ public class MockPhotoAlbumViewGUI implements IPhotoAlbumViewGUI {
   }
 
   @Override
-  public void setSnapshotList(List<String> snapshotIDs) {
-    StringBuilder callInfo = new StringBuilder();
-    callInfo.append("[MockPhotoAlbumViewGUI]: setSnapshotList(");
-    callInfo.append("snapshotIDs:" + snapshotIDs + ")");
-    log.get("setSnapshotList").add(callInfo.toString());
+  public void setSnapshotSource(ISnapshotSource source) {
+    //Logs the snapshot IDs the source gives.
+    List<String> snapshotIDs = new ArrayList<>();
+    for (int i = 0; i < source.getSnapshotCount(); i++) {
+      snapshotIDs.add(source.getSnapshotID(i));
+    }
+    log.get("setSnapshotSource").add("[MockPhotoAlbumViewGUI]: setSnapshotSource(snapshotIDs:" + snapshotIDs + ")");
+  }
+
+  @Override
+  public void refreshSnapshotList() {
+    log.get("refreshSnapshotList").add("");
+  }
+
+  @Override
+  public void setLoadingProgress(long lines, long bytes, boolean done) {
+    log.get("setLoadingProgress").add("[MockPhotoAlbumViewGUI]: setLoadingProgress(lines:" + lines + ",bytes:" + bytes + ",done:" + done + ")");
+  }
+
+  @Override
+  public void runOnViewThread(Runnable task) {
+    //Runs the task right away, as there's no GUI thread.
+    task.run();
   }
 
   @Override
@@ -97,6 +125,28 @@ public class MockPhotoAlbumViewGUI implements IPhotoAlbumViewGUI {
     log.get("setCallbacks").add("");
   }
 
+  @Override
+  public void prerenderSnapshot(String id, Consumer<IPhotoAlbumView> drawing) {
+    log.get("prerenderSnapshot").add("[MockPhotoAlbumViewGUI]: prerenderSnapshot(id:" + id + ")");
+    //The shapes are drawn on a view that doesn't log them, to keep the draw logs for displayed snapshots.
+    drawing.accept(new IPhotoAlbumView() {
+      @Override
+      public void drawRectangle(double x, double y, double xDim, double yDim, double r, double g, double b) {
+      }
+
+      @Override
+      public void drawOval(double x, double y, double xDim, double yDim, double r, double g, double b) {
+      }
+    });
+    prerenderedSnapshotIDs.add(id);
+  }
+
+  @Override
+  public boolean displayPrerenderedSnapshot(String id) {
+    log.get("displayPrerenderedSnapshot").add("[MockPhotoAlbumViewGUI]: displayPrerenderedSnapshot(id:" + id + ")");
+    return prerenderedSnapshotIDs.contains(id);
+  }
+
   @Override
   public void drawRectangle(double x, double y, double xDim, double yDim, double r, double g,
       double b) {
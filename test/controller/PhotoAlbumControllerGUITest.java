@@ -2,9 +2,13 @@ package controller;
 
 import static org.junit.Assert.assertEquals;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import model.IPhotoAlbumApp;
 import model.IShape;
 import model.ISnapshot;
 import model.IPhoto;
@@ -78,7 +82,9 @@ public class PhotoAlbumControllerGUITest {
     //Assert that the controller set up correctly view.
     Map<String, List<String>> viewLog = mockView.getLog();
     assertEquals(1, viewLog.get("setCallbacks").size());
-    assertEquals("[MockPhotoAlbumViewGUI]: setSnapshotList(snapshotIDs:[AAA, BBB, CCC, DDD])", viewLog.get("setSnapshotList").get(0));
+    //The view reads the snapshots from the controller, which reads them from the model.
+    assertEquals(1, viewLog.get("setSnapshotSource").size());
+    assertEquals("[MockPhotoAlbumViewGUI]: setSnapshotSource(snapshotIDs:[snapshot_0_id, snapshot_1_id, snapshot_2_id])", viewLog.get("setSnapshotSource").get(0));
     //Draws the first snapshot.
     assertEquals("[MockPhotoAlbumViewGUI]: setSnapshotInfo(id:snapshot_0_id,description:snapshot_0_description)", viewLog.get("setSnapshotInfo").get(0));
     assertEquals("[MockPhotoAlbumViewGUI]: drawRectangle(x:2.0,y:2.0,xDim:1.0,yDim:1.0,r:1.0,g:1.0,b:1.0)", viewLog.get("drawRectangle").get(0));
@@ -103,6 +109,9 @@ public class PhotoAlbumControllerGUITest {
     //Since the mock model always returns the index 1, the next snapshot is at index 2.
     assertEquals("[MockPhotoAlbumViewGUI]: setSnapshotInfo(id:snapshot_2_id,description:snapshot_2_description)", viewLog.get("setSnapshotInfo").get(0));
     assertEquals("[MockPhotoAlbumViewGUI]: setSnapshotListSelectedValue(index:2)", viewLog.get("setSnapshotListSelectedValue").get(0));
+    //Assert that only the snapshot to draw is requested from the model.
+    assertEquals(1, modelLog.get("getSnapshotAt").size());
+    assertEquals("[MockPhotoAlbumApp]: getSnapshotAt(index:2)", modelLog.get("getSnapshotAt").get(0));
     assertEquals("[MockPhotoAlbumViewGUI]: drawRectangle(x:99.0,y:99.0,xDim:1.0,yDim:1.0,r:1.0,g:1.0,b:1.0)", viewLog.get("drawRectangle").get(0));
     assertEquals("[MockPhotoAlbumViewGUI]: drawRectangle(x:10.0,y:10.0,xDim:5.0,yDim:5.0,r:0.0,g:0.0,b:0.0)", viewLog.get("drawRectangle").get(1));
     assertEquals("[MockPhotoAlbumViewGUI]: drawOval(x:10.0,y:10.0,xDim:100.0,yDim:100.0,r:0.1,g:0.1,b:0.1)", viewLog.get("drawOval").get(0));
@@ -151,6 +160,9 @@ public class PhotoAlbumControllerGUITest {
     //Since the mock model always returns the index 1, the previous snapshot is at index 0.
     assertEquals("[MockPhotoAlbumViewGUI]: setSnapshotInfo(id:snapshot_0_id,description:snapshot_0_description)", viewLog.get("setSnapshotInfo").get(0));
     assertEquals("[MockPhotoAlbumViewGUI]: setSnapshotListSelectedValue(index:0)", viewLog.get("setSnapshotListSelectedValue").get(0));
+    //Assert that only the snapshot to draw is requested from the model.
+    assertEquals(1, modelLog.get("getSnapshotAt").size());
+    assertEquals("[MockPhotoAlbumApp]: getSnapshotAt(index:0)", modelLog.get("getSnapshotAt").get(0));
     assertEquals("[MockPhotoAlbumViewGUI]: drawRectangle(x:2.0,y:2.0,xDim:1.0,yDim:1.0,r:1.0,g:1.0,b:1.0)", viewLog.get("drawRectangle").get(0));
     assertEquals("[MockPhotoAlbumViewGUI]: drawRectangle(x:10.0,y:10.0,xDim:5.0,yDim:5.0,r:0.0,g:0.0,b:0.0)", viewLog.get("drawRectangle").get(1));
     assertEquals(0, viewLog.get("drawOval").size());
@@ -226,4 +238,121 @@ public class PhotoAlbumControllerGUITest {
     assertEquals(1, viewLog.get("repaintDrawPanel").size());
   }
 
+  /**
+   * Tests that the snapshots around the displayed one are prerendered, and that a prerendered
+   * snapshot is displayed without drawing its shapes again.
+   */
+  @Test
+  public void testPrefetchSnapshots() {
+    controller = new PhotoAlbumControllerGUI(mockModel, mockView, null, null, Runnable::run, 1);
+    controller.go();
+    Map<String, List<String>> viewLog = mockView.getLog();
+    //Since the mock model always returns the index 1, the snapshots at index 2 and 0 are prefetched, nearest next one first.
+    assertEquals(2, viewLog.get("prerenderSnapshot").size());
+    assertEquals("[MockPhotoAlbumViewGUI]: prerenderSnapshot(id:snapshot_2_id)", viewLog.get("prerenderSnapshot").get(0));
+    assertEquals("[MockPhotoAlbumViewGUI]: prerenderSnapshot(id:snapshot_0_id)", viewLog.get("prerenderSnapshot").get(1));
+
+    //The next snapshot was prerendered, so it's displayed without clearing the draw panel and drawing its shapes.
+    controller.nextSnapshotCallback();
+    assertEquals("[MockPhotoAlbumViewGUI]: displayPrerenderedSnapshot(id:snapshot_2_id)", viewLog.get("displayPrerenderedSnapshot").get(1));
+    assertEquals(1, viewLog.get("clearDrawPanel").size());
+    assertEquals(2, viewLog.get("drawRectangle").size());
+    assertEquals(2, viewLog.get("repaintDrawPanel").size());
+  }
+
+  /**
+   * Tests that prefetches that didn't start before the displayed snapshot changed are skipped.
+   */
+  @Test
+  public void testPrefetchSkipsOldSnapshots() {
+    List<Runnable> queue = new ArrayList<>();
+    controller = new PhotoAlbumControllerGUI(mockModel, mockView, null, null, queue::add, 2);
+    controller.go();
+    controller.nextSnapshotCallback();
+    assertEquals(8, queue.size());
+    queue.forEach(Runnable::run);
+    Map<String, List<String>> viewLog = mockView.getLog();
+    //Only the prefetches for the next snapshot run. The index is 1 in the mock model, so only indexes 2 and 0 exist.
+    assertEquals(2, viewLog.get("prerenderSnapshot").size());
+  }
+
+  /**
+   * Tests that the time from a navigation callback until the view painted the snapshot is measured.
+   */
+  @Test
+  public void testPaintLatencies() {
+    controller.nextSnapshotCallback();
+    assertEquals(0, controller.getPaintLatencies().getCount());
+    //Painting another snapshot doesn't end the navigation.
+    controller.snapshotPaintedCallback("snapshot_0_id");
+    assertEquals(0, controller.getPaintLatencies().getCount());
+    controller.snapshotPaintedCallback("snapshot_2_id");
+    assertEquals(1, controller.getPaintLatencies().getCount());
+    //Later repaints of the same snapshot aren't navigations.
+    controller.snapshotPaintedCallback("snapshot_2_id");
+    assertEquals(1, controller.getPaintLatencies().getCount());
+
+    controller.selectSnapshotCallback("UNIQUE_ID_FROM_VIEW");
+    controller.snapshotPaintedCallback("getSnapshot_snapshot_id");
+    assertEquals(2, controller.getPaintLatencies().getCount());
+  }
+
+  /**
+   * Tests that the controller gives the snapshots of the model to the view on demand.
+   */
+  @Test
+  public void testSnapshotSource() {
+    assertEquals(3, controller.getSnapshotCount());
+    assertEquals("snapshot_1_id", controller.getSnapshotID(1));
+    assertEquals("snapshot_2_description", controller.getSnapshotDescription(2));
+    assertEquals("[MockPhotoAlbumApp]: getSnapshotAt(index:2)", mockModel.getLog().get("getSnapshotAt").get(1));
+
+    //Drawing a snapshot, e.g. for a thumbnail, draws on the given view instead of the controller's view.
+    MockPhotoAlbumViewGUI thumbnailView = new MockPhotoAlbumViewGUI(uniqueSnapshotInfo);
+    controller.drawSnapshotAt(1, thumbnailView);
+    assertEquals(2, thumbnailView.getLog().get("drawRectangle").size());
+    assertEquals(1, thumbnailView.getLog().get("drawOval").size());
+    assertEquals(0, mockView.getLog().get("drawRectangle").size());
+  }
+
+  /**
+   * Tests that loading the album in the background displays the view first, then adds the snapshots
+   * and the loading progress, and displays the first snapshot.
+   */
+  @Test
+  public void testLoadInBackground() {
+    List<Runnable> loadQueue = new ArrayList<>();
+    //A parser that reports three lines without modifying the model, whose snapshots are given by the mock.
+    IInputParser inputParser = new IInputParser() {
+      @Override
+      public void parse(InputStream in, IPhotoAlbumApp model, IParseProgressListener listener) {
+        listener.progress(1, 10);
+        listener.progress(2, 20);
+        listener.progress(3, 30);
+      }
+    };
+    controller = new PhotoAlbumControllerGUI(mockModel, mockView, new ByteArrayInputStream(new byte[0]), inputParser,
+        loadQueue::add, Runnable::run, 0);
+    controller.go();
+    Map<String, List<String>> viewLog = mockView.getLog();
+    //The view is set up with no snapshots before the album is loaded.
+    assertEquals(1, viewLog.get("setCallbacks").size());
+    assertEquals(1, viewLog.get("setSnapshotSource").size());
+    assertEquals("[MockPhotoAlbumViewGUI]: setLoadingProgress(lines:0,bytes:0,done:false)", viewLog.get("setLoadingProgress").get(0));
+    assertEquals(0, viewLog.get("setSnapshotInfo").size());
+    assertEquals(1, loadQueue.size());
+
+    loadQueue.get(0).run();
+    //The snapshot list is refreshed once, as the later lines came before the next progress update.
+    assertEquals(1, viewLog.get("refreshSnapshotList").size());
+    assertEquals("[MockPhotoAlbumViewGUI]: setSnapshotInfo(id:snapshot_0_id,description:snapshot_0_description)", viewLog.get("setSnapshotInfo").get(0));
+    assertEquals("[MockPhotoAlbumViewGUI]: setSnapshotListSelectedValue(index:0)", viewLog.get("setSnapshotListSelectedValue").get(0));
+    assertEquals(1, viewLog.get("clearDrawPanel").size());
+    assertEquals(1, viewLog.get("repaintDrawPanel").size());
+    assertEquals(3, viewLog.get("setLoadingProgress").size());
+    assertEquals("[MockPhotoAlbumViewGUI]: setLoadingProgress(lines:1,bytes:10,done:false)", viewLog.get("setLoadingProgress").get(1));
+    assertEquals("[MockPhotoAlbumViewGUI]: setLoadingProgress(lines:3,bytes:30,done:true)", viewLog.get("setLoadingProgress").get(2));
+    assertEquals(0, viewLog.get("displayErrorDialog").size());
+  }
+
 }
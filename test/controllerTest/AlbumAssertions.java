@@ -0,0 +1,70 @@
+package controllerTest;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.List;
+import model.IPhoto;
+import model.IPhotoAlbumApp;
+import model.IShape;
+
+/**
+ * Assertions shared by the input parser tests, which compare the album a parser builds with the
+ * one InputParser builds. Unlike IPhoto.equals(), they compare the shapes exactly.
+ */
+final class AlbumAssertions {
+
+  /**
+   * Not instantiable.
+   */
+  private AlbumAssertions() {
+  }
+
+  /**
+   * Checks that two albums have the same snapshots and current photo, comparing the
+   * attributes of the shapes exactly.
+   *
+   * @param message message for failures
+   * @param expected expected album
+   * @param actual actual album
+   */
+  static void assertSameAlbum(String message, IPhotoAlbumApp expected,
+                                      IPhotoAlbumApp actual) {
+    assertEquals(message, expected.getSnapshotCount(), actual.getSnapshotCount());
+    for (int i = 0; i < expected.getSnapshotCount(); i++) {
+      assertEquals(message, expected.getSnapshotAt(i).getDescription(),
+          actual.getSnapshotAt(i).getDescription());
+      assertSamePhoto(message, expected.getSnapshotAt(i).getPhoto(),
+          actual.getSnapshotAt(i).getPhoto());
+    }
+    assertSamePhoto(message, expected.getCurrentPhoto(), actual.getCurrentPhoto());
+  }
+
+  /**
+   * Checks that two photos have the same shapes in the same order, comparing their
+   * attributes exactly.
+   *
+   * @param message message for failures
+   * @param expected expected photo
+   * @param actual actual photo
+   */
+  private static void assertSamePhoto(String message, IPhoto expected, IPhoto actual) {
+    List<IShape> expectedShapes = expected.getShapes();
+    List<IShape> actualShapes = actual.getShapes();
+    assertEquals(message, expectedShapes.size(), actualShapes.size());
+    for (int i = 0; i < expectedShapes.size(); i++) {
+      IShape e = expectedShapes.get(i);
+      IShape a = actualShapes.get(i);
+      assertEquals(message, e.getName(), a.getName());
+      assertEquals(message, e.getType(), a.getType());
+      double[] expectedValues = {e.getX(), e.getY(), e.getXDim(), e.getYDim(),
+          e.getR(), e.getG(), e.getB()};
+      double[] actualValues = {a.getX(), a.getY(), a.getXDim(), a.getYDim(),
+          a.getR(), a.getG(), a.getB()};
+      for (int j = 0; j < expectedValues.length; j++) {
+        //Boxed, so that the values must be exactly equal.
+        assertEquals(message + " " + e.getName(), Double.valueOf(expectedValues[j]),
+            Double.valueOf(actualValues[j]));
+      }
+    }
+  }
+}
@@ -0,0 +1,272 @@
+package controllerTest;
+
+import static org.junit.Assert.*;
+
+import controller.ByteInputParser;
+import controller.IInputParser;
+import controller.InputParser;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.StringJoiner;
+import model.IPhotoAlbumApp;
+import model.IShape;
+import model.PhotoAlbumApp;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test suite for the byte input parser. It must populate the model exactly as InputParser,
+ * which is assumed to be well tested.
+ */
+public class ByteInputParserTest {
+  private IInputParser inputParser;
+
+  @Before
+  public void setUp() {
+    inputParser = new ByteInputParser();
+  }
+
+  /**
+   * Tests that all sample scripts in the resources folder give the same album as InputParser.
+   */
+  @Test
+  public void testResources() throws IOException {
+    File[] scripts = new File("resources").listFiles((dir, name) -> name.endsWith(".txt"));
+    assertNotNull(scripts);
+    assertTrue(scripts.length > 0);
+    for (File script : scripts) {
+      IPhotoAlbumApp expected = new PhotoAlbumApp();
+      IPhotoAlbumApp actual = new PhotoAlbumApp();
+      try (InputStream in = new FileInputStream(script)) {
+        new InputParser().parse(in, expected);
+      }
+      try (InputStream in = new FileInputStream(script)) {
+        inputParser.parse(in, actual);
+      }
+      AlbumAssertions.assertSameAlbum(script.getName(), expected, actual);
+    }
+  }
+
+  /**
+   * Tests line terminators, case, whitespace, comments, descriptions and number formats.
+   */
+  @Test
+  public void testSyntax() {
+    StringJoiner cmds = new StringJoiner("\n");
+    cmds.add("shape   myrect   rectangle  200  200 50  100  255  0  0\r");
+    cmds.add("\tSHAPE myoval\toval 500.25 -100.5 60 30 0 255 1 \u000B");
+    cmds.add("snapShot  created \t myrect  and myoval  ");
+    cmds.add("# shape ignored rectangle 0 0 1 1 0 0 0");
+    cmds.add("shapes ignored rectangle 0 0 1 1 0 0 0");
+    cmds.add("move myrect 1e2 +.5\rresize myrect 0.1 123456789.123456789");
+    cmds.add("color myrect 007 -0 255.0\r\nsnapshot");
+    cmds.add("\u001Fsnapshot photo\u001E\u000C\rmove myoval 0x1p3 12345678901234567890");
+    cmds.add("move myoval .5 5.\rcolor myoval 1.5e2 4.9e-324 254.99999999999999999");
+    cmds.add("resize myoval 0.30000000000000004 9007199254740993\r\n\nsnapshot 1.5e3");
+    cmds.add("");
+    cmds.add("remove myrect");
+    cmds.add("snapshot last");
+    assertSameAsInputParser(cmds.toString().getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Tests that the input is read as UTF-8, with the Unicode line terminators.
+   */
+  @Test
+  public void testUtf8() {
+    String cmds = "shape \u00e9l\u00e8ve oval 1 2 3 4 5 6 7\u0085snapshot \u00e9t\u00e9  photo"
+        + "\u2028move \u00e9l\u00e8ve 8 9\u2029snapshot \u65e5\u672c";
+    IPhotoAlbumApp model = new PhotoAlbumApp();
+    List<long[]> progress = new ArrayList<>();
+    inputParser.parse(new ByteArrayInputStream(cmds.getBytes(StandardCharsets.UTF_8)), model,
+        (lines, bytes) -> progress.add(new long[] {lines, bytes}));
+
+    assertEquals(4, progress.size());
+    assertEquals(2, model.getSnapshotCount());
+    assertEquals("\u00e9t\u00e9 photo", model.getSnapshotAt(0).getDescription());
+    assertEquals("\u65e5\u672c", model.getSnapshotAt(1).getDescription());
+    IShape shape = model.getSnapshotAt(1).getPhoto().getShape("\u00e9l\u00e8ve");
+    assertNotNull(shape);
+    assertEquals(8, shape.getX(), 0);
+    assertEquals(9, shape.getY(), 0);
+  }
+
+  /**
+   * Tests that the whitespace stripped from the ends of a line is the same as with
+   * String.strip() in InputParser, for every character that isn't ASCII or a line terminator.
+   * InputParser decodes with the default charset, so its lines are stripped and split here.
+   */
+  @Test
+  public void testUnicodeWhitespace() {
+    StringBuilder cmds = new StringBuilder();
+    List<String> expected = new ArrayList<>();
+    for (char c = 0x80; c < 0xFFFF; c++) {
+      if (Character.isSurrogate(c) || c == '\u0085' || c == '\u2028' || c == '\u2029') {
+        continue;
+      }
+      String line = "" + c + c + "snapshot " + c + "x" + c + c;
+      cmds.append(line).append('\n');
+      String[] args = line.strip().split("\\s+");
+      if (args[0].toLowerCase().equals("snapshot")) {
+        expected.add(String.join(" ", Arrays.copyOfRange(args, 1, args.length)));
+      }
+    }
+    IPhotoAlbumApp model = new PhotoAlbumApp();
+    inputParser.parse(new ByteArrayInputStream(cmds.toString().getBytes(StandardCharsets.UTF_8)),
+        model);
+
+    assertEquals(13, expected.size());
+    assertEquals(expected.size(), model.getSnapshotCount());
+    for (int i = 0; i < expected.size(); i++) {
+      assertEquals(expected.get(i), model.getSnapshotAt(i).getDescription());
+    }
+  }
+
+  /**
+   * Tests lines that are longer than the buffer, and an input stream that returns one byte at a
+   * time, so that lines and terminators are split across reads.
+   */
+  @Test
+  public void testBufferBoundaries() {
+    StringBuilder cmds = new StringBuilder();
+    cmds.append("shape s rectangle 1 2 3 4 5 6 7\r\n");
+    cmds.append("snapshot ");
+    for (int i = 0; i < 40000; i++) {
+      cmds.append("word").append(i % 3 == 0 ? "  " : " ");
+    }
+    cmds.append("\r");
+    for (int i = 0; i < 2000; i++) {
+      cmds.append("move s ").append(i).append(".5 ").append(-i).append(i % 2 == 0 ? "\r" : "\n");
+      cmds.append("snapshot step ").append(i).append(i % 3 == 0 ? "\r\n" : "\n");
+    }
+    byte[] input = cmds.toString().getBytes(StandardCharsets.UTF_8);
+    assertSameAsInputParser(input);
+
+    IPhotoAlbumApp expected = new PhotoAlbumApp();
+    IPhotoAlbumApp actual = new PhotoAlbumApp();
+    new InputParser().parse(new ByteArrayInputStream(input), expected);
+    inputParser.parse(new OneByteInputStream(input), actual);
+    AlbumAssertions.assertSameAlbum("one byte at a time", expected, actual);
+  }
+
+  /**
+   * Tests that the progress is reported after each line, with the bytes read so far.
+   */
+  @Test
+  public void testParseProgress() {
+    String cmds = "shape myrect rectangle 200 200 50 100 255 0 0\r\n# blabla\rsnapShot created";
+    byte[] input = cmds.getBytes(StandardCharsets.UTF_8);
+    List<long[]> progress = new ArrayList<>();
+    IPhotoAlbumApp model = new PhotoAlbumApp();
+    inputParser.parse(new ByteArrayInputStream(input), model,
+        (lines, bytes) -> progress.add(new long[] {lines, bytes}));
+
+    assertEquals(3, progress.size());
+    long[] expectedBytes = {47, 56, input.length};
+    for (int i = 0; i < progress.size(); i++) {
+      assertEquals(i + 1, progress.get(i)[0]);
+      assertEquals(expectedBytes[i], progress.get(i)[1]);
+    }
+    assertEquals(1, model.getSnapshotCount());
+  }
+
+  /**
+   * Tests that bad commands throw the same exceptions as InputParser, after the same changes
+   * to the model.
+   */
+  @Test
+  public void testFail() {
+    String[] badCommands = {
+        "shape myrect rectangle 200 200 50 100 255 0",
+        "move",
+        "resize myrect 10",
+        "color myrect 1 2 three",
+        "move myrect 1,5 2",
+        "move myrect - 2",
+        "move myrect . 2"
+    };
+    for (String badCommand : badCommands) {
+      String cmds = "shape myrect rectangle 0 0 1 1 0 0 0\n" + badCommand + "\nsnapshot";
+      byte[] input = cmds.getBytes(StandardCharsets.UTF_8);
+      IPhotoAlbumApp expected = new PhotoAlbumApp();
+      IPhotoAlbumApp actual = new PhotoAlbumApp();
+      RuntimeException expectedException = parseFailure(new InputParser(), input, expected);
+      RuntimeException actualException = parseFailure(inputParser, input, actual);
+      assertEquals(badCommand, expectedException.getClass(), actualException.getClass());
+      assertEquals(badCommand, expectedException.getMessage(), actualException.getMessage());
+      AlbumAssertions.assertSameAlbum(badCommand, expected, actual);
+    }
+
+    try {
+      inputParser.parse(null, new PhotoAlbumApp());
+      fail("Expected IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      assertEquals("Parameter can't be null", e.getMessage());
+    }
+    try {
+      inputParser.parse(new ByteArrayInputStream(new byte[0]), new PhotoAlbumApp(), null);
+      fail("Expected IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      assertEquals("Parameter can't be null", e.getMessage());
+    }
+  }
+
+  /**
+   * Parses an input that must fail and returns the exception.
+   *
+   * @param parser parser
+   * @param input input
+   * @param model model
+   * @return exception thrown by the parser
+   */
+  private static RuntimeException parseFailure(IInputParser parser, byte[] input,
+                                               IPhotoAlbumApp model) {
+    try {
+      parser.parse(new ByteArrayInputStream(input), model);
+    } catch (RuntimeException e) {
+      return e;
+    }
+    fail("Expected an exception");
+    return null;
+  }
+
+  /**
+   * Parses an input with both parsers and checks that they give the same album.
+   *
+   * @param input input
+   */
+  private void assertSameAsInputParser(byte[] input) {
+    IPhotoAlbumApp expected = new PhotoAlbumApp();
+    IPhotoAlbumApp actual = new PhotoAlbumApp();
+    new InputParser().parse(new ByteArrayInputStream(input), expected);
+    inputParser.parse(new ByteArrayInputStream(input), actual);
+    AlbumAssertions.assertSameAlbum("input", expected, actual);
+  }
+
+  /**
+   * An input stream that returns at most one byte per read.
+   */
+  private static class OneByteInputStream extends ByteArrayInputStream {
+
+    /**
+     * Constructor.
+     *
+     * @param bytes bytes to read
+     */
+    private OneByteInputStream(byte[] bytes) {
+      super(bytes);
+    }
+
+    @Override
+    public synchronized int read(byte[] b, int off, int len) {
+      return super.read(b, off, Math.min(len, 1));
+    }
+  }
+}
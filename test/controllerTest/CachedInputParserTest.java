@@ -0,0 +1,351 @@
+package controllerTest;
+
+import static org.junit.Assert.*;
+
+import controller.ByteInputParser;
+import controller.CachedInputParser;
+import controller.InputParser;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import model.IPhotoAlbumApp;
+import model.IShape;
+import model.PhotoAlbumApp;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test suite for the caching input parser. It must populate the model exactly as InputParser,
+ * which is assumed to be well tested, whether the script is compiled or not.
+ */
+public class CachedInputParserTest {
+  private File directory;
+
+  /**
+   * Creates an empty cache directory.
+   */
+  @Before
+  public void setUp() throws IOException {
+    directory = Files.createTempDirectory("album-cache").toFile();
+  }
+
+  /**
+   * Deletes the cache directory.
+   */
+  @After
+  public void tearDown() {
+    File[] files = directory.listFiles();
+    if (files != null) {
+      for (File file : files) {
+        file.delete();
+      }
+    }
+    directory.delete();
+  }
+
+  /**
+   * Tests that all sample scripts in the resources folder give the same album as InputParser,
+   * the first time they are parsed and then from their compiled scripts.
+   */
+  @Test
+  public void testResources() throws IOException {
+    File[] scripts = new File("resources").listFiles((dir, name) -> name.endsWith(".txt"));
+    assertNotNull(scripts);
+    CachedInputParser parser = new CachedInputParser(directory);
+    for (File script : scripts) {
+      IPhotoAlbumApp expected = new PhotoAlbumApp();
+      try (InputStream in = new FileInputStream(script)) {
+        new InputParser().parse(in, expected);
+      }
+      File compiled = parser.getCompiledFile(Files.readAllBytes(script.toPath()));
+      for (int run = 0; run < 2; run++) {
+        IPhotoAlbumApp actual = new PhotoAlbumApp();
+        try (InputStream in = new FileInputStream(script)) {
+          parser.parse(in, actual);
+        }
+        assertTrue(script.getName(), compiled.isFile());
+        AlbumAssertions.assertSameAlbum(script.getName(), expected, actual);
+      }
+    }
+  }
+
+  /**
+   * Tests that a compiled script is used instead of parsing a script file, by putting the
+   * compiled script of another script of the same length in its place. Scripts read from a
+   * stream are compiled for the files, and the file is at its end afterwards.
+   */
+  @Test
+  public void testHit() throws IOException {
+    CachedInputParser parser = new CachedInputParser(directory);
+    byte[] first = "shape s oval 1 2 3 4 0 0 0\nsnapshot aaa".getBytes(StandardCharsets.UTF_8);
+    byte[] second = "shape t oval 1 2 3 4 0 0 0\nsnapshot bbb".getBytes(StandardCharsets.UTF_8);
+    parser.parse(new ByteArrayInputStream(first), new PhotoAlbumApp());
+    parser.parse(new ByteArrayInputStream(second), new PhotoAlbumApp());
+    assertEquals(2, directory.listFiles().length);
+    Files.copy(parser.getCompiledFile(second).toPath(), parser.getCompiledFile(first).toPath(),
+        StandardCopyOption.REPLACE_EXISTING);
+
+    File file = this.createScript(first);
+    try (FileInputStream in = new FileInputStream(file)) {
+      IPhotoAlbumApp model = new PhotoAlbumApp();
+      parser.parse(in, model);
+      assertEquals("bbb", model.getSnapshotAt(0).getDescription());
+      assertNotNull(model.getCurrentPhoto().getShape("t"));
+      assertEquals(-1, in.read());
+    } finally {
+      file.delete();
+    }
+    //A stream can't be hashed before it's parsed, so it's always parsed.
+    IPhotoAlbumApp model = new PhotoAlbumApp();
+    parser.parse(new ByteArrayInputStream(first), model);
+    assertEquals("aaa", model.getSnapshotAt(0).getDescription());
+  }
+
+  /**
+   * Tests that a file is hashed and parsed from its current position.
+   */
+  @Test
+  public void testFilePosition() throws IOException {
+    CachedInputParser parser = new CachedInputParser(directory);
+    byte[] script = "snapshot skipped\nsnapshot one".getBytes(StandardCharsets.UTF_8);
+    File file = this.createScript(script);
+    try {
+      for (int run = 0; run < 2; run++) {
+        try (FileInputStream in = new FileInputStream(file)) {
+          in.skip(17);
+          IPhotoAlbumApp model = new PhotoAlbumApp();
+          parser.parse(in, model);
+          assertEquals(1, model.getSnapshotCount());
+          assertEquals("one", model.getSnapshotAt(0).getDescription());
+          assertEquals(-1, in.read());
+        }
+      }
+      assertTrue(parser.getCompiledFile(Arrays.copyOfRange(script, 17, script.length))
+          .isFile());
+    } finally {
+      file.delete();
+    }
+  }
+
+  /**
+   * Tests that the progress is the same as with ByteInputParser, from the script and from its
+   * compiled script with batches of a few lines, and that the commands of each line are applied
+   * before its progress is reported.
+   */
+  @Test
+  public void testProgress() throws IOException {
+    CachedInputParser parser = new CachedInputParser(directory, 16);
+    StringBuilder cmds = new StringBuilder("shape s oval 1 2 3 4 0 0 0\r\n\n");
+    for (int i = 0; i < 50; i++) {
+      cmds.append("snapshot ").append(i).append(i % 3 == 0 ? "\r" : "\u2028");
+      cmds.append("move s ").append(i).append(" 6\n");
+    }
+    cmds.append("snapshot");
+    byte[] script = cmds.toString().getBytes(StandardCharsets.UTF_8);
+    List<Long> expected = new ArrayList<>();
+    new ByteInputParser().parse(new ByteArrayInputStream(script), new PhotoAlbumApp(),
+        (lines, bytes) -> {
+          expected.add(lines);
+          expected.add(bytes);
+        });
+    File file = this.createScript(script);
+    try {
+      for (int run = 0; run < 2; run++) {
+        List<Long> progress = new ArrayList<>();
+        IPhotoAlbumApp model = new PhotoAlbumApp();
+        try (InputStream in = new FileInputStream(file)) {
+          parser.parse(in, model, (lines, bytes) -> {
+            progress.add(lines);
+            progress.add(bytes);
+            //Lines 3, 5, 7... take snapshots 0, 1, 2...
+            assertEquals((lines - 1) / 2, model.getSnapshotCount());
+          });
+        }
+        assertEquals(expected, progress);
+        assertTrue(parser.getCompiledFile(script).isFile());
+      }
+    } finally {
+      file.delete();
+    }
+  }
+
+  /**
+   * Tests that the numbers and strings of the commands are read back exactly from a compiled
+   * script: numbers that need a double, negative zero, colors that aren't whole components,
+   * non-ASCII and long strings, and names used again.
+   */
+  @Test
+  public void testRoundTrip() throws IOException {
+    StringBuilder description = new StringBuilder("caf\u00e9");
+    for (int i = 0; i < 100; i++) {
+      description.append(" word").append(i);
+    }
+    String cmds = "shape s rectangle -0.0 123456789.123 0.1 1e300 10 127.5 255\n"
+        + "shape \u00e9t\u00e9 oval 1 2 3 4 0 0 0\n"
+        + "snapshot first\n"
+        + "move s 0.30000000000000004 -7\n"
+        + "snapshot " + description + "\n"
+        + "remove \u00e9t\u00e9\n"
+        + "color s 1 2 3";
+    byte[] script = cmds.getBytes(StandardCharsets.UTF_8);
+    CachedInputParser parser = new CachedInputParser(directory);
+    parser.parse(new ByteArrayInputStream(script), new PhotoAlbumApp());
+    assertTrue(parser.getCompiledFile(script).isFile());
+
+    IPhotoAlbumApp model = this.parseFile(parser, script);
+    IShape shape = model.getSnapshotAt(0).getPhoto().getShape("s");
+    assertEquals(Double.valueOf(-0.0), Double.valueOf(shape.getX()));
+    assertEquals(Double.valueOf(123456789.123), Double.valueOf(shape.getY()));
+    assertEquals(Double.valueOf(0.1), Double.valueOf(shape.getXDim()));
+    assertEquals(Double.valueOf(1e300), Double.valueOf(shape.getYDim()));
+    assertEquals(Double.valueOf(10 / 255.0), Double.valueOf(shape.getR()));
+    assertEquals(Double.valueOf(127.5 / 255), Double.valueOf(shape.getG()));
+    assertEquals(Double.valueOf(1), Double.valueOf(shape.getB()));
+    assertEquals(description.toString(), model.getSnapshotAt(1).getDescription());
+    assertNotNull(model.getSnapshotAt(1).getPhoto().getShape("\u00e9t\u00e9"));
+    assertNull(model.getCurrentPhoto().getShape("\u00e9t\u00e9"));
+    shape = model.getCurrentPhoto().getShape("s");
+    assertEquals(Double.valueOf(0.30000000000000004), Double.valueOf(shape.getX()));
+    assertEquals(Double.valueOf(-7), Double.valueOf(shape.getY()));
+    assertEquals(Double.valueOf(1 / 255.0), Double.valueOf(shape.getR()));
+    assertEquals(Double.valueOf(2 / 255.0), Double.valueOf(shape.getG()));
+    assertEquals(Double.valueOf(3 / 255.0), Double.valueOf(shape.getB()));
+  }
+
+  /**
+   * Tests that a corrupt or truncated compiled script is ignored and written again, with a
+   * script of several batches.
+   */
+  @Test
+  public void testCorrupt() throws IOException {
+    CachedInputParser parser = new CachedInputParser(directory, 8);
+    byte[] script = "shape s oval 1 2 3 4 0 0 0\nsnapshot one\nmove s 5 6\nsnapshot two"
+        .getBytes(StandardCharsets.UTF_8);
+    parser.parse(new ByteArrayInputStream(script), new PhotoAlbumApp());
+    File compiled = parser.getCompiledFile(script);
+    byte[] good = Files.readAllBytes(compiled.toPath());
+
+    for (int i = 0; i < good.length; i += 3) {
+      byte[] bad = good.clone();
+      bad[i] ^= 0x10;
+      Files.write(compiled.toPath(), bad);
+      IPhotoAlbumApp model = this.parseFile(parser, script);
+      assertEquals(2, model.getSnapshotCount());
+      assertEquals("two", model.getSnapshotAt(1).getDescription());
+      assertTrue(Arrays.equals(good, Files.readAllBytes(compiled.toPath())));
+    }
+    Files.write(compiled.toPath(), Arrays.copyOf(good, good.length - 1));
+    IPhotoAlbumApp model = this.parseFile(parser, script);
+    assertEquals("two", model.getSnapshotAt(1).getDescription());
+    assertTrue(Arrays.equals(good, Files.readAllBytes(compiled.toPath())));
+  }
+
+  /**
+   * Tests that a directory that can't be written doesn't fail the parsing.
+   */
+  @Test
+  public void testNotWritable() throws IOException {
+    File file = new File(directory, "file");
+    Files.write(file.toPath(), new byte[0]);
+    CachedInputParser parser = new CachedInputParser(new File(file, "cache"));
+    IPhotoAlbumApp model = new PhotoAlbumApp();
+    parser.parse(new ByteArrayInputStream("snapshot one".getBytes(StandardCharsets.UTF_8)),
+        model);
+    assertEquals("one", model.getSnapshotAt(0).getDescription());
+  }
+
+  /**
+   * Tests the failing cases of the parser, and that a script that fails to parse isn't cached.
+   */
+  @Test
+  public void testFail() throws IOException {
+    try {
+      new CachedInputParser(null);
+      fail("Expected IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      assertEquals("Parameter can't be null", e.getMessage());
+    }
+    CachedInputParser parser = new CachedInputParser(directory);
+    try {
+      parser.parse(null, new PhotoAlbumApp());
+      fail("Expected IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      assertEquals("Parameter can't be null", e.getMessage());
+    }
+    try {
+      new CachedInputParser(directory, 0);
+      fail("Expected IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      assertEquals("Batch size must be positive", e.getMessage());
+    }
+    try {
+      parser.getCompiledFile(null);
+      fail("Expected IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      assertEquals("Parameter can't be null", e.getMessage());
+    }
+
+    String cmds = "shape s oval 1 2 3 4 0 0 0\nsnapshot one\nmove s 1\nsnapshot two\n";
+    IPhotoAlbumApp model = new PhotoAlbumApp();
+    try {
+      parser.parse(new ByteArrayInputStream(cmds.getBytes(StandardCharsets.UTF_8)), model);
+      fail("Expected ArrayIndexOutOfBoundsException");
+    } catch (ArrayIndexOutOfBoundsException e) {
+      assertEquals("Index 3 out of bounds for length 3", e.getMessage());
+    }
+    assertEquals(1, model.getSnapshotCount());
+    assertEquals(0, directory.listFiles().length);
+
+    File file = this.createScript(cmds.getBytes(StandardCharsets.UTF_8));
+    try (InputStream in = new FileInputStream(file)) {
+      parser.parse(in, new PhotoAlbumApp());
+      fail("Expected ArrayIndexOutOfBoundsException");
+    } catch (ArrayIndexOutOfBoundsException e) {
+      assertEquals("Index 3 out of bounds for length 3", e.getMessage());
+    } finally {
+      file.delete();
+    }
+    assertEquals(0, directory.listFiles().length);
+  }
+
+  /**
+   * Writes a script to a temporary file, outside of the cache directory.
+   *
+   * @param script script
+   * @return file
+   * @throws IOException if the file can't be written
+   */
+  private File createScript(byte[] script) throws IOException {
+    File file = File.createTempFile("script", ".txt");
+    Files.write(file.toPath(), script);
+    return file;
+  }
+
+  /**
+   * Parses a script from a file.
+   *
+   * @param parser parser
+   * @param script script
+   * @return populated model
+   * @throws IOException if the file can't be written
+   */
+  private IPhotoAlbumApp parseFile(CachedInputParser parser, byte[] script) throws IOException {
+    File file = this.createScript(script);
+    IPhotoAlbumApp model = new PhotoAlbumApp();
+    try (InputStream in = new FileInputStream(file)) {
+      parser.parse(in, model);
+    } finally {
+      file.delete();
+    }
+    return model;
+  }
+}
@@ -9,6 +9,7 @@ import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.StringJoiner;
 import model.IPhotoAlbumApp;
@@ -135,4 +136,27 @@ public class InputParserTest {
     );
   }
 
-}
\ No newline at end of file
+
+  /**
+   * Tests that the progress is reported after each line, with the bytes read so far.
+   */
+  @Test
+  public void testParseProgress() {
+    StringJoiner cmds = new StringJoiner("\n");
+    cmds.add("shape   myrect   rectangle  200  200 50  100  255  0  0");
+    cmds.add("# blabla");
+    cmds.add("snapShot created myrect");
+    byte[] input = cmds.toString().getBytes();
+    List<long[]> progress = new ArrayList<>();
+    inputParser.parse(new ByteArrayInputStream(input), model,
+        (lines, bytes) -> progress.add(new long[] {lines, bytes}));
+
+    assertEquals(3, progress.size());
+    for (int i = 0; i < progress.size(); i++) {
+      assertEquals(i + 1, progress.get(i)[0]);
+    }
+    //The whole input was read by the last line.
+    assertEquals(input.length, progress.get(2)[1]);
+    assertEquals(1, model.getSnapshotCount());
+  }
+}
@@ -0,0 +1,156 @@
+package controllerTest;
+
+import static org.junit.Assert.*;
+
+import controller.IInputParser;
+import controller.InputParser;
+import controller.MappedInputParser;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import model.IPhotoAlbumApp;
+import model.IShape;
+import model.PhotoAlbumApp;
+import org.junit.Test;
+
+/**
+ * Test suite for the memory-mapped input parser. It must populate the model exactly as
+ * InputParser, which is assumed to be well tested.
+ */
+public class MappedInputParserTest {
+
+  /**
+   * Tests that all sample scripts in the resources folder give the same album as InputParser,
+   * with windows larger than the scripts and with windows of a few bytes.
+   */
+  @Test
+  public void testResources() throws IOException {
+    File[] scripts = new File("resources").listFiles((dir, name) -> name.endsWith(".txt"));
+    assertNotNull(scripts);
+    for (File script : scripts) {
+      IPhotoAlbumApp expected = new PhotoAlbumApp();
+      try (InputStream in = new FileInputStream(script)) {
+        new InputParser().parse(in, expected);
+      }
+      for (IInputParser parser : new IInputParser[] {
+          new MappedInputParser(), new MappedInputParser(7)}) {
+        IPhotoAlbumApp actual = new PhotoAlbumApp();
+        try (InputStream in = new FileInputStream(script)) {
+          parser.parse(in, actual);
+        }
+        AlbumAssertions.assertSameAlbum(script.getName(), expected, actual);
+      }
+    }
+  }
+
+  /**
+   * Tests lines that span several windows, and that the parsing starts at the position of the
+   * file and counts the bytes from there.
+   */
+  @Test
+  public void testWindows() throws IOException {
+    String skipped = "shape skipped rectangle 0 0 1 1 0 0 0\n";
+    StringBuilder cmds = new StringBuilder(skipped);
+    cmds.append("shape s rectangle 1 2 3 4 5 6 7\r\n");
+    cmds.append("snapshot");
+    for (int i = 0; i < 100; i++) {
+      cmds.append(" word").append(i);
+    }
+    cmds.append("\r");
+    cmds.append("move s 10 20\r");
+    cmds.append("snapshot last\u2028remove s");
+    File file = this.createScript(cmds.toString());
+    long length = file.length();
+    try (FileInputStream in = new FileInputStream(file)) {
+      in.skipNBytes(skipped.length());
+      IPhotoAlbumApp model = new PhotoAlbumApp();
+      List<long[]> progress = new ArrayList<>();
+      new MappedInputParser(16).parse(in, model,
+          (lines, bytes) -> progress.add(new long[] {lines, bytes}));
+
+      assertEquals(5, progress.size());
+      assertEquals(33, progress.get(0)[1]);
+      assertEquals(length - skipped.length(), progress.get(4)[1]);
+      assertEquals(-1, in.read());
+      assertNull(model.getCurrentPhoto().getShape("skipped"));
+      assertNull(model.getCurrentPhoto().getShape("s"));
+      assertEquals(2, model.getSnapshotCount());
+      assertEquals(100, model.getSnapshotAt(0).getDescription().split(" ").length);
+      IShape shape = model.getSnapshotAt(1).getPhoto().getShape("s");
+      assertEquals(10, shape.getX(), 0);
+      assertEquals(20, shape.getY(), 0);
+    } finally {
+      file.delete();
+    }
+  }
+
+  /**
+   * Tests that inputs that can't be mapped are still parsed.
+   */
+  @Test
+  public void testNotMapped() throws IOException {
+    byte[] input = "shape s oval 1 2 3 4 5 6 7\nsnapshot one".getBytes(StandardCharsets.UTF_8);
+    IPhotoAlbumApp model = new PhotoAlbumApp();
+    new MappedInputParser().parse(new ByteArrayInputStream(input), model);
+    assertEquals("one", model.getSnapshotAt(0).getDescription());
+
+    File file = this.createScript("");
+    try (FileInputStream in = new FileInputStream(file)) {
+      model = new PhotoAlbumApp();
+      new MappedInputParser().parse(in, model);
+      assertEquals(0, model.getSnapshotCount());
+    } finally {
+      file.delete();
+    }
+  }
+
+  /**
+   * Tests the failing cases of the parser.
+   */
+  @Test
+  public void testFail() throws IOException {
+    try {
+      new MappedInputParser(0);
+      fail("Expected IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      assertEquals("Window size must be positive", e.getMessage());
+    }
+    try {
+      new MappedInputParser().parse(null, new PhotoAlbumApp());
+      fail("Expected IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      assertEquals("Parameter can't be null", e.getMessage());
+    }
+    File file = this.createScript("shape s oval 1 2 3 4 5 6 7\nmove s 1");
+    try (FileInputStream in = new FileInputStream(file)) {
+      try {
+        new MappedInputParser(8).parse(in, new PhotoAlbumApp());
+        fail("Expected ArrayIndexOutOfBoundsException");
+      } catch (ArrayIndexOutOfBoundsException e) {
+        assertEquals("Index 3 out of bounds for length 3", e.getMessage());
+      }
+      assertEquals(-1, in.read());
+    } finally {
+      file.delete();
+    }
+  }
+
+  /**
+   * Writes a script to a temporary file.
+   *
+   * @param script script
+   * @return file
+   * @throws IOException if the file can't be written
+   */
+  private File createScript(String script) throws IOException {
+    File file = File.createTempFile("script", ".txt");
+    Files.write(file.toPath(), script.getBytes(StandardCharsets.UTF_8));
+    return file;
+  }
+}
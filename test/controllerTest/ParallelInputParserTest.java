@@ -0,0 +1,164 @@
+package controllerTest;
+
+import static org.junit.Assert.*;
+
+import controller.IInputParser;
+import controller.InputParser;
+import controller.ParallelInputParser;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import model.IPhotoAlbumApp;
+import model.IShape;
+import model.PhotoAlbumApp;
+import org.junit.Test;
+
+/**
+ * Test suite for the parallel input parser. It must populate the model exactly as InputParser,
+ * which is assumed to be well tested, whatever the size of the chunks.
+ */
+public class ParallelInputParserTest {
+
+  /**
+   * Tests that all sample scripts in the resources folder give the same album as InputParser,
+   * with the default chunks and with chunks of a few bytes on several threads.
+   */
+  @Test
+  public void testResources() throws IOException {
+    File[] scripts = new File("resources").listFiles((dir, name) -> name.endsWith(".txt"));
+    assertNotNull(scripts);
+    ForkJoinPool pool = new ForkJoinPool(4);
+    try {
+      for (File script : scripts) {
+        IPhotoAlbumApp expected = new PhotoAlbumApp();
+        try (InputStream in = new FileInputStream(script)) {
+          new InputParser().parse(in, expected);
+        }
+        for (IInputParser parser : new IInputParser[] {
+            new ParallelInputParser(), new ParallelInputParser(pool, 7)}) {
+          IPhotoAlbumApp actual = new PhotoAlbumApp();
+          try (InputStream in = new FileInputStream(script)) {
+            parser.parse(in, actual);
+          }
+          AlbumAssertions.assertSameAlbum(script.getName(), expected, actual);
+        }
+      }
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  /**
+   * Tests lines that span several chunks, a \r\n split between two chunks, and that the
+   * progress counts the lines and bytes of the whole input, in order.
+   */
+  @Test
+  public void testChunks() {
+    StringBuilder cmds = new StringBuilder("shape s rectangle 1 2 3 4 5 6 7\r\n");
+    cmds.append("snapshot");
+    for (int i = 0; i < 100; i++) {
+      cmds.append(" word").append(i);
+    }
+    cmds.append("\r");
+    cmds.append("move s 10 20\r");
+    cmds.append("snapshot last\u2028remove s");
+    byte[] input = cmds.toString().getBytes(StandardCharsets.UTF_8);
+    ForkJoinPool pool = new ForkJoinPool(2);
+    try {
+      //The first chunk ends between \r and \n.
+      for (int chunkSize : new int[] {32, 1, 16, 1000}) {
+        IPhotoAlbumApp model = new PhotoAlbumApp();
+        List<long[]> progress = new ArrayList<>();
+        new ParallelInputParser(pool, chunkSize).parse(new ByteArrayInputStream(input), model,
+            (lines, bytes) -> progress.add(new long[] {lines, bytes}));
+
+        assertEquals(5, progress.size());
+        for (int i = 0; i < progress.size(); i++) {
+          assertEquals(i + 1, progress.get(i)[0]);
+        }
+        assertEquals(33, progress.get(0)[1]);
+        assertEquals(input.length, progress.get(4)[1]);
+        assertNull(model.getCurrentPhoto().getShape("s"));
+        assertEquals(2, model.getSnapshotCount());
+        assertEquals(100, model.getSnapshotAt(0).getDescription().split(" ").length);
+        IShape shape = model.getSnapshotAt(1).getPhoto().getShape("s");
+        assertEquals(10, shape.getX(), 0);
+        assertEquals(20, shape.getY(), 0);
+      }
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  /**
+   * Tests that an empty input leaves the album empty.
+   */
+  @Test
+  public void testEmpty() {
+    IPhotoAlbumApp model = new PhotoAlbumApp();
+    List<long[]> progress = new ArrayList<>();
+    new ParallelInputParser().parse(new ByteArrayInputStream(new byte[0]), model,
+        (lines, bytes) -> progress.add(new long[] {lines, bytes}));
+    assertEquals(0, model.getSnapshotCount());
+    assertEquals(0, progress.size());
+  }
+
+  /**
+   * Tests the failing cases of the parser, and that a bad command stops the parsing after the
+   * commands before it were applied, but none after it.
+   */
+  @Test
+  public void testFail() {
+    try {
+      new ParallelInputParser(null, 10);
+      fail("Expected IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      assertEquals("Parameter can't be null", e.getMessage());
+    }
+    try {
+      new ParallelInputParser(ForkJoinPool.commonPool(), 0);
+      fail("Expected IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      assertEquals("Chunk size must be positive", e.getMessage());
+    }
+    try {
+      new ParallelInputParser().parse(null, new PhotoAlbumApp());
+      fail("Expected IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      assertEquals("Parameter can't be null", e.getMessage());
+    }
+
+    String cmds = "shape s oval 1 2 3 4 5 6 7\nsnapshot one\nmove s 1\nsnapshot two\n";
+    byte[] input = cmds.getBytes(StandardCharsets.UTF_8);
+    IPhotoAlbumApp model = new PhotoAlbumApp();
+    List<long[]> progress = new ArrayList<>();
+    try {
+      new ParallelInputParser(ForkJoinPool.commonPool(), 4).parse(
+          new ByteArrayInputStream(input), model,
+          (lines, bytes) -> progress.add(new long[] {lines, bytes}));
+      fail("Expected ArrayIndexOutOfBoundsException");
+    } catch (ArrayIndexOutOfBoundsException e) {
+      assertEquals("Index 3 out of bounds for length 3", e.getMessage());
+    }
+    assertEquals(2, progress.size());
+    assertEquals(1, model.getSnapshotCount());
+    assertEquals("one", model.getSnapshotAt(0).getDescription());
+
+    model = new PhotoAlbumApp();
+    try {
+      new ParallelInputParser().parse(new ByteArrayInputStream(
+          "shape s oval 1 2 3 4 5 6 7\nsnapshot one\nremove t\nsnapshot two"
+              .getBytes(StandardCharsets.UTF_8)), model);
+      fail("Expected IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      //There's no shape t to remove.
+    }
+    assertEquals(1, model.getSnapshotCount());
+  }
+}
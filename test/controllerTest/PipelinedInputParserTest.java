@@ -0,0 +1,228 @@
+package controllerTest;
+
+import static org.junit.Assert.*;
+
+import controller.IInputParser;
+import controller.InputParser;
+import controller.PipelineStatistics;
+import controller.PipelinedInputParser;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import model.IPhotoAlbumApp;
+import model.IShape;
+import model.PhotoAlbumApp;
+import org.junit.Test;
+
+/**
+ * Test suite for the pipelined input parser. It must populate the model exactly as
+ * InputParser, which is assumed to be well tested, whatever the size of the chunks and queues.
+ */
+public class PipelinedInputParserTest {
+
+  /**
+   * Tests that all sample scripts in the resources folder give the same album as InputParser,
+   * with the default chunks and queues, and with chunks of a few bytes and queues of one.
+   */
+  @Test
+  public void testResources() throws IOException {
+    File[] scripts = new File("resources").listFiles((dir, name) -> name.endsWith(".txt"));
+    assertNotNull(scripts);
+    for (File script : scripts) {
+      IPhotoAlbumApp expected = new PhotoAlbumApp();
+      try (InputStream in = new FileInputStream(script)) {
+        new InputParser().parse(in, expected);
+      }
+      for (IInputParser parser : new IInputParser[] {
+          new PipelinedInputParser(), new PipelinedInputParser(7, 1)}) {
+        IPhotoAlbumApp actual = new PhotoAlbumApp();
+        try (InputStream in = new FileInputStream(script)) {
+          parser.parse(in, actual);
+        }
+        AlbumAssertions.assertSameAlbum(script.getName(), expected, actual);
+      }
+    }
+  }
+
+  /**
+   * Tests lines that span several chunks, a \r\n split between two chunks, and that the
+   * progress counts the lines and bytes of the whole input, in order.
+   */
+  @Test
+  public void testChunks() {
+    StringBuilder cmds = new StringBuilder("shape s rectangle 1 2 3 4 5 6 7\r\n");
+    cmds.append("snapshot");
+    for (int i = 0; i < 100; i++) {
+      cmds.append(" word").append(i);
+    }
+    cmds.append("\r");
+    cmds.append("move s 10 20\r");
+    cmds.append("snapshot last\u2028remove s");
+    byte[] input = cmds.toString().getBytes(StandardCharsets.UTF_8);
+    //The first chunk ends between \r and \n.
+    for (int chunkSize : new int[] {32, 1, 16, 1000}) {
+      IPhotoAlbumApp model = new PhotoAlbumApp();
+      List<long[]> progress = new ArrayList<>();
+      new PipelinedInputParser(chunkSize, 2).parse(new ByteArrayInputStream(input), model,
+          (lines, bytes) -> progress.add(new long[] {lines, bytes}));
+
+      assertEquals(5, progress.size());
+      for (int i = 0; i < progress.size(); i++) {
+        assertEquals(i + 1, progress.get(i)[0]);
+      }
+      assertEquals(33, progress.get(0)[1]);
+      assertEquals(input.length, progress.get(4)[1]);
+      assertNull(model.getCurrentPhoto().getShape("s"));
+      assertEquals(2, model.getSnapshotCount());
+      assertEquals(100, model.getSnapshotAt(0).getDescription().split(" ").length);
+      IShape shape = model.getSnapshotAt(1).getPhoto().getShape("s");
+      assertEquals(10, shape.getX(), 0);
+      assertEquals(20, shape.getY(), 0);
+    }
+  }
+
+  /**
+   * Tests the counters of the stages and queues after a parsing.
+   */
+  @Test
+  public void testStatistics() {
+    StringBuilder cmds = new StringBuilder();
+    for (int i = 0; i < 1000; i++) {
+      cmds.append("shape s").append(i).append(" oval 1 2 3 4 0.5 0.5 0.5\n");
+    }
+    byte[] input = cmds.toString().getBytes(StandardCharsets.UTF_8);
+    PipelinedInputParser parser = new PipelinedInputParser(100, 3);
+    assertNull(parser.getStatistics());
+    parser.parse(new ByteArrayInputStream(input), new PhotoAlbumApp());
+
+    PipelineStatistics stats = parser.getStatistics();
+    assertEquals(input.length, stats.getReader().getBytes());
+    assertEquals(input.length, stats.getTokenizer().getBytes());
+    assertEquals(input.length, stats.getApplier().getBytes());
+    assertTrue(stats.getReader().getItems() > 100);
+    assertEquals(1000, stats.getTokenizer().getItems());
+    assertEquals(1000, stats.getApplier().getItems());
+    assertTrue(stats.getApplier().getBusyNanos() > 0);
+    assertTrue(stats.getApplier().getThroughput() > 0);
+    assertEquals(0, stats.getChunkQueueDepth());
+    assertEquals(0, stats.getBatchQueueDepth());
+    assertTrue(stats.getMaxChunkQueueDepth() >= 1 && stats.getMaxChunkQueueDepth() <= 3);
+    assertTrue(stats.getMaxBatchQueueDepth() >= 1 && stats.getMaxBatchQueueDepth() <= 3);
+    assertTrue(stats.toString().startsWith("reader: "));
+  }
+
+  /**
+   * Tests the failing cases of the parser, and that a bad command stops the parsing after the
+   * commands before it were applied, but none after it.
+   */
+  @Test
+  public void testFail() {
+    try {
+      new PipelinedInputParser(0, 1);
+      fail("Expected IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      assertEquals("Chunk size must be positive", e.getMessage());
+    }
+    try {
+      new PipelinedInputParser(1, 0);
+      fail("Expected IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      assertEquals("Queue capacity must be positive", e.getMessage());
+    }
+    try {
+      new PipelinedInputParser().parse(null, new PhotoAlbumApp());
+      fail("Expected IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      assertEquals("Parameter can't be null", e.getMessage());
+    }
+
+    String cmds = "shape s oval 1 2 3 4 5 6 7\nsnapshot one\nmove s 1\nsnapshot two\n";
+    byte[] input = cmds.getBytes(StandardCharsets.UTF_8);
+    IPhotoAlbumApp model = new PhotoAlbumApp();
+    List<long[]> progress = new ArrayList<>();
+    try {
+      new PipelinedInputParser(4, 1).parse(new ByteArrayInputStream(input), model,
+          (lines, bytes) -> progress.add(new long[] {lines, bytes}));
+      fail("Expected ArrayIndexOutOfBoundsException");
+    } catch (ArrayIndexOutOfBoundsException e) {
+      assertEquals("Index 3 out of bounds for length 3", e.getMessage());
+    }
+    assertEquals(2, progress.size());
+    assertEquals(1, model.getSnapshotCount());
+    assertEquals("one", model.getSnapshotAt(0).getDescription());
+
+    model = new PhotoAlbumApp();
+    try {
+      new PipelinedInputParser().parse(new ByteArrayInputStream(
+          "shape s oval 1 2 3 4 5 6 7\nsnapshot one\nremove t\nsnapshot two"
+              .getBytes(StandardCharsets.UTF_8)), model);
+      fail("Expected IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      //There's no shape t to remove.
+    }
+    assertEquals(1, model.getSnapshotCount());
+  }
+
+  /**
+   * Tests that an input that can't be read throws an exception, after the chunks read before
+   * were applied.
+   */
+  @Test
+  public void testReadFail() {
+    byte[] input = "snapshot one\nsnapshot two\n".getBytes(StandardCharsets.UTF_8);
+    InputStream in = new InputStream() {
+      private int position;
+
+      @Override
+      public int read() throws IOException {
+        if (position == input.length) {
+          throw new IOException("Disk error");
+        }
+        return input[position++];
+      }
+    };
+    IPhotoAlbumApp model = new PhotoAlbumApp();
+    try {
+      //Each line is a chunk.
+      new PipelinedInputParser(13, 1).parse(in, model);
+      fail("Expected UncheckedIOException");
+    } catch (UncheckedIOException e) {
+      assertEquals("Disk error", e.getCause().getMessage());
+    }
+    assertEquals(2, model.getSnapshotCount());
+  }
+
+  /**
+   * Tests that an error thrown by the input stream is thrown by parse(), after the chunks read
+   * before were applied, instead of leaving the parsing waiting for the end of the input.
+   */
+  @Test
+  public void testReadError() {
+    byte[] input = "snapshot one\nsnapshot two\n".getBytes(StandardCharsets.UTF_8);
+    InputStream in = new InputStream() {
+      private int position;
+
+      @Override
+      public int read() {
+        if (position == input.length) {
+          throw new InternalError("Broken stream");
+        }
+        return input[position++];
+      }
+    };
+    IPhotoAlbumApp model = new PhotoAlbumApp();
+    try {
+      new PipelinedInputParser(13, 1).parse(in, model);
+      fail("Expected InternalError");
+    } catch (InternalError e) {
+      assertEquals("Broken stream", e.getMessage());
+    }
+    assertEquals(2, model.getSnapshotCount());
+  }
+}
@@ -0,0 +1,87 @@
+package model;
+
+import static org.junit.Assert.*;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test suite for CommandLog, whose elements are stored in chunks of 1024.
+ */
+public class CommandLogTest {
+  private static final int CHUNK_SIZE = 1024;
+
+  private CommandLog<Integer> log;
+
+  /**
+   * Setup function.
+   */
+  @Before
+  public void setUp() {
+    log = new CommandLog<>();
+  }
+
+  /**
+   * Tests add(), get() and size() past the first chunks and the growth of the chunk array.
+   */
+  @Test
+  public void testAddAndGet() {
+    assertEquals(0, log.size());
+    int count = 5 * CHUNK_SIZE + 3;
+    for (int i = 0; i < count; i++) {
+      log.add(i);
+      assertEquals(i + 1, log.size());
+    }
+    for (int i = 0; i < count; i++) {
+      assertEquals(Integer.valueOf(i), log.get(i));
+    }
+  }
+
+  /**
+   * Tests get() on both sides of the chunk boundaries.
+   */
+  @Test
+  public void testChunkBoundaries() {
+    for (int i = 0; i <= 2 * CHUNK_SIZE; i++) {
+      log.add(i);
+    }
+    assertEquals(2 * CHUNK_SIZE + 1, log.size());
+    int[] indices = {0, CHUNK_SIZE - 1, CHUNK_SIZE, CHUNK_SIZE + 1, 2 * CHUNK_SIZE - 1,
+        2 * CHUNK_SIZE};
+    for (int index : indices) {
+      assertEquals(Integer.valueOf(index), log.get(index));
+    }
+  }
+
+  /**
+   * Tests that null elements are stored like the others.
+   */
+  @Test
+  public void testNullElement() {
+    log.add(null);
+    log.add(1);
+    assertEquals(2, log.size());
+    assertNull(log.get(0));
+    assertEquals(Integer.valueOf(1), log.get(1));
+  }
+
+  /**
+   * Tests get() with indices out of bounds.
+   */
+  @Test
+  public void testGetOutOfBounds() {
+    log.add(1);
+    try {
+      log.get(1);
+      fail("Expected IndexOutOfBoundsException");
+    } catch (IndexOutOfBoundsException e) {
+      assertEquals("Index 1 out of bound for size 1", e.getMessage());
+    }
+    try {
+      log.get(-1);
+      fail("Expected IndexOutOfBoundsException");
+    } catch (IndexOutOfBoundsException e) {
+      assertEquals("Index -1 out of bound for size 1", e.getMessage());
+    }
+  }
+}
@@ -0,0 +1,228 @@
+package modelTest;
+
+import static org.junit.Assert.*;
+
+import java.util.List;
+import model.ColumnarPhoto;
+import model.IPhoto;
+import model.IShape;
+import model.Photo;
+import model.ShapeFactory;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test suite for ColumnarPhoto.
+ */
+public class ColumnarPhotoTest {
+
+  private ColumnarPhoto photo1;
+  private IShape r1;
+  private IShape r2;
+  private IShape o1;
+
+  /**
+   * Setup function.
+   */
+  @Before
+  public void setUp() {
+    photo1 = new ColumnarPhoto();
+    r1 = ShapeFactory.createBasicShape("r1", "rectangle", 1, 1, 1, 1, 1, 1, 1);
+    r2 = ShapeFactory.createBasicShape("r2", "rectangle", 5, 3, 0, 1, 0.5, 0.5, 1);
+    o1 = ShapeFactory.createBasicShape("o1", "oval", 0.5, 100, -1, -1, 0, 0.25, 0);
+  }
+
+  /**
+   * Tests getShapes(), getShape(), addShape() and size().
+   */
+  @Test
+  public void testAddAndGetShapes() {
+    assertEquals(0, photo1.size());
+    photo1.addShape(r1);
+    photo1.addShape(o1);
+    photo1.addShape(r2);
+    assertEquals(3, photo1.size());
+    assertEquals(List.of(r1, o1, r2), photo1.getShapes());
+    assertEquals(o1, photo1.getShape("o1"));
+    assertEquals(r1.hashCode(), photo1.getShape("r1").hashCode());
+    assertEquals(o1.toString(), photo1.getShape("o1").toString());
+    assertEquals("oval", photo1.getShape("o1").getType());
+    assertEquals(0.25, photo1.getShape("o1").getG(), 0.000001);
+    assertNull(photo1.getShape("r3"));
+  }
+
+  /**
+   * Tests that adding a shape copies it.
+   */
+  @Test
+  public void testAddShapeCopies() {
+    photo1.addShape(r1);
+    r1.setPosition(10, 10);
+    assertEquals(1, photo1.getShape("r1").getX(), 0.001);
+  }
+
+  /**
+   * Tests removeShape(), which keeps the order of the other shapes.
+   */
+  @Test
+  public void testRemoveShape() {
+    photo1.addShape(r1);
+    photo1.addShape(o1);
+    photo1.addShape(r2);
+    photo1.removeShape("o1");
+    assertEquals(2, photo1.size());
+    assertNull(photo1.getShape("o1"));
+    assertEquals(List.of(r1, r2), photo1.getShapes());
+    photo1.addShape(o1);
+    assertEquals(List.of(r1, r2, o1), photo1.getShapes());
+  }
+
+  /**
+   * Tests removing most of many shapes, which compacts the columns.
+   */
+  @Test
+  public void testRemoveManyShapes() {
+    for (int i = 0; i < 1000; i++) {
+      photo1.addShape(ShapeFactory.createBasicShape("s" + i, "rectangle", 1, 1, i, i, 0, 0, 0));
+    }
+    IShape last = photo1.getShape("s999");
+    for (int i = 0; i < 990; i++) {
+      photo1.removeShape("s" + i);
+    }
+    assertEquals(10, photo1.size());
+    assertEquals(990, photo1.getShapes().get(0).getX(), 0.001);
+    //A view looks up its shape again after the shapes move.
+    last.setPosition(-1, -1);
+    assertEquals(-1, photo1.getShape("s999").getX(), 0.001);
+  }
+
+  /**
+   * Tests modifying the photo through the returned shapes.
+   */
+  @Test
+  public void testModifyShapeView() {
+    photo1.addShape(r1);
+    IShape shape = photo1.getShapes().get(0);
+    shape.setPosition(3, 4);
+    shape.setColor(0, 0.5, 1);
+    shape.setXDim(7);
+    shape.setYDim(8);
+    IShape expected = ShapeFactory.createBasicShape("r1", "rectangle", 7, 8, 3, 4, 0, 0.5, 1);
+    assertEquals(expected, photo1.getShape("r1"));
+    IShape copy = photo1.getShape("r1").clone();
+    copy.setXDim(100);
+    assertEquals(7, photo1.getShape("r1").getXDim(), 0.001);
+  }
+
+  /**
+   * Tests that setters of the returned shapes validate their values.
+   */
+  @Test
+  public void testFailModifyShapeView() {
+    photo1.addShape(r1);
+    IShape shape = photo1.getShape("r1");
+    try {
+      shape.setXDim(0);
+      fail("Expected an IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      //Expected.
+    }
+    try {
+      shape.setColor(0, 0, 2);
+      fail("Expected an IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      //Expected.
+    }
+    assertEquals(r1, shape);
+  }
+
+  /**
+   * Tests using a returned shape after its removal.
+   */
+  @Test (expected = IllegalStateException.class)
+  public void testFailRemovedShapeView() {
+    photo1.addShape(r1);
+    IShape shape = photo1.getShape("r1");
+    photo1.removeShape("r1");
+    shape.getX();
+  }
+
+  /**
+   * Tests the failing cases of addShape() and removeShape().
+   */
+  @Test
+  public void testFailAddAndRemove() {
+    photo1.addShape(r1);
+    try {
+      photo1.addShape(r1);
+      fail("Expected an IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      //Expected.
+    }
+    try {
+      photo1.addShape(null);
+      fail("Expected an IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      //Expected.
+    }
+    try {
+      photo1.removeShape("r2");
+      fail("Expected an IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      //Expected.
+    }
+    assertEquals(1, photo1.size());
+  }
+
+  /**
+   * Tests forEachShape().
+   */
+  @Test
+  public void testForEachShape() {
+    photo1.addShape(r2);
+    photo1.addShape(o1);
+    StringBuilder visited = new StringBuilder();
+    photo1.forEachShape((name, type, x, y, xDim, yDim, r, g, b) ->
+        visited.append(name).append(' ').append(type).append(' ').append(x + y + xDim + yDim)
+            .append(' ').append(Math.round((r + g + b) * 100)).append('\n'));
+    assertEquals("r2 rectangle 9.0 200\no1 oval 98.5 25\n", visited.toString());
+  }
+
+  /**
+   * Tests getShapesIn() and getShapesAt(), which give the same shapes as for a Photo.
+   */
+  @Test
+  public void testGetShapesInAndAt() {
+    IPhoto photo = new Photo();
+    for (IShape shape : List.of(r1, r2, o1)) {
+      photo.addShape(shape);
+      photo1.addShape(shape);
+    }
+    assertEquals(photo.getShapesIn(1.6, 1.5, 1, 1), photo1.getShapesIn(1.6, 1.5, 1, 1));
+    assertEquals(photo.getShapesIn(-10, -10, 0, 0), photo1.getShapesIn(-10, -10, 0, 0));
+    assertEquals(photo.getShapesAt(1.5, 1.5), photo1.getShapesAt(1.5, 1.5));
+    assertEquals(List.of(o1), photo1.getShapesAt(-1, 50));
+  }
+
+  /**
+   * Tests clone(), the copy constructor and equality with a Photo.
+   */
+  @Test
+  public void testCloneAndEquals() {
+    IPhoto photo = new Photo();
+    photo.addShape(r1);
+    photo.addShape(o1);
+    ColumnarPhoto copy = new ColumnarPhoto(photo);
+    assertEquals(photo, copy);
+    assertEquals(photo.toString(), copy.toString());
+
+    IPhoto clone = copy.clone();
+    assertEquals(copy, clone);
+    assertEquals(copy.hashCode(), clone.hashCode());
+    clone.getShape("r1").setPosition(5, 5);
+    clone.removeShape("o1");
+    assertEquals(photo, copy);
+    assertFalse(copy.equals(clone));
+    assertEquals(clone, new Photo(clone));
+  }
+}
@@ -0,0 +1,179 @@
+package modelTest;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+import model.ConcurrentPhotoAlbumApp;
+import model.IPhoto;
+import model.IPhotoAlbumApp;
+import model.ISnapshot;
+import model.MonotonicSnapshotClock;
+import model.PhotoAlbumApp;
+import model.SnapshotMode;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test suite for ConcurrentPhotoAlbumApp.
+ */
+public class ConcurrentPhotoAlbumAppTest {
+  private static final int NUM_STEPS = 2000;
+  private static final int NUM_READERS = 4;
+
+  private IPhotoAlbumApp app;
+
+  @Before
+  public void setUp() {
+    app = new ConcurrentPhotoAlbumApp(new PhotoAlbumApp());
+  }
+
+  /**
+   * Tests constructor with null parameter.
+   */
+  @Test (expected = IllegalArgumentException.class)
+  public void testFailConstruction() {
+    new ConcurrentPhotoAlbumApp(null);
+  }
+
+  /**
+   * Tests that every method is forwarded to the wrapped album.
+   */
+  @Test
+  public void testSameAsWrappedAlbum() {
+    IPhotoAlbumApp expectedApp = new PhotoAlbumApp();
+    for (IPhotoAlbumApp album : List.of(app, expectedApp)) {
+      album.createBasicShape("r1", "rectangle", 1, 2, 3, 4, 0, 0, 0);
+      album.takeSnapshot("first");
+      album.setShapeColor("r1", 1, 1, 1);
+      album.setShapeXDim("r1", 10);
+      album.createBasicShape("o1", "oval", 1, 1, 1, 1, 1, 1, 1);
+      album.setShapeYDim("o1", 5);
+      album.setShapePosition("o1", -1, -1);
+      album.takeSnapshot("second");
+      album.removeShape("r1");
+    }
+    assertEquals(expectedApp.getPhotoAlbum(), app.getPhotoAlbum());
+    assertEquals(expectedApp.getPhotoAlbumRange(2, 4), app.getPhotoAlbumRange(2, 4));
+    assertEquals(expectedApp.getPhotoAlbum(),
+        app.getPhotoAlbumStream().collect(Collectors.toList()));
+    assertEquals(expectedApp.getCurrentPhoto(), app.getCurrentPhoto());
+    assertEquals(2, app.getSnapshots().size());
+    ISnapshot snapshot = app.getSnapshots().get(1);
+    assertEquals("second", snapshot.getDescription());
+    assertEquals(1, app.getSnapshotIndex(snapshot.getID()));
+    assertEquals(snapshot.getID(), app.getSnapshotIDs().get(1));
+    assertEquals(expectedApp.getSnapshots().get(1).getPhoto(), snapshot.getPhoto());
+    assertEquals(snapshot.getPhoto(), app.getSnapshot(snapshot.getID()).getPhoto());
+    assertEquals(snapshot.getPhoto(), snapshot.clone().getPhoto());
+    assertEquals(2, app.getSnapshotCount());
+    assertEquals(snapshot.getID(), app.getSnapshotAt(1).getID());
+    assertEquals(snapshot.getPhoto(), app.getSnapshotAt(1).getPhoto());
+    assertNull(app.getSnapshot("not an id"));
+    app.clearPhotos();
+    assertTrue(app.getPhotoAlbum().isEmpty());
+    assertEquals(2, app.getSnapshots().size());
+  }
+
+  /**
+   * Stress test with eager snapshots.
+   */
+  @Test
+  public void testConcurrentReadsEager() throws InterruptedException {
+    runStressTest(SnapshotMode.EAGER);
+  }
+
+  /**
+   * Stress test with lazy snapshots.
+   */
+  @Test
+  public void testConcurrentReadsLazy() throws InterruptedException {
+    runStressTest(SnapshotMode.LAZY);
+  }
+
+  /**
+   * Stress test with delta snapshots.
+   */
+  @Test
+  public void testConcurrentReadsDelta() throws InterruptedException {
+    runStressTest(SnapshotMode.DELTA);
+  }
+
+  /**
+   * Runs a writer that adds a shape, moves the first shape and takes a snapshot at every step,
+   * while several readers check that everything they read is a state that existed between
+   * two modifications, and that they never go back to an older state.
+   * Keyframes are small so that they are thinned many times during the test.
+   *
+   * @param mode snapshot mode of the album
+   * @throws InterruptedException if interrupted while waiting for the threads
+   */
+  private void runStressTest(SnapshotMode mode) throws InterruptedException {
+    IPhotoAlbumApp album = new ConcurrentPhotoAlbumApp(
+        new PhotoAlbumApp(4, 4, MonotonicSnapshotClock.systemClock(), mode));
+    AtomicReference<Throwable> failure = new AtomicReference<>();
+    List<Thread> threads = new ArrayList<>();
+    threads.add(new Thread(() -> {
+      try {
+        for (int i = 0; i < NUM_STEPS && failure.get() == null; i++) {
+          album.createBasicShape("s" + i, "rectangle", 1, 1, i, i, 0, 0, 0);
+          album.setShapePosition("s0", i, i);
+          album.takeSnapshot(Integer.toString(i));
+        }
+      } catch (Throwable e) {
+        failure.compareAndSet(null, e);
+      }
+    }));
+    for (int t = 0; t < NUM_READERS; t++) {
+      threads.add(new Thread(() -> {
+        try {
+          int lastNumSnapshots = 0;
+          //Stops when another thread failed, as the writer may never finish.
+          while (lastNumSnapshots < NUM_STEPS && failure.get() == null) {
+            //The current photo is the state after creating s(n-1), or after moving s0 too.
+            IPhoto photo = album.getCurrentPhoto();
+            if (photo.size() > 0) {
+              double x = photo.getShape("s0").getPosition()[0];
+              assertTrue(x == photo.size() - 1 || x == photo.size() - 2);
+            }
+            //Snapshot i holds the photo after step i.
+            List<ISnapshot> snapshots = album.getSnapshots();
+            assertTrue(snapshots.size() >= lastNumSnapshots);
+            lastNumSnapshots = snapshots.size();
+            if (lastNumSnapshots > 0) {
+              checkSnapshot(snapshots.get(lastNumSnapshots - 1));
+              checkSnapshot(snapshots.get(lastNumSnapshots / 2));
+            }
+            //Every step adds 2 photos before taking the snapshot.
+            assertTrue(album.getPhotoAlbumStream().count() >= 2L * lastNumSnapshots);
+          }
+        } catch (Throwable e) {
+          failure.compareAndSet(null, e);
+        }
+      }));
+    }
+    threads.forEach(Thread::start);
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    if (failure.get() != null) {
+      throw new AssertionError(failure.get());
+    }
+    assertEquals(NUM_STEPS, album.getSnapshots().size());
+  }
+
+  /**
+   * Checks that a snapshot taken by the stress test writer holds the photo after its step.
+   *
+   * @param snapshot snapshot
+   */
+  private static void checkSnapshot(ISnapshot snapshot) {
+    int step = Integer.parseInt(snapshot.getDescription());
+    IPhoto photo = snapshot.getPhoto();
+    assertEquals(step + 1, photo.size());
+    assertEquals(step, photo.getShape("s0").getPosition()[0], 0.001);
+    assertEquals(step, photo.getShape("s" + step).getPosition()[0], 0.001);
+  }
+}
@@ -3,9 +3,13 @@ package modelTest;
 import static org.junit.Assert.*;
 
 import java.util.Arrays;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Random;
 import java.util.StringJoiner;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import model.IPhoto;
 import model.IPhotoAlbumApp;
 import model.IShape;
@@ -13,6 +17,8 @@ import model.ISnapshot;
 import model.Photo;
 import model.PhotoAlbumApp;
 import model.ShapeFactory;
+import model.ShapeHandle;
+import model.SnapshotMode;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -180,6 +186,48 @@ public class PhotoAlbumAppTest {
     assertEquals(expectedPhotos, app.getPhotoAlbumRange(0, 4));
   }
 
+  /**
+   * Tests getPhotoAlbumRange when the photos are replayed from keyframes.
+   * Uses a keyframe every 2 commands and at most 3 keyframes, so the keyframe interval
+   * has to grow while the commands are added, and after clearing the photos.
+   */
+  @Test
+  public void testGetPhotoAlbumRangeWithKeyframes() {
+    IPhotoAlbumApp keyframedApp = new PhotoAlbumApp(2, 3);
+    List<IPhoto> expectedPhotos = new LinkedList<>();
+    for (int i = 0; i < 11; i++) {
+      keyframedApp.createBasicShape("r" + i, "rectangle", 1 + i, 1, i, i, 0, 0, 0);
+      keyframedApp.setShapePosition("r" + i, 2 * i, -i);
+      expectedPhotos.add(keyframedApp.getCurrentPhoto());
+    }
+    List<IPhoto> photos = keyframedApp.getPhotoAlbum();
+    assertEquals(22, photos.size());
+    for (int lower = 0; lower < photos.size(); lower++) {
+      for (int upper = lower; upper < photos.size(); upper++) {
+        assertEquals(photos.subList(lower, upper + 1),
+            keyframedApp.getPhotoAlbumRange(lower, upper));
+      }
+    }
+    for (int i = 0; i < 11; i++) {
+      assertEquals(expectedPhotos.get(i), photos.get(2 * i + 1));
+    }
+
+    keyframedApp.clearPhotos();
+    keyframedApp.createBasicShape("o1", "oval", 1, 1, 1, 5, 1, 1, 1);
+    keyframedApp.createBasicShape("o2", "oval", 1, 1, 1, 5, 1, 1, 1);
+    keyframedApp.removeShape("o1");
+    assertEquals(keyframedApp.getCurrentPhoto(), keyframedApp.getPhotoAlbumRange(2, 2).get(0));
+    assertEquals(2, keyframedApp.getPhotoAlbumRange(1, 1).get(0).size());
+  }
+
+  /**
+   * Tests that the keyframes configuration is validated.
+   */
+  @Test (expected = IllegalArgumentException.class)
+  public void testFailKeyframeInterval() {
+    new PhotoAlbumApp(0, 10);
+  }
+
   /**
    * Tests getPhotoAlbumRange fails when photo album is empty.
    */
@@ -521,6 +569,41 @@ public class PhotoAlbumAppTest {
   }
 
 
+  /**
+   * Tests getSnapshotAt, getSnapshotCount and getSnapshotIndex with many snapshots.
+   */
+  @Test
+  public void testGetSnapshotAt() {
+    assertEquals(0, app.getSnapshotCount());
+    app.createBasicShape("r1", "rectangle", 2.5, 5, 1, 5, 0, 0, 0);
+    for (int i = 0; i < 1000; i++) {
+      app.setShapePosition("r1", i, i);
+      app.takeSnapshot("snapshot " + i);
+    }
+    assertEquals(1000, app.getSnapshotCount());
+    List<String> snapshotIDs = app.getSnapshotIDs();
+    for (int i = 0; i < 1000; i++) {
+      ISnapshot snapshot = app.getSnapshotAt(i);
+      assertEquals("snapshot " + i, snapshot.getDescription());
+      assertEquals(snapshotIDs.get(i), snapshot.getID());
+      assertEquals(i, app.getSnapshotIndex(snapshot.getID()));
+      assertEquals(i, snapshot.getPhoto().getShape("r1").getPosition()[0], 0.001);
+    }
+    assertEquals(-1, app.getSnapshotIndex("___"));
+    app.clearPhotos();
+    assertEquals(1000, app.getSnapshotCount());
+  }
+
+  /**
+   * Tests getSnapshotAt with an index that is out of bound.
+   */
+  @Test (expected = IllegalArgumentException.class)
+  public void testFailGetSnapshotAt() {
+    app.takeSnapshot("");
+    app.getSnapshotAt(1);
+  }
+
+
   /**
    * Test getSnapshot returns null if it's not found.
    */
@@ -565,31 +648,172 @@ public class PhotoAlbumAppTest {
   }
 
   /**
-   * Tests that one can't modify the photo from the returned snapshot.
+   * Tests lazy snapshots: their photos are rebuilt from the command list, they survive
+   * clearing the photos, and they are still correct when more snapshots are viewed than
+   * the materialized photos cache can hold.
+   */
+  @Test
+  public void testLazySnapshots() {
+    IPhotoAlbumApp lazyApp = new PhotoAlbumApp(SnapshotMode.LAZY);
+    List<IPhoto> expectedPhotos = new LinkedList<>();
+    lazyApp.takeSnapshot("empty");
+    expectedPhotos.add(new Photo());
+    for (int i = 0; i < 20; i++) {
+      lazyApp.createBasicShape("r" + i, "rectangle", 1 + i, 1, i, i, 0, 0, 0);
+      lazyApp.setShapeColor("r0", i / 20.0, 0, 0);
+      lazyApp.takeSnapshot("snapshot " + i);
+      expectedPhotos.add(lazyApp.getCurrentPhoto());
+    }
+    lazyApp.clearPhotos();
+    lazyApp.createBasicShape("o1", "oval", 1, 1, 1, 5, 1, 1, 1);
+    lazyApp.takeSnapshot("after clear");
+    expectedPhotos.add(lazyApp.getCurrentPhoto());
+
+    List<ISnapshot> snapshots = lazyApp.getSnapshots();
+    assertEquals(22, snapshots.size());
+    for (int round = 0; round < 2; round++) {
+      for (int i = 0; i < snapshots.size(); i++) {
+        assertEquals(expectedPhotos.get(i), snapshots.get(i).getPhoto());
+      }
+    }
+    assertEquals("snapshot 3", lazyApp.getSnapshot(snapshots.get(4).getID()).getDescription());
+    assertEquals(expectedPhotos.get(4), lazyApp.getSnapshot(snapshots.get(4).getID()).getPhoto());
+
+    //Modifying a copy of the photo of a lazy snapshot doesn't change the snapshot.
+    snapshots.get(1).getPhoto().clone().getShape("r0").setXDim(100);
+    lazyApp.getSnapshot(snapshots.get(1).getID()).getPhoto().clone().removeShape("r0");
+    assertEquals(expectedPhotos.get(1), lazyApp.getSnapshots().get(1).getPhoto());
+  }
+
+  /**
+   * Tests that delta snapshots give the same photos, with the shapes in the same order,
+   * as eager snapshots, including shapes removed and added again, clearing the photos,
+   * and more snapshots than the interval between whole photos.
+   */
+  @Test
+  public void testDeltaSnapshots() {
+    IPhotoAlbumApp deltaApp = new PhotoAlbumApp(SnapshotMode.DELTA);
+    for (IPhotoAlbumApp album : List.of(app, deltaApp)) {
+      for (int i = 0; i < 20; i++) {
+        album.createBasicShape("r" + i, "rectangle", 1 + i, 1, i, i, 0, 0, 0);
+      }
+      album.takeSnapshot("start");
+      for (int i = 0; i < 100; i++) {
+        album.setShapePosition("r" + (i % 20), i, -i);
+        if (i % 7 == 0) {
+          //Remove a shape and add it back at the end.
+          album.removeShape("r" + (i % 20));
+          album.createBasicShape("r" + (i % 20), "oval", 2, 2, i, i, 1, 1, 1);
+          album.setShapeColor("r" + (i % 20), 0.5, 0.5, 0.5);
+        }
+        if (i % 10 == 0) {
+          //Add and remove a shape between two snapshots.
+          album.createBasicShape("temp", "oval", 2, 2, i, i, 1, 1, 1);
+          album.setShapeXDim("temp", 5);
+          album.removeShape("temp");
+        }
+        if (i == 60) {
+          album.clearPhotos();
+          album.createBasicShape("r0", "rectangle", 1, 1, 0, 0, 0, 0, 0);
+          for (int j = 1; j < 20; j++) {
+            album.createBasicShape("r" + j, "rectangle", 1, 1, j, j, 0, 0, 0);
+          }
+        }
+        album.takeSnapshot("snapshot " + i);
+      }
+    }
+    assertEquals(101, deltaApp.getSnapshotCount());
+    for (int i = 0; i < 101; i++) {
+      assertEquals(app.getSnapshotAt(i).getDescription(),
+          deltaApp.getSnapshotAt(i).getDescription());
+      assertEquals(app.getSnapshotAt(i).getPhoto().getShapes(),
+          deltaApp.getSnapshotAt(i).getPhoto().getShapes());
+    }
+  }
+
+  /**
+   * Tests that the photo album stream gives the same photos as getPhotoAlbum, can stop early,
+   * and isn't affected by commands run after it was created.
+   */
+  @Test
+  public void testGetPhotoAlbumStream() {
+    for (int i = 0; i < 10; i++) {
+      app.createBasicShape("r" + i, "rectangle", 1 + i, 1, i, i, 0, 0, 0);
+      app.setShapePosition("r0", i, -i);
+    }
+    List<IPhoto> expectedPhotos = app.getPhotoAlbum();
+    Stream<IPhoto> stream = app.getPhotoAlbumStream();
+    app.removeShape("r0");
+    assertEquals(expectedPhotos, stream.collect(Collectors.toList()));
+    assertEquals(expectedPhotos.subList(0, 3),
+        app.getPhotoAlbumStream().limit(3).collect(Collectors.toList()));
+    assertEquals(21, app.getPhotoAlbumStream().count());
+
+    //Modifying a streamed photo doesn't change the following ones.
+    Iterator<IPhoto> iterator = app.getPhotoAlbumStream().iterator();
+    iterator.next().getShape("r0").setXDim(100);
+    assertEquals(expectedPhotos.get(1), iterator.next());
+    app.clearPhotos();
+    assertEquals(0, app.getPhotoAlbumStream().count());
+  }
+
+  /**
+   * Tests that one can't modify the photo from the returned snapshot, but can modify a copy of it.
    */
   @Test
   public void testGetSnapshotReturnsCopy() {
     app.createBasicShape("r1", "rectangle", 2.5, 5, 1, 5, 0, 0, 0);
     app.takeSnapshot("");
-    //Modifying snapshot from getSnapshots.
+    //Modifying a copy of the photo from getSnapshots.
     ISnapshot snapshot = app.getSnapshots().get(0);
-    snapshot.getPhoto().getShape("r1").setXDim(100);
-    //Modifying snapshot from getSnapshot
+    snapshot.getPhoto().clone().getShape("r1").setXDim(100);
+    //Modifying a copy of the photo from getSnapshot
     ISnapshot anotherSnapshot = app.getSnapshot(snapshot.getID());
-    anotherSnapshot.getPhoto().getShape("r1").setYDim(50);
+    anotherSnapshot.getPhoto().clone().getShape("r1").setYDim(50);
+    //Modifying the current photo of the album.
+    app.setShapeXDim("r1", 10);
     //Snapshot stored in system should be the same as original.
     assertEquals(2.5, app.getSnapshots().get(0).getPhoto().getShape("r1").getXDim(), 0.001);
     assertEquals(5, app.getSnapshots().get(0).getPhoto().getShape("r1").getYDim(), 0.001);
   }
 
+  /**
+   * Tests that the shapes of the photo from getSnapshots can't be modified.
+   */
+  @Test (expected = UnsupportedOperationException.class)
+  public void testFailModifyShapeFromGetSnapshots() {
+    app.createBasicShape("r1", "rectangle", 2.5, 5, 1, 5, 0, 0, 0);
+    app.takeSnapshot("");
+    app.getSnapshots().get(0).getPhoto().getShape("r1").setXDim(100);
+  }
+
+  /**
+   * Tests that the photo from getSnapshot can't be modified.
+   */
+  @Test (expected = UnsupportedOperationException.class)
+  public void testFailModifyPhotoFromGetSnapshot() {
+    app.createBasicShape("r1", "rectangle", 2.5, 5, 1, 5, 0, 0, 0);
+    app.takeSnapshot("");
+    app.getSnapshot(app.getSnapshotIDs().get(0)).getPhoto().removeShape("r1");
+  }
+
+  /**
+   * Tests that the list from getSnapshots can't be modified.
+   */
+  @Test (expected = UnsupportedOperationException.class)
+  public void testFailModifyGetSnapshots() {
+    app.takeSnapshot("");
+    app.getSnapshots().clear();
+  }
+
   /**
    * Tests that one can't modify the photo from the returned photos.
    */
   @Test
   public void testGetPhotosReturnsCopy() {
     app.createBasicShape("r1", "rectangle", 2.5, 5, 1, 5, 0, 0, 0);
-    //Modifying photo from getCurrentPhoto.
-    IPhoto photo = app.getCurrentPhoto();
+    //Modifying a copy of the photo from getCurrentPhoto.
+    IPhoto photo = app.getCurrentPhoto().clone();
     photo.getShape("r1").setXDim(100);
     //Modifying photo from getPhotoAlbums.
     IPhoto photo2 = app.getPhotoAlbum().get(0);
@@ -603,6 +827,208 @@ public class PhotoAlbumAppTest {
     assertArrayEquals(new double[]{1, 5}, app.getCurrentPhoto().getShape("r1").getPosition(), 0.001);
   }
 
+  /**
+   * Tests that the current photo is read-only and doesn't change when the album changes.
+   */
+  @Test
+  public void testGetCurrentPhotoIsReadOnly() {
+    app.createBasicShape("r1", "rectangle", 2.5, 5, 1, 5, 0, 0, 0);
+    IPhoto photo = app.getCurrentPhoto();
+    app.setShapePosition("r1", 50, 50);
+    app.createBasicShape("o1", "oval", 1, 1, 1, 1, 1, 1, 1);
+    assertEquals(1, photo.size());
+    assertArrayEquals(new double[]{1, 5}, photo.getShape("r1").getPosition(), 0.001);
+    try {
+      photo.getShape("r1").setColor(1, 1, 1);
+      fail("Shape of the current photo shouldn't be modifiable");
+    } catch (UnsupportedOperationException e) {
+      //Expected.
+    }
+    try {
+      photo.addShape(ShapeFactory.createBasicShape("r2", "rectangle", 1, 1, 1, 1, 1, 1, 1));
+      fail("Current photo shouldn't be modifiable");
+    } catch (UnsupportedOperationException e) {
+      //Expected.
+    }
+  }
+
+  /**
+   * Tests that modifying shapes through handles does the same as through names,
+   * including across keyframes and snapshots, and after recreating a shape.
+   */
+  @Test
+  public void testShapeHandles() {
+    IPhotoAlbumApp expectedApp = new PhotoAlbumApp(2, 4);
+    app = new PhotoAlbumApp(2, 4);
+    expectedApp.createBasicShape("r1", "rectangle", 1, 1, 0, 0, 0, 0, 0);
+    app.createBasicShape("r1", "rectangle", 1, 1, 0, 0, 0, 0, 0);
+    ShapeHandle r1 = app.lookup("r1");
+    assertEquals("r1", r1.getName());
+    assertSame(r1, app.lookup("r1"));
+    for (int i = 0; i < 10; i++) {
+      expectedApp.setShapePosition("r1", i, i);
+      app.setPosition(r1, i, i);
+      expectedApp.takeSnapshot("step " + i);
+      app.takeSnapshot("step " + i);
+      expectedApp.setShapeColor("r1", 0.5, 0, 0);
+      app.setColor(r1, 0.5, 0, 0);
+      expectedApp.setShapeXDim("r1", i + 1);
+      app.setXDim(r1, i + 1);
+      expectedApp.setShapeYDim("r1", i + 2);
+      app.setYDim(r1, i + 2);
+      assertEquals(expectedApp.getCurrentPhoto(), app.getCurrentPhoto());
+    }
+    expectedApp.removeShape("r1");
+    app.remove(r1);
+    expectedApp.createBasicShape("r1", "oval", 3, 3, 3, 3, 1, 1, 1);
+    app.createBasicShape("r1", "oval", 3, 3, 3, 3, 1, 1, 1);
+    expectedApp.setShapePosition("r1", -1, -1);
+    app.setPosition(r1, -1, -1);
+    assertEquals(expectedApp.getPhotoAlbum(), app.getPhotoAlbum());
+    for (int i = 0; i < 10; i++) {
+      assertEquals(expectedApp.getSnapshots().get(i).getPhoto(),
+          app.getSnapshots().get(i).getPhoto());
+    }
+  }
+
+  /**
+   * Tests the failing cases of lookup() and of the methods that take a handle.
+   */
+  @Test
+  public void testFailShapeHandles() {
+    app.createBasicShape("r1", "rectangle", 1, 1, 0, 0, 0, 0, 0);
+    ShapeHandle r1 = app.lookup("r1");
+    IPhotoAlbumApp otherApp = new PhotoAlbumApp();
+    otherApp.createBasicShape("r1", "rectangle", 1, 1, 0, 0, 0, 0, 0);
+    try {
+      app.lookup("r2");
+      fail("Expected an IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      //Expected.
+    }
+    try {
+      otherApp.setPosition(r1, 1, 1);
+      fail("Expected an IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      //Expected.
+    }
+    try {
+      app.setXDim(r1, -1);
+      fail("Expected an IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      //Expected.
+    }
+    try {
+      app.setColor(null, 0, 0, 0);
+      fail("Expected an IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      //Expected.
+    }
+    app.remove(r1);
+    try {
+      app.setPosition(r1, 1, 1);
+      fail("Expected an IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      //Expected.
+    }
+    try {
+      app.lookup("r1");
+      fail("Expected an IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      //Expected.
+    }
+    assertEquals(2, app.getPhotoAlbum().size());
+  }
+
+  /**
+   * Tests getShapesIn() and getShapesAt() while shapes are created, modified and removed.
+   * A rectangle's position is its top left corner, and an oval's position is its center.
+   */
+  @Test
+  public void testGetShapesInAndAt() {
+    app.createBasicShape("r1", "rectangle", 10, 10, 0, 0, 0, 0, 0);
+    app.createBasicShape("o1", "oval", 5, 5, 20, 20, 0, 0, 0);
+    app.createBasicShape("big", "rectangle", 10000, 10000, -5000, -5000, 0, 0, 0);
+    assertEquals(List.of("r1", "o1", "big"), names(app.getShapesIn(5, 5, 10, 10)));
+    assertEquals(List.of("r1", "big"), names(app.getShapesAt(5, 5)));
+    assertEquals(List.of("o1", "big"), names(app.getShapesAt(20, 24)));
+    //Inside the bounding box of o1, but not inside o1.
+    assertEquals(List.of("big"), names(app.getShapesAt(16, 16)));
+    assertEquals(List.of("big"), names(app.getShapesIn(100, 100, 0, 0)));
+
+    app.setShapePosition("r1", 100, 100);
+    app.setShapeXDim("o1", 50);
+    app.removeShape("big");
+    assertEquals(List.of("r1"), names(app.getShapesAt(100, 100)));
+    assertEquals(List.of("o1"), names(app.getShapesAt(-25, 20)));
+    assertEquals(List.of(), names(app.getShapesAt(5, 5)));
+    app.setShapeYDim("r1", 100);
+    assertEquals(List.of("r1"), names(app.getShapesIn(105, 190, 1, 1)));
+    app.setShapeColor("r1", 1, 1, 1);
+    assertEquals(app.getCurrentPhoto().getShape("r1"), app.getShapesAt(105, 190).get(0));
+
+    app.clearPhotos();
+    assertEquals(List.of(), names(app.getShapesIn(-1000, -1000, 2000, 2000)));
+  }
+
+  /**
+   * Tests getShapesIn() and getShapesAt() with a shape that is far larger than the grid of the
+   * spatial index.
+   */
+  @Test
+  public void testGetShapesInAndAtHugeShape() {
+    app.createBasicShape("huge", "oval", 0.5, 1e16, 0, 5, 0, 0, 0);
+    app.createBasicShape("r1", "rectangle", 10, 10, 0, 0, 0, 0, 0);
+    assertEquals(List.of("huge", "r1"), names(app.getShapesAt(0, 5)));
+    assertEquals(List.of("huge"), names(app.getShapesIn(-1, -1e15, 2, 1)));
+    app.setShapeXDim("r1", 1e300);
+    assertEquals(List.of("huge", "r1"), names(app.getShapesIn(-1e300, -1e300, 2e300, 2e300)));
+  }
+
+  /**
+   * Tests that getShapesIn() and getShapesAt() of the album, which use a spatial index, give
+   * the same shapes as the ones of its current photo, which go through all shapes.
+   */
+  @Test
+  public void testGetShapesInAndAtSameAsPhoto() {
+    Random random = new Random(42);
+    for (int i = 0; i < 500; i++) {
+      app.createBasicShape("s" + i, i % 2 == 0 ? "rectangle" : "oval", 1 + random.nextInt(40),
+          1 + random.nextInt(40), random.nextInt(1000), random.nextInt(1000), 0, 0, 0);
+    }
+    for (int i = 0; i < 498; i += 3) {
+      app.setShapePosition("s" + i, random.nextInt(1000), random.nextInt(1000));
+      app.setShapeXDim("s" + (i + 1), 1 + random.nextInt(200));
+      app.removeShape("s" + (i + 2));
+    }
+    IPhoto photo = app.getCurrentPhoto();
+    for (int i = 0; i < 200; i++) {
+      double x = random.nextInt(1100) - 50;
+      double y = random.nextInt(1100) - 50;
+      double size = random.nextInt(i < 150 ? 100 : 2000);
+      assertEquals(photo.getShapesIn(x, y, size, size), app.getShapesIn(x, y, size, size));
+      assertEquals(photo.getShapesAt(x, y), app.getShapesAt(x, y));
+    }
+  }
+
+  /**
+   * Tests getShapesIn() with a negative width.
+   */
+  @Test (expected = IllegalArgumentException.class)
+  public void testFailGetShapesIn() {
+    app.getShapesIn(0, 0, -1, 1);
+  }
+
+  /**
+   * Returns the names of shapes.
+   *
+   * @param shapes shapes
+   * @return names
+   */
+  private static List<String> names(List<IShape> shapes) {
+    return shapes.stream().map(IShape::getName).collect(Collectors.toList());
+  }
+
   @Test
   public void testToString() {
     app.createBasicShape("r1", "rectangle", 1, 1, 1, 1, 1, 1, 1);
@@ -2,11 +2,13 @@ package modelTest;
 
 import static org.junit.Assert.*;
 
+import java.util.Arrays;
 import java.util.StringJoiner;
 import org.junit.Before;
 import org.junit.Test;
 import model.IPhoto;
 import model.Photo;
+import model.ReadOnlyPhoto;
 import model.ShapeFactory;
 import model.IShape;
 
@@ -36,6 +38,26 @@ public class PhotoTest {
     o2 = ShapeFactory.createBasicShape("o2", "oval", 0.5, 100, -1, -1, 0, 0, 0);
   }
 
+  /**
+   * Tests getShapesIn() and getShapesAt().
+   */
+  @Test
+  public void testGetShapesInAndAt() {
+    photo1.addShape(r1);
+    photo1.addShape(r2);
+    photo1.addShape(o1);
+    photo1.addShape(o2);
+    assertEquals(Arrays.asList(r1, r2, o1, o2), photo1.getShapesIn(-2, -2, 4, 4));
+    assertEquals(Arrays.asList(r1, r2, o1), photo1.getShapesIn(1.6, 1.5, 1, 1));
+    assertEquals(Arrays.asList(r2), photo1.getShapesIn(2.5, 1.5, 1, 1));
+    assertEquals(Arrays.asList(r1, r2, o1), photo1.getShapesAt(1.5, 1.5));
+    assertEquals(Arrays.asList(r2), photo1.getShapesAt(4, 2));
+    assertEquals(Arrays.asList(o2), photo1.getShapesAt(-1, 50));
+    assertEquals(photo1.getShapesAt(1.5, 1.5), new ReadOnlyPhoto(photo1).getShapesAt(1.5, 1.5));
+    photo1.getShapesAt(4, 2).get(0).setPosition(10, 10);
+    assertEquals(10, photo1.getShape("r2").getX(), 0.001);
+  }
+
   /**
    * Tests getShapes(), getShape(), addShape().
    */
@@ -193,6 +215,156 @@ public class PhotoTest {
   }
 
 
+  /**
+   * Tests that modifying a copy or the original after cloning doesn't affect the other one,
+   * including shapes added or removed after the copy.
+   */
+  @Test
+  public void testCloneIsolation() {
+    photo1.addShape(r1);
+    photo1.addShape(o1);
+    IPhoto photo1Copy = photo1.clone();
+    photo1Copy.getShape("r1").setPosition(50, 50);
+    photo1.getShape("o1").setColor(0, 0, 0);
+    photo1Copy.addShape(r2);
+    photo1.removeShape("r1");
+
+    assertArrayEquals(new double[]{50, 50}, photo1Copy.getShape("r1").getPosition(), 0.001);
+    assertArrayEquals(new double[]{1, 1, 1}, photo1Copy.getShape("o1").getColor(), 0.001);
+    assertArrayEquals(new double[]{0, 0, 0}, photo1.getShape("o1").getColor(), 0.001);
+    assertNull(photo1.getShape("r2"));
+    assertNull(photo1.getShape("r1"));
+    assertEquals(1, photo1.size());
+    assertEquals(3, photo1Copy.size());
+  }
+
+  /**
+   * Tests that a shape returned before cloning or creating a read-only photo only modifies
+   * the original photo afterwards.
+   */
+  @Test
+  public void testCloneIsolationOfReturnedShape() {
+    photo1.addShape(r1);
+    IShape shape = photo1.getShape("r1");
+    IPhoto photo1Copy = photo1.clone();
+    IPhoto readOnly = new ReadOnlyPhoto(photo1);
+    shape.setPosition(50, 50);
+
+    assertArrayEquals(new double[]{50, 50}, photo1.getShape("r1").getPosition(), 0.001);
+    assertEquals(1, photo1Copy.getShape("r1").getX(), 0.001);
+    assertEquals(1, readOnly.getShape("r1").getX(), 0.001);
+  }
+
+  /**
+   * Tests that the photo keeps a copy of an added shape, so modifying the added shape affects
+   * neither the photo nor its clones.
+   */
+  @Test
+  public void testCloneIsolationOfAddedShape() {
+    photo1.addShape(r1);
+    IPhoto photo1Copy = photo1.clone();
+    IPhoto readOnly = new ReadOnlyPhoto(photo1);
+    r1.setPosition(9, 9);
+
+    assertEquals(1, photo1.getShape("r1").getX(), 0.001);
+    assertEquals(1, photo1Copy.getShape("r1").getX(), 0.001);
+    assertEquals(1, readOnly.getShape("r1").getX(), 0.001);
+  }
+
+  /**
+   * Tests that a returned shape keeps its last state once it's removed from the photo, and
+   * doesn't follow a new shape added with the same name.
+   */
+  @Test
+  public void testReturnedShapeAfterRemove() {
+    photo1.addShape(r1);
+    IShape shape = photo1.getShape("r1");
+    shape.setXDim(7);
+    photo1.removeShape("r1");
+    photo1.addShape(o1);
+    photo1.addShape(ShapeFactory.createBasicShape("r1", "oval", 3, 3, 0, 0, 0, 0, 0));
+    shape.setYDim(8);
+
+    assertEquals("rectangle", shape.getType());
+    assertEquals(7, shape.getXDim(), 0.001);
+    assertEquals(8, shape.getYDim(), 0.001);
+    assertEquals(3, photo1.getShape("r1").getYDim(), 0.001);
+  }
+
+  /**
+   * Tests that many shapes keep their insertion order after removals, including shapes whose
+   * names have the same hash code ("Aa" and "BB").
+   */
+  @Test
+  public void testManyShapesOrder() {
+    StringJoiner expectedNames = new StringJoiner(",");
+    for (int i = 0; i < 2000; i++) {
+      photo1.addShape(ShapeFactory.createBasicShape("s" + i, "oval", 1, 1, i, i, 0, 0, 0));
+    }
+    photo1.addShape(ShapeFactory.createBasicShape("Aa", "oval", 1, 1, 0, 0, 0, 0, 0));
+    photo1.addShape(ShapeFactory.createBasicShape("BB", "oval", 2, 2, 0, 0, 0, 0, 0));
+    IPhoto photo1Copy = photo1.clone();
+    for (int i = 0; i < 2000; i++) {
+      if (i % 3 != 0) {
+        photo1.removeShape("s" + i);
+      } else {
+        expectedNames.add("s" + i);
+      }
+    }
+    photo1.removeShape("Aa");
+    expectedNames.add("BB");
+
+    StringJoiner names = new StringJoiner(",");
+    photo1.getShapes().forEach(shape -> names.add(shape.getName()));
+    assertEquals(expectedNames.toString(), names.toString());
+    assertEquals(2.0, photo1.getShape("BB").getXDim(), 0.001);
+    assertEquals(2002, photo1Copy.size());
+    assertEquals(1.0, photo1Copy.getShape("Aa").getXDim(), 0.001);
+    assertEquals(1999, photo1Copy.getShape("s1999").getPosition()[0], 0.001);
+  }
+
+  /**
+   * Tests that a read-only photo keeps the shapes the photo had when it was created,
+   * can't be modified, and gives a modifiable copy with clone().
+   */
+  @Test
+  public void testReadOnlyPhoto() {
+    photo1.addShape(r1);
+    photo1.addShape(o1);
+    IPhoto readOnly = new ReadOnlyPhoto(photo1);
+    photo1.getShape("r1").setPosition(50, 50);
+    photo1.removeShape("o1");
+    assertEquals(2, readOnly.size());
+    assertEquals(r1, readOnly.getShape("r1"));
+    assertEquals(Arrays.asList(r1, o1), readOnly.getShapes());
+    assertArrayEquals(new double[]{50, 50}, photo1.getShape("r1").getPosition(), 0.001);
+
+    IPhoto copy = readOnly.clone();
+    copy.getShape("o1").setXDim(20);
+    copy.addShape(r2);
+    assertEquals(3, copy.size());
+    assertEquals(o1, readOnly.getShape("o1"));
+    assertEquals(readOnly, new ReadOnlyPhoto(readOnly));
+    assertEquals(new Photo(readOnly), readOnly);
+  }
+
+  /**
+   * Tests that the shapes of a read-only photo can't be modified.
+   */
+  @Test (expected = UnsupportedOperationException.class)
+  public void testFailModifyReadOnlyShape() {
+    photo1.addShape(r1);
+    new ReadOnlyPhoto(photo1).getShape("r1").setXDim(5);
+  }
+
+  /**
+   * Tests that shapes can't be added to a read-only photo.
+   */
+  @Test (expected = UnsupportedOperationException.class)
+  public void testFailAddShapeReadOnlyPhoto() {
+    new ReadOnlyPhoto(photo1).addShape(r1);
+  }
+
   /**
    * Tests toString.
    */
@@ -181,6 +181,28 @@ public class ShapeFactoryTest {
     assertEquals(0.581, shape4.getColor()[2], 0.0001);
   }
 
+  /**
+   * Tests getX, getY, getR, getG, getB match getPosition and getColor,
+   * including after setting a new position and color.
+   */
+  @Test
+  public void testScalarAccessors() {
+    for (IShape shape : new IShape[]{shape1, shape2, shape3, shape4}) {
+      assertEquals(shape.getPosition()[0], shape.getX(), 0.0001);
+      assertEquals(shape.getPosition()[1], shape.getY(), 0.0001);
+      assertEquals(shape.getColor()[0], shape.getR(), 0.0001);
+      assertEquals(shape.getColor()[1], shape.getG(), 0.0001);
+      assertEquals(shape.getColor()[2], shape.getB(), 0.0001);
+    }
+    shape2.setPosition(-1, 2);
+    shape2.setColor(0.1, 0.2, 0.3);
+    assertEquals(-1, shape2.getX(), 0.0001);
+    assertEquals(2, shape2.getY(), 0.0001);
+    assertEquals(0.1, shape2.getR(), 0.0001);
+    assertEquals(0.2, shape2.getG(), 0.0001);
+    assertEquals(0.3, shape2.getB(), 0.0001);
+  }
+
   /**
    * Tests setXDim.
    */
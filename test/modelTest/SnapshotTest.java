@@ -2,13 +2,23 @@ package modelTest;
 
 import static org.junit.Assert.*;
 
+import java.time.Clock;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 import org.junit.Before;
 import org.junit.Test;
 import model.IPhoto;
 import model.ISnapshot;
+import model.ISnapshotClock;
+import model.MonotonicSnapshotClock;
 import model.Photo;
 import model.ShapeFactory;
 import model.Snapshot;
@@ -171,4 +181,48 @@ public class SnapshotTest {
     assertEquals(clone.getPhoto().getShapes(), snapshot1.getPhoto().getShapes());
   }
 
-}
\ No newline at end of file
+  /**
+   * Tests that a snapshot clock based on a fixed clock gives deterministic, increasing IDs.
+   */
+  @Test
+  public void testFixedClock() {
+    ISnapshotClock clock = new MonotonicSnapshotClock(Clock.fixed(Instant.EPOCH, ZoneOffset.UTC));
+    ISnapshot first = new Snapshot("", photo1, clock);
+    ISnapshot second = new Snapshot("", photo1, clock);
+    assertEquals("1970-01-01T00:00", first.getID());
+    assertEquals("01-01-1970 24:00:00", first.getTimeStamp());
+    assertEquals("1970-01-01T00:00:00.000001", second.getID());
+  }
+
+  /**
+   * Tests that snapshots created at the same time from several threads get unique IDs,
+   * and that the IDs of each thread are sorted.
+   */
+  @Test
+  public void testUniqueIDsAcrossThreads() throws InterruptedException {
+    ISnapshotClock clock = new MonotonicSnapshotClock(Clock.systemUTC());
+    Set<String> ids = ConcurrentHashMap.newKeySet();
+    AtomicBoolean sorted = new AtomicBoolean(true);
+    List<Thread> threads = new ArrayList<>();
+    for (int t = 0; t < 4; t++) {
+      threads.add(new Thread(() -> {
+        LocalDateTime last = LocalDateTime.MIN;
+        for (int i = 0; i < 1000; i++) {
+          String id = new Snapshot("", photo2, clock).getID();
+          if (!LocalDateTime.parse(id).isAfter(last)) {
+            sorted.set(false);
+          }
+          ids.add(id);
+          last = LocalDateTime.parse(id);
+        }
+      }));
+    }
+    threads.forEach(Thread::start);
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    assertEquals(4000, ids.size());
+    assertTrue(sorted.get());
+  }
+
+}
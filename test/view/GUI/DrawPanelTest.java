@@ -0,0 +1,96 @@
+package view.GUI;
+
+import static org.junit.Assert.assertEquals;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.event.MouseWheelEvent;
+import java.awt.event.MouseWheelListener;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test suite for the painting of DrawPanel when zoomed out, where shapes smaller than a pixel
+ * are merged. The panel is painted into an image, directly and through a rendered snapshot.
+ */
+public class DrawPanelTest {
+  private static final int SIZE = 40;
+  //Scale of the view after zooming out, about 0.0103.
+  private static final double SCALE = Math.pow(1.1, -48);
+
+  private DrawPanel panel;
+
+  @Before
+  public void setUp() {
+    panel = new DrawPanel(SIZE, SIZE, 1 << 24);
+    panel.setSize(SIZE, SIZE);
+    //Zooms out around the origin, so that a point (x, y) is drawn at (x, y) * SCALE.
+    MouseWheelEvent zoomOut = new MouseWheelEvent(panel, MouseWheelEvent.MOUSE_WHEEL, 0, 0, 0,
+        0, 0, 0, 0, false, MouseWheelEvent.WHEEL_UNIT_SCROLL, 1, 48, 48);
+    for (MouseWheelListener listener : panel.getMouseWheelListeners()) {
+      listener.mouseWheelMoved(zoomOut);
+    }
+  }
+
+  /**
+   * Tests that a sub-pixel shape is covered by a larger shape drawn after it.
+   */
+  @Test
+  public void testCoveredSubPixelShape() {
+    //Pixel (5, 5) for the tiny shape, and pixels 0 to 10 for the large one.
+    panel.drawBasicShape(new Ellipse2D.Double(480, 480, 10, 10), Color.RED);
+    panel.drawBasicShape(new Rectangle2D.Double(0, 0, 1000, 1000), Color.GREEN);
+    for (boolean rendered : new boolean[] {false, true}) {
+      BufferedImage image = this.paint(rendered);
+      assertEquals(0x00ff00, image.getRGB(pixel(485), pixel(485)) & 0xffffff);
+    }
+  }
+
+  /**
+   * Tests that the sub-pixel shapes in a pixel are merged into their average color, on top of
+   * the shapes drawn before them.
+   */
+  @Test
+  public void testMergedSubPixelShapes() {
+    panel.drawBasicShape(new Rectangle2D.Double(0, 0, 3000, 3000), Color.GREEN);
+    panel.drawBasicShape(new Ellipse2D.Double(1500, 1500, 10, 10), Color.RED);
+    panel.drawBasicShape(new Ellipse2D.Double(1510, 1510, 10, 10), Color.BLUE);
+    panel.drawBasicShape(new Rectangle2D.Double(2000, 2000, 10, 10), new Color(30, 60, 90));
+    for (boolean rendered : new boolean[] {false, true}) {
+      BufferedImage image = this.paint(rendered);
+      assertEquals(pixel(1505), pixel(1515));
+      assertEquals(0x800080, image.getRGB(pixel(1505), pixel(1505)) & 0xffffff);
+      assertEquals(0x1e3c5a, image.getRGB(pixel(2005), pixel(2005)) & 0xffffff);
+      assertEquals(0x00ff00, image.getRGB(pixel(500), pixel(500)) & 0xffffff);
+    }
+  }
+
+  /**
+   * Paints the panel into an image.
+   *
+   * @param rendered true to paint it through a rendered snapshot
+   * @return image
+   */
+  private BufferedImage paint(boolean rendered) {
+    panel.setSnapshotID(rendered ? "snapshot" : null);
+    BufferedImage image = new BufferedImage(SIZE, SIZE, BufferedImage.TYPE_INT_RGB);
+    Graphics2D g = image.createGraphics();
+    g.setClip(0, 0, SIZE, SIZE);
+    panel.paintComponent(g);
+    g.dispose();
+    return image;
+  }
+
+  /**
+   * Returns the pixel a coordinate of the photo is drawn in.
+   *
+   * @param coordinate coordinate of the photo
+   * @return coordinate of the pixel
+   */
+  private static int pixel(double coordinate) {
+    return (int) Math.floor(coordinate * SCALE);
+  }
+}
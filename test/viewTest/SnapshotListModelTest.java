@@ -0,0 +1,160 @@
+package viewTest;
+
+import static org.junit.Assert.*;
+
+import controller.ISnapshotSource;
+import java.util.ArrayList;
+import java.util.List;
+import javax.swing.event.ListDataEvent;
+import javax.swing.event.ListDataListener;
+import org.junit.Before;
+import org.junit.Test;
+import view.GUI.SnapshotListModel;
+import view.IPhotoAlbumView;
+
+/**
+ * Tests SnapshotListModel on its own, with a snapshot source that counts how many snapshots
+ * are read from it.
+ */
+public class SnapshotListModelTest {
+  private SnapshotListModel listModel;
+  private List<String> descriptions;
+  private int reads;
+  private List<String> events;
+
+  @Before
+  public void setUp() {
+    descriptions = new ArrayList<>();
+    for (int i = 0; i < 100000; i++) {
+      descriptions.add(i % 2 == 0 ? "Even step " + i : "Odd step " + i);
+    }
+    listModel = new SnapshotListModel();
+    events = new ArrayList<>();
+    listModel.addListDataListener(new ListDataListener() {
+      @Override
+      public void intervalAdded(ListDataEvent e) {
+        events.add("added " + e.getIndex0() + "-" + e.getIndex1());
+      }
+
+      @Override
+      public void intervalRemoved(ListDataEvent e) {
+        events.add("removed " + e.getIndex0() + "-" + e.getIndex1());
+      }
+
+      @Override
+      public void contentsChanged(ListDataEvent e) {
+        events.add("changed " + e.getIndex0() + "-" + e.getIndex1());
+      }
+    });
+    listModel.setSource(new ISnapshotSource() {
+      @Override
+      public int getSnapshotCount() {
+        return descriptions.size();
+      }
+
+      @Override
+      public String getSnapshotID(int index) {
+        reads++;
+        return "id" + index;
+      }
+
+      @Override
+      public String getSnapshotDescription(int index) {
+        reads++;
+        return descriptions.get(index);
+      }
+
+      @Override
+      public void drawSnapshotAt(int index, IPhotoAlbumView target) {
+      }
+    });
+  }
+
+  /**
+   * Tests that the snapshots are only read from the source when they are asked for.
+   */
+  @Test
+  public void testLazy() {
+    assertEquals(100000, listModel.getSize());
+    assertEquals(0, reads);
+    assertEquals("id99999", listModel.getElementAt(99999));
+    assertEquals("Odd step 5", listModel.getDescriptionAt(5));
+    assertEquals(2, reads);
+    assertEquals("[added 0-99999]", events.toString());
+  }
+
+  /**
+   * Tests that snapshots added to the source are listed after a refresh.
+   */
+  @Test
+  public void testRefresh() {
+    descriptions.add("Last step");
+    assertEquals(100000, listModel.getSize());
+    listModel.refresh();
+    assertEquals(100001, listModel.getSize());
+    assertEquals("id100000", listModel.getElementAt(100000));
+    assertEquals("added 100000-100000", events.get(1));
+    //Nothing changes without new snapshots.
+    listModel.refresh();
+    assertEquals(2, events.size());
+  }
+
+  /**
+   * Tests filtering by description and by ID, ignoring case.
+   */
+  @Test
+  public void testFilter() {
+    listModel.setFilter("ODD");
+    assertEquals(50000, listModel.getSize());
+    assertEquals("id1", listModel.getElementAt(0));
+    assertEquals(3, listModel.getSnapshotIndex(1));
+    assertEquals(1, listModel.getListIndex(3));
+    assertEquals(-1, listModel.getListIndex(2));
+
+    //Narrowing the filter only checks the snapshots that matched.
+    reads = 0;
+    listModel.setFilter("odd step 9999");
+    assertEquals(6, listModel.getSize());
+    assertEquals("id9999", listModel.getElementAt(0));
+    assertEquals("id99991", listModel.getElementAt(1));
+    assertEquals("id99999", listModel.getElementAt(5));
+    assertTrue(reads <= 2 * 50000);
+
+    //Filtering by ID.
+    listModel.setFilter("ID42");
+    assertEquals("id42", listModel.getElementAt(0));
+    assertEquals(1111, listModel.getSize());
+
+    //New snapshots are filtered too.
+    descriptions.add("Odd one");
+    listModel.setFilter("odd one");
+    assertEquals(0, listModel.getSize());
+    listModel.refresh();
+    assertEquals(1, listModel.getSize());
+    assertEquals(100000, listModel.getSnapshotIndex(0));
+
+    listModel.setFilter("");
+    assertEquals(100001, listModel.getSize());
+    assertEquals(5, listModel.getListIndex(5));
+  }
+
+  /**
+   * Tests the failing cases of the list model.
+   */
+  @Test
+  public void testFail() {
+    try {
+      listModel.setFilter(null);
+      fail("Expected IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      assertEquals("Parameter can't be null", e.getMessage());
+    }
+    listModel.setFilter("nothing matches this");
+    try {
+      listModel.getSnapshotIndex(0);
+      fail("Expected IndexOutOfBoundsException");
+    } catch (IndexOutOfBoundsException e) {
+      assertEquals("No snapshot at position 0", e.getMessage());
+    }
+  }
+}